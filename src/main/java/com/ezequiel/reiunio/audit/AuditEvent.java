@@ -0,0 +1,20 @@
+package com.ezequiel.reiunio.audit;
+
+import java.time.LocalDateTime;
+
+import com.ezequiel.reiunio.enums.ActionType;
+
+/**
+ * Immutable audit entry waiting to be written to the {@code audit_logs} table.
+ * Only the user id is kept, so queued events hold no reference to managed entities.
+ *
+ * @param userId the ID of the user who performed the action
+ * @param changeDateTime the moment of the change
+ * @param actionType the type of action performed
+ * @param affectedEntity the name of the affected entity
+ * @param entityId the ID of the affected entity, if any
+ * @param description the description of the change
+ */
+public record AuditEvent(Long userId, LocalDateTime changeDateTime, ActionType actionType,
+                         String affectedEntity, Long entityId, String description) {
+}
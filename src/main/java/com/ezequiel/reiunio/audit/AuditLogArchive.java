@@ -0,0 +1,547 @@
+package com.ezequiel.reiunio.audit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.entity.AuditLog;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.ActionType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold storage for audit entries moved out of the {@code audit_logs} table.
+ *
+ * <p>Each archived month is one gzip-compressed NDJSON file, in the format of
+ * {@link AuditLogExporter}, with the newest entries first, plus a small summary file holding
+ * the number of entries per action type and entity. Searches go through the months newest first
+ * and use the summaries to skip whole months that the requested page does not reach, so only
+ * the files that contribute entries are decompressed; filters the summaries do not count, such as
+ * the user or the entity ID, read every month in range. Files are written to a temporary name
+ * and moved into place, so a crash never leaves a half-written month behind.</p>
+ */
+@Component
+@Slf4j
+public class AuditLogArchive {
+
+    private static final String PREFIX = "audit-logs-";
+    private static final String DATA_SUFFIX = ".ndjson.gz";
+    private static final String SUMMARY_SUFFIX = ".summary.json";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Entry counts of an archived month.
+     *
+     * @param month the archived month
+     * @param entries the number of entries in the month
+     * @param counts the number of entries per action type and affected entity, keyed by {@link #key}
+     */
+    public record Summary(YearMonth month, long entries, Map<String, Long> counts) {
+
+        static String key(String actionType, String entity) {
+            return actionType + "|" + entity;
+        }
+
+        long count(ActionType actionType, String entity) {
+            if (actionType == null && entity == null) {
+                return entries;
+            }
+            return counts.entrySet().stream()
+                    .filter(e -> {
+                        String[] parts = e.getKey().split("\\|", 2);
+                        return (actionType == null || actionType.name().equals(parts[0]))
+                                && (entity == null || entity.equals(parts[1]));
+                    })
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+
+    /**
+     * Filters of an archive search; null filters match every entry.
+     *
+     * @param userId     the user who performed the action
+     * @param actionType the action type
+     * @param entity     the affected entity
+     * @param entityId   the ID of the affected entity
+     * @param startDate  the lower bound of the change date, inclusive
+     * @param endDate    the upper bound of the change date, inclusive
+     */
+    public record Query(Long userId, ActionType actionType, String entity, Long entityId,
+                        LocalDateTime startDate, LocalDateTime endDate) {
+
+        /**
+         * Creates a query on the filters of the audit log list.
+         *
+         * @param actionType optional action type filter
+         * @param entity     optional affected entity filter
+         * @param startDate  optional lower bound of the change date, inclusive
+         * @param endDate    optional upper bound of the change date, inclusive
+         * @return the query
+         */
+        public static Query of(ActionType actionType, String entity, LocalDateTime startDate, LocalDateTime endDate) {
+            return new Query(null, actionType, entity, null, startDate, endDate);
+        }
+
+        /**
+         * Creates a query matching every entry.
+         *
+         * @return the query
+         */
+        public static Query all() {
+            return of(null, null, null, null);
+        }
+
+        /**
+         * Tells whether the month summaries can count the matching entries of whole months.
+         */
+        boolean summarized() {
+            return userId == null && entityId == null;
+        }
+    }
+
+    /**
+     * Receives the archived entries of a search.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Handles one entry.
+         *
+         * @param entry the entry, in the NDJSON format of {@link AuditLogExporter}
+         * @throws IOException if the entry cannot be handled
+         */
+        void accept(JsonNode entry) throws IOException;
+    }
+
+    /**
+     * Writes the entries of a month to the archive.
+     */
+    @FunctionalInterface
+    public interface MonthWriter {
+        /**
+         * Writes the entries as NDJSON, newest first.
+         *
+         * @param output the uncompressed stream to write to
+         * @throws IOException if the stream cannot be written
+         */
+        void write(OutputStream output) throws IOException;
+    }
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final NavigableMap<YearMonth, Summary> months = new ConcurrentSkipListMap<>();
+
+    public AuditLogArchive(ObjectMapper objectMapper,
+                           @Value("${app.audit.archive.dir:audit-archive}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory).toAbsolutePath();
+    }
+
+    /**
+     * Loads the summaries of the months already archived.
+     */
+    @PostConstruct
+    public void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUMMARY_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    Summary summary = objectMapper.readValue(file.toFile(), Summary.class);
+                    months.put(summary.month(), summary);
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable audit archive summary {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not list audit archive {}: {}", directory, e.getMessage());
+        }
+        log.info("Audit archive has {} months in {}", months.size(), directory);
+    }
+
+    /**
+     * Archives a month. If the month was archived before, the entries already in the archive
+     * that the writer did not produce again are kept after the new ones.
+     *
+     * @param month the month being archived
+     * @param writer writes the entries of the month, newest first
+     * @return the summary of the archived month
+     * @throws IOException if the archive cannot be written
+     */
+    public Summary store(YearMonth month, MonthWriter writer) throws IOException {
+        Files.createDirectories(directory);
+        Path data = directory.resolve(PREFIX + month + DATA_SUFFIX);
+        Path summaryFile = directory.resolve(PREFIX + month + SUMMARY_SUFFIX);
+        Path tempData = Files.createTempFile(directory, PREFIX + month, ".tmp");
+        Path tempSummary = Files.createTempFile(directory, PREFIX + month, ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempData), BUFFER_SIZE)) {
+                writer.write(out);
+            }
+            if (Files.exists(data)) {
+                mergePrevious(data, tempData);
+            }
+            Summary summary = summarize(month, tempData);
+            objectMapper.writeValue(tempSummary.toFile(), summary);
+            Files.move(tempData, data, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempSummary, summaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            months.put(month, summary);
+            return summary;
+        } finally {
+            Files.deleteIfExists(tempData);
+            Files.deleteIfExists(tempSummary);
+        }
+    }
+
+    /**
+     * Returns the archived months, most recent first.
+     *
+     * @return the archived months
+     */
+    public List<YearMonth> getMonths() {
+        return new ArrayList<>(months.descendingKeySet());
+    }
+
+    /**
+     * Counts the archived entries matching a query.
+     *
+     * @param query the filters
+     * @return the number of matching entries
+     * @throws IOException if an archive file cannot be read
+     */
+    public long count(Query query) throws IOException {
+        long total = 0;
+        for (Summary summary : months.descendingMap().values()) {
+            if (overlaps(summary.month(), query)) {
+                total += summarized(summary.month(), query)
+                        ? summary.count(query.actionType(), query.entity())
+                        : scan(summary.month(), query, Long.MAX_VALUE, 0, null);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds archived entries matching a query, newest first.
+     *
+     * @param query  the filters
+     * @param offset the number of matching entries to skip
+     * @param limit  the maximum number of entries to return
+     * @return the matching entries, with a detached user holding the archived user details
+     * @throws IOException if an archive file cannot be read
+     */
+    public List<AuditLog> find(Query query, long offset, int limit) throws IOException {
+        List<AuditLog> result = new ArrayList<>();
+        long skip = offset;
+        for (Summary summary : months.descendingMap().values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (!overlaps(summary.month(), query)) {
+                continue;
+            }
+            if (summarized(summary.month(), query)) {
+                long matching = summary.count(query.actionType(), query.entity());
+                if (skip >= matching) {
+                    // The whole month comes before the requested page
+                    skip -= matching;
+                    continue;
+                }
+            }
+            long matched = scan(summary.month(), query, skip, limit, result);
+            skip = Math.max(0, skip - matched);
+        }
+        return result;
+    }
+
+    /**
+     * Reads every archived entry matching a query, in order of change date and ID. Entries are
+     * handed over one by one, so memory use does not depend on the size of the archive; listing
+     * them oldest first stages each month uncompressed in the archive directory, as the files
+     * hold the newest entries first.
+     *
+     * @param query       the filters
+     * @param newestFirst whether to read the most recent entries first
+     * @param consumer    receives the matching entries
+     * @return the number of matching entries
+     * @throws IOException if an archive file cannot be read or the consumer fails
+     */
+    public long forEach(Query query, boolean newestFirst, EntryConsumer consumer) throws IOException {
+        long matched = 0;
+        List<YearMonth> ordered = newestFirst ? getMonths() : new ArrayList<>(months.keySet());
+        for (YearMonth month : ordered) {
+            if (!overlaps(month, query)) {
+                continue;
+            }
+            if (newestFirst) {
+                try (BufferedReader reader = open(dataFile(month))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        matched += accept(line, query, consumer);
+                    }
+                }
+            } else {
+                matched += forEachReversed(month, query, consumer);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Reads a month, skipping the first matching entries and collecting the following ones.
+     *
+     * @return the number of matching entries read
+     */
+    private long scan(YearMonth month, Query query, long skip, int limit, List<AuditLog> result) throws IOException {
+        long matched = 0;
+        try (BufferedReader reader = open(dataFile(month))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                if (!matches(node, query)) {
+                    continue;
+                }
+                matched++;
+                if (result != null && matched > skip) {
+                    result.add(toAuditLog(node));
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    private int accept(String line, Query query, EntryConsumer consumer) throws IOException {
+        if (line.isBlank()) {
+            return 0;
+        }
+        JsonNode node = objectMapper.readTree(line);
+        if (!matches(node, query)) {
+            return 0;
+        }
+        consumer.accept(node);
+        return 1;
+    }
+
+    /**
+     * Reads a month oldest first: decompresses it to a temporary file, noting where each line
+     * starts, and reads the lines back from the last one.
+     */
+    private long forEachReversed(YearMonth month, Query query, EntryConsumer consumer) throws IOException {
+        Path staged = Files.createTempFile(directory, PREFIX + month, ".tmp");
+        try {
+            long[] starts = new long[1024];
+            int lines = 1;
+            long position = 0;
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(dataFile(month)), BUFFER_SIZE);
+                 OutputStream output = Files.newOutputStream(staged)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    output.write(buffer, 0, read);
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') {
+                            if (lines == starts.length) {
+                                starts = Arrays.copyOf(starts, lines * 2);
+                            }
+                            starts[lines++] = position + i + 1;
+                        }
+                    }
+                    position += read;
+                }
+            }
+            long matched = 0;
+            try (FileChannel channel = FileChannel.open(staged, StandardOpenOption.READ)) {
+                for (int line = lines - 1; line >= 0; line--) {
+                    long end = line + 1 < lines ? starts[line + 1] - 1 : position;
+                    if (end <= starts[line]) {
+                        continue;
+                    }
+                    ByteBuffer bytes = ByteBuffer.allocate((int) (end - starts[line]));
+                    while (bytes.hasRemaining() && channel.read(bytes, starts[line] + bytes.position()) > 0) {
+                        // Read the whole line
+                    }
+                    matched += accept(new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8),
+                            query, consumer);
+                }
+            }
+            return matched;
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private Path dataFile(YearMonth month) {
+        return directory.resolve(PREFIX + month + DATA_SUFFIX);
+    }
+
+    private void mergePrevious(Path previous, Path current) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        try (BufferedReader reader = open(current)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    ids.add(objectMapper.readTree(line).path("id").asLong());
+                }
+            }
+        }
+        Path merged = Files.createTempFile(directory, "merge", ".tmp");
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(merged), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+                for (Path file : List.of(current, previous)) {
+                    try (BufferedReader reader = open(file)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.isBlank()) {
+                                continue;
+                            }
+                            if (file == previous && ids.contains(objectMapper.readTree(line).path("id").asLong())) {
+                                continue;
+                            }
+                            out.write(line);
+                            out.write('\n');
+                        }
+                    }
+                }
+            }
+            Files.move(merged, current, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(merged);
+        }
+    }
+
+    private Summary summarize(YearMonth month, Path file) throws IOException {
+        long entries = 0;
+        Map<String, Long> counts = new HashMap<>();
+        try (BufferedReader reader = open(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                entries++;
+                counts.merge(Summary.key(node.path("actionType").asText(), node.path("affectedEntity").asText()),
+                        1L, Long::sum);
+            }
+        }
+        return new Summary(month, entries, counts);
+    }
+
+    private BufferedReader open(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8));
+    }
+
+    private static boolean matches(JsonNode node, Query query) {
+        if (query.userId() != null && query.userId() != node.path("userId").asLong(-1)) {
+            return false;
+        }
+        if (query.actionType() != null && !query.actionType().name().equals(node.path("actionType").asText())) {
+            return false;
+        }
+        if (query.entity() != null && !query.entity().equals(node.path("affectedEntity").asText())) {
+            return false;
+        }
+        if (query.entityId() != null && query.entityId() != node.path("entityId").asLong(-1)) {
+            return false;
+        }
+        if (query.startDate() == null && query.endDate() == null) {
+            return true;
+        }
+        LocalDateTime changed = parseDate(node.path("changeDateTime").asText(null));
+        return changed != null
+                && (query.startDate() == null || !changed.isBefore(query.startDate()))
+                && (query.endDate() == null || !changed.isAfter(query.endDate()));
+    }
+
+    private static AuditLog toAuditLog(JsonNode node) {
+        User user = User.builder()
+                .id(node.path("userId").isNull() ? null : node.path("userId").asLong())
+                .username(node.path("username").asText(null))
+                .firstName(node.path("firstName").asText(null))
+                .lastName(node.path("lastName").asText(null))
+                .build();
+        String actionType = node.path("actionType").asText(null);
+        return AuditLog.builder()
+                .id(node.path("id").asLong())
+                .user(user)
+                .changeDateTime(parseDate(node.path("changeDateTime").asText(null)))
+                .actionType(actionType != null ? ActionType.valueOf(actionType) : null)
+                .affectedEntity(node.path("affectedEntity").asText(null))
+                .entityId(node.path("entityId").isNull() || node.path("entityId").isMissingNode()
+                        ? null : node.path("entityId").asLong())
+                .description(node.path("description").asText(null))
+                .build();
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        try {
+            return value == null ? null : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean overlaps(YearMonth month, Query query) {
+        LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+        LocalDateTime nextMonth = month.plusMonths(1).atDay(1).atStartOfDay();
+        return (query.startDate() == null || query.startDate().isBefore(nextMonth))
+                && (query.endDate() == null || !query.endDate().isBefore(monthStart));
+    }
+
+    /**
+     * Tells whether the summary of a month counts the entries matching a query, which requires
+     * the date range to cover the whole month.
+     */
+    private static boolean summarized(YearMonth month, Query query) {
+        LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+        LocalDateTime nextMonth = month.plusMonths(1).atDay(1).atStartOfDay();
+        return query.summarized()
+                && (query.startDate() == null || !query.startDate().isAfter(monthStart))
+                && (query.endDate() == null || !query.endDate().isBefore(nextMonth));
+    }
+}
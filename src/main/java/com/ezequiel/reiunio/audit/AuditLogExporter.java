@@ -0,0 +1,348 @@
+package com.ezequiel.reiunio.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.enums.ActionType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams audit entries matching a filter to an output stream as CSV or NDJSON.
+ *
+ * <p>Rows are read through a forward-only, read-only JDBC cursor and written as soon as they
+ * arrive, so memory use does not depend on the number of entries exported. On MySQL and MariaDB
+ * the driver is asked to stream the result set row by row; other databases use the configured
+ * fetch size. Entries are ordered by date and ID, oldest first unless asked otherwise.</p>
+ *
+ * <p>Exports for users also read the months moved to {@link AuditLogArchive}, which are older
+ * than every entry of the table, so they are written before the table rows. The users of
+ * archived entries are the ones recorded when they were archived.</p>
+ */
+@Component
+@Slf4j
+public class AuditLogExporter {
+
+    /**
+     * Output formats of the export.
+     */
+    public enum Format {
+        /** Comma separated values with a header row */
+        CSV("text/csv", "csv"),
+        /** One JSON object per line */
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String[] COLUMNS = {
+        "id", "changeDateTime", "actionType", "affectedEntity", "entityId", "userId", "username", "firstName",
+        "lastName", "description"
+    };
+
+    private static final String SELECT_SQL = "SELECT a.id, a.change_date_time, a.action_type, a.affected_entity, " +
+            "a.entity_id, a.user_id, u.username, u.first_name, u.last_name, a.description " +
+            "FROM audit_logs a LEFT JOIN users u ON u.id = a.user_id";
+
+    /** Position of {@code change_date_time} in the select list */
+    private static final int DATE_COLUMN = 2;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditLogArchive auditLogArchive;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public AuditLogExporter(JdbcTemplate jdbcTemplate,
+                            AuditLogArchive auditLogArchive,
+                            ObjectMapper objectMapper,
+                            @Value("${app.audit.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditLogArchive = auditLogArchive;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every entry matching the filters, archived months included, oldest first. The
+     * stream is flushed but not closed.
+     *
+     * @param actionType optional action type filter
+     * @param entity     optional affected entity filter
+     * @param startDate  optional lower bound of the change date, inclusive
+     * @param endDate    optional upper bound of the change date, inclusive
+     * @param format     the output format
+     * @param output     the stream to write to
+     * @return the number of entries written
+     * @throws IOException if the output cannot be written
+     */
+    public long export(ActionType actionType, String entity, LocalDateTime startDate, LocalDateTime endDate,
+                       Format format, OutputStream output) throws IOException {
+        return export(actionType, entity, startDate, endDate, false, false, true, format, output);
+    }
+
+    /**
+     * Writes every entry of the table matching the filters, leaving the archive out. The
+     * stream is flushed but not closed.
+     *
+     * @param actionType     optional action type filter
+     * @param entity         optional affected entity filter
+     * @param startDate      optional lower bound of the change date, inclusive
+     * @param endDate        optional upper bound of the change date
+     * @param endExclusive   whether entries exactly at the upper bound are left out
+     * @param newestFirst    whether to write the most recent entries first
+     * @param format         the output format
+     * @param output         the stream to write to
+     * @return the number of entries written
+     * @throws IOException if the output cannot be written
+     */
+    public long export(ActionType actionType, String entity, LocalDateTime startDate, LocalDateTime endDate,
+                       boolean endExclusive, boolean newestFirst, Format format, OutputStream output)
+            throws IOException {
+        return export(actionType, entity, startDate, endDate, endExclusive, newestFirst, false, format, output);
+    }
+
+    private long export(ActionType actionType, String entity, LocalDateTime startDate, LocalDateTime endDate,
+                        boolean endExclusive, boolean newestFirst, boolean withArchive, Format format,
+                        OutputStream output) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (actionType != null) {
+            conditions.add("a.action_type = ?");
+            params.add(actionType.name());
+        }
+        if (entity != null) {
+            conditions.add("a.affected_entity = ?");
+            params.add(entity);
+        }
+        if (startDate != null) {
+            conditions.add("a.change_date_time >= ?");
+            params.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            conditions.add(endExclusive ? "a.change_date_time < ?" : "a.change_date_time <= ?");
+            params.add(Timestamp.valueOf(endDate));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(newestFirst ? " ORDER BY a.change_date_time DESC, a.id DESC" : " ORDER BY a.change_date_time, a.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+        AuditLogArchive.Query archived = AuditLogArchive.Query.of(actionType, entity, startDate, endDate);
+        long[] count = {0};
+        try {
+            rowWriter.begin();
+            if (withArchive && !newestFirst) {
+                count[0] += auditLogArchive.forEach(archived, false, rowWriter::write);
+            }
+            jdbcTemplate.query(connection -> prepare(connection, sql.toString(), params), rs -> {
+                try {
+                    rowWriter.write(rs);
+                    count[0]++;
+                } catch (IOException e) {
+                    // Most likely the client went away; give up on the rest of the rows
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (withArchive && newestFirst) {
+                count[0] += auditLogArchive.forEach(archived, true, rowWriter::write);
+            }
+            rowWriter.end();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.debug("Exported {} audit entries as {}", count[0], format);
+        return count[0];
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, List<Object> params) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        // Connector/J only streams instead of buffering the whole result when asked for this fetch size
+        ps.setFetchSize(product.contains("mysql") || product.contains("mariadb") ? Integer.MIN_VALUE : fetchSize);
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+        return ps;
+    }
+
+    private interface RowWriter {
+        void begin() throws IOException;
+
+        void write(ResultSet rs) throws IOException;
+
+        void write(JsonNode archived) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException {
+            try {
+                for (int i = 1; i <= COLUMNS.length; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+                    writer.write(escape(text(rs, i)));
+                }
+                writer.write("\r\n");
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(JsonNode archived) throws IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                JsonNode value = archived.path(COLUMNS[i]);
+                writer.write(escape(value.isNull() || value.isMissingNode() ? null : value.asText()));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end() {
+        }
+
+        /**
+         * Quotes a field when needed, and neutralizes values a spreadsheet would run as a formula.
+         */
+        private static String escape(String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+            return value;
+        }
+    }
+
+    private final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        JsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // Each object ends with its own line break instead of Jackson's space separator
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+                generator.writeStringField(COLUMNS[1], text(rs, DATE_COLUMN));
+                generator.writeStringField(COLUMNS[2], rs.getString(3));
+                generator.writeStringField(COLUMNS[3], rs.getString(4));
+                writeNullableLong(COLUMNS[4], rs, 5);
+                writeNullableLong(COLUMNS[5], rs, 6);
+                generator.writeStringField(COLUMNS[6], rs.getString(7));
+                generator.writeStringField(COLUMNS[7], rs.getString(8));
+                generator.writeStringField(COLUMNS[8], rs.getString(9));
+                generator.writeStringField(COLUMNS[9], rs.getString(10));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(JsonNode archived) throws IOException {
+            generator.writeTree(archived);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.close();
+        }
+
+        private void writeNullableLong(String name, ResultSet rs, int column) throws IOException, SQLException {
+            long value = rs.getLong(column);
+            if (rs.wasNull()) {
+                generator.writeNullField(name);
+            } else {
+                generator.writeNumberField(name, value);
+            }
+        }
+    }
+
+    private static String text(ResultSet rs, int column) throws SQLException {
+        if (column == DATE_COLUMN) {
+            Timestamp timestamp = rs.getTimestamp(column);
+            return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+        }
+        return rs.getString(column);
+    }
+}
@@ -0,0 +1,213 @@
+package com.ezequiel.reiunio.audit;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@code audit_logs} partitioned by month on MySQL and MariaDB.
+ *
+ * <p>The table is converted once, when the application is ready: MySQL does not allow foreign
+ * keys on partitioned tables, so the one to {@code users} is dropped (the user service deletes
+ * the entries of a user along with it, and {@link AuditLogWriter} skips entries whose user is
+ * gone), and the change date joins the primary key, as
+ * every unique key must include the partitioning column. Each month then lives in its own
+ * {@code RANGE COLUMNS} partition named {@code pYYYYMM}, so queries filtered by change date
+ * only read the months they cover, and the retention job removes a month by dropping its
+ * partition instead of deleting its rows. A daily job keeps {@code months-ahead} empty
+ * partitions ready so that new entries never land in the catch-all {@code pmax} partition.</p>
+ *
+ * <p>On other databases, such as H2 in tests, or with partitioning disabled, the table stays
+ * unpartitioned and the retention job deletes archived months row by row. The entity mapping
+ * declares no foreign key so that the schema update never adds one to a partitioned table;
+ * unpartitioned tables get theirs from this class on startup instead.</p>
+ */
+@Component
+@Slf4j
+public class AuditLogPartitionManager {
+
+    private static final String TABLE = "audit_logs";
+    private static final String CATCH_ALL = "pmax";
+    private static final String USER_FOREIGN_KEY = "fk_audit_logs_user";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM", Locale.ROOT);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+
+    private volatile boolean partitioned;
+
+    public AuditLogPartitionManager(JdbcTemplate jdbcTemplate,
+                                    @Value("${app.audit.partitioning.enabled:true}") boolean enabled,
+                                    @Value("${app.audit.partitioning.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(monthsAhead, 1);
+    }
+
+    /**
+     * Partitions the table if needed once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        boolean supported = supportsPartitioning();
+        if (!enabled || !supported) {
+            log.info("Audit log partitioning disabled or not supported by the database");
+            if (!supported || partitionNames().isEmpty()) {
+                addUserForeignKey();
+            }
+            return;
+        }
+        try {
+            if (partitionNames().isEmpty()) {
+                partitionTable();
+            }
+            partitioned = true;
+            addFuturePartitions();
+        } catch (RuntimeException e) {
+            log.error("Could not partition {}: {}", TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the partitions for the coming months.
+     */
+    @Scheduled(cron = "${app.audit.partitioning.cron:0 0 3 * * *}")
+    public void addFuturePartitions() {
+        if (!partitioned) {
+            return;
+        }
+        try {
+            YearMonth last = partitionNames().stream()
+                    .filter(name -> !CATCH_ALL.equals(name))
+                    .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                    .max(YearMonth::compareTo)
+                    .orElse(YearMonth.now().minusMonths(1));
+            YearMonth target = YearMonth.now().plusMonths(monthsAhead);
+            for (YearMonth month = last.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL + " INTO ("
+                        + partition(month) + ", PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE))");
+                log.info("Added audit log partition {}", month.format(PARTITION_NAME));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not add audit log partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the partition holding a month, discarding its entries.
+     *
+     * @param month the month to drop
+     * @return false if the table has no partition for that month and the entries must be deleted
+     */
+    public boolean dropPartition(YearMonth month) {
+        String name = month.format(PARTITION_NAME);
+        if (!partitioned || !partitionNames().contains(name)) {
+            return false;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+        log.info("Dropped audit log partition {}", name);
+        return true;
+    }
+
+    /**
+     * Returns whether the table is partitioned by month.
+     *
+     * @return true once the table has been partitioned
+     */
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * Adds the foreign key to {@code users} if the table has none, first deleting the entries
+     * of users deleted while it was missing.
+     */
+    private void addUserForeignKey() {
+        try {
+            if (hasUserForeignKey()) {
+                return;
+            }
+            int orphaned = jdbcTemplate.update("DELETE FROM " + TABLE
+                    + " WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.id = " + TABLE + ".user_id)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + USER_FOREIGN_KEY
+                    + " FOREIGN KEY (user_id) REFERENCES users (id)");
+            log.info("Added foreign key from {} to users ({} entries of deleted users removed)", TABLE, orphaned);
+        } catch (RuntimeException e) {
+            log.error("Could not add foreign key from {} to users: {}", TABLE, e.getMessage());
+        }
+    }
+
+    private boolean hasUserForeignKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT) : TABLE;
+            try (ResultSet keys = metaData.getImportedKeys(connection.getCatalog(), connection.getSchema(), table)) {
+                while (keys.next()) {
+                    if ("users".equalsIgnoreCase(keys.getString("PKTABLE_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+
+    private void partitionTable() {
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS "
+                        + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = ?", String.class, TABLE);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY `" + foreignKey + "`");
+        }
+        jdbcTemplate.update("UPDATE " + TABLE + " SET change_date_time = CURRENT_TIMESTAMP(6) WHERE change_date_time IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY change_date_time DATETIME(6) NOT NULL, "
+                + "DROP PRIMARY KEY, ADD PRIMARY KEY (id, change_date_time)");
+
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(change_date_time) FROM " + TABLE, Timestamp.class);
+        YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.append(partition(month)).append(", ");
+        }
+        partitions.append("PARTITION ").append(CATCH_ALL).append(" VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(change_date_time) ("
+                + partitions + ")");
+        log.info("Partitioned {} by month from {} to {}", TABLE, first, last);
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE);
+    }
+
+    private static String partition(YearMonth month) {
+        LocalDateTime upperBound = month.plusMonths(1).atDay(1).atStartOfDay();
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + upperBound.toLocalDate() + " 00:00:00')";
+    }
+
+    private boolean supportsPartitioning() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return product != null
+                && (product.toLowerCase(Locale.ROOT).contains("mysql") || product.toLowerCase(Locale.ROOT).contains("mariadb"));
+    }
+}
@@ -0,0 +1,514 @@
+package com.ezequiel.reiunio.audit;
+
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous, batched writer for audit entries.
+ *
+ * <p>Callers only put an {@link AuditEvent} on a bounded in-memory buffer, once their
+ * transaction commits, so changes that roll back leave no audit entry behind. A single writer
+ * thread drains it and inserts the entries with one JDBC batch per flush, either when
+ * {@code app.audit.async.batch-size} entries are waiting or when the oldest waiting entry
+ * is {@code app.audit.async.flush-interval-ms} old.</p>
+ *
+ * <p>When the buffer is full the configured {@link Backpressure} policy applies. Entries
+ * that cannot be written, because the database is failing or because the buffer overflowed,
+ * are appended to a spill file (one JSON document per line) and replayed once the database
+ * accepts writes again, including after a restart.</p>
+ *
+ * <p>An entry may reach the database after its user was deleted, from the buffer or from the
+ * spill file. Entries are inserted with {@code INSERT ... SELECT} from {@code users}, so those
+ * insert nothing and are counted as discarded instead of failing the batch or leaving rows
+ * pointing at no user.</p>
+ *
+ * <p>Exposed metrics:
+ * <ul>
+ *   <li>{@code reiunio.audit.queue.depth} - entries waiting in the buffer</li>
+ *   <li>{@code reiunio.audit.flush.duration} - time spent inserting each batch</li>
+ *   <li>{@code reiunio.audit.flush.latency} - delay between logging an entry and its insert</li>
+ *   <li>{@code reiunio.audit.written}, {@code reiunio.audit.spilled}, {@code reiunio.audit.dropped}
+ *       - entries written, sent to the spill file and discarded</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class AuditLogWriter {
+
+    /**
+     * What to do with a new entry when the buffer is full.
+     */
+    public enum Backpressure {
+        /** Wait up to {@code block-timeout-ms} for room, then spill */
+        BLOCK,
+        /** Append the entry to the spill file straight away */
+        SPILL,
+        /** Discard the entry */
+        DROP
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO audit_logs " +
+            "(user_id, change_date_time, action_type, affected_entity, entity_id, description) " +
+            "SELECT id, ?, ?, ?, ?, ? FROM users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Backpressure backpressure;
+    private final long blockTimeoutMs;
+    private final Path spillFile;
+
+    private final BlockingQueue<Queued> queue;
+    private final Object spillLock = new Object();
+
+    private final Timer flushTimer;
+    private final Timer latencyTimer;
+    private final Counter writtenCounter;
+    private final Counter spilledCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private volatile boolean spillPending;
+    private Thread writerThread;
+
+    private record Queued(AuditEvent event, long enqueuedAtNanos) {
+    }
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.audit.async.enabled:true}") boolean enabled,
+                          @Value("${app.audit.async.queue-capacity:10000}") int queueCapacity,
+                          @Value("${app.audit.async.batch-size:200}") int batchSize,
+                          @Value("${app.audit.async.flush-interval-ms:500}") long flushIntervalMs,
+                          @Value("${app.audit.async.backpressure:BLOCK}") Backpressure backpressure,
+                          @Value("${app.audit.async.block-timeout-ms:100}") long blockTimeoutMs,
+                          @Value("${app.audit.async.spill-file:audit-spill.jsonl}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.backpressure = backpressure;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillFile = Paths.get(spillFile).toAbsolutePath();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("reiunio.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("reiunio.audit.flush.duration")
+                .description("Time spent inserting a batch of audit entries")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("reiunio.audit.flush.latency")
+                .description("Delay between logging an audit entry and writing it")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("reiunio.audit.written")
+                .description("Audit entries written to the database")
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("reiunio.audit.spilled")
+                .description("Audit entries sent to the spill file")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("reiunio.audit.dropped")
+                .description("Audit entries discarded because the buffer was full or their user was deleted")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the writer thread once the schema is in place, when asynchronous auditing is
+     * enabled. Entries logged before that simply wait in the buffer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Asynchronous audit writer started (batch size {}, flush interval {} ms, backpressure {})",
+                batchSize, flushIntervalMs, backpressure);
+    }
+
+    /**
+     * Stops the writer thread, flushing whatever is still buffered. Entries that cannot be
+     * written in time are spilled so they are replayed on the next start.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Queued> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            spill(events(leftover));
+        }
+    }
+
+    /**
+     * Queues an audit entry for writing, applying the backpressure policy when the buffer is full.
+     * Inside a transaction the entry is only queued once it commits, and discarded on rollback.
+     *
+     * @param event the entry to write
+     */
+    public void submit(AuditEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(AuditEvent event) {
+        Queued queued = new Queued(event, System.nanoTime());
+        if (queue.offer(queued)) {
+            return;
+        }
+        switch (backpressure) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(queued, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                spill(List.of(event));
+            }
+            case SPILL -> spill(List.of(event));
+            case DROP -> {
+                droppedCounter.increment();
+                log.warn("Audit buffer full, dropping entry: {}", event.description());
+            }
+        }
+    }
+
+    private void drainLoop() {
+        replaySpillFile();
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give the batch up to one flush interval to fill up, measured from its oldest entry
+                long deadline = first.enqueuedAtNanos() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Queued next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Queued> batch) {
+        List<AuditEvent> events = events(batch);
+        long written;
+        try {
+            written = flushTimer.recordCallable(() -> insert(events));
+        } catch (Exception e) {
+            log.error("Could not write {} audit entries, spilling them: {}", events.size(), e.getMessage());
+            spill(events);
+            return;
+        }
+        long now = System.nanoTime();
+        for (Queued queued : batch) {
+            latencyTimer.record(now - queued.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        writtenCounter.increment(written);
+        if (spillPending) {
+            // The database is accepting writes again, bring back what was spilled meanwhile
+            replaySpillFile();
+        }
+    }
+
+    /**
+     * Inserts the entries whose user still exists.
+     *
+     * @return the number of entries written
+     */
+    private long insert(List<AuditEvent> events) {
+        int[][] counts = transactionTemplate.execute(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(event.changeDateTime()));
+                    ps.setString(2, event.actionType().name());
+                    ps.setString(3, event.affectedEntity());
+                    if (event.entityId() != null) {
+                        ps.setLong(4, event.entityId());
+                    } else {
+                        ps.setNull(4, Types.BIGINT);
+                    }
+                    ps.setString(5, event.description());
+                    ps.setLong(6, event.userId());
+                }));
+        long orphaned = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers that rewrite the batch may only report success without a count
+                if (count == 0) {
+                    orphaned++;
+                }
+            }
+        }
+        if (orphaned > 0) {
+            droppedCounter.increment(orphaned);
+            log.warn("Discarded {} audit entries whose user no longer exists", orphaned);
+        }
+        return events.size() - orphaned;
+    }
+
+    private void spill(List<AuditEvent> events) {
+        synchronized (spillLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+                for (AuditEvent event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.newLine();
+                }
+                spillPending = true;
+                spilledCounter.increment(events.size());
+            } catch (IOException e) {
+                droppedCounter.increment(events.size());
+                log.error("Could not spill {} audit entries to {}: {}", events.size(), spillFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the spilled entries back to the database, one batch at a time from the end of the
+     * spill file, truncating the file after each batch commits. Only one batch is held in memory,
+     * and the lock on the file is released between batches, so entries spilled meanwhile are
+     * appended and replayed in turn. If the process stops between a commit and the truncation,
+     * that batch is written again on the next start.
+     *
+     * <p>Entries the database rejects, and lines that are not valid entries, are moved to a
+     * side file while replaying and put back in the spill file at the end, so they are retried
+     * on the next replay without being read again in this one.</p>
+     */
+    private void replaySpillFile() {
+        Path rejectedFile = spillFile.resolveSibling(spillFile.getFileName() + ".rejected");
+        long written = 0;
+        try {
+            boolean more = true;
+            while (more) {
+                synchronized (spillLock) {
+                    if (!Files.exists(spillFile)) {
+                        break;
+                    }
+                    try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        long start = tailStart(channel, batchSize);
+                        List<AuditEvent> events = new ArrayList<>(batchSize);
+                        List<String> rejected = new ArrayList<>();
+                        for (String line : readLines(channel, start)) {
+                            try {
+                                events.add(objectMapper.readValue(line, AuditEvent.class));
+                            } catch (JsonProcessingException e) {
+                                rejected.add(line);
+                            }
+                        }
+                        written += replay(events, rejected);
+                        if (!rejected.isEmpty()) {
+                            Files.write(rejectedFile, rejected, StandardCharsets.UTF_8,
+                                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+                        }
+                        channel.truncate(start);
+                        more = start > 0;
+                    }
+                    if (!more) {
+                        Files.delete(spillFile);
+                    }
+                }
+            }
+            spillPending = false;
+        } catch (Exception e) {
+            // Keep what is left of the file, it is retried after the next successful flush
+            spillPending = true;
+            log.warn("Could not replay spilled audit entries from {}: {}", spillFile, e.getMessage());
+        } finally {
+            writtenCounter.increment(written);
+            if (written > 0) {
+                log.info("Replayed {} spilled audit entries from {}", written, spillFile);
+            }
+            restoreRejected(rejectedFile);
+        }
+    }
+
+    /**
+     * Inserts a batch of spilled entries, one by one if the database rejects the batch.
+     *
+     * @param events the entries to insert
+     * @param rejected receives the entries the database rejects, as spill file lines
+     * @return the number of entries written
+     */
+    private long replay(List<AuditEvent> events, List<String> rejected) throws JsonProcessingException {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            return insert(events);
+        } catch (DataIntegrityViolationException e) {
+            long written = 0;
+            for (AuditEvent event : events) {
+                try {
+                    written += insert(List.of(event));
+                } catch (DataIntegrityViolationException rowError) {
+                    rejected.add(objectMapper.writeValueAsString(event));
+                }
+            }
+            return written;
+        }
+    }
+
+    private void restoreRejected(Path rejectedFile) {
+        synchronized (spillLock) {
+            if (!Files.exists(rejectedFile)) {
+                return;
+            }
+            try (FileChannel source = FileChannel.open(rejectedFile, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(spillFile, StandardOpenOption.CREATE,
+                         StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+                long size = source.size();
+                for (long position = 0; position < size; ) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            } catch (IOException e) {
+                log.error("Could not move rejected audit entries from {} back to {}: {}",
+                        rejectedFile, spillFile, e.getMessage());
+                return;
+            }
+            try {
+                Files.delete(rejectedFile);
+            } catch (IOException e) {
+                log.error("Could not delete {}: {}", rejectedFile, e.getMessage());
+            }
+            log.warn("Some spilled audit entries were rejected by the database and stay in {}", spillFile);
+        }
+    }
+
+    /**
+     * Finds where the last lines of the file start.
+     *
+     * @param channel the spill file
+     * @param lines the number of lines wanted
+     * @return the position of the first of those lines, 0 if the file has no more lines
+     */
+    private static long tailStart(FileChannel channel, int lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        int found = 0;
+        // A newline in the last byte ends the last line rather than starting a new one
+        long position = channel.size() - 1;
+        while (position > 0) {
+            int length = (int) Math.min(buffer.capacity(), position);
+            position -= length;
+            readFully(channel, buffer.clear().limit(length), position);
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n' && ++found == lines) {
+                    return position + i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static List<String> readLines(FileChannel channel, long start) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size() - start));
+        readFully(channel, buffer, start);
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(buffer.array(), StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(line.strip());
+            }
+        }
+        return lines;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Spill file truncated while reading it");
+            }
+        }
+    }
+
+    private static List<AuditEvent> events(List<Queued> batch) {
+        List<AuditEvent> events = new ArrayList<>(batch.size());
+        for (Queued queued : batch) {
+            events.add(queued.event());
+        }
+        return events;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ezequiel.reiunio.concurrency;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks addressed by key.
+ *
+ * <p>Every key maps to one of a power-of-two number of stripes, so work on the same key is
+ * serialized while work on different keys only contends when two keys happen to share a
+ * stripe. Memory stays bounded no matter how many keys are seen, unlike a lock per key.</p>
+ */
+public class StripedLocks {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * Creates the lock pool.
+     *
+     * @param stripes the minimum number of stripes; rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Lock[Math.max(size, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = this.stripes.length - 1;
+    }
+
+    /**
+     * Returns the lock guarding the given key.
+     *
+     * @param key the key to lock on
+     * @return the stripe lock for the key
+     */
+    public Lock get(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits so sequential ids do not cluster on a few stripes
+        hash ^= (hash >>> 16);
+        return stripes[hash & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -33,7 +33,9 @@ public class SecurityConfig {
                 .requestMatchers("/users/register").permitAll()
                 .requestMatchers("/api/users/check-username", "/api/users/check-email").permitAll()
                 .requestMatchers("/uploads/**").permitAll()
+                .requestMatchers("/avatars/**").permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/upload/**").authenticated()
                 .anyRequest().authenticated()
             )
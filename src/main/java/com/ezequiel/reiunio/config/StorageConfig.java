@@ -0,0 +1,55 @@
+package com.ezequiel.reiunio.config;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.ezequiel.reiunio.storage.BlobStore;
+import com.ezequiel.reiunio.storage.LocalBlobStore;
+import com.ezequiel.reiunio.storage.S3BlobStore;
+
+/**
+ * Selects where uploads are stored with {@code app.upload.store}: {@code local} (the default)
+ * keeps them in {@code app.upload.dir}, {@code s3} in an S3-compatible bucket configured with
+ * the {@code app.upload.s3.*} properties.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.upload.store", havingValue = "local", matchIfMissing = true)
+    public BlobStore localBlobStore(@Value("${app.upload.dir:uploads}") String uploadDir,
+                                    @Value("${app.upload.staging-dir:}") String stagingDir) {
+        return new LocalBlobStore(Paths.get(uploadDir), stagingDir.isEmpty() ? null : Paths.get(stagingDir));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.upload.store", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${app.upload.s3.endpoint}") URI endpoint,
+                                 @Value("${app.upload.s3.region:us-east-1}") String region,
+                                 @Value("${app.upload.s3.bucket}") String bucket,
+                                 @Value("${app.upload.s3.access-key}") String accessKey,
+                                 @Value("${app.upload.s3.secret-key}") String secretKey,
+                                 @Value("${app.upload.s3.key-prefix:uploads/}") String keyPrefix,
+                                 @Value("${app.upload.s3.path-style:false}") boolean pathStyle,
+                                 @Value("${app.upload.s3.part-size:8MB}") DataSize partSize,
+                                 @Value("${app.upload.s3.presigned-reads:false}") boolean presignedReads,
+                                 @Value("${app.upload.s3.presign-ttl:PT15M}") Duration presignTtl,
+                                 @Value("${app.upload.s3.staging-dir:${java.io.tmpdir}}") String stagingDir) {
+        S3BlobStore.Settings settings = new S3BlobStore.Settings(endpoint, region, bucket, accessKey, secretKey,
+                keyPrefix, pathStyle, partSize.toBytes(), presignedReads, presignTtl);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        return new S3BlobStore(settings, httpClient, Clock.systemUTC(), Paths.get(stagingDir));
+    }
+}
@@ -1,29 +1,33 @@
 package com.ezequiel.reiunio.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.ezequiel.reiunio.security.CurrentUserArgumentResolver;
+
+import lombok.RequiredArgsConstructor;
+
 /**
  * Configuration class to customize Spring MVC settings.
  */
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${app.upload.dir:uploads}")
-    private String uploadDir;
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
 
     /**
-     * Configures resource handlers to serve static and uploaded content.
+     * Configures resource handlers to serve static content.
+     * Uploaded files are served by {@link com.ezequiel.reiunio.controller.UploadFileController}.
      *
      * @param registry the ResourceHandlerRegistry to modify
      */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadDir + "/");
-
         registry.addResourceHandler("/css/**")
                 .addResourceLocations("classpath:/static/css/");
 
@@ -33,4 +37,14 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/images/**")
                 .addResourceLocations("classpath:/static/images/");
     }
+
+    /**
+     * Registers the resolver for {@code @CurrentUser} controller parameters.
+     *
+     * @param resolvers the list of argument resolvers to extend
+     */
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
 }
@@ -1,13 +1,19 @@
 package com.ezequiel.reiunio.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -15,10 +21,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.ezequiel.reiunio.audit.AuditLogExporter;
 import com.ezequiel.reiunio.entity.AuditLog;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.pagination.InvalidCursorException;
 import com.ezequiel.reiunio.service.AuditLogService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,6 +56,9 @@ public class AuditLogController {
      * @param endDate    optional filter end datetime
      * @param page       the page number to retrieve (default is 0)
      * @param size       the page size (default is 20; max is 100)
+     * @param cursor     opaque keyset cursor; when present the page number is ignored
+     * @param keyset     whether to use keyset (cursor) pagination instead of page numbers
+     * @param count      whether to count the total records in keyset mode
      * @return the name of the Thymeleaf view to render
      */
     @GetMapping
@@ -55,7 +68,10 @@ public class AuditLogController {
                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
                                 @RequestParam(defaultValue = "0") int page,
-                                @RequestParam(defaultValue = "20") int size) {
+                                @RequestParam(defaultValue = "20") int size,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(defaultValue = "false") boolean keyset,
+                                @RequestParam(defaultValue = "false") boolean count) {
 
         log.debug("Listing audit logs - page: {}, size: {}, actionType: {}, entity: {}, startDate: {}, endDate: {}", 
                  page, size, actionType, entity, startDate, endDate);
@@ -64,46 +80,75 @@ public class AuditLogController {
             size = 20;
         }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("changeDateTime").descending());
-        Page<AuditLog> auditLogsPage;
+        // Parse action type if provided
+        ActionType actionTypeEnum = null;
+        if (actionType != null && !actionType.isEmpty()) {
+            try {
+                actionTypeEnum = ActionType.valueOf(actionType.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid action type: {}", actionType);
+                actionTypeEnum = null;
+            }
+        }
 
-        try {
-            // Parse action type if provided
-            ActionType actionTypeEnum = null;
-            if (actionType != null && !actionType.isEmpty()) {
-                try {
-                    actionTypeEnum = ActionType.valueOf(actionType.toUpperCase());
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid action type: {}", actionType);
-                    actionTypeEnum = null;
-                }
+        // Normalize entity (convert empty string to null)
+        String normalizedEntity = (entity != null && entity.trim().isEmpty()) ? null : entity;
+
+        // Add filter attributes to model for form persistence
+        if (actionTypeEnum != null) {
+            model.addAttribute("filterActionType", actionType);
+            log.debug("Applied action type filter: {}", actionType);
+        }
+        if (normalizedEntity != null) {
+            model.addAttribute("filterEntity", normalizedEntity);
+            log.debug("Applied entity filter: {}", normalizedEntity);
+        }
+        if (startDate != null) {
+            model.addAttribute("filterStartDate", startDate);
+            log.debug("Applied start date filter: {}", startDate);
+        }
+        if (endDate != null) {
+            model.addAttribute("filterEndDate", endDate);
+            log.debug("Applied end date filter: {}", endDate);
+        }
+
+        model.addAttribute("pageSize", size);
+        model.addAttribute("actionTypes", ActionType.values());
+        model.addAttribute("entities", List.of("User", "Game", "Loan", "GameSession"));
+
+        if (keyset || cursor != null) {
+            // Keyset pagination: seek on (changeDateTime, id), so deep pages stay as fast as the first one
+            CursorPage<AuditLog> cursorPage;
+            try {
+                cursorPage = auditLogService.findWithCombinedFiltersByCursor(
+                    actionTypeEnum, normalizedEntity, startDate, endDate, size, cursor, count);
+            } catch (InvalidCursorException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error retrieving audit logs", e);
+                cursorPage = CursorPage.<AuditLog>builder().content(List.of()).size(size).build();
             }
 
-            // Normalize entity (convert empty string to null)
-            String normalizedEntity = (entity != null && entity.trim().isEmpty()) ? null : entity;
+            model.addAttribute("cursorPage", cursorPage);
+            model.addAttribute("auditLogs", cursorPage.getContent());
+            model.addAttribute("totalElements", cursorPage.getTotalElements());
+            model.addAttribute("hasContent", cursorPage.hasContent());
+            model.addAttribute("countRequested", count);
 
+            log.debug("Returning keyset page of {} records (hasNext: {})",
+                    cursorPage.getContent().size(), cursorPage.hasNext());
+
+            return "audit-logs/list";
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("changeDateTime").descending());
+        Page<AuditLog> auditLogsPage;
+
+        try {
             // Use the new combined filter method
             auditLogsPage = auditLogService.findWithCombinedFilters(
                 actionTypeEnum, normalizedEntity, startDate, endDate, pageable);
 
-            // Add filter attributes to model for form persistence
-            if (actionTypeEnum != null) {
-                model.addAttribute("filterActionType", actionType);
-                log.debug("Applied action type filter: {}", actionType);
-            }
-            if (normalizedEntity != null) {
-                model.addAttribute("filterEntity", normalizedEntity);
-                log.debug("Applied entity filter: {}", normalizedEntity);
-            }
-            if (startDate != null) {
-                model.addAttribute("filterStartDate", startDate);
-                log.debug("Applied start date filter: {}", startDate);
-            }
-            if (endDate != null) {
-                model.addAttribute("filterEndDate", endDate);
-                log.debug("Applied end date filter: {}", endDate);
-            }
-
             log.debug("Found {} records with combined filters", auditLogsPage.getTotalElements());
 
         } catch (Exception e) {
@@ -115,18 +160,70 @@ public class AuditLogController {
         model.addAttribute("currentPage", auditLogsPage.getNumber());
         model.addAttribute("totalPages", auditLogsPage.getTotalPages());
         model.addAttribute("totalElements", auditLogsPage.getTotalElements());
-        model.addAttribute("pageSize", size);
         model.addAttribute("hasContent", auditLogsPage.hasContent());
         model.addAttribute("isFirst", auditLogsPage.isFirst());
         model.addAttribute("isLast", auditLogsPage.isLast());
-        model.addAttribute("actionTypes", ActionType.values());
-        model.addAttribute("entities", List.of("User", "Game", "Loan", "GameSession"));
 
         log.debug("Returning page {} of {} (total {} records)",
                 auditLogsPage.getNumber() + 1, auditLogsPage.getTotalPages(), auditLogsPage.getTotalElements());
 
         return "audit-logs/list";
     }
+
+    /**
+     * Downloads every audit log matching the filters of the list view, oldest first.
+     * Rows are streamed from the database straight into the chunked response, so a year of
+     * history is exported in one request with constant memory instead of page by page.
+     *
+     * @param format     the output format, {@code csv} (default) or {@code ndjson}
+     * @param gzip       whether to compress the file with gzip
+     * @param actionType optional filter by action type
+     * @param entity     optional filter by affected entity name
+     * @param startDate  optional filter start datetime
+     * @param endDate    optional filter end datetime
+     * @param response   the HTTP response the file is written to
+     * @throws IOException if the response cannot be written
+     */
+    @GetMapping("/export")
+    public void exportAuditLogs(@RequestParam(defaultValue = "csv") String format,
+                                @RequestParam(defaultValue = "false") boolean gzip,
+                                @RequestParam(required = false) String actionType,
+                                @RequestParam(required = false) String entity,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                HttpServletResponse response) throws IOException {
+
+        AuditLogExporter.Format exportFormat;
+        ActionType actionTypeEnum = null;
+        try {
+            exportFormat = AuditLogExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            if (actionType != null && !actionType.isEmpty()) {
+                actionTypeEnum = ActionType.valueOf(actionType.toUpperCase(Locale.ROOT));
+            }
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown export format or action type");
+            return;
+        }
+
+        String fileName = "audit-logs-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        log.debug("Exporting audit logs as {} (gzip: {}) - actionType: {}, entity: {}, startDate: {}, endDate: {}",
+                 exportFormat, gzip, actionType, entity, startDate, endDate);
+
+        OutputStream output = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+            auditLogService.exportWithCombinedFilters(actionTypeEnum, entity, startDate, endDate, exportFormat, compressed);
+            compressed.finish();
+        } else {
+            auditLogService.exportWithCombinedFilters(actionTypeEnum, entity, startDate, endDate, exportFormat, output);
+        }
+        output.flush();
+    }
+
     /**
      * Displays a paginated list of audit logs for a specific entity, with optional filtering by entity ID.
      *
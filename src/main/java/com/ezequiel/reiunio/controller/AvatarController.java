@@ -0,0 +1,58 @@
+package com.ezequiel.reiunio.controller;
+
+import java.time.Duration;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.ezequiel.reiunio.image.AvatarRenderer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller serving the default avatars drawn by {@link AvatarRenderer}, so pages never load
+ * them from a third-party host. An avatar URL fully determines its content, so responses are
+ * marked immutable and cached by browsers for a year.
+ */
+@Controller
+@RequiredArgsConstructor
+public class AvatarController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final AvatarRenderer avatarRenderer;
+
+    /**
+     * Serves the avatar for some initials, for example {@code /avatars/JD.svg?background=007bff}.
+     *
+     * @param initials the initials to draw
+     * @param extension {@code svg} or {@code png}
+     * @param background the background colour as six hex digits
+     * @param size the size the avatar is displayed at, in pixels
+     * @return the image, 404 for an unknown extension or 400 for an invalid colour
+     */
+    @GetMapping("/avatars/{initials}.{extension}")
+    public ResponseEntity<byte[]> avatar(@PathVariable String initials,
+                                         @PathVariable String extension,
+                                         @RequestParam(defaultValue = AvatarRenderer.DEFAULT_COLOR) String background,
+                                         @RequestParam(defaultValue = "256") int size) {
+        AvatarRenderer.Format format = AvatarRenderer.Format.fromExtension(extension);
+        if (format == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            byte[] content = avatarRenderer.render(initials, background, format, size);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(format.getContentType()))
+                    .cacheControl(IMMUTABLE)
+                    .body(content);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
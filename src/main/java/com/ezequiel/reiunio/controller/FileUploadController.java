@@ -24,12 +24,14 @@ import com.ezequiel.reiunio.entity.Game;
 import com.ezequiel.reiunio.entity.GameSession;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.security.CurrentUser;
 import com.ezequiel.reiunio.service.AuditLogService;
 import com.ezequiel.reiunio.service.FileUploadService;
 import com.ezequiel.reiunio.service.GameService;
 import com.ezequiel.reiunio.service.GameSessionService;
 import com.ezequiel.reiunio.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -85,6 +87,7 @@ public class FileUploadController {
      * @param photo the multipart file containing the new profile photo
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
      * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the appropriate user page
      * 
      * @throws IOException if there's an error during file upload or deletion
@@ -95,7 +98,8 @@ public class FileUploadController {
     public String uploadUserPhoto(@PathVariable Long userId, 
                                  @RequestParam("photo") MultipartFile photo,
                                  RedirectAttributes redirectAttributes,
-                                 Principal principal) {
+                                 Principal principal,
+                                 @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<User> userOpt = userService.findById(userId);
             if (!userOpt.isPresent()) {
@@ -116,7 +120,7 @@ public class FileUploadController {
             userService.save(user);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "User", userId, 
                     "Profile photo updated for user: " + user.getUsername())
             );
@@ -135,7 +139,7 @@ public class FileUploadController {
         }
 
         // Determine the correct redirection
-        String referer = determineRedirectForUser(userId, principal);
+        String referer = determineRedirectForUser(userId, authenticatedUser);
         return "redirect:" + referer;
     }
 
@@ -150,6 +154,7 @@ public class FileUploadController {
      * @param userId the unique identifier of the user whose photo is being uploaded
      * @param photo the multipart file containing the new profile photo
      * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
      * 
      * @see PhotoUploadResponse
@@ -159,7 +164,8 @@ public class FileUploadController {
     @ResponseBody
     public ResponseEntity<?> uploadUserPhotoAjax(@PathVariable Long userId, 
                                                @RequestParam("photo") MultipartFile photo,
-                                               Principal principal) {
+                                               Principal principal,
+                                               @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<User> userOpt = userService.findById(userId);
             if (!userOpt.isPresent()) {
@@ -179,7 +185,7 @@ public class FileUploadController {
             userService.save(user);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "User", userId, 
                     "Profile photo updated for user: " + user.getUsername())
             );
@@ -198,6 +204,64 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Handles the upload of a user profile photo sent as the raw request body, for clients that
+     * post the image bytes with an {@code image/*} content type instead of a multipart form.
+     * The body is streamed straight to storage: the image type is recognized from its first
+     * bytes and the upload is rejected as soon as it goes over the size limit, without the
+     * multipart resolver buffering the whole part first.
+     *
+     * <p>The new photo is stored before the old one is released, so a rejected upload leaves the
+     * current photo in place.</p>
+     *
+     * @param userId the unique identifier of the user whose photo is being uploaded
+     * @param request the request whose body holds the image
+     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
+     * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
+     */
+    @PostMapping(value = "/user/{userId}/photo/ajax", consumes = "image/*")
+    @PreAuthorize("hasRole('ADMIN') or @securityUtils.isCurrentUser(#userId, authentication.principal.username)")
+    @ResponseBody
+    public ResponseEntity<?> streamUserPhoto(@PathVariable Long userId,
+                                             HttpServletRequest request,
+                                             Principal principal,
+                                             @CurrentUser Optional<User> authenticatedUser) {
+        try {
+            Optional<User> userOpt = userService.findById(userId);
+            if (!userOpt.isPresent()) {
+                return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "User not found", null));
+            }
+
+            User user = userOpt.get();
+
+            // Store the new photo first, then release the old one while the user still references it
+            String photoPath = fileUploadService.uploadUserPhoto(request.getInputStream(), request.getContentLengthLong(), userId);
+            String oldPath = user.getProfilePhotoPath();
+            if (oldPath != null && !oldPath.equals(photoPath)) {
+                fileUploadService.deleteFile(oldPath);
+            }
+            user.setProfilePhotoPath(photoPath);
+            userService.save(user);
+
+            authenticatedUser.ifPresent(currentUser ->
+                auditLogService.logChange(currentUser, ActionType.MODIFICATION, "User", userId,
+                    "Profile photo updated for user: " + user.getUsername())
+            );
+
+            updateSecurityContextIfCurrentUser(user, principal);
+
+            return ResponseEntity.ok().body(new PhotoUploadResponse(true, "Photo updated successfully", photoPath));
+
+        } catch (IOException e) {
+            log.error("Error streaming user photo", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Error uploading photo: " + e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid file for user photo upload", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, e.getMessage(), null));
+        }
+    }
+
     /**
      * Handles the deletion of a user's profile photo.
      * This endpoint allows users to remove their profile photo entirely, reverting to the default avatar.
@@ -214,13 +278,15 @@ public class FileUploadController {
      * @param userId the unique identifier of the user whose photo is being deleted
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
      * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the appropriate user page
      */
     @PostMapping("/user/{userId}/photo/delete")
     @PreAuthorize("hasRole('ADMIN') or @securityUtils.isCurrentUser(#userId, authentication.principal.username)")
     public String deleteUserPhoto(@PathVariable Long userId,
                                  RedirectAttributes redirectAttributes,
-                                 Principal principal) {
+                                 Principal principal,
+                                 @CurrentUser Optional<User> authenticatedUser) {
         Optional<User> userOpt = userService.findById(userId);
         if (!userOpt.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "User not found");
@@ -235,7 +301,7 @@ public class FileUploadController {
             userService.save(user);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "User", userId, 
                     "Profile photo deleted for user: " + user.getUsername())
             );
@@ -247,7 +313,7 @@ public class FileUploadController {
         }
 
         // Determine the correct redirection
-        String referer = determineRedirectForUser(userId, principal);
+        String referer = determineRedirectForUser(userId, authenticatedUser);
         return "redirect:" + referer;
     }
 
@@ -320,7 +386,7 @@ public class FileUploadController {
      * @param gameId the unique identifier of the game whose photo is being uploaded
      * @param photo the multipart file containing the new game photo
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the game details page
      */
     @PostMapping("/game/{gameId}/photo")
@@ -328,7 +394,7 @@ public class FileUploadController {
     public String uploadGamePhoto(@PathVariable Long gameId, 
                                  @RequestParam("photo") MultipartFile photo,
                                  RedirectAttributes redirectAttributes,
-                                 Principal principal) {
+                                 @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<Game> gameOpt = gameService.findById(gameId);
             if (!gameOpt.isPresent()) {
@@ -349,7 +415,7 @@ public class FileUploadController {
             gameService.save(game);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "Game", gameId, 
                     "Photo updated for game: " + game.getName())
             );
@@ -373,7 +439,7 @@ public class FileUploadController {
      * 
      * @param gameId the unique identifier of the game whose photo is being uploaded
      * @param photo the multipart file containing the new game photo
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
      */
     @PostMapping("/game/{gameId}/photo/ajax")
@@ -381,7 +447,7 @@ public class FileUploadController {
     @ResponseBody
     public ResponseEntity<?> uploadGamePhotoAjax(@PathVariable Long gameId, 
                                                @RequestParam("photo") MultipartFile photo,
-                                               Principal principal) {
+                                               @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<Game> gameOpt = gameService.findById(gameId);
             if (!gameOpt.isPresent()) {
@@ -401,7 +467,7 @@ public class FileUploadController {
             gameService.save(game);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "Game", gameId, 
                     "Photo updated for game: " + game.getName())
             );
@@ -417,6 +483,53 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Handles the upload of a game photo sent as the raw request body, streamed to storage like
+     * {@link #streamUserPhoto}. Restricted to administrators.
+     *
+     * @param gameId the unique identifier of the game whose photo is being uploaded
+     * @param request the request whose body holds the image
+     * @param authenticatedUser the currently authenticated user, if any
+     * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
+     */
+    @PostMapping(value = "/game/{gameId}/photo/ajax", consumes = "image/*")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<?> streamGamePhoto(@PathVariable Long gameId,
+                                             HttpServletRequest request,
+                                             @CurrentUser Optional<User> authenticatedUser) {
+        try {
+            Optional<Game> gameOpt = gameService.findById(gameId);
+            if (!gameOpt.isPresent()) {
+                return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Game not found", null));
+            }
+
+            Game game = gameOpt.get();
+
+            String photoPath = fileUploadService.uploadGamePhoto(request.getInputStream(), request.getContentLengthLong(), gameId);
+            String oldPath = game.getImagePath();
+            if (oldPath != null && !oldPath.equals(photoPath)) {
+                fileUploadService.deleteFile(oldPath);
+            }
+            game.setImagePath(photoPath);
+            gameService.save(game);
+
+            authenticatedUser.ifPresent(currentUser ->
+                auditLogService.logChange(currentUser, ActionType.MODIFICATION, "Game", gameId,
+                    "Photo updated for game: " + game.getName())
+            );
+
+            return ResponseEntity.ok().body(new PhotoUploadResponse(true, "Photo updated successfully", photoPath));
+
+        } catch (IOException e) {
+            log.error("Error streaming game photo", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Error uploading photo: " + e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid file for game photo upload", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, e.getMessage(), null));
+        }
+    }
+
     /**
      * Handles the upload of a custom image for a game session.
      * This endpoint allows session creators, extended users, and administrators to upload custom images
@@ -432,7 +545,7 @@ public class FileUploadController {
      * @param sessionId the unique identifier of the game session
      * @param photo the multipart file containing the custom game image
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the game session details page
      */
     @PostMapping("/game-session/{sessionId}/photo")
@@ -440,7 +553,7 @@ public class FileUploadController {
     public String uploadGameSessionPhoto(@PathVariable Long sessionId, 
                                         @RequestParam("photo") MultipartFile photo,
                                         RedirectAttributes redirectAttributes,
-                                        Principal principal) {
+                                        @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<GameSession> sessionOpt = gameSessionService.findById(sessionId);
             if (!sessionOpt.isPresent()) {
@@ -467,7 +580,7 @@ public class FileUploadController {
             gameSessionService.save(gameSession);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "GameSession", sessionId, 
                     "Custom image uploaded for session: " + gameSession.getTitle())
             );
@@ -492,7 +605,7 @@ public class FileUploadController {
      * 
      * @param sessionId the unique identifier of the game session
      * @param photo the multipart file containing the custom game image
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
      */
     @PostMapping("/game-session/{sessionId}/photo/ajax")
@@ -500,7 +613,7 @@ public class FileUploadController {
     @ResponseBody
     public ResponseEntity<?> uploadGameSessionPhotoAjax(@PathVariable Long sessionId, 
                                                        @RequestParam("photo") MultipartFile photo,
-                                                       Principal principal) {
+                                                       @CurrentUser Optional<User> authenticatedUser) {
         try {
             Optional<GameSession> sessionOpt = gameSessionService.findById(sessionId);
             if (!sessionOpt.isPresent()) {
@@ -525,7 +638,7 @@ public class FileUploadController {
             gameSessionService.save(gameSession);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "GameSession", sessionId, 
                     "Custom image uploaded for session: " + gameSession.getTitle())
             );
@@ -541,6 +654,57 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Handles the upload of a custom game session image sent as the raw request body, streamed
+     * to storage like {@link #streamUserPhoto}.
+     *
+     * @param sessionId the unique identifier of the game session
+     * @param request the request whose body holds the image
+     * @param authenticatedUser the currently authenticated user, if any
+     * @return a ResponseEntity containing a PhotoUploadResponse with operation status and details
+     */
+    @PostMapping(value = "/game-session/{sessionId}/photo/ajax", consumes = "image/*")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EXTENDED_USER') or @securityUtils.isGameSessionCreator(#sessionId, principal.username)")
+    @ResponseBody
+    public ResponseEntity<?> streamGameSessionPhoto(@PathVariable Long sessionId,
+                                                    HttpServletRequest request,
+                                                    @CurrentUser Optional<User> authenticatedUser) {
+        try {
+            Optional<GameSession> sessionOpt = gameSessionService.findById(sessionId);
+            if (!sessionOpt.isPresent()) {
+                return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Game session not found", null));
+            }
+
+            GameSession gameSession = sessionOpt.get();
+
+            if (gameSession.isLibraryGame()) {
+                return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Cannot upload image for library games", null));
+            }
+
+            String photoPath = fileUploadService.uploadGameSessionPhoto(request.getInputStream(), request.getContentLengthLong(), sessionId);
+            String oldPath = gameSession.getCustomGameImagePath();
+            if (oldPath != null && !oldPath.equals(photoPath)) {
+                fileUploadService.deleteFile(oldPath);
+            }
+            gameSession.setCustomGameImagePath(photoPath);
+            gameSessionService.save(gameSession);
+
+            authenticatedUser.ifPresent(currentUser ->
+                auditLogService.logChange(currentUser, ActionType.MODIFICATION, "GameSession", sessionId,
+                    "Custom image uploaded for session: " + gameSession.getTitle())
+            );
+
+            return ResponseEntity.ok().body(new PhotoUploadResponse(true, "Game image updated successfully", photoPath));
+
+        } catch (IOException e) {
+            log.error("Error streaming game session photo", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, "Error uploading photo: " + e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid file for game session photo upload", e);
+            return ResponseEntity.badRequest().body(new PhotoUploadResponse(false, e.getMessage(), null));
+        }
+    }
+
     /**
      * Handles the deletion of a game photo.
      * This endpoint is restricted to administrators and removes both the file from storage
@@ -548,14 +712,14 @@ public class FileUploadController {
      * 
      * @param gameId the unique identifier of the game whose photo is being deleted
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the game details page
      */
     @PostMapping("/game/{gameId}/photo/delete")
     @PreAuthorize("hasRole('ADMIN')")
     public String deleteGamePhoto(@PathVariable Long gameId,
                                  RedirectAttributes redirectAttributes,
-                                 Principal principal) {
+                                 @CurrentUser Optional<User> authenticatedUser) {
         Optional<Game> gameOpt = gameService.findById(gameId);
         if (!gameOpt.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "Game not found");
@@ -570,7 +734,7 @@ public class FileUploadController {
             gameService.save(game);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "Game", gameId, 
                     "Photo deleted for game: " + game.getName())
             );
@@ -587,14 +751,14 @@ public class FileUploadController {
      * 
      * @param sessionId the unique identifier of the game session
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return a redirect URL to the game session details page
      */
     @PostMapping("/game-session/{sessionId}/photo/delete")
     @PreAuthorize("hasRole('ADMIN') or hasRole('EXTENDED_USER') or @securityUtils.isGameSessionCreator(#sessionId, principal.username)")
     public String deleteGameSessionPhoto(@PathVariable Long sessionId,
                                         RedirectAttributes redirectAttributes,
-                                        Principal principal) {
+                                        @CurrentUser Optional<User> authenticatedUser) {
         Optional<GameSession> sessionOpt = gameSessionService.findById(sessionId);
         if (!sessionOpt.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "Game session not found");
@@ -609,7 +773,7 @@ public class FileUploadController {
             gameSessionService.save(gameSession);
 
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(currentUser -> 
+            authenticatedUser.ifPresent(currentUser -> 
                 auditLogService.logChange(currentUser, ActionType.MODIFICATION, "GameSession", sessionId, 
                     "Custom image deleted for session: " + gameSession.getTitle())
             );
@@ -633,12 +797,11 @@ public class FileUploadController {
      * </ul>
      * 
      * @param userId the identifier of the user being modified
-     * @param principal the current authentication principal
+     * @param currentUserOpt the currently authenticated user, if any
      * @return the appropriate redirect path as a string
      */
-    private String determineRedirectForUser(Long userId, Principal principal) {
+    private String determineRedirectForUser(Long userId, Optional<User> currentUserOpt) {
         try {
-            Optional<User> currentUserOpt = userService.findByUsername(principal.getName());
             if (currentUserOpt.isPresent()) {
                 User currentUser = currentUserOpt.get();
                 
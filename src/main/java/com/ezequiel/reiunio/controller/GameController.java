@@ -1,15 +1,17 @@
 package com.ezequiel.reiunio.controller;
 
 import java.io.IOException;
-import java.security.Principal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,14 +22,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameFacets;
 import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.GameSuggestion;
 import com.ezequiel.reiunio.entity.Loan;
+import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.enums.DurationBucket;
 import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.importer.GameImportFormat;
+import com.ezequiel.reiunio.importer.GameImportReport;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.security.CurrentUser;
 import com.ezequiel.reiunio.service.AuditLogService;
 import com.ezequiel.reiunio.service.FileUploadService;
 import com.ezequiel.reiunio.service.GameService;
@@ -35,6 +46,7 @@ import com.ezequiel.reiunio.service.GameSessionService;
 import com.ezequiel.reiunio.service.LoanService;
 import com.ezequiel.reiunio.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -69,6 +81,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GameController {
 
+    /** Upper bound for the number of typeahead suggestions returned per request */
+    private static final int MAX_SUGGESTIONS = 25;
+
     /** Service for game-related operations and data management */
     private final GameService gameService;
     
@@ -119,6 +134,8 @@ public class GameController {
      * @param size the number of items per page (defaults to 20)
      * @param sortBy the field to sort by (defaults to "name")
      * @param sortDir the sort direction: "asc" or "desc" (defaults to "asc")
+     * @param cursor opaque keyset cursor; when present the page number is ignored
+     * @param keyset whether to use keyset (cursor) pagination instead of page numbers
      * @return the name of the games list view template
      */
     @GetMapping
@@ -134,7 +151,9 @@ public class GameController {
                            @RequestParam(defaultValue = "0") int page,
                            @RequestParam(defaultValue = "20") int size,
                            @RequestParam(defaultValue = "name") String sortBy,
-                           @RequestParam(defaultValue = "asc") String sortDir) {
+                           @RequestParam(defaultValue = "asc") String sortDir,
+                           @RequestParam(required = false) String cursor,
+                           @RequestParam(defaultValue = "false") boolean keyset) {
         
         log.debug("Listing games with filters - name: {}, category: {}, available: {}, state: {}, page: {}, size: {}", 
                  name, category, available, state, page, size);
@@ -143,19 +162,39 @@ public class GameController {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                    Sort.by(sortBy).descending() : 
                    Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
         
-        // Get paginated games with filters
-        Page<Game> gamesPage = gameService.findAllWithFilters(
-            name, category, available, state, 
-            minPlayers, maxPlayers, minDuration, maxDuration, 
-            pageable);
+        // Facet counts for the current filter set (single aggregate query)
+        GameFacets facets = gameService.findFacetsWithFilters(
+            name, category, available, state,
+            minPlayers, maxPlayers, minDuration, maxDuration);
+        model.addAttribute("facets", facets);
+        model.addAttribute("durationBuckets", DurationBucket.values());
         
-        // Add pagination attributes
-        model.addAttribute("games", gamesPage.getContent());
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", gamesPage.getTotalPages());
-        model.addAttribute("totalElements", gamesPage.getTotalElements());
+        if (keyset || cursor != null) {
+            // Keyset pagination: seek by (sort column, id), no COUNT query.
+            // The facet pass above already tells us the total.
+            CursorPage<Game> cursorPage = gameService.findAllWithFiltersByCursor(
+                name, category, available, state,
+                minPlayers, maxPlayers, minDuration, maxDuration,
+                sort, size, cursor, false);
+            model.addAttribute("cursorPage", cursorPage);
+            model.addAttribute("games", cursorPage.getContent());
+            model.addAttribute("totalElements", facets.getTotal());
+        } else {
+            Pageable pageable = PageRequest.of(page, size, sort);
+            
+            // Get paginated games with filters
+            Page<Game> gamesPage = gameService.findAllWithFilters(
+                name, category, available, state, 
+                minPlayers, maxPlayers, minDuration, maxDuration, 
+                pageable);
+            
+            // Add pagination attributes
+            model.addAttribute("games", gamesPage.getContent());
+            model.addAttribute("currentPage", page);
+            model.addAttribute("totalPages", gamesPage.getTotalPages());
+            model.addAttribute("totalElements", gamesPage.getTotalElements());
+        }
         model.addAttribute("pageSize", size);
         model.addAttribute("sortBy", sortBy);
         model.addAttribute("sortDir", sortDir);
@@ -240,7 +279,7 @@ public class GameController {
      * @param gamePhoto optional multipart file containing the game photo
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to games list on success, or form view on validation errors
      * 
      * @throws IOException if there's an error during photo upload
@@ -253,7 +292,7 @@ public class GameController {
                             @RequestParam(value = "gamePhoto", required = false) MultipartFile gamePhoto,
                             Model model, 
                             RedirectAttributes redirectAttributes, 
-                            Principal principal) {
+                            @CurrentUser Optional<User> authenticatedUser) {
         if (result.hasErrors()) {
             model.addAttribute("states", GameState.values());
             return "games/form";
@@ -290,7 +329,7 @@ public class GameController {
         }
         
         // Log the action
-        userService.findByUsername(principal.getName()).ifPresent(user -> 
+        authenticatedUser.ifPresent(user -> 
             auditLogService.logChange(user, ActionType.CREATION, "Game", finalSavedGame.getId(), 
                 "Game created: " + finalSavedGame.getName() + 
                 (finalSavedGame.hasCustomImage() ? " (with photo)" : ""))
@@ -305,6 +344,66 @@ public class GameController {
         return "redirect:/games";
     }
 
+    /**
+     * Bulk import endpoint for catalog spreadsheets.
+     * The request body is the file itself, sent as {@code text/csv} or {@code application/x-ndjson}
+     * (or with an explicit {@code format} parameter), and is streamed row by row, so files of any
+     * size can be imported without multipart size limits. For example:
+     * {@code curl -X POST -H 'Content-Type: text/csv' --data-binary @games.csv /games/import}
+     * 
+     * <p>Valid rows are inserted in JDBC batches; rejected rows are listed in the report with
+     * their line number and the reasons, and do not stop the import.</p>
+     * 
+     * @param format optional format name, {@code csv} or {@code jsonl}, overriding the content type
+     * @param request the HTTP request whose body is the file
+     * @param authenticatedUser the currently authenticated user, if any
+     * @return the import report, or an error message if the file cannot be read
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<?> importGames(@RequestParam(value = "format", required = false) String format,
+                                         HttpServletRequest request,
+                                         @CurrentUser Optional<User> authenticatedUser) {
+        GameImportFormat importFormat = GameImportFormat.resolve(format, request.getContentType());
+        if (importFormat == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(Map.of("error", "Send the file as text/csv or application/x-ndjson"));
+        }
+
+        GameImportReport report;
+        try {
+            report = gameService.importGames(request.getInputStream(), importFormat);
+        } catch (IOException e) {
+            log.warn("Game import failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        authenticatedUser.ifPresent(user ->
+            auditLogService.logChange(user, ActionType.CREATION, "Game", null,
+                "Games imported: " + report.getImported() + " of " + report.getRowsRead() + " rows")
+        );
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * AJAX endpoint for game typeahead fields.
+     * Returns only the ID, name and thumbnail of the best matches, so pickers stay small
+     * and fast no matter how large the catalog grows.
+     * 
+     * @param q the text typed so far, matched anywhere in the name, category or description
+     * @param available optional availability filter
+     * @param limit the maximum number of suggestions (at most 25)
+     * @return the list of game suggestions
+     */
+    @GetMapping("/api/suggest")
+    @ResponseBody
+    public List<GameSuggestion> suggestGames(@RequestParam(defaultValue = "") String q,
+                                             @RequestParam(required = false) Boolean available,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return gameService.suggestGames(q, available, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+
     /**
      * Displays the form for editing an existing game.
      * This endpoint is restricted to administrators and pre-populates the form
@@ -350,7 +449,7 @@ public class GameController {
      * @param result the binding result containing validation errors, if any
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to games list on success, or form view on validation errors
      */
     @PostMapping("/{id}/edit")
@@ -360,7 +459,7 @@ public class GameController {
                             BindingResult result, 
                             Model model, 
                             RedirectAttributes redirectAttributes,
-                            Principal principal) {
+                            @CurrentUser Optional<User> authenticatedUser) {
         if (result.hasErrors()) {
             model.addAttribute("states", GameState.values());
             model.addAttribute("editing", true);
@@ -380,7 +479,7 @@ public class GameController {
             final Game finalSavedGame = savedGame; // Create a final copy for use in lambda
             
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(user -> 
+            authenticatedUser.ifPresent(user -> 
                 auditLogService.logChange(user, ActionType.MODIFICATION, "Game", finalSavedGame.getId(), 
                     "Game modified: " + finalSavedGame.getName())
             );
@@ -413,14 +512,14 @@ public class GameController {
      * 
      * @param id the unique identifier of the game to delete
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to games list with appropriate success or error message
      */
     @PostMapping("/{id}/delete")
     @PreAuthorize("hasRole('ADMIN')")
     public String deleteGame(@PathVariable Long id, 
                             RedirectAttributes redirectAttributes, 
-                            Principal principal) {
+                            @CurrentUser Optional<User> authenticatedUser) {
         Optional<Game> game = gameService.findById(id);
         
         if (game.isPresent()) {
@@ -462,7 +561,7 @@ public class GameController {
                 gameService.deleteById(finalId);
                 
                 // Log the action
-                userService.findByUsername(principal.getName()).ifPresent(user -> 
+                authenticatedUser.ifPresent(user -> 
                     auditLogService.logChange(user, ActionType.DELETION, "Game", finalId, 
                         "Game deleted: " + gameName)
                 );
@@ -502,7 +601,7 @@ public class GameController {
      * @param id the unique identifier of the game whose availability is being changed
      * @param available the new availability status (true for available, false for unavailable)
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to games list with appropriate success message
      */
     @PostMapping("/{id}/availability")
@@ -510,7 +609,7 @@ public class GameController {
     public String changeAvailability(@PathVariable Long id, 
                                    @RequestParam Boolean available,
                                    RedirectAttributes redirectAttributes, 
-                                   Principal principal) {
+                                   @CurrentUser Optional<User> authenticatedUser) {
         Optional<Game> gameOpt = gameService.findById(id);
         
         if (gameOpt.isPresent()) {
@@ -520,7 +619,7 @@ public class GameController {
             final Game finalSavedGame = savedGame; // Create a final copy for use in lambda
             
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(user -> {
+            authenticatedUser.ifPresent(user -> {
                 String action = available ? "Marked as available" : "Marked as unavailable";
                 auditLogService.logChange(user, ActionType.MODIFICATION, "Game", finalSavedGame.getId(),
                     action + ": " + finalSavedGame.getName());
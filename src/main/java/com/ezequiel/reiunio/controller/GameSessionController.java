@@ -1,10 +1,8 @@
 package com.ezequiel.reiunio.controller;
 
 import java.io.IOException;
-import java.security.Principal;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -33,6 +31,8 @@ import com.ezequiel.reiunio.entity.GameSession;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
 import com.ezequiel.reiunio.enums.GameSessionStatus;
+import com.ezequiel.reiunio.security.CurrentUser;
+import com.ezequiel.reiunio.security.CurrentUserSummary;
 import com.ezequiel.reiunio.service.AuditLogService;
 import com.ezequiel.reiunio.service.FileUploadService;
 import com.ezequiel.reiunio.service.GameService;
@@ -115,13 +115,13 @@ public class GameSessionController {
      * 
      * @param model the Spring MVC model for passing data to the view
      * @param filter optional filter parameter to narrow down the session list
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return the name of the game sessions list view template
      */
     @GetMapping
     public String listGameSessions(Model model, 
                                   @RequestParam(required = false) String filter,
-                                  Principal principal) {
+                                  @CurrentUser Optional<CurrentUserSummary> authenticatedUser) {
         List<GameSession> gameSessions;
         String listTitle = "Game Sessions";
         
@@ -141,7 +141,7 @@ public class GameSessionController {
                     log.debug("Found {} upcoming sessions", gameSessions.size());
                     break;
                 case "registered":
-                    gameSessions = getRegisteredSessions(principal);
+                    gameSessions = getRegisteredSessions(authenticatedUser);
                     listTitle = "My Registered Sessions";
                     log.debug("Found {} registered sessions for user", gameSessions.size());
                     break;
@@ -176,17 +176,12 @@ public class GameSessionController {
      * This private helper method is used to filter sessions based on user participation,
      * providing personalized views for users to track their gaming commitments.
      * 
-     * @param principal the currently authenticated user's security principal
+     * @param userOpt the currently authenticated user, if any
      * @return a list of game sessions where the user is registered, or empty list if user not found
      */
-    private List<GameSession> getRegisteredSessions(Principal principal) {
-        if (principal == null) {
-            return List.of();
-        }
-        
-        Optional<User> userOpt = userService.findByUsername(principal.getName());
+    private List<GameSession> getRegisteredSessions(Optional<CurrentUserSummary> userOpt) {
         if (userOpt.isPresent()) {
-            return gameSessionService.findSessionsByPlayer(userOpt.get().getId());
+            return gameSessionService.findSessionsByPlayer(userOpt.get().id());
         }
         
         return List.of();
@@ -251,27 +246,25 @@ public class GameSessionController {
      * 
      * @param id the unique identifier of the game session to display
      * @param model the Spring MVC model for passing data to the view
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return the name of the game session detail view template, or redirect to sessions list if not found
      */
     @GetMapping("/{id}")
-    public String viewGameSession(@PathVariable Long id, Model model, Principal principal) {
+    public String viewGameSession(@PathVariable Long id, Model model, @CurrentUser Optional<CurrentUserSummary> authenticatedUser) {
         Optional<GameSession> gameSession = gameSessionService.findById(id);
         
         if (gameSession.isPresent()) {
             model.addAttribute("gameSession", gameSession.get());
             
             // Check if current user is registered in the session
-            if (principal != null) {
-                userService.findByUsername(principal.getName()).ifPresent(user -> {
-                    GameSession session = gameSession.get();
-                    
-                    // Check if user is registered
-                    boolean registered = session.getPlayers().stream()
-                            .anyMatch(gsp -> gsp.getUser().getId().equals(user.getId()));
-                    model.addAttribute("userRegistered", registered);
-                });
-            }
+            authenticatedUser.ifPresent(user -> {
+                GameSession session = gameSession.get();
+                
+                // Check if user is registered
+                boolean registered = session.getPlayers().stream()
+                        .anyMatch(gsp -> gsp.getUser().getId().equals(user.id()));
+                model.addAttribute("userRegistered", registered);
+            });
             
             return "game-sessions/detail";
         } else {
@@ -289,10 +282,8 @@ public class GameSessionController {
      */
     @GetMapping("/new")
     public String newGameSession(Model model) {
-        List<Game> games = gameService.findByAvailable(true);
-        
+        // Library games are picked through the typeahead at /games/api/suggest
         model.addAttribute("gameSession", new GameSession());
-        model.addAttribute("games", games);
         model.addAttribute("editing", false);
         return "game-sessions/form";
     }
@@ -333,7 +324,7 @@ public class GameSessionController {
      * @param endTime optional session end time
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param user the currently authenticated user, if any
      * @return redirect to session detail on success, or form view on validation errors
      * 
      * @throws IOException if there's an error during custom image upload
@@ -352,15 +343,13 @@ public class GameSessionController {
                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
                                    Model model,
                                    RedirectAttributes redirectAttributes,
-                                   Principal principal) {
+                                   @CurrentUser Optional<User> user) {
         
         if (result.hasErrors()) {
-            model.addAttribute("games", gameService.findAll()); // Show all games
             model.addAttribute("editing", false);
             return "game-sessions/form";
         }
         
-        Optional<User> user = userService.findByUsername(principal.getName());
         
         if (!user.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "User not found");
@@ -370,7 +359,6 @@ public class GameSessionController {
         // Validate custom game name
         if (customGameName == null || customGameName.trim().isEmpty()) {
             model.addAttribute("error", "Game name is required");
-            model.addAttribute("games", gameService.findAll());
             model.addAttribute("editing", false);
             return "game-sessions/form";
         }
@@ -378,14 +366,12 @@ public class GameSessionController {
         // Validate dates
         if (startDate.isBefore(LocalDate.now())) {
             model.addAttribute("error", "Start date cannot be in the past");
-            model.addAttribute("games", gameService.findAll());
             model.addAttribute("editing", false);
             return "game-sessions/form";
         }
         
         if (endDate.isBefore(startDate)) {
             model.addAttribute("error", "End date cannot be before start date");
-            model.addAttribute("games", gameService.findAll());
             model.addAttribute("editing", false);
             return "game-sessions/form";
         }
@@ -394,7 +380,6 @@ public class GameSessionController {
         if (startDate.equals(endDate) && endTime != null) {
             if (endTime.isBefore(startTime) || endTime.equals(startTime)) {
                 model.addAttribute("error", "End time must be after start time for same-day sessions");
-                model.addAttribute("games", gameService.findAll());
                 model.addAttribute("editing", false);
                 return "game-sessions/form";
             }
@@ -468,7 +453,6 @@ public class GameSessionController {
         } catch (Exception e) {
             log.error("Error creating game session", e);
             model.addAttribute("error", "An error occurred while creating the session: " + e.getMessage());
-            model.addAttribute("games", gameService.findAll());
             model.addAttribute("editing", false);
             return "game-sessions/form";
         }
@@ -477,8 +461,8 @@ public class GameSessionController {
     /**
      * Displays the form for editing an existing game session.
      * This endpoint is restricted to session creators and administrators, and pre-populates
-     * the form with current session data. It handles the special case of including
-     * currently selected library games even if they're marked as unavailable.
+     * the form with current session data. The current library game, if any, is shown
+     * preselected in the game typeahead even if it is marked as unavailable.
      * 
      * @param id the unique identifier of the game session to edit
      * @param model the Spring MVC model for passing data to the view
@@ -492,29 +476,7 @@ public class GameSessionController {
         if (gameSession.isPresent()) {
             GameSession session = gameSession.get();
             
-            // Get available games
-            List<Game> availableGames = gameService.findByAvailable(true);
-            
-            // If the session currently uses a library game, add it to the list 
-            // even if it's not available (so it appears selected)
-            if (session.getGame() != null) {
-                Game currentGame = session.getGame();
-                // Only add if not already in the available list
-                boolean isAlreadyInList = availableGames.stream()
-                        .anyMatch(game -> game.getId().equals(currentGame.getId()));
-                
-                if (!isAlreadyInList) {
-                    // Create a new mutable list and add the current game
-                    availableGames = new ArrayList<>(availableGames);
-                    availableGames.add(currentGame);
-                    
-                    // Sort the list by name to maintain consistency
-                    availableGames.sort(Comparator.comparing(Game::getName));
-                }
-            }
-            
             model.addAttribute("gameSession", session);
-            model.addAttribute("games", availableGames);
             model.addAttribute("editing", true);
             return "game-sessions/form";
         } else {
@@ -556,7 +518,7 @@ public class GameSessionController {
      * @param endTime optional updated session end time
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param user the currently authenticated user, if any
      * @return redirect to session detail on success, or form view on validation errors
      * 
      * @throws IOException if there's an error during custom image upload
@@ -577,11 +539,9 @@ public class GameSessionController {
                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime endTime,
                                    Model model,
                                    RedirectAttributes redirectAttributes,
-                                   Principal principal) {
+                                   @CurrentUser Optional<User> user) {
         
         if (result.hasErrors()) {
-            List<Game> games = gameService.findByAvailable(true);
-            model.addAttribute("games", games);
             model.addAttribute("editing", true);
             return "game-sessions/form";
         }
@@ -593,7 +553,6 @@ public class GameSessionController {
         }
         
         GameSession existingSession = existingSessionOpt.get();
-        Optional<User> user = userService.findByUsername(principal.getName());
         
         if (!user.isPresent()) {
             redirectAttributes.addFlashAttribute("error", "User not found");
@@ -603,8 +562,6 @@ public class GameSessionController {
         // Validate custom game name
         if (customGameName == null || customGameName.trim().isEmpty()) {
             model.addAttribute("error", "Game name is required");
-            List<Game> games = gameService.findByAvailable(true);
-            model.addAttribute("games", games);
             model.addAttribute("editing", true);
             return "game-sessions/form";
         }
@@ -715,8 +672,6 @@ public class GameSessionController {
         } catch (Exception e) {
             log.error("Error updating game session", e);
             model.addAttribute("error", "An error occurred while updating the session: " + e.getMessage());
-            List<Game> games = gameService.findByAvailable(true);
-            model.addAttribute("games", games);
             model.addAttribute("editing", true);
             return "game-sessions/form";
         }
@@ -738,15 +693,15 @@ public class GameSessionController {
      * 
      * @param id the unique identifier of the game session to join
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to session detail page with appropriate success or error message
      */
     @PostMapping("/{id}/join")
     public String joinGameSession(@PathVariable Long id,
                                  RedirectAttributes redirectAttributes,
-                                 Principal principal) {
+                                 @CurrentUser Optional<User> authenticatedUser) {
         
-        userService.findByUsername(principal.getName()).ifPresent(user -> {
+        authenticatedUser.ifPresent(user -> {
             boolean added = gameSessionService.addPlayerToSession(id, user.getId());
             
             if (added) {
@@ -785,15 +740,15 @@ public class GameSessionController {
      * 
      * @param id the unique identifier of the game session to leave
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to session detail page with appropriate success or error message
      */
     @PostMapping("/{id}/leave")
     public String leaveGameSession(@PathVariable Long id,
                                   RedirectAttributes redirectAttributes,
-                                  Principal principal) {
+                                  @CurrentUser Optional<User> authenticatedUser) {
         
-        userService.findByUsername(principal.getName()).ifPresent(user -> {
+        authenticatedUser.ifPresent(user -> {
             boolean removed = gameSessionService.removePlayerFromSession(id, user.getId());
             
             if (removed) {
@@ -836,17 +791,16 @@ public class GameSessionController {
      * 
      * @param id the unique identifier of the game session to delete
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param userOpt the currently authenticated user, if any
      * @return redirect to sessions list with appropriate success or error message
      */
     @PostMapping("/{id}/delete")
     @PreAuthorize("hasRole('ADMIN') or @securityUtils.isGameSessionCreator(#id, principal.username)")
     public String deleteGameSession(@PathVariable Long id,
                                    RedirectAttributes redirectAttributes,
-                                   Principal principal) {
+                                   @CurrentUser Optional<User> userOpt) {
         
         Optional<GameSession> sessionOpt = gameSessionService.findById(id);
-        Optional<User> userOpt = userService.findByUsername(principal.getName());
         
         if (sessionOpt.isPresent() && userOpt.isPresent()) {
             GameSession gameSession = sessionOpt.get();
@@ -932,12 +886,12 @@ public class GameSessionController {
      * allowing for easy management of their organized gaming events.
      * 
      * @param model the Spring MVC model for passing data to the view
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return the name of the game sessions list view template with user's created sessions
      */
     @GetMapping("/my-sessions")
-    public String viewMySessions(Model model, Principal principal) {
-        userService.findByUsername(principal.getName()).ifPresent(user -> {
+    public String viewMySessions(Model model, @CurrentUser Optional<User> authenticatedUser) {
+        authenticatedUser.ifPresent(user -> {
             List<GameSession> sessions = gameSessionService.findByCreator(user);
             Map<LocalDate, List<GameSession>> sessionsByDay = groupSessionsByDay(sessions);
             
@@ -955,13 +909,13 @@ public class GameSessionController {
      * providing a convenient overview of their gaming commitments.
      * 
      * @param model the Spring MVC model for passing data to the view
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return the name of the game sessions list view template with user's participations
      */
     @GetMapping("/my-participations")
-    public String viewMyParticipations(Model model, Principal principal) {
-        userService.findByUsername(principal.getName()).ifPresent(user -> {
-            List<GameSession> sessions = gameSessionService.findSessionsByPlayer(user.getId());
+    public String viewMyParticipations(Model model, @CurrentUser Optional<CurrentUserSummary> authenticatedUser) {
+        authenticatedUser.ifPresent(user -> {
+            List<GameSession> sessions = gameSessionService.findSessionsByPlayer(user.id());
             Map<LocalDate, List<GameSession>> sessionsByDay = groupSessionsByDay(sessions);
             
             model.addAttribute("sessionsByDay", sessionsByDay);
@@ -11,8 +11,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 import com.ezequiel.reiunio.entity.Game;
 import com.ezequiel.reiunio.entity.GameSession;
-import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.GameSessionStatus;
+import com.ezequiel.reiunio.security.CurrentUser;
+import com.ezequiel.reiunio.security.CurrentUserSummary;
 import com.ezequiel.reiunio.service.GameService;
 import com.ezequiel.reiunio.service.GameSessionService;
 import com.ezequiel.reiunio.service.UserService;
@@ -154,10 +155,11 @@ public class HomeController {
      * 
      * @param model the Spring MVC model for passing data to the view
      * @param principal the currently authenticated user's security principal
+     * @param user the currently authenticated user, if any
      * @return the name of the main dashboard view template, or redirect to welcome if not authenticated
      */
     @GetMapping("/home")
-    public String home(Model model, Principal principal) {
+    public String home(Model model, Principal principal, @CurrentUser Optional<CurrentUserSummary> user) {
         log.debug("Processing home request");
         
         // If not authenticated, redirect to welcome
@@ -184,13 +186,12 @@ public class HomeController {
             log.debug("Found {} available games", availableGames.size());
             
             // User information
-            Optional<User> user = userService.findByUsername(principal.getName());
             if (user.isPresent()) {
                 model.addAttribute("user", user.get());
-                log.debug("User authenticated: {}", user.get().getUsername());
+                log.debug("User authenticated: {}", user.get().username());
                 
                 // Sessions where the user is registered (excluding finished ones)
-                List<GameSession> mySessions = gameSessionService.findSessionsByPlayer(user.get().getId()).stream()
+                List<GameSession> mySessions = gameSessionService.findSessionsByPlayer(user.get().id()).stream()
                         .filter(session -> session.getStatus() != GameSessionStatus.FINISHED)
                         .collect(Collectors.toList());
                 model.addAttribute("mySessions", mySessions);
@@ -1,8 +1,9 @@
 package com.ezequiel.reiunio.controller;
 
-import java.security.Principal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -27,7 +28,11 @@ import com.ezequiel.reiunio.entity.GameSessionInfo;
 import com.ezequiel.reiunio.entity.Loan;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.enums.ImageSize;
 import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex.FreeWindow;
+import com.ezequiel.reiunio.security.CurrentUser;
 import com.ezequiel.reiunio.service.AuditLogService;
 import com.ezequiel.reiunio.service.GameService;
 import com.ezequiel.reiunio.service.LoanService;
@@ -55,6 +60,9 @@ public class LoanController {
     private final UserService userService;
     private final AuditLogService auditLogService;
 
+    /** Number of days ahead covered by the free windows of the game info endpoint */
+    private static final int FREE_WINDOW_DAYS = 60;
+
     /**
      * Displays a paginated list of loans with optional status filtering.
      * 
@@ -62,6 +70,9 @@ public class LoanController {
      * @param status optional filter parameter for loan status
      * @param page the page number for pagination (0-based)
      * @param size the number of items per page
+     * @param cursor opaque keyset cursor; when present the page number is ignored
+     * @param keyset whether to use keyset (cursor) pagination instead of page numbers
+     * @param count whether to count the total records in keyset mode
      * @return the view name for displaying the loan list
      */
     @GetMapping
@@ -69,32 +80,46 @@ public class LoanController {
     public String listLoans(Model model, 
                            @RequestParam(required = false) String status,
                            @RequestParam(defaultValue = "0") int page,
-                           @RequestParam(defaultValue = "20") int size) {
-        
-        Pageable pageable = PageRequest.of(page, size, Sort.by("loanDate").descending());
-        Page<Loan> loanPage;
+                           @RequestParam(defaultValue = "20") int size,
+                           @RequestParam(required = false) String cursor,
+                           @RequestParam(defaultValue = "false") boolean keyset,
+                           @RequestParam(defaultValue = "false") boolean count) {
         
+        LoanStatus statusEnum = null;
         if (status != null && !status.isEmpty()) {
             try {
-                LoanStatus statusEnum = LoanStatus.valueOf(status.toUpperCase());
-                loanPage = loanService.findByStatusPaginated(statusEnum, pageable);
+                statusEnum = LoanStatus.valueOf(status.toUpperCase());
                 model.addAttribute("filterStatus", status);
             } catch (IllegalArgumentException e) {
-                loanPage = loanService.findAllPaginated(pageable);
+                statusEnum = null;
             }
-        } else {
-            loanPage = loanService.findAllPaginated(pageable);
         }
         
-        model.addAttribute("loanPage", loanPage);
-        model.addAttribute("loans", loanPage.getContent());
         model.addAttribute("statuses", LoanStatus.values());
         model.addAttribute("currentUrl", "/loans");
+        model.addAttribute("pageSize", size);
+        
+        if (keyset || cursor != null) {
+            // Keyset pagination on (loanDate, id): no offset scan and no COUNT unless asked for
+            CursorPage<Loan> cursorPage = loanService.findByStatusByCursor(statusEnum, size, cursor, count);
+            model.addAttribute("cursorPage", cursorPage);
+            model.addAttribute("loans", cursorPage.getContent());
+            model.addAttribute("totalElements", cursorPage.getTotalElements());
+            model.addAttribute("countRequested", count);
+            return "loans/list";
+        }
+        
+        Pageable pageable = PageRequest.of(page, size, Sort.by("loanDate").descending());
+        Page<Loan> loanPage = statusEnum != null
+                ? loanService.findByStatusPaginated(statusEnum, pageable)
+                : loanService.findAllPaginated(pageable);
+        
+        model.addAttribute("loanPage", loanPage);
+        model.addAttribute("loans", loanPage.getContent());
         
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", loanPage.getTotalPages());
         model.addAttribute("totalElements", loanPage.getTotalElements());
-        model.addAttribute("pageSize", size);
         
         return "loans/list";
     }
@@ -129,11 +154,8 @@ public class LoanController {
     @GetMapping("/new")
     @PreAuthorize("hasRole('ADMIN') or hasRole('EXTENDED_USER')")
     public String newLoan(Model model, @RequestParam(required = false) Long gameId) {
-        List<User> users = userService.findAll();
-        List<Game> availableGames = gameService.findByAvailable(true);
-        
-        model.addAttribute("users", users);
-        model.addAttribute("games", availableGames);
+        // Users and games are picked through the typeaheads at /users/api/users/search
+        // and /games/api/suggest, so the form does not embed either list
         
         LocalDate defaultReturnDate = LocalDate.now().plusWeeks(1);
         model.addAttribute("suggestedReturnDate", defaultReturnDate);
@@ -178,7 +200,7 @@ public class LoanController {
      * @param gameId the ID of the game being loaned
      * @param estimatedReturnDate the expected return date for the loan
      * @param redirectAttributes for passing flash messages after redirect
-     * @param principal the authenticated user creating the loan
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to loan list or back to form with errors
      */
     @PostMapping("/new")
@@ -187,7 +209,7 @@ public class LoanController {
                             @RequestParam Long gameId,
                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate estimatedReturnDate,
                             RedirectAttributes redirectAttributes,
-                            Principal principal) {
+                            @CurrentUser Optional<User> authenticatedUser) {
         
         Optional<User> user = userService.findById(userId);
         Optional<Game> game = gameService.findById(gameId);
@@ -220,7 +242,7 @@ public class LoanController {
             LoanConflictInfo conflictInfo = loanService.checkLoanConflicts(selectedGame, estimatedReturnDate);
             Loan loan = loanService.createLoan(user.get(), selectedGame, estimatedReturnDate);
             
-            userService.findByUsername(principal.getName()).ifPresent(adminUser -> 
+            authenticatedUser.ifPresent(adminUser -> 
                 auditLogService.logChange(adminUser, ActionType.CREATION, "Loan", loan.getId(),
                     "Loan of game " + selectedGame.getName() + " to user " + user.get().getUsername() +
                     (conflictInfo.hasConflicts() ? " (with session conflicts)" : ""))
@@ -251,7 +273,7 @@ public class LoanController {
      * @param id the ID of the loan being returned
      * @param returnDate optional return date (defaults to current date)
      * @param redirectAttributes for passing flash messages after redirect
-     * @param principal the authenticated user processing the return
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to loan list with success/error message
      */
     @PostMapping("/{id}/return")
@@ -259,7 +281,7 @@ public class LoanController {
     public String registerReturn(@PathVariable Long id,
                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnDate,
                                 RedirectAttributes redirectAttributes,
-                                Principal principal) {
+                                @CurrentUser Optional<User> authenticatedUser) {
         
         if (returnDate == null) {
             returnDate = LocalDate.now();
@@ -268,7 +290,7 @@ public class LoanController {
         try {
             Loan loan = loanService.registerReturn(id, returnDate);
             
-            userService.findByUsername(principal.getName()).ifPresent(adminUser -> 
+            authenticatedUser.ifPresent(adminUser -> 
                 auditLogService.logChange(adminUser, ActionType.MODIFICATION, "Loan", loan.getId(),
                     "Return of game " + loan.getGame().getName() + " by user " + loan.getUser().getUsername())
             );
@@ -315,17 +337,17 @@ public class LoanController {
      * Displays a paginated list of loans for the currently authenticated user.
      * 
      * @param model the Spring MVC model to populate with user's loan data
-     * @param principal the authenticated user
+     * @param authenticatedUser the currently authenticated user, if any
      * @param page the page number for pagination (0-based)
      * @param size the number of items per page
      * @return the view name for displaying the user's loans
      */
     @GetMapping("/my-loans")
-    public String viewMyLoans(Model model, Principal principal,
+    public String viewMyLoans(Model model, @CurrentUser Optional<User> authenticatedUser,
                              @RequestParam(defaultValue = "0") int page,
                              @RequestParam(defaultValue = "20") int size) {
         
-        userService.findByUsername(principal.getName()).ifPresent(user -> {
+        authenticatedUser.ifPresent(user -> {
             Pageable pageable = PageRequest.of(page, size, Sort.by("loanDate").descending());
             Page<Loan> userLoanPage = loanService.findByUserPaginated(user, pageable);
             
@@ -370,7 +392,7 @@ public class LoanController {
             LocalDate defaultReturnDate = LocalDate.now().plusWeeks(1);
             LoanConflictInfo conflictInfo = loanService.checkLoanConflicts(game, defaultReturnDate);
             
-            return ResponseEntity.ok(new GameInfoResponse(
+            GameInfoResponse response = new GameInfoResponse(
                 true, 
                 "Game information loaded successfully", 
                 game, 
@@ -378,7 +400,9 @@ public class LoanController {
                 conflictInfo.getSuggestedReturnDate(), 
                 conflictInfo.hasConflicts(),
                 conflictInfo.hasConflicts() ? "There are session conflicts with the default return date" : "No conflicts detected"
-            ));
+            );
+            response.setFreeWindows(loanService.findFreeWindows(game, LocalDate.now(), LocalDate.now().plusDays(FREE_WINDOW_DAYS)));
+            return ResponseEntity.ok(response);
             
         } catch (Exception e) {
             log.error("Error getting game info for gameId: " + gameId, e);
@@ -386,6 +410,33 @@ public class LoanController {
         }
     }
     
+    /**
+     * AJAX endpoint to retrieve the details shown for the user picked in the loan form. The
+     * user typeahead only returns IDs and display names, so contact details are sent for the
+     * one user picked rather than for every suggestion.
+     *
+     * @param userId the ID of the user
+     * @return ResponseEntity containing the user's name, username, email, role and photo URL
+     */
+    @GetMapping("/api/user-info/{userId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EXTENDED_USER')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getUserInfo(@PathVariable Long userId) {
+        Optional<User> userOpt = userService.findById(userId);
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        User user = userOpt.get();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", user.getId());
+        response.put("fullName", user.getFullName());
+        response.put("username", user.getUsername());
+        response.put("email", user.getEmail());
+        response.put("role", user.getRole());
+        response.put("profilePhotoUrl", user.getProfilePhotoUrl(ImageSize.MEDIUM.getPixels()));
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Response class for game information AJAX requests.
      * 
@@ -400,6 +451,7 @@ public class LoanController {
         private LocalDate suggestedReturnDate;
         private boolean hasConflicts;
         private String conflictMessage;
+        private List<FreeWindow> freeWindows;
         
         public GameInfoResponse(boolean success, String message, Game game, List<GameSessionInfo> upcomingSessions, 
                                LocalDate suggestedReturnDate, boolean hasConflicts, String conflictMessage) {
@@ -419,5 +471,7 @@ public class LoanController {
         public LocalDate getSuggestedReturnDate() { return suggestedReturnDate; }
         public boolean isHasConflicts() { return hasConflicts; }
         public String getConflictMessage() { return conflictMessage; }
+        public List<FreeWindow> getFreeWindows() { return freeWindows; }
+        public void setFreeWindows(List<FreeWindow> freeWindows) { this.freeWindows = freeWindows; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.ezequiel.reiunio.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.util.UriUtils;
+
+import com.ezequiel.reiunio.storage.UploadFileServer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controller serving uploaded files under {@code /uploads}.
+ * The files are written by {@link UploadFileServer}, which handles caching, conditional and
+ * range requests.
+ */
+@Controller
+@RequiredArgsConstructor
+public class UploadFileController {
+
+    private static final String PREFIX = "/uploads/";
+
+    private final UploadFileServer uploadFileServer;
+
+    /**
+     * Serves an uploaded file.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response the file is written to
+     * @throws IOException if the file cannot be read or the response written
+     */
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length());
+        uploadFileServer.serve(request, response, UriUtils.decode(path, StandardCharsets.UTF_8));
+    }
+}
@@ -35,6 +35,9 @@ import com.ezequiel.reiunio.enums.ActionType;
 import com.ezequiel.reiunio.enums.GameSessionStatus;
 import com.ezequiel.reiunio.enums.LoanStatus;
 import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.search.UserSearchIndex.UserSuggestion;
+import com.ezequiel.reiunio.security.CurrentUser;
+import com.ezequiel.reiunio.security.CurrentUserSummary;
 import com.ezequiel.reiunio.service.AuditLogService;
 import com.ezequiel.reiunio.service.GameSessionService;
 import com.ezequiel.reiunio.service.LoanService;
@@ -253,22 +256,21 @@ public class UserController {
      * 
      * @param id the unique identifier of the user to display
      * @param model the Spring MVC model for passing data to the view
-     * @param principal the currently authenticated user's security principal
+     * @param currentUser the currently authenticated user, if any
      * @return the name of the user detail view template, or redirect to users list if not found
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @securityUtils.isCurrentUser(#id, authentication.principal.username)")
-    public String viewUser(@PathVariable Long id, Model model, Principal principal) {
+    public String viewUser(@PathVariable Long id, Model model, @CurrentUser Optional<CurrentUserSummary> currentUser) {
         Optional<User> user = userService.findById(id);
         
         if (user.isPresent()) {
             model.addAttribute("user", user.get());
             
             // Get user's loans if current user is viewing their own profile or is admin
-            Optional<User> currentUser = userService.findByUsername(principal.getName());
             if (currentUser.isPresent() && 
-                (currentUser.get().getRole() == Role.ADMIN || 
-                 currentUser.get().getId().equals(user.get().getId()))) {
+                (currentUser.get().role() == Role.ADMIN || 
+                 currentUser.get().id().equals(user.get().getId()))) {
                 
                 List<Loan> userLoans = user.get().getLoans();
                 model.addAttribute("userLoans", userLoans);
@@ -331,7 +333,7 @@ public class UserController {
      * @param result the binding result containing validation errors, if any
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
-     * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @return redirect to users list on success, or form view on validation errors
      */
     @PostMapping("/new")
@@ -340,7 +342,7 @@ public class UserController {
                             BindingResult result, 
                             Model model, 
                             RedirectAttributes redirectAttributes, 
-                            Principal principal) {
+                            @CurrentUser Optional<User> authenticatedUser) {
         
         log.debug("Creating new user: {}", user.getUsername());
         
@@ -371,7 +373,7 @@ public class UserController {
             User savedUser = userService.save(user);
             
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(adminUser -> 
+            authenticatedUser.ifPresent(adminUser -> 
                 auditLogService.logChange(adminUser, ActionType.CREATION, "User", savedUser.getId(), 
                     "User created: " + savedUser.getUsername() + " with role " + savedUser.getRole())
             );
@@ -524,6 +526,7 @@ public class UserController {
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
      * @param principal the currently authenticated user's security principal
+     * @param authenticatedUser the currently authenticated user, if any
      * @param password optional new password for the user
      * @return redirect to users list on success, or form view on validation errors
      */
@@ -535,6 +538,7 @@ public class UserController {
                            Model model, 
                            RedirectAttributes redirectAttributes,
                            Principal principal,
+                           @CurrentUser Optional<User> authenticatedUser,
                            @RequestParam(required = false) String password) {
         
         log.debug("Admin updating user with ID: {}", id);
@@ -595,7 +599,7 @@ public class UserController {
             User savedUser = userService.save(updatedUser);
             
             // Log the action
-            userService.findByUsername(principal.getName()).ifPresent(adminUser -> 
+            authenticatedUser.ifPresent(adminUser -> 
                 auditLogService.logChange(adminUser, ActionType.MODIFICATION, "User", savedUser.getId(), 
                     "User modified: " + savedUser.getUsername() + " - role: " + savedUser.getRole())
             );
@@ -637,13 +641,15 @@ public class UserController {
      * @param id the unique identifier of the user to delete
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
      * @param principal the currently authenticated user's security principal
+     * @param adminUser the currently authenticated user, if any
      * @return redirect to users list with appropriate success or error message
      */
     @PostMapping("/{id}/delete")
     @PreAuthorize("hasRole('ADMIN')")
     public String deleteUser(@PathVariable Long id, 
                             RedirectAttributes redirectAttributes, 
-                            Principal principal) {
+                            Principal principal,
+                            @CurrentUser Optional<User> adminUser) {
         
         log.debug("Attempting to delete user with ID: {}", id);
         
@@ -653,7 +659,6 @@ public class UserController {
             User currentUser = user.get();
             
             // Prevent admin from deleting themselves
-            Optional<User> adminUser = userService.findByUsername(principal.getName());
             if (adminUser.isPresent() && adminUser.get().getId().equals(id)) {
                 log.warn("Admin {} attempted to delete their own account", principal.getName());
                 redirectAttributes.addFlashAttribute("error", "You cannot delete your own account");
@@ -716,6 +721,7 @@ public class UserController {
      * @param model the Spring MVC model for passing data to the view
      * @param redirectAttributes Spring MVC attributes for passing messages between requests
      * @param principal the currently authenticated user's security principal
+     * @param currentUserOpt the currently authenticated user, if any
      * @param password optional new password for the user
      * @return redirect to profile page on success, or profile view on validation errors
      */
@@ -725,6 +731,7 @@ public class UserController {
                                Model model,
                                RedirectAttributes redirectAttributes,
                                Principal principal,
+                               @CurrentUser Optional<User> currentUserOpt,
                                @RequestParam(required = false) String password) {
         
         log.debug("Updating profile for user: {}", principal.getName());
@@ -732,7 +739,6 @@ public class UserController {
                  user.getFirstName(), user.getLastName(), 
                  (password != null && !password.trim().isEmpty()));
         
-        Optional<User> currentUserOpt = userService.findByUsername(principal.getName());
         
         if (!currentUserOpt.isPresent()) {
             log.error("Current user not found: {}", principal.getName());
@@ -900,7 +906,7 @@ public class UserController {
             }
             
             // Check if username exists
-            Optional<User> existingUser = userService.findByUsername(trimmedUsername);
+            Optional<User> existingUser = userService.findUsernameHolder(trimmedUsername);
             
             boolean available = true;
             if (existingUser.isPresent()) {
@@ -983,7 +989,7 @@ public class UserController {
             }
             
             // Check if email exists
-            Optional<User> existingUser = userService.findByEmail(trimmedEmail);
+            Optional<User> existingUser = userService.findEmailHolder(trimmedEmail);
             
             boolean available = true;
             if (existingUser.isPresent()) {
@@ -1019,6 +1025,36 @@ public class UserController {
         }
     }
     
+    /**
+     * AJAX endpoint for user typeahead fields.
+     * Suggestions come from the in-memory user search index, so typing in a user picker
+     * does not query the database on every keystroke.
+     * 
+     * @param q the text typed so far, matched against username, name and email
+     * @param page the page number (0-based)
+     * @param size the number of suggestions per page
+     * @return ResponseEntity containing the suggestions and pagination details
+     */
+    @GetMapping("/api/users/search")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EXTENDED_USER')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> searchUsersTypeahead(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 50));
+        Page<UserSuggestion> suggestions = userService.suggestUsers(q, pageable);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", suggestions.getContent());
+        response.put("page", suggestions.getNumber());
+        response.put("size", suggestions.getSize());
+        response.put("totalElements", suggestions.getTotalElements());
+        response.put("hasNext", suggestions.hasNext());
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Validates for duplicate usernames and emails with context-aware exclusion.
      * This private helper method performs comprehensive duplicate checking while allowing
@@ -1281,16 +1317,15 @@ public class UserController {
      *   <li><code>gamesBorrowedCount</code> - Total games borrowed by the user (all loan statuses)</li>
      * </ul>
      * 
-     * @param authentication the Spring Security authentication object containing the current user's credentials
      * @param model the Spring MVC model for passing data to the view template
+     * @param authenticatedUser the currently authenticated user, if any
      * @return the name of the user profile view template ("users/profile")
      * @throws RuntimeException if the authenticated user cannot be found in the database
      *
      */
     @GetMapping("/profile")
-    public String showProfile(Model model, Principal principal) {
-        String username = principal.getName();
-        User user = userService.findByUsername(username)
+    public String showProfile(Model model, @CurrentUser Optional<User> authenticatedUser) {
+        User user = authenticatedUser
             .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Datos básicos del usuario
@@ -17,7 +17,7 @@ import lombok.Builder;
  * Used to track actions performed by users in the system.
  */
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = @Index(name = "idx_audit_logs_change_date", columnList = "change_date_time, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,9 +33,11 @@ public class AuditLog {
 
     /**
      * The user who performed the action.
+     * No foreign key is declared because MySQL cannot partition a table that has one;
+     * AuditLogPartitionManager adds it when the table is not partitioned.
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
     /**
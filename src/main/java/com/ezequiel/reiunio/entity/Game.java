@@ -4,7 +4,10 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.ImageSize;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -13,6 +16,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -24,7 +28,10 @@ import lombok.ToString;
  * Includes metadata such as name, description, player limits, acquisition date, state, and associations with loans and sessions.
  */
 @Entity
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        @Index(name = "idx_games_borrow_count", columnList = "borrow_count DESC, name"),
+        @Index(name = "idx_games_image_path", columnList = "image_path")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,12 +51,14 @@ public class Game {
      * Name of the game.
      */
     @NotBlank
+    @Size(max = 100)
     @Column(length = 100)
     private String name;
 
     /**
      * Optional description of the game.
      */
+    @Size(max = 500)
     @Column(length = 500)
     private String description;
 
@@ -108,6 +117,16 @@ public class Game {
     @Column(name = "image_path")
     private String imagePath;
 
+    /**
+     * Number of loans ever created for the game.
+     * Maintained by the database through bulk updates when loans are created, so it is never
+     * written from the entity; it is 0 for new games and may be stale on an already loaded instance.
+     */
+    @ColumnDefault("0")
+    @Column(name = "borrow_count", nullable = false, insertable = false, updatable = false)
+    @JsonIgnore
+    private Long borrowCount;
+
     /**
      * List of loans associated with the game.
      * Ignored during JSON serialization.
@@ -139,6 +158,17 @@ public class Game {
         return "/defaults/game-placeholder.jpg";
     }
 
+    /**
+     * Returns the URL of the smallest image variant covering the displayed size, or a default
+     * placeholder if no custom image is set.
+     *
+     * @param displaySize the size the image is displayed at, in pixels
+     * @return image URL string
+     */
+    public String getImageUrl(int displaySize) {
+        return hasCustomImage() ? ImageSize.forDisplay(displaySize).variantOf(imagePath) : getImageUrl();
+    }
+
     /**
      * Checks whether the game has a custom image set.
      *
@@ -0,0 +1,42 @@
+package com.ezequiel.reiunio.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Daily rollup of the loans created for a game.
+ * One row per game and day with at least one loan, so the most borrowed games of a time window
+ * are computed from a few buckets per game instead of from every loan.
+ */
+@Entity
+@Table(name = "game_borrow_days", indexes = @Index(name = "idx_game_borrow_days_date", columnList = "borrow_date, game_id"))
+@IdClass(GameBorrowDayId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameBorrowDay {
+
+    /**
+     * ID of the borrowed game. Kept as a plain column so the rollup does not block deleting games.
+     */
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    /**
+     * Day the loans were created.
+     */
+    @Id
+    @Column(name = "borrow_date")
+    private LocalDate borrowDate;
+
+    /**
+     * Number of loans created for the game on that day.
+     */
+    @Column(name = "borrow_count", nullable = false)
+    private Long borrowCount;
+}
@@ -0,0 +1,30 @@
+package com.ezequiel.reiunio.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Composite primary key class for the GameBorrowDay entity.
+ * Combines the game ID and the day to identify each daily bucket.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameBorrowDayId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID of the borrowed game.
+     */
+    private Long gameId;
+
+    /**
+     * Day of the bucket.
+     */
+    private LocalDate borrowDate;
+}
@@ -0,0 +1,156 @@
+package com.ezequiel.reiunio.entity;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.ezequiel.reiunio.enums.DurationBucket;
+import com.ezequiel.reiunio.enums.GameState;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO holding the facet counts of the games catalog for a given filter set.
+ * Each map is filled from one grouped count that applies every filter except the facet's
+ * own, so the list view shows how many games each option would give without issuing one
+ * count per option.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GameFacets {
+
+    /**
+     * Total number of games matching the filters.
+     */
+    private long total;
+
+    /**
+     * Number of games per category, sorted by category name.
+     */
+    @Builder.Default
+    private Map<String, Long> categories = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Number of games per state. Every state is present, with zero when empty.
+     */
+    @Builder.Default
+    private Map<GameState, Long> states = emptyStates();
+
+    /**
+     * Number of games per availability flag.
+     */
+    @Builder.Default
+    private Map<Boolean, Long> availability = new TreeMap<>();
+
+    /**
+     * Number of games per minimum player count.
+     */
+    @Builder.Default
+    private Map<Integer, Long> minPlayers = new TreeMap<>();
+
+    /**
+     * Number of games per maximum player count.
+     */
+    @Builder.Default
+    private Map<Integer, Long> maxPlayers = new TreeMap<>();
+
+    /**
+     * Number of games per duration bucket. Every bucket is present, with zero when empty.
+     */
+    @Builder.Default
+    private Map<DurationBucket, Long> durations = emptyDurations();
+
+    /**
+     * Adds the number of games of a category.
+     *
+     * @param category the category, ignored when blank
+     * @param count the number of games
+     */
+    public void addCategory(String category, long count) {
+        if (category != null && !category.isEmpty()) {
+            categories.merge(category, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the number of games in a state.
+     *
+     * @param state the state, ignored when {@code null}
+     * @param count the number of games
+     */
+    public void addState(GameState state, long count) {
+        if (state != null) {
+            states.merge(state, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the number of games with an availability flag.
+     *
+     * @param available the availability, ignored when {@code null}
+     * @param count the number of games
+     */
+    public void addAvailability(Boolean available, long count) {
+        if (available != null) {
+            availability.merge(available, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the number of games with a minimum player count.
+     *
+     * @param minPlayerCount the minimum player count, ignored when {@code null}
+     * @param count the number of games
+     */
+    public void addMinPlayers(Integer minPlayerCount, long count) {
+        if (minPlayerCount != null) {
+            minPlayers.merge(minPlayerCount, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the number of games with a maximum player count.
+     *
+     * @param maxPlayerCount the maximum player count, ignored when {@code null}
+     * @param count the number of games
+     */
+    public void addMaxPlayers(Integer maxPlayerCount, long count) {
+        if (maxPlayerCount != null) {
+            maxPlayers.merge(maxPlayerCount, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the number of games with a duration to its bucket.
+     *
+     * @param durationMinutes the duration in minutes, ignored when it falls in no bucket
+     * @param count the number of games
+     */
+    public void addDuration(Integer durationMinutes, long count) {
+        DurationBucket bucket = DurationBucket.of(durationMinutes);
+        if (bucket != null) {
+            durations.merge(bucket, count, Long::sum);
+        }
+    }
+
+    private static Map<GameState, Long> emptyStates() {
+        Map<GameState, Long> map = new EnumMap<>(GameState.class);
+        for (GameState state : GameState.values()) {
+            map.put(state, 0L);
+        }
+        return map;
+    }
+
+    private static Map<DurationBucket, Long> emptyDurations() {
+        Map<DurationBucket, Long> map = new EnumMap<>(DurationBucket.class);
+        for (DurationBucket bucket : DurationBucket.values()) {
+            map.put(bucket, 0L);
+        }
+        return map;
+    }
+}
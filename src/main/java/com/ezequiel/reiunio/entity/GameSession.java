@@ -1,6 +1,7 @@
 package com.ezequiel.reiunio.entity;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.List;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.ezequiel.reiunio.enums.GameSessionStatus;
+import com.ezequiel.reiunio.enums.ImageSize;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
@@ -20,7 +22,15 @@ import lombok.*;
  * Can be created using a game from the library or a custom-defined game.
  */
 @Entity
-@Table(name = "game_sessions")
+@Table(name = "game_sessions", indexes = {
+        @Index(name = "idx_game_sessions_status_ends_at", columnList = "status, ends_at"),
+        @Index(name = "idx_game_sessions_custom_image", columnList = "custom_game_image_path")
+})
+@NamedEntityGraph(name = GameSession.LISTING, attributeNodes = {
+        @NamedAttributeNode("creator"),
+        @NamedAttributeNode("game"),
+        @NamedAttributeNode(value = "players", subgraph = "players")
+}, subgraphs = @NamedSubgraph(name = "players", attributeNodes = @NamedAttributeNode("user")))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,6 +39,12 @@ import lombok.*;
 @EqualsAndHashCode(exclude = {"players"})
 public class GameSession {
 
+    /**
+     * Fetch plan loading the creator, the library game and the players with their users
+     * in the same query, for session listings, calendars and profiles.
+     */
+    public static final String LISTING = "GameSession.listing";
+
     /**
      * Unique identifier for the game session.
      */
@@ -107,6 +123,13 @@ public class GameSession {
     @DateTimeFormat(pattern = "HH:mm")
     private LocalTime endTime;
 
+    /**
+     * Moment at which the session ends, derived from {@link #endDate} and {@link #endTime}.
+     * Persisted so that expired sessions can be finished with a single set-based update.
+     */
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
     /**
      * Maximum number of players allowed in the session.
      */
@@ -115,6 +138,15 @@ public class GameSession {
     @Column(name = "max_players")
     private Integer maxPlayers;
 
+    /**
+     * Number of players registered in the session, kept in step with {@link #players}.
+     * Only changed through conditional bulk updates, so entity saves never overwrite it
+     * and concurrent joins can never push it past {@link #maxPlayers}.
+     */
+    @Column(name = "confirmed_players", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer confirmedPlayers = 0;
+
     /**
      * Optional description for the session.
      */
@@ -135,6 +167,20 @@ public class GameSession {
     @Builder.Default
     private List<GameSessionPlayer> players = new ArrayList<>();
 
+    /**
+     * Keeps {@link #endsAt} in sync with the end date and time before every write.
+     * Sessions without an end time are considered to end at 23:59 of their end date.
+     */
+    @PrePersist
+    @PreUpdate
+    public void computeEndsAt() {
+        if (endDate == null) {
+            endsAt = null;
+            return;
+        }
+        endsAt = endDate.atTime(endTime != null ? endTime : LocalTime.of(23, 59));
+    }
+
     /**
      * Adds a player to the session if not already added and capacity is not full.
      *
@@ -177,7 +223,7 @@ public class GameSession {
      * @return number of players
      */
     public int getConfirmedPlayersCount() {
-        return players.size();
+        return confirmedPlayers != null ? confirmedPlayers : players.size();
     }
 
     /**
@@ -186,7 +232,7 @@ public class GameSession {
      * @return true if the session is full
      */
     public boolean isFull() {
-        return players.size() >= maxPlayers;
+        return getConfirmedPlayersCount() >= maxPlayers;
     }
 
     /**
@@ -238,6 +284,24 @@ public class GameSession {
         return "/defaults/game-placeholder.jpg";
     }
 
+    /**
+     * Returns the image URL for the session, using the smallest variant covering the displayed size.
+     *
+     * @param displaySize the size the image is displayed at, in pixels
+     * @return image URL
+     */
+    public String getGameImageUrl(int displaySize) {
+        if (!isLibraryGame() && hasCustomGameImage()) {
+            return ImageSize.forDisplay(displaySize).variantOf(customGameImagePath);
+        }
+
+        if (isLibraryGame() && game != null) {
+            return game.getImageUrl(displaySize);
+        }
+
+        return "/defaults/game-placeholder.jpg";
+    }
+
     /**
      * Checks if the session has a custom game image.
      *
@@ -0,0 +1,45 @@
+package com.ezequiel.reiunio.entity;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO with the few game fields a typeahead picker needs.
+ * It is built straight from a JPQL constructor expression, so no game entity is loaded.
+ */
+@Data
+@NoArgsConstructor
+public class GameSuggestion {
+
+    private static final String PLACEHOLDER = "/defaults/game-placeholder.jpg";
+
+    /**
+     * ID of the game.
+     */
+    private Long id;
+
+    /**
+     * Name of the game.
+     */
+    private String name;
+
+    /**
+     * URL of the small variant of the game image, or the placeholder when the game has none.
+     */
+    private String thumbnailUrl;
+
+    /**
+     * Creates a suggestion from the stored image path, as {@link Game#getImageUrl(int)} does.
+     *
+     * @param id the game ID
+     * @param name the game name
+     * @param imagePath the stored image path, possibly null
+     */
+    public GameSuggestion(Long id, String name, String imagePath) {
+        this.id = id;
+        this.name = name;
+        this.thumbnailUrl = imagePath != null && !imagePath.isEmpty() ? ImageSize.SMALL.variantOf(imagePath) : PLACEHOLDER;
+    }
+}
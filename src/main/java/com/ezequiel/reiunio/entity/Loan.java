@@ -18,12 +18,21 @@ import lombok.Builder;
  */
 @Entity
 @Table(name = "loans")
+@NamedEntityGraph(name = Loan.WITH_USER_AND_GAME, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("game")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Loan {
 
+    /**
+     * Fetch plan loading the borrower and the game in the same query, for loan listings.
+     */
+    public static final String WITH_USER_AND_GAME = "Loan.withUserAndGame";
+
     /**
      * Primary key for the loan entry.
      */
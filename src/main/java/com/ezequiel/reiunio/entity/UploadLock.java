@@ -0,0 +1,25 @@
+package com.ezequiel.reiunio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row locked while an upload path is reserved or its file removed.
+ * Paths are spread over a fixed set of rows by their hash, so the rows always exist and
+ * locking one never has to insert it.
+ */
+@Entity
+@Table(name = "upload_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadLock {
+
+    /**
+     * Stripe number, from 0 to the number of stripes minus one.
+     */
+    @Id
+    private Integer id;
+}
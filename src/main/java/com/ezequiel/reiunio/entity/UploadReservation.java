@@ -0,0 +1,40 @@
+package com.ezequiel.reiunio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Upload path an upload has just stored or reused, before the entity referencing it is saved.
+ * Keeps every node from removing the file as unreferenced in the meantime.
+ */
+@Entity
+@Table(name = "upload_reservations", indexes = @Index(name = "idx_upload_reservations_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadReservation {
+
+    /**
+     * Upload path, as stored in the entities.
+     */
+    @Id
+    @Column(name = "path")
+    private String path;
+
+    /**
+     * When the path was last reserved, in milliseconds since the epoch, so nodes in different
+     * time zones compare it alike.
+     */
+    @Column(name = "reserved_at", nullable = false)
+    private Long reservedAt;
+
+    /**
+     * When the reservation stops protecting the file, in milliseconds since the epoch. A
+     * reservation left behind by an upload that failed, or whose entity was never saved, is
+     * ignored from then on and deleted by the orphaned upload collector.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+}
@@ -4,7 +4,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.ezequiel.reiunio.enums.ImageSize;
 import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.image.AvatarRenderer;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -17,7 +19,7 @@ import lombok.*;
  * Includes authentication details, profile info, and relationships to loans, sessions, and logs.
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_profile_photo_path", columnList = "profile_photo_path"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -89,14 +91,37 @@ public class User {
     private List<AuditLog> auditLogs = new ArrayList<>();
 
     /**
-     * Returns the profile photo URL or a default placeholder if no custom photo is set.
+     * Returns the profile photo URL or the default avatar if no custom photo is set.
      *
-     * @return Profile photo URL or default image path.
+     * @return Profile photo URL or default avatar URL.
      */
     public String getProfilePhotoUrl() {
         return (profilePhotoPath != null && !profilePhotoPath.isEmpty())
                 ? profilePhotoPath
-                : "/defaults/user-placeholder.jpg";
+                : getDefaultAvatarUrl();
+    }
+
+    /**
+     * Returns the URL of the avatar drawn from the user's initials, shown when no custom
+     * photo is set.
+     *
+     * @return Default avatar URL.
+     */
+    public String getDefaultAvatarUrl() {
+        return AvatarRenderer.urlOf(getInitials());
+    }
+
+    /**
+     * Returns the URL of the smallest profile photo variant covering the displayed size,
+     * or the default avatar.
+     *
+     * @param displaySize the size the photo is displayed at, in pixels
+     * @return the URL of the profile photo.
+     */
+    public String getProfilePhotoUrl(int displaySize) {
+        return hasCustomProfilePhoto()
+                ? ImageSize.forDisplay(displaySize).variantOf(profilePhotoPath)
+                : getProfilePhotoUrl();
     }
 
     /**
@@ -0,0 +1,55 @@
+package com.ezequiel.reiunio.enums;
+
+import java.time.LocalDate;
+
+/**
+ * Enum representing the time windows over which the most borrowed games are ranked.
+ */
+public enum BorrowWindow {
+
+    /**
+     * Loans created in the last 30 days.
+     */
+    LAST_30_DAYS("Last 30 days", 30),
+
+    /**
+     * Loans created in the last 90 days.
+     */
+    LAST_90_DAYS("Last 90 days", 90),
+
+    /**
+     * Loans created in the last year.
+     */
+    LAST_365_DAYS("Last year", 365),
+
+    /**
+     * Every loan ever created.
+     */
+    ALL_TIME("All time", null);
+
+    private final String label;
+    private final Integer days;
+
+    BorrowWindow(String label, Integer days) {
+        this.label = label;
+        this.days = days;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    /**
+     * Returns the first day of the window ending on the given day.
+     *
+     * @param today the last day of the window
+     * @return the first day included, or null for {@link #ALL_TIME}
+     */
+    public LocalDate since(LocalDate today) {
+        return days == null ? null : today.minusDays(days - 1L);
+    }
+}
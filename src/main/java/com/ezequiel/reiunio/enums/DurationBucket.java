@@ -0,0 +1,69 @@
+package com.ezequiel.reiunio.enums;
+
+/**
+ * Enum representing the duration ranges used to group games in the catalog facets.
+ * Each bucket exposes inclusive minute bounds so it can be turned back into the
+ * {@code minDuration}/{@code maxDuration} filters of the games list.
+ */
+public enum DurationBucket {
+
+    /**
+     * Quick games of up to 30 minutes.
+     */
+    SHORT("Up to 30 min", null, 30),
+
+    /**
+     * Games between 31 and 60 minutes.
+     */
+    MEDIUM("31-60 min", 31, 60),
+
+    /**
+     * Games between 61 and 120 minutes.
+     */
+    LONG("61-120 min", 61, 120),
+
+    /**
+     * Games longer than two hours.
+     */
+    EPIC("Over 120 min", 121, null);
+
+    private final String label;
+    private final Integer minMinutes;
+    private final Integer maxMinutes;
+
+    DurationBucket(String label, Integer minMinutes, Integer maxMinutes) {
+        this.label = label;
+        this.minMinutes = minMinutes;
+        this.maxMinutes = maxMinutes;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Integer getMinMinutes() {
+        return minMinutes;
+    }
+
+    public Integer getMaxMinutes() {
+        return maxMinutes;
+    }
+
+    /**
+     * Returns the bucket a duration falls into.
+     *
+     * @param minutes the game duration in minutes
+     * @return the matching bucket, or null when the duration is unknown
+     */
+    public static DurationBucket of(Integer minutes) {
+        if (minutes == null) {
+            return null;
+        }
+        for (DurationBucket bucket : values()) {
+            if (bucket.maxMinutes == null || minutes <= bucket.maxMinutes) {
+                return bucket;
+            }
+        }
+        return EPIC;
+    }
+}
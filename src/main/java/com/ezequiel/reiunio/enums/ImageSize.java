@@ -0,0 +1,96 @@
+package com.ezequiel.reiunio.enums;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Enum representing the downscaled variants generated for every uploaded JPEG or PNG image.
+ * Each variant fits in a square of the given number of pixels and is stored next to the
+ * original, with the size appended to the file name ({@code game_1_<uuid>_256.jpg}).
+ */
+public enum ImageSize {
+
+    /**
+     * Thumbnails in lists and typeahead suggestions.
+     */
+    SMALL(64),
+
+    /**
+     * Cards and avatars.
+     */
+    MEDIUM(256),
+
+    /**
+     * Detail pages.
+     */
+    LARGE(1024);
+
+    private static final Pattern VARIANT_NAME = Pattern.compile("^(.+)_(64|256|1024)(\\.(?:jpe?g|png))$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final int pixels;
+
+    ImageSize(int pixels) {
+        this.pixels = pixels;
+    }
+
+    public int getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the smallest variant at least as large as the displayed size, or the largest one.
+     *
+     * @param displaySize the width or height the image is displayed at, in pixels
+     * @return the variant to use
+     */
+    public static ImageSize forDisplay(int displaySize) {
+        for (ImageSize size : values()) {
+            if (size.pixels >= displaySize) {
+                return size;
+            }
+        }
+        return LARGE;
+    }
+
+    /**
+     * Returns the path of this variant of an uploaded image. Images in a format without
+     * variants (GIF, WebP) are returned unchanged.
+     *
+     * @param path the path of the original image
+     * @return the path of the variant
+     */
+    public String variantOf(String path) {
+        if (!hasVariants(path)) {
+            return path;
+        }
+        int dot = path.lastIndexOf('.');
+        return path.substring(0, dot) + "_" + pixels + path.substring(dot);
+    }
+
+    /**
+     * Checks whether variants are generated for an image.
+     *
+     * @param path the path or file name of the original image
+     * @return true for JPEG and PNG images
+     */
+    public static boolean hasVariants(String path) {
+        if (path == null) {
+            return false;
+        }
+        String lower = path.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+    }
+
+    /**
+     * Returns the name of the original image a variant was generated from.
+     *
+     * @param fileName the file name of a variant
+     * @return the file name of the original, or null if the name is not a variant name
+     */
+    public static String originalOf(String fileName) {
+        Matcher matcher = VARIANT_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) + matcher.group(3) : null;
+    }
+}
@@ -0,0 +1,208 @@
+package com.ezequiel.reiunio.image;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Renders the default avatar of users without a profile photo: their initials in white on a
+ * coloured square, as SVG or PNG.
+ *
+ * <p>An avatar only depends on its initials, colour, format and size, so rendered bytes are
+ * kept in a bounded least-recently-used cache under that key and the URLs built by
+ * {@link #urlOf} can be cached by browsers forever. With two initials per user, a few hundred
+ * entries cover most of the users shown at any time.</p>
+ *
+ * <p>Exposed metrics:
+ * <ul>
+ *   <li>{@code reiunio.avatars.cache} - avatar requests, tagged {@code result=hit|miss}</li>
+ * </ul>
+ */
+@Component
+public class AvatarRenderer {
+
+    /** Background colour of the avatars built by {@link #urlOf(String)}. */
+    public static final String DEFAULT_COLOR = "007bff";
+
+    private static final Pattern HEX_COLOR = Pattern.compile("[0-9a-fA-F]{6}");
+    private static final int MAX_INITIALS = 2;
+    private static final String FONT_FAMILY = "Helvetica, Arial, sans-serif";
+    /** Height of the initials relative to the avatar size. */
+    private static final float FONT_RATIO = 0.42f;
+
+    /**
+     * Formats an avatar can be rendered in.
+     */
+    public enum Format {
+        SVG("svg", "image/svg+xml"),
+        PNG("png", "image/png");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Returns the format for a file extension.
+         *
+         * @param extension the extension, without the dot
+         * @return the format, or null if avatars are not rendered in it
+         */
+        public static Format fromExtension(String extension) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(extension)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<String, byte[]> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public AvatarRenderer(MeterRegistry meterRegistry,
+                          @Value("${app.avatars.cache.max-entries:500}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hitCounter = Counter.builder("reiunio.avatars.cache")
+                .tag("result", "hit")
+                .description("Avatars served from the cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("reiunio.avatars.cache")
+                .tag("result", "miss")
+                .description("Avatars rendered because they were not cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the URL of the default SVG avatar for the given initials.
+     *
+     * @param initials the initials of the user
+     * @return the URL of the avatar endpoint
+     */
+    public static String urlOf(String initials) {
+        return "/avatars/" + UriUtils.encodePathSegment(normalizeInitials(initials), StandardCharsets.UTF_8)
+                + "." + Format.SVG.extension + "?background=" + DEFAULT_COLOR;
+    }
+
+    /**
+     * Returns an avatar, rendering it unless it is cached.
+     *
+     * @param initials the initials to draw; only the first two letters or digits are used
+     * @param color the background colour as six hex digits
+     * @param format the image format
+     * @param displaySize the size the avatar is displayed at, rounded up to an image variant size
+     * @return the encoded image
+     * @throws IllegalArgumentException if the colour is not six hex digits
+     */
+    public byte[] render(String initials, String color, Format format, int displaySize) {
+        if (color == null || !HEX_COLOR.matcher(color).matches()) {
+            throw new IllegalArgumentException("Invalid avatar color: " + color);
+        }
+        String text = normalizeInitials(initials);
+        String background = color.toLowerCase(Locale.ROOT);
+        int pixels = ImageSize.forDisplay(displaySize).getPixels();
+        String key = text + "|" + background + "|" + format + "|" + pixels;
+        byte[] content;
+        synchronized (cache) {
+            content = cache.get(key);
+        }
+        if (content != null) {
+            hitCounter.increment();
+            return content;
+        }
+        missCounter.increment();
+        // Rendered outside the lock; two requests racing for the same key just render it twice
+        content = format == Format.SVG ? renderSvg(text, background, pixels) : renderPng(text, background, pixels);
+        synchronized (cache) {
+            cache.put(key, content);
+        }
+        return content;
+    }
+
+    /**
+     * Upper-cases the initials and keeps their first two letters or digits, or {@code ?} if
+     * there are none. Nothing else can reach the SVG markup, so it needs no escaping.
+     */
+    static String normalizeInitials(String initials) {
+        StringBuilder text = new StringBuilder();
+        if (initials != null) {
+            initials.toUpperCase(Locale.ROOT).codePoints()
+                    .filter(Character::isLetterOrDigit)
+                    .limit(MAX_INITIALS)
+                    .forEach(text::appendCodePoint);
+        }
+        return text.length() > 0 ? text.toString() : "?";
+    }
+
+    private static byte[] renderSvg(String text, String background, int pixels) {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + pixels + "\" height=\"" + pixels
+                + "\" viewBox=\"0 0 100 100\">"
+                + "<rect width=\"100\" height=\"100\" fill=\"#" + background + "\"/>"
+                + "<text x=\"50\" y=\"50\" dy=\".35em\" text-anchor=\"middle\" font-family=\"" + FONT_FAMILY
+                + "\" font-size=\"" + Math.round(FONT_RATIO * 100) + "\" font-weight=\"600\" fill=\"#ffffff\">"
+                + text + "</text></svg>";
+        return svg.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] renderPng(String text, String background, int pixels) {
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(new Color(Integer.parseInt(background, 16)));
+            graphics.fillRect(0, 0, pixels, pixels);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.round(pixels * FONT_RATIO)));
+            graphics.setColor(Color.WHITE);
+            FontMetrics metrics = graphics.getFontMetrics();
+            int x = (pixels - metrics.stringWidth(text)) / 2;
+            int y = (pixels - metrics.getHeight()) / 2 + metrics.getAscent();
+            graphics.drawString(text, x, y);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,150 @@
+package com.ezequiel.reiunio.image;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the EXIF Orientation tag of JPEG files and turns decoded images upright.
+ *
+ * <p>Cameras and phones store photos as the sensor saw them and record in the tag how they
+ * should be turned for display. Browsers apply it to the original, but ImageIO ignores it and
+ * the re-encoded variants carry no EXIF, so the variants have to be turned before they are
+ * written. Only IFD0 of the first Exif APP1 segment is read; anything unexpected counts as
+ * {@link #NORMAL}.</p>
+ */
+final class ExifOrientation {
+
+    /** Orientation of an image that needs no turning */
+    static final int NORMAL = 1;
+
+    private static final int SOI = 0xFFD8;
+    private static final int APP1 = 0xFFE1;
+    private static final int SOS = 0xFFDA;
+    private static final int EOI = 0xFFD9;
+    private static final int ORIENTATION_TAG = 0x0112;
+    private static final int TYPE_SHORT = 3;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * Reads the orientation of a JPEG file.
+     *
+     * @param jpeg the file
+     * @return the orientation, from 1 to 8, or {@link #NORMAL} when the file has none
+     * @throws IOException if the file cannot be read
+     */
+    static int read(Path jpeg) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(jpeg)))) {
+            if (input.readUnsignedShort() != SOI) {
+                return NORMAL;
+            }
+            // Metadata segments all come before the image data
+            while (true) {
+                int marker = input.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == SOS || marker == EOI) {
+                    return NORMAL;
+                }
+                int length = input.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == APP1) {
+                    int orientation = parse(input.readNBytes(length));
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    input.skipNBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Returns the orientation stored in an APP1 segment, or 0 if it is not an Exif segment
+     * with a valid one.
+     */
+    private static int parse(byte[] segment) {
+        if (segment.length < EXIF_HEADER.length + 8) {
+            return 0;
+        }
+        for (int i = 0; i < EXIF_HEADER.length; i++) {
+            if (segment[i] != EXIF_HEADER[i]) {
+                return 0;
+            }
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, EXIF_HEADER.length, segment.length - EXIF_HEADER.length).slice();
+        try {
+            if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+                return 0;
+            }
+            int ifd = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                    int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                    boolean valid = Short.toUnsignedInt(tiff.getShort(entry + 2)) == TYPE_SHORT
+                            && orientation >= 1 && orientation <= 8;
+                    return valid ? orientation : 0;
+                }
+            }
+            return 0;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Turns an image upright according to its orientation.
+     *
+     * @param image the decoded image
+     * @param orientation the EXIF orientation, from 1 to 8
+     * @return the upright image, which is the given one when it needs no turning
+     */
+    static BufferedImage apply(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);      // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height); // upside down
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);     // mirrored upside down
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);           // mirrored, turned
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);     // turned 90 degrees clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width); // mirrored, turned back
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);      // turned 90 degrees counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swapped = orientation >= 5;
+        int type = image.getType() != BufferedImage.TYPE_CUSTOM ? image.getType()
+                : image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage upright = new BufferedImage(swapped ? height : width, swapped ? width : height, type);
+        Graphics2D graphics = upright.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return upright;
+    }
+}
@@ -0,0 +1,320 @@
+package com.ezequiel.reiunio.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+import com.ezequiel.reiunio.storage.BlobStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the {@link ImageSize} variants of uploaded images in the background.
+ *
+ * <p>Uploads are queued once the original has been stored, so the upload request never waits
+ * for image processing. A fixed number of worker threads decode each image once, subsampling
+ * large originals while reading so that a 2MB photo is never fully decoded, turn JPEG photos
+ * upright according to their EXIF orientation, and write the variants from the largest to the
+ * smallest, each one downscaled from the previous one by successive halvings for a smooth
+ * result. JPEG variants are recompressed at the configured
+ * quality and PNG variants keep their transparency; images smaller than a variant are only
+ * recompressed, never upscaled. Variants are written to a staging file and then published to
+ * the {@link BlobStore}, so a half-written file is never served. Originals in a remote store are
+ * downloaded to a staging file first.</p>
+ *
+ * <p>The queue is bounded: when it is full the image is skipped and keeps being served in its
+ * original size. Originals without variants, including those skipped, are picked up again when
+ * the application next starts.</p>
+ */
+@Component
+@Slf4j
+public class ImageVariantGenerator {
+
+    private static final List<String> UPLOAD_FOLDERS = List.of("users", "games", "game-sessions");
+
+    private final BlobStore blobStore;
+    private final boolean enabled;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Timer generationTimer;
+    private final Counter generatedCounter;
+    private final Counter skippedCounter;
+
+    public ImageVariantGenerator(MeterRegistry meterRegistry,
+                                 BlobStore blobStore,
+                                 @Value("${app.images.variants.enabled:true}") boolean enabled,
+                                 @Value("${app.images.variants.threads:2}") int threads,
+                                 @Value("${app.images.variants.queue-capacity:200}") int queueCapacity,
+                                 @Value("${app.images.variants.jpeg-quality:0.82}") float jpegQuality,
+                                 @Value("${app.images.variants.max-pixels:50000000}") long maxPixels) {
+        this.blobStore = blobStore;
+        this.enabled = enabled;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        this.generationTimer = Timer.builder("reiunio.images.variants.duration")
+                .description("Time spent generating the variants of one image")
+                .register(meterRegistry);
+        this.generatedCounter = Counter.builder("reiunio.images.variants.generated")
+                .description("Images whose variants were generated")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("reiunio.images.variants.skipped")
+                .description("Images skipped because the variant queue was full")
+                .register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, (runnable, pool) -> {
+                    skippedCounter.increment();
+                    log.warn("Image variant queue full, image will be served in its original size");
+                });
+
+        Gauge.builder("reiunio.images.variants.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Images waiting for their variants")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Generates the variants missing for existing uploads once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Image variants disabled, uploaded images will be served in their original size");
+            return;
+        }
+        // A single task, so the backfill uses one worker and never overflows the queue
+        executor.execute(() -> {
+            int generated = 0;
+            for (String folder : UPLOAD_FOLDERS) {
+                // Files still in the flat layout and those in shard directories
+                Set<String> keys = new HashSet<>();
+                try {
+                    blobStore.list(folder + "/", blob -> keys.add(blob.key()));
+                } catch (IOException e) {
+                    log.error("Error listing uploads in {}: {}", folder, e.getMessage());
+                    continue;
+                }
+                for (String key : keys) {
+                    if (isOriginal(key) && !hasAllVariants(key, keys)) {
+                        generate(key);
+                        generated++;
+                    }
+                }
+            }
+            if (generated > 0) {
+                log.info("Generated missing variants for {} uploaded images", generated);
+            }
+        });
+    }
+
+    /**
+     * Queues the generation of the variants of an uploaded image.
+     *
+     * @param original the key of the stored original image
+     */
+    public void submit(String original) {
+        if (!enabled || !isOriginal(original)) {
+            return;
+        }
+        executor.execute(() -> generate(original));
+    }
+
+    /**
+     * Stops the workers. Images still queued get their variants when the application next starts.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Generates every variant of an image, logging instead of failing.
+     *
+     * @param original the key of the original image
+     */
+    void generate(String original) {
+        generationTimer.record(() -> {
+            try {
+                writeVariants(original);
+                generatedCounter.increment();
+            } catch (Exception e) {
+                log.warn("Could not generate variants of {}: {}", original, e.getMessage());
+            }
+        });
+    }
+
+    private void writeVariants(String original) throws IOException {
+        boolean png = original.toLowerCase().endsWith(".png");
+        BufferedImage current;
+        Optional<Path> localPath = blobStore.localPath(original);
+        if (localPath.isPresent()) {
+            current = decode(localPath.get(), png);
+        } else {
+            Path download = blobStore.createStagingFile();
+            try {
+                try (InputStream input = blobStore.open(original, 0, -1)) {
+                    Files.copy(input, download, StandardCopyOption.REPLACE_EXISTING);
+                }
+                current = decode(download, png);
+            } finally {
+                Files.deleteIfExists(download);
+            }
+        }
+        if (current == null) {
+            return;
+        }
+        ImageSize[] sizes = ImageSize.values();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            current = downscale(current, sizes[i].getPixels(), png);
+            write(current, sizes[i].variantOf(original), png);
+        }
+    }
+
+    /**
+     * Decodes an image and turns it upright, since the variants are written without the
+     * EXIF orientation of the original.
+     */
+    private BufferedImage decode(Path original, boolean png) throws IOException {
+        BufferedImage image = read(original);
+        if (image == null || png) {
+            return image;
+        }
+        return ExifOrientation.apply(image, ExifOrientation.read(original));
+    }
+
+    /**
+     * Decodes an image, skipping rows and columns of originals much larger than the largest
+     * variant.
+     */
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("No image reader for {}", original);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image {} is too large for variants ({}x{})", original, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the largest variant so the final downscale stays smooth
+                int subsampling = Math.max(width, height) / (ImageSize.LARGE.getPixels() * 2);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage downscale(BufferedImage source, int maxSize, boolean png) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSize / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        // Always redraw once, so smaller images are still recompressed in the output color model
+        while (current == source || current.getWidth() > targetWidth || current.getHeight() > targetHeight) {
+            // Halve at most per step; a single large bilinear step would skip most source pixels
+            int nextWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int nextHeight = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight,
+                    png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private void write(BufferedImage image, String target, boolean png) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+        Path temp = blobStore.createStagingFile();
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (!png) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(jpegQuality);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            blobStore.put(target, temp, png ? "image/png" : "image/jpeg");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static boolean isOriginal(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        return ImageSize.hasVariants(name) && ImageSize.originalOf(name) == null;
+    }
+
+    private static boolean hasAllVariants(String original, Set<String> keys) {
+        for (ImageSize size : ImageSize.values()) {
+            if (!keys.contains(size.variantOf(original))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
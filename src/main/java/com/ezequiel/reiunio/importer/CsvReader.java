@@ -0,0 +1,151 @@
+package com.ezequiel.reiunio.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for RFC 4180 CSV.
+ *
+ * <p>Records are parsed one at a time straight from the underlying reader, so memory use is
+ * bounded by the longest record rather than by the file. Fields may be quoted, quoted fields
+ * may contain the delimiter, line breaks and doubled quotes, and both LF and CRLF line endings
+ * are accepted. A leading byte order mark is skipped.</p>
+ */
+public class CsvReader implements Closeable {
+
+    /** Longest record accepted, so a missing closing quote cannot swallow the rest of the file */
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Reader reader;
+    private final char delimiter;
+
+    private int pending = -2;
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * Creates a reader for the given delimiter.
+     *
+     * @param reader the character stream to read, ideally buffered
+     * @param delimiter the field delimiter, usually a comma or a semicolon
+     */
+    public CsvReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException if the input cannot be read or a record is malformed
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == 0xFEFF && line == 1) {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        int length = 0;
+
+        while (true) {
+            if (++length > MAX_RECORD_LENGTH) {
+                throw new IOException("Record starting at line " + recordLine + " is too long");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting at line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns the line on which the last record read started.
+     *
+     * @return the 1-based line number
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Guesses the delimiter of a header line: a semicolon if it has more semicolons than
+     * commas, as spreadsheets export in locales that use the comma as decimal separator,
+     * otherwise a comma.
+     *
+     * @param headerLine the first line of the file
+     * @return the delimiter to use
+     */
+    public static char detectDelimiter(String headerLine) {
+        long commas = headerLine.chars().filter(ch -> ch == ',').count();
+        long semicolons = headerLine.chars().filter(ch -> ch == ';').count();
+        return semicolons > commas ? ';' : ',';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ezequiel.reiunio.importer;
+
+import java.util.Locale;
+
+/**
+ * Enum representing the file formats accepted by the game bulk import.
+ */
+public enum GameImportFormat {
+
+    /**
+     * Comma or semicolon separated values with a header row naming the game fields.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line, keyed by the game fields.
+     */
+    JSON_LINES;
+
+    /**
+     * Resolves the format from an explicit name, falling back to the request content type.
+     *
+     * @param name the format name ({@code csv}, {@code jsonl} or {@code ndjson}), may be null
+     * @param contentType the content type of the upload, may be null
+     * @return the format, or null if neither identifies a supported one
+     */
+    public static GameImportFormat resolve(String name, String contentType) {
+        String value = name != null && !name.isBlank() ? name : contentType;
+        if (value == null) {
+            return null;
+        }
+        value = value.toLowerCase(Locale.ROOT);
+        if (value.contains("csv")) {
+            return CSV;
+        }
+        if (value.contains("jsonl") || value.contains("ndjson") || value.contains("json_lines")
+                || value.contains("json-lines") || value.contains("json-seq")) {
+            return JSON_LINES;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ezequiel.reiunio.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Outcome of a game bulk import.
+ * Counts every row but keeps the details of only the first rejected rows, so the report stays
+ * small however many rows fail.
+ */
+@Getter
+public class GameImportReport {
+
+    private final GameImportFormat format;
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private boolean errorsTruncated;
+    private long durationMs;
+
+    @Getter(AccessLevel.NONE)
+    private final int maxReportedErrors;
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Error found in one row of the import.
+     *
+     * @param line the line of the file on which the row starts
+     * @param message the reasons the row was rejected
+     */
+    public record RowError(long line, String message) {
+    }
+
+    public GameImportReport(GameImportFormat format, int maxReportedErrors) {
+        this.format = format;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void imported(long count) {
+        imported += count;
+    }
+
+    void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    void finish(long durationMs) {
+        this.durationMs = durationMs;
+    }
+}
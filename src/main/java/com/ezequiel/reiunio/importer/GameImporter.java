@@ -0,0 +1,333 @@
+package com.ezequiel.reiunio.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams a CSV or JSON-lines upload into the {@code games} table.
+ *
+ * <p>Rows are read one at a time, mapped onto a {@link Game} and checked against the entity
+ * constraints. A row with any value that cannot be parsed or breaks a constraint is rejected
+ * as a whole; nothing is imported in place of the bad value. Valid rows are written with plain JDBC batches of {@code app.games.import.batch-size}
+ * rows, each in its own transaction, because the identity key of {@link Game} keeps Hibernate from
+ * batching inserts. Only the current batch is held in memory, so the size of the upload does not
+ * matter. If a batch is refused by the database its rows are retried one by one so the offending
+ * rows can be reported; the rest of the import carries on either way.</p>
+ *
+ * <p>Columns are matched by name ignoring case, spaces, dashes and underscores, so both
+ * {@code minPlayers} and {@code min_players} work. {@code available} defaults to true and
+ * {@code acquisitionDate} to today, as for games created through the form. Unknown columns
+ * are ignored.</p>
+ */
+@Component
+@Slf4j
+public class GameImporter {
+
+    private static final String INSERT_SQL = "INSERT INTO games " +
+            "(name, description, min_players, max_players, duration_minutes, category, available, " +
+            "acquisition_date, state, image_path, borrow_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    /** Enough to hold any header line when sniffing the CSV delimiter */
+    private static final int HEADER_PEEK_LIMIT = 64 * 1024;
+
+    private static final Set<String> TRUE_VALUES = Set.of("true", "yes", "y", "1", "si", "sí");
+    private static final Set<String> FALSE_VALUES = Set.of("false", "no", "n", "0");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    private record PendingRow(long line, Game game) {
+    }
+
+    public GameImporter(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        ObjectMapper objectMapper,
+                        Validator validator,
+                        @Value("${app.games.import.batch-size:500}") int batchSize,
+                        @Value("${app.games.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports every row of the input. The stream is read to the end but not closed.
+     *
+     * @param input the uploaded file, UTF-8 encoded
+     * @param format the format of the file
+     * @return the counts and the errors of the rejected rows
+     * @throws IOException if the input cannot be read or the CSV header is missing
+     */
+    public GameImportReport importGames(InputStream input, GameImportFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        GameImportReport report = new GameImportReport(format, maxReportedErrors);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+
+        if (format == GameImportFormat.CSV) {
+            importCsv(reader, report, batch);
+        } else {
+            importJsonLines(reader, report, batch);
+        }
+        flush(batch, report);
+
+        report.finish(System.currentTimeMillis() - start);
+        log.info("Game import finished: {} rows read, {} imported, {} rejected in {} ms",
+                report.getRowsRead(), report.getImported(), report.getRejected(), report.getDurationMs());
+        return report;
+    }
+
+    private void importCsv(BufferedReader reader, GameImportReport report, List<PendingRow> batch) throws IOException {
+        reader.mark(HEADER_PEEK_LIMIT);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IOException("The file is empty");
+        }
+        reader.reset();
+
+        CsvReader csv = new CsvReader(reader, CsvReader.detectDelimiter(headerLine));
+        List<String> header = csv.readRecord().stream().map(GameImporter::normalizeKey).toList();
+        if (!header.contains("name")) {
+            throw new IOException("The header row must contain a 'name' column");
+        }
+
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            if (record.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            report.rowRead();
+            long line = csv.getRecordLine();
+            if (record.size() > header.size()) {
+                report.reject(line, "Expected at most " + header.size() + " fields but found " + record.size());
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                values.put(header.get(i), record.get(i));
+            }
+            accept(line, values, report, batch);
+        }
+    }
+
+    private void importJsonLines(BufferedReader reader, GameImportReport report, List<PendingRow> batch)
+            throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            report.rowRead();
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                report.reject(line, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                report.reject(line, "Expected a JSON object");
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                values.put(normalizeKey(field.getKey()),
+                        value.isNull() ? null : value.isValueNode() ? value.asText() : value.toString());
+            }
+            accept(line, values, report, batch);
+        }
+    }
+
+    /**
+     * Maps and validates a row, queueing it for the next batch or rejecting it.
+     */
+    private void accept(long line, Map<String, String> values, GameImportReport report, List<PendingRow> batch) {
+        List<String> problems = new ArrayList<>();
+        Game game = Game.builder()
+                .name(text(values.get("name")))
+                .description(text(values.get("description")))
+                .minPlayers(integer(values, "minPlayers", problems))
+                .maxPlayers(integer(values, "maxPlayers", problems))
+                .durationMinutes(integer(values, values.containsKey("durationminutes") ? "durationMinutes" : "duration",
+                        problems))
+                .category(text(values.get("category")))
+                .available(bool(values, "available", problems))
+                .acquisitionDate(date(values, "acquisitionDate", problems))
+                .state(state(values, problems))
+                .imagePath(text(values.getOrDefault("imagepath", values.get("imageurl"))))
+                .build();
+
+        for (ConstraintViolation<Game> violation : validator.validate(game)) {
+            String property = violation.getPropertyPath().toString();
+            // A value that could not be parsed is already reported, not also as missing
+            if (problems.stream().noneMatch(problem -> problem.startsWith(property + ":"))) {
+                problems.add(property + ": " + violation.getMessage());
+            }
+        }
+        if (game.getMinPlayers() != null && game.getMaxPlayers() != null
+                && game.getMinPlayers() > game.getMaxPlayers()) {
+            problems.add("minPlayers: must not be greater than maxPlayers");
+        }
+
+        if (!problems.isEmpty()) {
+            report.reject(line, problems.stream().sorted().collect(Collectors.joining("; ")));
+            return;
+        }
+        batch.add(new PendingRow(line, game));
+        if (batch.size() >= batchSize) {
+            flush(batch, report);
+        }
+    }
+
+    private void flush(List<PendingRow> batch, GameImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> bind(ps, row.game())));
+            report.imported(batch.size());
+        } catch (DataAccessException e) {
+            log.debug("Import batch refused, retrying its {} rows one by one: {}", batch.size(), e.getMessage());
+            for (PendingRow row : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row.game()));
+                    report.imported(1);
+                } catch (DataAccessException rowError) {
+                    String message = NestedExceptionUtils.getMostSpecificCause(rowError).getMessage();
+                    // Drivers append the statement to the message, keep only the reason
+                    report.reject(row.line(), message == null
+                            ? "Rejected by the database"
+                            : message.lines().findFirst().orElse(message));
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private static void bind(PreparedStatement ps, Game game) throws SQLException {
+        ps.setString(1, game.getName());
+        ps.setString(2, game.getDescription());
+        ps.setInt(3, game.getMinPlayers());
+        ps.setInt(4, game.getMaxPlayers());
+        ps.setInt(5, game.getDurationMinutes());
+        ps.setString(6, game.getCategory());
+        ps.setBoolean(7, game.getAvailable());
+        ps.setDate(8, Date.valueOf(game.getAcquisitionDate()));
+        if (game.getState() != null) {
+            ps.setString(9, game.getState().name());
+        } else {
+            ps.setNull(9, Types.VARCHAR);
+        }
+        ps.setString(10, game.getImagePath());
+    }
+
+    private static String normalizeKey(String key) {
+        return key == null ? "" : key.toLowerCase(Locale.ROOT).replaceAll("[\\s_\\-]", "");
+    }
+
+    private static String text(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Integer integer(Map<String, String> values, String key, List<String> problems) {
+        String value = text(values.get(normalizeKey(key)));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            problems.add(key + ": '" + value + "' is not a whole number");
+            return null;
+        }
+    }
+
+    private static Boolean bool(Map<String, String> values, String key, List<String> problems) {
+        String value = text(values.get(normalizeKey(key)));
+        if (value == null) {
+            return true;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (TRUE_VALUES.contains(lower)) {
+            return true;
+        }
+        if (FALSE_VALUES.contains(lower)) {
+            return false;
+        }
+        problems.add(key + ": '" + value + "' is not true or false");
+        return null;
+    }
+
+    private static LocalDate date(Map<String, String> values, String key, List<String> problems) {
+        String value = text(values.get(normalizeKey(key)));
+        if (value == null) {
+            return LocalDate.now();
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            problems.add(key + ": '" + value + "' is not a yyyy-MM-dd date");
+            return null;
+        }
+    }
+
+    private static GameState state(Map<String, String> values, List<String> problems) {
+        String value = text(values.get("state"));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return GameState.valueOf(value.toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            problems.add("state: '" + value + "' is not one of " + List.of(GameState.values()));
+            return null;
+        }
+    }
+}
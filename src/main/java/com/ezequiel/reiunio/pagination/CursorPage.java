@@ -0,0 +1,60 @@
+package com.ezequiel.reiunio.pagination;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A page of results obtained through keyset (seek) pagination.
+ * Unlike {@link org.springframework.data.domain.Page} it carries opaque cursors instead of
+ * page numbers and only knows the total number of elements when it was explicitly requested,
+ * so deep pages cost the same as the first one.
+ *
+ * @param <T> the type of the page content
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+
+    /**
+     * Elements of the page, in the requested sort order.
+     */
+    private List<T> content;
+
+    /**
+     * Requested page size.
+     */
+    private int size;
+
+    /**
+     * Cursor pointing after the last element, or null when there is no next page.
+     */
+    private String nextCursor;
+
+    /**
+     * Cursor pointing before the first element, or null when this is the first page.
+     */
+    private String previousCursor;
+
+    /**
+     * Total number of matching elements, or null when the count was skipped.
+     */
+    private Long totalElements;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasContent() {
+        return content != null && !content.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package com.ezequiel.reiunio.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded or was produced under another sort.
+ * Answered with 400 Bad Request, so a broken "next" link fails visibly instead of
+ * quietly showing the first page again.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,358 @@
+package com.ezequiel.reiunio.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs keyset (seek) pagination queries on top of Spring Data's {@link Window} scrolling.
+ *
+ * <p>The page boundary is the tuple (sort columns..., id) of the first or last row of the
+ * previous page, so the database seeks straight to it through the index instead of
+ * skipping {@code page * size} rows, and no COUNT query is issued unless it is asked for.</p>
+ *
+ * <p>Cursors are opaque to clients: they are URL-safe Base64 of a small JSON document
+ * holding the direction and the boundary values. When decoding, only the properties of the
+ * current sort are accepted and every value is converted back to the entity property type;
+ * a cursor that does not match (tampered, or produced under another sort) is rejected with
+ * an {@link InvalidCursorException} rather than silently restarting at the first page.</p>
+ *
+ * <p>Keyset comparisons skip rows whose sort column is null, so seeking is only used when
+ * every attribute of every sort property is non-optional in the JPA metamodel (ids,
+ * primitives, {@code @Column(nullable = false)}, required associations, {@code @NotNull}) or
+ * required by a {@code @NotBlank} or {@code @NotEmpty} constraint, which Hibernate validates
+ * on every write but leaves out of the metamodel. Other sorts, such as the games list by
+ * category or acquisition date, fall back to offset cursors: same API and correct results,
+ * at the cost of skipping rows on deep pages.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeysetPaginator {
+
+    private static final String ID_PROPERTY = "id";
+    private static final String DIRECTION_FIELD = "d";
+    private static final String KEYS_FIELD = "k";
+    private static final String OFFSET_FIELD = "o";
+
+    /** Bean Validation constraints that reject null values */
+    private static final Set<Class<?>> REQUIRED_CONSTRAINTS = Set.of(NotNull.class, NotBlank.class, NotEmpty.class);
+
+    /** Application object mapper, already configured for java.time types */
+    private final ObjectMapper objectMapper;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Validator validator;
+
+    /** Whether a property path may be null, per entity type and path */
+    private final Map<Class<?>, Map<String, Boolean>> nullableProperties = new ConcurrentHashMap<>();
+
+    /**
+     * Fetches one page of entities matching the specification.
+     *
+     * @param repository the repository to query
+     * @param type the entity type
+     * @param specification the filters to apply
+     * @param sort the requested sort; the id is appended as tie-breaker
+     * @param size the page size
+     * @param cursor the cursor of the page to fetch, or null for the first page
+     * @param withCount whether to also count the matching entities
+     * @param fetchPaths to-one associations to fetch-join into the page query
+     * @param <T> the entity type
+     * @return the requested page with its navigation cursors
+     * @throws InvalidCursorException if the cursor is malformed or does not match the sort
+     */
+    public <T> CursorPage<T> fetch(JpaSpecificationExecutor<T> repository, Class<T> type,
+                                   Specification<T> specification, Sort sort, int size,
+                                   String cursor, boolean withCount, String... fetchPaths) {
+        Sort keysetSort = withIdTieBreaker(sort);
+        if (!seekable(type, keysetSort)) {
+            return fetchByOffset(repository, type, specification, keysetSort, size, cursor, withCount, fetchPaths);
+        }
+        KeysetScrollPosition position = decode(cursor, type, keysetSort);
+
+        Window<T> window = repository.findBy(withFetches(specification, fetchPaths),
+                query -> query.sortBy(keysetSort).limit(size).scroll(position));
+        List<T> content = window.getContent();
+
+        String next = null;
+        String previous = null;
+        if (!content.isEmpty()) {
+            T first = content.get(0);
+            T last = content.get(content.size() - 1);
+            if (position.scrollsBackward()) {
+                // We came from the following page, so it always exists
+                next = encode(keysOf(last, keysetSort), ScrollPosition.Direction.FORWARD);
+                previous = window.hasNext() ? encode(keysOf(first, keysetSort), ScrollPosition.Direction.BACKWARD) : null;
+            } else {
+                next = window.hasNext() ? encode(keysOf(last, keysetSort), ScrollPosition.Direction.FORWARD) : null;
+                previous = position.isInitial() ? null : encode(keysOf(first, keysetSort), ScrollPosition.Direction.BACKWARD);
+            }
+        }
+
+        Long total = withCount ? repository.count(specification) : null;
+        log.debug("Keyset page of {} {} (requested {}), hasNext: {}, hasPrevious: {}",
+                 content.size(), type.getSimpleName(), size, next != null, previous != null);
+
+        return CursorPage.<T>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(next)
+                .previousCursor(previous)
+                .totalElements(total)
+                .build();
+    }
+
+    /**
+     * Creates an offset cursor, for callers that continue a listing beyond the query, such as
+     * audit entries read from the archive once the table has run out.
+     *
+     * @param offset the position of the first entry of the page
+     * @return the cursor
+     */
+    public String offsetCursor(long offset) {
+        return encodeOffset(offset);
+    }
+
+    /**
+     * Reads the offset of an offset cursor.
+     *
+     * @param cursor the cursor, may be null
+     * @param type the entity type, for error messages
+     * @return the offset, or null if the cursor is empty or a keyset cursor
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    public Long offsetOf(String cursor, Class<?> type) {
+        if (cursor == null || cursor.isBlank() || !readCursor(cursor, type).has(OFFSET_FIELD)) {
+            return null;
+        }
+        return decodeOffset(cursor, type);
+    }
+
+    /**
+     * Creates a cursor to the page preceding an entity, in keyset order.
+     *
+     * @param entity the first entity of the current page
+     * @param sort the sort of the listing; the id is appended as tie-breaker
+     * @return the cursor
+     */
+    public String previousCursor(Object entity, Sort sort) {
+        Sort keysetSort = withIdTieBreaker(sort);
+        return encode(keysOf(entity, keysetSort), ScrollPosition.Direction.BACKWARD);
+    }
+
+    /**
+     * Fetches one page by row offset, for sorts on columns that may be null. The cursor holds
+     * the offset of the first row of the page.
+     */
+    private <T> CursorPage<T> fetchByOffset(JpaSpecificationExecutor<T> repository, Class<T> type,
+                                            Specification<T> specification, Sort sort, int size,
+                                            String cursor, boolean withCount, String... fetchPaths) {
+        long offset = decodeOffset(cursor, type);
+
+        Window<T> window = repository.findBy(withFetches(specification, fetchPaths),
+                query -> query.sortBy(sort).limit(size).scroll(ScrollPosition.offset(offset)));
+        List<T> content = window.getContent();
+
+        String next = window.hasNext() ? encodeOffset(offset + content.size()) : null;
+        String previous = offset > 0 ? encodeOffset(Math.max(0, offset - size)) : null;
+
+        Long total = withCount ? repository.count(specification) : null;
+        log.debug("Offset page of {} {} at {} (requested {}), hasNext: {}",
+                 content.size(), type.getSimpleName(), offset, size, next != null);
+
+        return CursorPage.<T>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(next)
+                .previousCursor(previous)
+                .totalElements(total)
+                .build();
+    }
+
+    /**
+     * Tells whether every property of the sort is declared non-null, so keyset comparisons
+     * see every row.
+     */
+    private boolean seekable(Class<?> type, Sort sort) {
+        Map<String, Boolean> nullable = nullableProperties.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+        return sort.stream()
+                .noneMatch(order -> nullable.computeIfAbsent(order.getProperty(), path -> mayBeNull(type, path)));
+    }
+
+    private boolean mayBeNull(Class<?> type, String path) {
+        ManagedType<?> current = entityManagerFactory.getMetamodel().managedType(type);
+        for (String segment : path.split("\\.")) {
+            if (current == null) {
+                return true;
+            }
+            Attribute<?, ?> attribute;
+            try {
+                attribute = current.getAttribute(segment);
+            } catch (IllegalArgumentException e) {
+                return true;
+            }
+            if (!(attribute instanceof SingularAttribute<?, ?> singular)
+                    || (singular.isOptional() && !requiredByValidation(current.getJavaType(), segment))) {
+                return true;
+            }
+            current = singular.getType() instanceof ManagedType<?> managed ? managed : null;
+        }
+        return false;
+    }
+
+    private boolean requiredByValidation(Class<?> type, String property) {
+        PropertyDescriptor descriptor = validator.getConstraintsForClass(type).getConstraintsForProperty(property);
+        return descriptor != null && descriptor.getConstraintDescriptors().stream()
+                .anyMatch(constraint -> REQUIRED_CONSTRAINTS.contains(constraint.getAnnotation().annotationType()));
+    }
+
+    private <T> Specification<T> withFetches(Specification<T> specification, String... fetchPaths) {
+        if (fetchPaths.length == 0) {
+            return specification;
+        }
+        Specification<T> fetches = (root, query, cb) -> {
+            for (String path : fetchPaths) {
+                root.fetch(path, JoinType.LEFT);
+            }
+            return null;
+        };
+        return fetches.and(specification);
+    }
+
+    private Sort withIdTieBreaker(Sort sort) {
+        if (sort.getOrderFor(ID_PROPERTY) != null) {
+            return sort;
+        }
+        return sort.and(Sort.by(ID_PROPERTY).ascending());
+    }
+
+    private Map<String, Object> keysOf(Object entity, Sort sort) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            keys.put(order.getProperty(), wrapper.getPropertyValue(order.getProperty()));
+        }
+        return keys;
+    }
+
+    private String encode(Map<String, Object> keys, ScrollPosition.Direction direction) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put(DIRECTION_FIELD, direction == ScrollPosition.Direction.BACKWARD ? "B" : "F");
+        node.set(KEYS_FIELD, objectMapper.valueToTree(keys));
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(node);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode pagination cursor", e);
+        }
+    }
+
+    private String encodeOffset(long offset) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put(OFFSET_FIELD, offset);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(node);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode pagination cursor", e);
+        }
+    }
+
+    private long decodeOffset(String cursor, Class<?> type) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        JsonNode offset = readCursor(cursor, type).path(OFFSET_FIELD);
+        if (!offset.canConvertToLong() || offset.asLong() < 0) {
+            throw new InvalidCursorException("Pagination cursor for " + type.getSimpleName()
+                    + " does not match the current sort");
+        }
+        return offset.asLong();
+    }
+
+    private JsonNode readCursor(String cursor, Class<?> type) {
+        try {
+            return objectMapper.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new InvalidCursorException("Malformed pagination cursor for " + type.getSimpleName(), e);
+        }
+    }
+
+    private KeysetScrollPosition decode(String cursor, Class<?> type, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        JsonNode node = readCursor(cursor, type);
+        try {
+            JsonNode keysNode = node.path(KEYS_FIELD);
+            if (keysNode.size() != sort.stream().count()) {
+                throw new IllegalArgumentException("cursor does not match the current sort");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (Sort.Order order : sort) {
+                String property = order.getProperty();
+                JsonNode value = keysNode.get(property);
+                if (value == null || value.isNull()) {
+                    throw new IllegalArgumentException("cursor misses key " + property);
+                }
+                keys.put(property, objectMapper.treeToValue(value, propertyType(type, property)));
+            }
+
+            return "B".equals(node.path(DIRECTION_FIELD).asText())
+                    ? ScrollPosition.backward(keys)
+                    : ScrollPosition.forward(keys);
+        } catch (Exception e) {
+            throw new InvalidCursorException("Invalid pagination cursor for " + type.getSimpleName()
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Class<?> propertyType(Class<?> type, String path) {
+        Class<?> current = type;
+        Iterator<String> segments = List.of(path.split("\\.")).iterator();
+        while (segments.hasNext()) {
+            var descriptor = BeanUtils.getPropertyDescriptor(current, segments.next());
+            if (descriptor == null) {
+                throw new IllegalArgumentException("unknown property " + path);
+            }
+            current = descriptor.getPropertyType();
+        }
+        return current;
+    }
+}
@@ -1,11 +1,15 @@
 package com.ezequiel.reiunio.repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,11 +18,13 @@ import com.ezequiel.reiunio.entity.AuditLog;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
 
+import jakarta.persistence.criteria.Predicate;
+
 /**
  * Repository interface for accessing and managing {@link AuditLog} entities.
  */
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
 
     /**
      * Retrieves all audit logs for a given user.
@@ -28,6 +34,17 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
      */
     List<AuditLog> findByUser(User user);
 
+    /**
+     * Deletes the audit log entries of a user in one statement, instead of loading them all
+     * to cascade the removal of the user.
+     *
+     * @param userId the ID of the user
+     * @return the number of entries deleted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM AuditLog a WHERE a.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
     /**
      * Retrieves all audit logs of a specific action type.
      *
@@ -130,4 +147,34 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
                                           @Param("startDate") LocalDateTime startDate,
                                           @Param("endDate") LocalDateTime endDate,
                                           Pageable pageable);
+
+    /**
+     * Builds the criteria equivalent of {@link #findWithCombinedFilters} so the same filters
+     * can be used with keyset pagination. Null or empty filters are ignored.
+     *
+     * @param actionType the action type filter
+     * @param affectedEntity the affected entity filter
+     * @param startDate the lower bound of the change date
+     * @param endDate the upper bound of the change date
+     * @return a specification matching the given filters
+     */
+    static Specification<AuditLog> withCombinedFilters(ActionType actionType, String affectedEntity,
+                                                       LocalDateTime startDate, LocalDateTime endDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (actionType != null) {
+                predicates.add(cb.equal(root.get("actionType"), actionType));
+            }
+            if (affectedEntity != null && !affectedEntity.isEmpty()) {
+                predicates.add(cb.equal(root.get("affectedEntity"), affectedEntity));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("changeDateTime"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("changeDateTime"), endDate));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
\ No newline at end of file
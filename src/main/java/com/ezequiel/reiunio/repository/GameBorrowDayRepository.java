@@ -0,0 +1,66 @@
+package com.ezequiel.reiunio.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ezequiel.reiunio.entity.GameBorrowDay;
+import com.ezequiel.reiunio.entity.GameBorrowDayId;
+
+/**
+ * Repository interface for the daily loan buckets of each game.
+ */
+@Repository
+public interface GameBorrowDayRepository extends JpaRepository<GameBorrowDay, GameBorrowDayId> {
+
+    /**
+     * Adds a value to the bucket of a game and day, if the bucket exists.
+     *
+     * @param gameId the game ID
+     * @param day the day of the bucket
+     * @param delta the value to add, negative to subtract
+     * @return 1 if the bucket was updated, 0 if it does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GameBorrowDay d SET d.borrowCount = d.borrowCount + :delta " +
+           "WHERE d.gameId = :gameId AND d.borrowDate = :day AND d.borrowCount + :delta >= 0")
+    int addToBucket(@Param("gameId") Long gameId, @Param("day") LocalDate day, @Param("delta") long delta);
+
+    /**
+     * Sums the buckets of each game from a day on, returning the games with the most loans first.
+     *
+     * @param since the first day of the window
+     * @param pageable the number of games to return
+     * @return a list of object arrays [game ID, loan count]
+     */
+    @Query("SELECT d.gameId, SUM(d.borrowCount) FROM GameBorrowDay d WHERE d.borrowDate >= :since " +
+           "GROUP BY d.gameId HAVING SUM(d.borrowCount) > 0 ORDER BY SUM(d.borrowCount) DESC, d.gameId ASC")
+    List<Object[]> findTopGamesSince(@Param("since") LocalDate since, Pageable pageable);
+
+    /**
+     * Deletes every bucket of a game.
+     *
+     * @param gameId the game ID
+     * @return the number of deleted buckets
+     */
+    @Modifying
+    @Query("DELETE FROM GameBorrowDay d WHERE d.gameId = :gameId")
+    int deleteByGameId(@Param("gameId") Long gameId);
+
+    /**
+     * Rebuilds the buckets from the loans table. Expects the rollup to be empty.
+     *
+     * @return the number of buckets created
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO game_borrow_days (game_id, borrow_date, borrow_count) " +
+                   "SELECT l.game_id, l.loan_date, COUNT(*) FROM loans l GROUP BY l.game_id, l.loan_date",
+           nativeQuery = true)
+    int insertFromLoans();
+}
@@ -1,22 +1,30 @@
 package com.ezequiel.reiunio.repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameSuggestion;
 import com.ezequiel.reiunio.enums.GameState;
 
+import jakarta.persistence.criteria.Predicate;
+
 /**
  * Repository interface for accessing and managing {@link Game} entities.
  */
 @Repository
-public interface GameRepository extends JpaRepository<Game, Long> {
+public interface GameRepository extends JpaRepository<Game, Long>, JpaSpecificationExecutor<Game> {
 
     /**
      * Finds games with names containing the specified string, case-insensitive.
@@ -75,23 +83,142 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      */
     long countByState(GameState state);
 
+    /**
+     * Marks a game as unavailable only if it is currently available.
+     * The check and the write happen in one statement, so when several loans race for the
+     * same game exactly one of them sees an updated row.
+     *
+     * @param id the game ID
+     * @return 1 if the game was reserved, 0 if it was already unavailable or does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Game g SET g.available = false WHERE g.id = :id AND g.available = true")
+    int reserveIfAvailable(@Param("id") Long id);
+
+    /**
+     * Counts games grouped by state in a single query.
+     *
+     * @return a list of object arrays [GameState, count]
+     */
+    @Query("SELECT g.state, COUNT(g) FROM Game g GROUP BY g.state")
+    List<Object[]> countGroupedByState();
+
+    /**
+     * Counts games grouped by category in a single query, skipping empty categories.
+     *
+     * @return a list of object arrays [category, count]
+     */
+    @Query("SELECT g.category, COUNT(g) FROM Game g " +
+           "WHERE g.category IS NOT NULL AND g.category != '' GROUP BY g.category")
+    List<Object[]> countGroupedByCategory();
+
+    /**
+     * Counts the games matching the list filters, in total and per category, availability,
+     * state, minimum and maximum player count and duration, in one statement. Each facet applies
+     * every filter except its own, so every option of the facet is counted. Same conditions as
+     * {@link #findGamesWithFilters}.
+     *
+     * <p>The games matching the name are read once into a common table expression that flags
+     * which of the other filters each one passes; every facet is then one grouped count over
+     * it, and the counts are returned together with {@code UNION ALL}.</p>
+     *
+     * @param name part of the game name to search for
+     * @param category the exact category to filter by
+     * @param available availability status filter
+     * @param state the name of the game state to filter by
+     * @param minPlayers minimum number of players filter
+     * @param maxPlayers maximum number of players filter
+     * @param minDuration minimum game duration in minutes
+     * @param maxDuration maximum game duration in minutes
+     * @return a list of object arrays [facet, text value, numeric value, count], where facet is
+     *         one of {@code total}, {@code category}, {@code state}, {@code available} (1 or 0),
+     *         {@code minPlayers}, {@code maxPlayers} or {@code duration}
+     */
+    @Query(value = "WITH f AS (" +
+                   " SELECT g.category, g.state, g.available, g.min_players, g.max_players, g.duration_minutes," +
+                   "  CASE WHEN :category IS NULL OR LOWER(g.category) = LOWER(:category) THEN 1 ELSE 0 END AS category_ok," +
+                   "  CASE WHEN :available IS NULL OR g.available = :available THEN 1 ELSE 0 END AS available_ok," +
+                   "  CASE WHEN :state IS NULL OR g.state = :state THEN 1 ELSE 0 END AS state_ok," +
+                   "  CASE WHEN :minPlayers IS NULL OR g.min_players >= :minPlayers THEN 1 ELSE 0 END AS min_players_ok," +
+                   "  CASE WHEN :maxPlayers IS NULL OR g.max_players <= :maxPlayers THEN 1 ELSE 0 END AS max_players_ok," +
+                   "  CASE WHEN (:minDuration IS NULL OR g.duration_minutes >= :minDuration)" +
+                   "   AND (:maxDuration IS NULL OR g.duration_minutes <= :maxDuration) THEN 1 ELSE 0 END AS duration_ok" +
+                   " FROM games g" +
+                   " WHERE :name IS NULL OR LOWER(g.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+                   "SELECT 'category', category, 0, COUNT(*) FROM f" +
+                   " WHERE available_ok + state_ok + min_players_ok + max_players_ok + duration_ok = 5 GROUP BY category " +
+                   "UNION ALL SELECT 'total', '', 0, COUNT(*) FROM f" +
+                   " WHERE category_ok + available_ok + state_ok + min_players_ok + max_players_ok + duration_ok = 6 " +
+                   "UNION ALL SELECT 'state', state, 0, COUNT(*) FROM f" +
+                   " WHERE category_ok + available_ok + min_players_ok + max_players_ok + duration_ok = 5 GROUP BY state " +
+                   "UNION ALL SELECT 'available', '', CASE WHEN available = TRUE THEN 1 ELSE 0 END, COUNT(*) FROM f" +
+                   " WHERE category_ok + state_ok + min_players_ok + max_players_ok + duration_ok = 5 AND available IS NOT NULL" +
+                   " GROUP BY available " +
+                   "UNION ALL SELECT 'minPlayers', '', min_players, COUNT(*) FROM f" +
+                   " WHERE category_ok + available_ok + state_ok + max_players_ok + duration_ok = 5 AND min_players IS NOT NULL" +
+                   " GROUP BY min_players " +
+                   "UNION ALL SELECT 'maxPlayers', '', max_players, COUNT(*) FROM f" +
+                   " WHERE category_ok + available_ok + state_ok + min_players_ok + duration_ok = 5 AND max_players IS NOT NULL" +
+                   " GROUP BY max_players " +
+                   "UNION ALL SELECT 'duration', '', duration_minutes, COUNT(*) FROM f" +
+                   " WHERE category_ok + available_ok + state_ok + min_players_ok + max_players_ok = 5" +
+                   " AND duration_minutes IS NOT NULL GROUP BY duration_minutes",
+           nativeQuery = true)
+    List<Object[]> countFacets(@Param("name") String name,
+                               @Param("category") String category,
+                               @Param("available") Boolean available,
+                               @Param("state") String state,
+                               @Param("minPlayers") Integer minPlayers,
+                               @Param("maxPlayers") Integer maxPlayers,
+                               @Param("minDuration") Integer minDuration,
+                               @Param("maxDuration") Integer maxDuration);
+
     /**
      * Retrieves the most borrowed games ordered by loan count (descending) and name (ascending).
+     * Reads the borrow counter index, so only the requested page of games is visited.
      *
-     * @param limit the maximum number of results to return (not enforced in query)
+     * @param pageable the number of games to return
      * @return a list of object arrays [Game, loan count]
      */
-    @Query("SELECT g, COUNT(l) FROM Game g LEFT JOIN g.loans l GROUP BY g.id ORDER BY COUNT(l) DESC, g.name ASC")
-    List<Object[]> findMostBorrowedGames(@Param("limit") int limit);
+    @Query("SELECT g, g.borrowCount FROM Game g ORDER BY g.borrowCount DESC, g.name ASC")
+    List<Object[]> findMostBorrowedGames(Pageable pageable);
 
     /**
      * Finds games that have never been borrowed.
      *
      * @return a list of games that have never had a loan
      */
-    @Query("SELECT g FROM Game g WHERE g.id NOT IN (SELECT DISTINCT l.game.id FROM Loan l)")
+    @Query("SELECT g FROM Game g WHERE g.borrowCount = 0 ORDER BY g.name ASC")
     List<Game> findGamesNeverBorrowed();
 
+    /**
+     * Adds a value to the borrow counter of a game.
+     *
+     * @param id the game ID
+     * @param delta the value to add, negative to subtract
+     * @return 1 if the counter was updated, 0 if the game does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Game g SET g.borrowCount = g.borrowCount + :delta WHERE g.id = :id AND g.borrowCount + :delta >= 0")
+    int addToBorrowCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * Recomputes the borrow counter of every game from the loans table.
+     *
+     * @return the number of games updated
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Game g SET g.borrowCount = (SELECT COUNT(l) FROM Loan l WHERE l.game = g)")
+    int recountBorrows();
+
+    /**
+     * Counts the games whose borrow counter differs from their number of loans.
+     *
+     * @return the number of games with a wrong counter
+     */
+    @Query("SELECT COUNT(g) FROM Game g WHERE g.borrowCount <> (SELECT COUNT(l) FROM Loan l WHERE l.game = g)")
+    long countBorrowCountDrift();
+
     /**
      * Retrieves a list of distinct non-empty categories from games.
      *
@@ -166,6 +293,32 @@ public interface GameRepository extends JpaRepository<Game, Long> {
                            @Param("playerCount") Integer playerCount,
                            @Param("duration") Integer duration);
 
+    /**
+     * Loads typeahead projections for the given game IDs, without loading the entities.
+     *
+     * @param ids the game IDs
+     * @return the suggestions, in no particular order
+     */
+    @Query("SELECT new com.ezequiel.reiunio.entity.GameSuggestion(g.id, g.name, g.imagePath) " +
+           "FROM Game g WHERE g.id IN :ids")
+    List<GameSuggestion> findSuggestionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds typeahead projections of the games whose name starts with the given prefix
+     * (case-insensitive), ordered by name.
+     *
+     * @param prefix the name prefix
+     * @param available optional availability filter
+     * @param pageable the maximum number of results
+     * @return the matching suggestions
+     */
+    @Query("SELECT new com.ezequiel.reiunio.entity.GameSuggestion(g.id, g.name, g.imagePath) " +
+           "FROM Game g WHERE LOWER(g.name) LIKE LOWER(CONCAT(:prefix, '%')) AND " +
+           "(:available IS NULL OR g.available = :available) ORDER BY g.name")
+    List<GameSuggestion> findSuggestionsByNamePrefix(@Param("prefix") String prefix,
+                                                     @Param("available") Boolean available,
+                                                     Pageable pageable);
+
     /**
      * Finds games with duration between given minimum and maximum values.
      *
@@ -219,4 +372,51 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      */
     @Query("SELECT g FROM Game g WHERE g.minPlayers <= :playerCount AND g.maxPlayers >= :playerCount")
     List<Game> findGamesThatSupportPlayerCount(@Param("playerCount") Integer playerCount);
+
+    /**
+     * Builds the criteria equivalent of {@link #findGamesWithFilters} so the same filters
+     * can be used with keyset pagination. Null or empty filters are ignored.
+     *
+     * @param name part of the game name to search for
+     * @param category the exact category to filter by
+     * @param available availability status filter
+     * @param state the game state filter
+     * @param minPlayers minimum number of players filter
+     * @param maxPlayers maximum number of players filter
+     * @param minDuration minimum game duration in minutes
+     * @param maxDuration maximum game duration in minutes
+     * @return a specification matching the given filters
+     */
+    static Specification<Game> withFilters(String name, String category, Boolean available, GameState state,
+                                           Integer minPlayers, Integer maxPlayers,
+                                           Integer minDuration, Integer maxDuration) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (name != null && !name.isEmpty()) {
+                predicates.add(cb.like(cb.lower(root.get("name")), "%" + name.toLowerCase() + "%"));
+            }
+            if (category != null && !category.isEmpty()) {
+                predicates.add(cb.equal(cb.lower(root.get("category")), category.toLowerCase()));
+            }
+            if (available != null) {
+                predicates.add(cb.equal(root.get("available"), available));
+            }
+            if (state != null) {
+                predicates.add(cb.equal(root.get("state"), state));
+            }
+            if (minPlayers != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("minPlayers"), minPlayers));
+            }
+            if (maxPlayers != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("maxPlayers"), maxPlayers));
+            }
+            if (minDuration != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("durationMinutes"), minDuration));
+            }
+            if (maxDuration != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("durationMinutes"), maxDuration));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
\ No newline at end of file
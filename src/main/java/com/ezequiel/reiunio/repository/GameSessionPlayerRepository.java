@@ -1,8 +1,12 @@
 package com.ezequiel.reiunio.repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ezequiel.reiunio.entity.GameSession;
@@ -41,6 +45,35 @@ public interface GameSessionPlayerRepository extends JpaRepository<GameSessionPl
      */
     long countByGameSession(GameSession gameSession);
 
+    /**
+     * Registers a user in a session unless they are already registered or do not exist.
+     *
+     * @param sessionId the session ID
+     * @param userId the user ID
+     * @param joinDate the join date to record
+     * @return 1 if the player was registered, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO game_session_players (game_session_id, user_id, join_date, confirmed) " +
+                   "SELECT :sessionId, u.id, :joinDate, true FROM users u WHERE u.id = :userId " +
+                   "AND NOT EXISTS (SELECT 1 FROM game_session_players p " +
+                   "WHERE p.game_session_id = :sessionId AND p.user_id = :userId)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("sessionId") Long sessionId,
+                       @Param("userId") Long userId,
+                       @Param("joinDate") LocalDate joinDate);
+
+    /**
+     * Removes a user from a session.
+     *
+     * @param sessionId the session ID
+     * @param userId the user ID
+     * @return 1 if the player was removed, 0 if they were not registered
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM GameSessionPlayer p WHERE p.gameSession.id = :sessionId AND p.user.id = :userId")
+    int deleteBySessionAndUser(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
     /**
      * Finds players in a specific session based on confirmation status.
      * Since all players are assumed to be confirmed, this method returns:
@@ -1,10 +1,15 @@
 package com.ezequiel.reiunio.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ezequiel.reiunio.entity.Game;
@@ -18,12 +23,22 @@ import com.ezequiel.reiunio.enums.GameSessionStatus;
 @Repository
 public interface GameSessionRepository extends JpaRepository<GameSession, Long> {
 
+    /**
+     * Finds all game sessions with their creator, game and players in a single query.
+     *
+     * @return all game sessions
+     */
+    @Override
+    @EntityGraph(GameSession.LISTING)
+    List<GameSession> findAll();
+
     /**
      * Finds all sessions created by a specific user.
      *
      * @param creator the user who created the session
      * @return list of game sessions created by the user
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByCreator(User creator);
 
     /**
@@ -32,14 +47,29 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @param game the game entity
      * @return list of game sessions for the given game
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByGame(Game game);
 
+    /**
+     * Finds the scheduled sessions of a library game that have not ended before the given date,
+     * fetching the creator so the sessions can be summarized outside the persistence context.
+     *
+     * @param gameId the ID of the game
+     * @param from the earliest end date to include
+     * @return the matching sessions
+     */
+    @Query("SELECT gs FROM GameSession gs JOIN FETCH gs.creator " +
+           "WHERE gs.game.id = :gameId AND gs.status = com.ezequiel.reiunio.enums.GameSessionStatus.SCHEDULED " +
+           "AND gs.endDate >= :from")
+    List<GameSession> findScheduledForGameEndingFrom(@Param("gameId") Long gameId, @Param("from") LocalDate from);
+
     /**
      * Finds sessions with a specific status.
      *
      * @param status the game session status
      * @return list of game sessions with the given status
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByStatus(GameSessionStatus status);
 
     /**
@@ -49,6 +79,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @param status the game session status
      * @return list of upcoming game sessions
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByStartDateAfterAndStatus(LocalDate date, GameSessionStatus status);
 
     /**
@@ -60,6 +91,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @param endDate2 range 2 end
      * @return list of game sessions within the given date ranges
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByStartDateBetweenOrEndDateBetween(LocalDate startDate1, LocalDate endDate1, LocalDate startDate2, LocalDate endDate2);
 
     /**
@@ -69,6 +101,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @return list of game sessions the user participates in
      */
     @Query("SELECT gs FROM GameSession gs JOIN gs.players gsp WHERE gsp.user.id = :userId")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findSessionsByPlayer(Long userId);
 
     /**
@@ -77,6 +110,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @return list of today's game sessions
      */
     @Query("SELECT gs FROM GameSession gs WHERE gs.startDate <= CURRENT_DATE AND gs.endDate >= CURRENT_DATE")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findTodaySessions();
 
     /**
@@ -85,6 +119,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @param gameName the custom game name substring
      * @return list of game sessions with matching custom names
      */
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findByCustomGameNameContainingIgnoreCase(String gameName);
 
     /**
@@ -93,6 +128,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @return list of upcoming game sessions
      */
     @Query("SELECT gs FROM GameSession gs WHERE gs.startDate >= CURRENT_DATE AND gs.status = 'SCHEDULED' ORDER BY gs.startDate, gs.startTime")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findUpcomingSessions();
 
     /**
@@ -106,6 +142,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
            "(gs.startDate BETWEEN :startDate AND :endDate) OR " +
            "(gs.endDate BETWEEN :startDate AND :endDate) OR " +
            "(gs.startDate <= :startDate AND gs.endDate >= :endDate)")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findSessionsInDateRange(LocalDate startDate, LocalDate endDate);
 
     /**
@@ -114,6 +151,7 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @return list of multi-day game sessions
      */
     @Query("SELECT gs FROM GameSession gs WHERE gs.startDate <> gs.endDate")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findMultiDaySessions();
 
     /**
@@ -122,5 +160,79 @@ public interface GameSessionRepository extends JpaRepository<GameSession, Long>
      * @return list of single-day game sessions
      */
     @Query("SELECT gs FROM GameSession gs WHERE gs.startDate = gs.endDate")
+    @EntityGraph(GameSession.LISTING)
     List<GameSession> findSingleDaySessions();
+
+    /**
+     * Finds the IDs of the scheduled sessions whose end moment is before the given instant.
+     *
+     * @param now the reference instant
+     * @return IDs of the expired sessions
+     */
+    @Query("SELECT gs.id FROM GameSession gs " +
+           "WHERE gs.status = com.ezequiel.reiunio.enums.GameSessionStatus.SCHEDULED AND gs.endsAt < :now")
+    List<Long> findExpiredScheduledIds(@Param("now") LocalDateTime now);
+
+    /**
+     * Marks the given sessions as finished, skipping those no longer scheduled.
+     *
+     * @param ids the IDs of the sessions to finish
+     * @return number of sessions that were finished
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE GameSession gs SET gs.status = com.ezequiel.reiunio.enums.GameSessionStatus.FINISHED " +
+           "WHERE gs.id IN :ids AND gs.status = com.ezequiel.reiunio.enums.GameSessionStatus.SCHEDULED")
+    int finishScheduledSessions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Takes one seat in a session if it still has room.
+     * The capacity check and the increment happen in one statement, which also locks the
+     * session row, so concurrent joins can never oversubscribe it.
+     *
+     * @param id the session ID
+     * @return 1 if a seat was taken, 0 if the session is full or does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GameSession gs SET gs.confirmedPlayers = gs.confirmedPlayers + 1 " +
+           "WHERE gs.id = :id AND gs.confirmedPlayers < gs.maxPlayers")
+    int reserveSeat(@Param("id") Long id);
+
+    /**
+     * Gives back one seat of a session.
+     *
+     * @param id the session ID
+     * @return 1 if a seat was released, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GameSession gs SET gs.confirmedPlayers = gs.confirmedPlayers - 1 " +
+           "WHERE gs.id = :id AND gs.confirmedPlayers > 0")
+    int releaseSeat(@Param("id") Long id);
+
+    /**
+     * Recomputes the seat counter of every session whose counter does not match its player rows.
+     *
+     * @return the number of sessions corrected
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE GameSession gs SET gs.confirmedPlayers = " +
+           "(SELECT COUNT(p) FROM GameSessionPlayer p WHERE p.gameSession.id = gs.id) " +
+           "WHERE gs.confirmedPlayers <> (SELECT COUNT(p2) FROM GameSessionPlayer p2 WHERE p2.gameSession.id = gs.id)")
+    int resyncConfirmedPlayers();
+
+    /**
+     * Finds the earliest end moment among scheduled sessions that have already ended.
+     *
+     * @param now the reference instant
+     * @return the oldest pending end moment, or null if no session is pending
+     */
+    @Query("SELECT MIN(gs.endsAt) FROM GameSession gs " +
+           "WHERE gs.status = com.ezequiel.reiunio.enums.GameSessionStatus.SCHEDULED AND gs.endsAt < :now")
+    LocalDateTime findEarliestPendingEnd(@Param("now") LocalDateTime now);
+
+    /**
+     * Finds sessions whose end moment has not been computed yet (rows created before the column existed).
+     *
+     * @return list of sessions without an end moment
+     */
+    List<GameSession> findByEndsAtIsNull();
 }
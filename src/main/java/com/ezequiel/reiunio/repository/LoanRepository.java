@@ -5,7 +5,10 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,7 +22,26 @@ import com.ezequiel.reiunio.enums.LoanStatus;
  * Repository interface for managing {@link Loan} entities.
  */
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan> {
+
+    /**
+     * Finds all loans with their user and game in a single query.
+     *
+     * @return all loans
+     */
+    @Override
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
+    List<Loan> findAll();
+
+    /**
+     * Finds a page of loans with their user and game in a single query.
+     *
+     * @param pageable pagination information
+     * @return a page of loans
+     */
+    @Override
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
+    Page<Loan> findAll(Pageable pageable);
 
     /**
      * Finds all loans associated with a specific user.
@@ -27,6 +49,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param user the user entity
      * @return list of loans for the given user
      */
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     List<Loan> findByUser(User user);
 
     /**
@@ -36,6 +59,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param pageable pagination information
      * @return paginated list of loans
      */
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     Page<Loan> findByUser(User user, Pageable pageable);
 
     /**
@@ -44,6 +68,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param game the game entity
      * @return list of loans for the game
      */
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     List<Loan> findByGame(Game game);
 
     /**
@@ -52,6 +77,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param status the loan status
      * @return list of loans with the specified status
      */
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     List<Loan> findByStatus(LoanStatus status);
 
     /**
@@ -61,6 +87,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param pageable pagination information
      * @return paginated list of loans with the specified status
      */
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     Page<Loan> findByStatus(LoanStatus status, Pageable pageable);
 
     /**
@@ -72,6 +99,15 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      */
     List<Loan> findByGameAndStatus(Game game, LoanStatus status);
 
+    /**
+     * Finds the active loans of a game by its ID.
+     *
+     * @param gameId the ID of the game
+     * @return the active loans of the game
+     */
+    @Query("SELECT l FROM Loan l WHERE l.game.id = :gameId AND l.status = com.ezequiel.reiunio.enums.LoanStatus.ACTIVE")
+    List<Loan> findActiveByGameId(@Param("gameId") Long gameId);
+
     /**
      * Finds loans that are overdue (estimated return date before the current date and status is ACTIVE).
      *
@@ -79,6 +115,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @return list of overdue loans
      */
     @Query("SELECT l FROM Loan l WHERE l.status = 'ACTIVE' AND l.estimatedReturnDate < :currentDate")
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     List<Loan> findOverdueLoans(@Param("currentDate") LocalDate currentDate);
 
     /**
@@ -89,6 +126,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @return paginated list of overdue loans
      */
     @Query("SELECT l FROM Loan l WHERE l.status = 'ACTIVE' AND l.estimatedReturnDate < :currentDate")
+    @EntityGraph(Loan.WITH_USER_AND_GAME)
     Page<Loan> findOverdueLoans(@Param("currentDate") LocalDate currentDate, Pageable pageable);
 
     /**
@@ -151,4 +189,15 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findLoansOverlappingPeriod(@Param("game") Game game,
                                           @Param("startDate") LocalDate startDate,
                                           @Param("endDate") LocalDate endDate);
+
+    /**
+     * Builds a specification matching loans with the given status, or every loan when
+     * the status is null. Used for keyset pagination of the loan list.
+     *
+     * @param status the loan status, or null for all loans
+     * @return a specification matching the given status
+     */
+    static Specification<Loan> withStatus(LoanStatus status) {
+        return (root, query, cb) -> status == null ? cb.conjunction() : cb.equal(root.get("status"), status);
+    }
 }
@@ -1,5 +1,6 @@
 package com.ezequiel.reiunio.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +52,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Returns the usernames of all users.
+     *
+     * @return list of usernames
+     */
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    /**
+     * Returns the email addresses of all users.
+     *
+     * @return list of emails
+     */
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllEmails();
+
     /**
      * Finds all users with a specific role.
      *
@@ -79,6 +96,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByRole(Role role, Pageable pageable);
 
+    /**
+     * Finds the users with the given IDs, with pagination support.
+     *
+     * @param ids the user IDs
+     * @param pageable pagination information
+     * @return paginated list of the matching users
+     */
+    Page<User> findByIdIn(Collection<Long> ids, Pageable pageable);
+
     /**
      * Searches users by username, first name, last name, or email with pagination support (case-insensitive).
      * CORREGIDO: Usa una sola query con OR conditions para búsqueda más eficiente.
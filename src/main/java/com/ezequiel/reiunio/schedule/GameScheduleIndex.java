@@ -0,0 +1,502 @@
+package com.ezequiel.reiunio.schedule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.GameSessionInfo;
+import com.ezequiel.reiunio.entity.Loan;
+import com.ezequiel.reiunio.enums.GameSessionStatus;
+import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-game index of the days a library game is booked, by scheduled sessions or by active loans.
+ *
+ * <p>Each game gets two {@link IntervalTree}s keyed by epoch day: one for its scheduled sessions
+ * and one for its active loans. A game's trees are loaded on first use with one query per tree
+ * and then kept current by the session and loan services, which report their writes once the
+ * transaction commits. Conflict and upcoming-session lookups are answered from the trees in
+ * O(log n), and free windows in O(log n + k), instead of loading every session ever held for
+ * the game.</p>
+ *
+ * <p>Only the most recently used games are kept ({@code app.schedule.cache.max-games}); an
+ * evicted game is simply loaded again on its next lookup. The game each session and loan
+ * belongs to is only remembered while that game is loaded, and write versions are kept in a
+ * fixed number of stripes, so nothing the index holds grows with the number of games,
+ * sessions or loans ever seen.</p>
+ *
+ * <p>Writes made on another node never reach this index, so every loaded schedule is dropped
+ * every {@code app.schedule.cache.refresh-interval-ms} and loaded again from the database on
+ * its next lookup, which bounds how long a booking made elsewhere can be missed.</p>
+ *
+ * <p>The expiry sweeper finishes sessions with a bulk update that bypasses the entities, so it
+ * reports the finished sessions through {@link #sessionsFinished}. Active loans have not been
+ * returned yet, so they block the game from their loan date on with no end, however overdue
+ * they are.</p>
+ */
+@Component
+@Slf4j
+public class GameScheduleIndex {
+
+    private static final long FAR_FUTURE = LocalDate.of(9999, 12, 31).toEpochDay();
+
+    /** Number of write counters games are spread over */
+    private static final int VERSION_STRIPES = 1024;
+
+    private final GameSessionRepository gameSessionRepository;
+    private final LoanRepository loanRepository;
+
+    /** Loaded schedules by game ID, least recently used first */
+    private final Map<Long, GameSchedule> schedules;
+
+    /** Write counters of the games hashing to each stripe, used to discard loads that raced with a write */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /** Removals of sessions or loans whose game was unknown; they discard every running load */
+    private final AtomicLong unmappedWrites = new AtomicLong();
+
+    /** Game of each session in a loaded schedule, so moves and deletes find the old tree */
+    private final Map<Long, Long> sessionGames = new ConcurrentHashMap<>();
+
+    /** Game of each loan in a loaded schedule */
+    private final Map<Long, Long> loanGames = new ConcurrentHashMap<>();
+
+    public GameScheduleIndex(GameSessionRepository gameSessionRepository, LoanRepository loanRepository,
+                             @Value("${app.schedule.cache.max-games:1000}") int maxGames) {
+        this.gameSessionRepository = gameSessionRepository;
+        this.loanRepository = loanRepository;
+        this.schedules = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, GameSchedule> eldest) {
+                if (size() <= maxGames) {
+                    return false;
+                }
+                unmap(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * A free period of a game, with both ends included.
+     *
+     * @param start the first free day
+     * @param end the last free day
+     */
+    public record FreeWindow(LocalDate start, LocalDate end) {
+    }
+
+    /**
+     * Returns the scheduled sessions of a game starting on or after the given date, in start order.
+     *
+     * @param gameId the ID of the game
+     * @param from the earliest start date
+     * @return the upcoming sessions
+     */
+    public List<GameSessionInfo> findUpcomingSessions(Long gameId, LocalDate from) {
+        GameSchedule schedule = schedule(gameId);
+        synchronized (schedule) {
+            List<GameSessionInfo> result = new ArrayList<>();
+            for (IntervalTree.Interval<GameSessionInfo> interval : schedule.sessions.overlapping(from.toEpochDay(), FAR_FUTURE)) {
+                if (interval.start() >= from.toEpochDay()) {
+                    result.add(interval.value());
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Tells whether a game has any scheduled session starting on or after the given date.
+     *
+     * @param gameId the ID of the game
+     * @param from the earliest start date
+     * @return true if there is an upcoming session
+     */
+    public boolean hasUpcomingSessions(Long gameId, LocalDate from) {
+        GameSchedule schedule = schedule(gameId);
+        synchronized (schedule) {
+            return schedule.sessions.firstStartingFrom(from.toEpochDay()).isPresent();
+        }
+    }
+
+    /**
+     * Finds the earliest scheduled session of a game that overlaps the given period.
+     *
+     * @param gameId the ID of the game
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return the first conflicting session, if any
+     */
+    public Optional<GameSessionInfo> findFirstSessionConflict(Long gameId, LocalDate from, LocalDate to) {
+        GameSchedule schedule = schedule(gameId);
+        synchronized (schedule) {
+            return schedule.sessions.firstOverlapping(from.toEpochDay(), to.toEpochDay())
+                    .map(IntervalTree.Interval::value);
+        }
+    }
+
+    /**
+     * Lists the periods between two dates in which a game is neither in a scheduled session
+     * nor out on an active loan.
+     *
+     * @param gameId the ID of the game
+     * @param from the first day to consider
+     * @param to the last day to consider
+     * @return the free windows, in chronological order
+     */
+    public List<FreeWindow> findFreeWindows(Long gameId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return List.of();
+        }
+        GameSchedule schedule = schedule(gameId);
+        List<IntervalTree.Interval<?>> busy = new ArrayList<>();
+        synchronized (schedule) {
+            busy.addAll(schedule.sessions.overlapping(from.toEpochDay(), to.toEpochDay()));
+            busy.addAll(schedule.loans.overlapping(from.toEpochDay(), to.toEpochDay()));
+        }
+        busy.sort((a, b) -> Long.compare(a.start(), b.start()));
+
+        List<FreeWindow> windows = new ArrayList<>();
+        for (long[] gap : IntervalTree.gaps(busy, from.toEpochDay(), to.toEpochDay())) {
+            windows.add(new FreeWindow(LocalDate.ofEpochDay(gap[0]), LocalDate.ofEpochDay(gap[1])));
+        }
+        return windows;
+    }
+
+    /**
+     * Records a saved session once the current transaction commits. Sessions that are no
+     * longer scheduled, or not tied to a library game, are dropped from the index.
+     *
+     * @param session the saved session
+     */
+    public void sessionSaved(GameSession session) {
+        if (session == null || session.getId() == null) {
+            return;
+        }
+        Long sessionId = session.getId();
+        Long gameId = session.getGame() != null ? session.getGame().getId() : null;
+        boolean scheduled = gameId != null && session.getStatus() == GameSessionStatus.SCHEDULED
+                && session.getStartDate() != null && session.getEndDate() != null;
+        GameSessionInfo info = scheduled ? toSessionInfo(session) : null;
+
+        afterCommit(() -> {
+            removeSession(sessionId);
+            if (info != null) {
+                bump(gameId);
+                withLoaded(gameId, schedule -> {
+                    schedule.putSession(sessionId, info);
+                    sessionGames.put(sessionId, gameId);
+                });
+            }
+        });
+    }
+
+    /**
+     * Drops a deleted session from the index once the current transaction commits.
+     *
+     * @param sessionId the ID of the deleted session
+     */
+    public void sessionDeleted(Long sessionId) {
+        if (sessionId != null) {
+            afterCommit(() -> removeSession(sessionId));
+        }
+    }
+
+    /**
+     * Drops sessions finished by a bulk update from the index once the current transaction
+     * commits.
+     *
+     * @param sessionIds the IDs of the finished sessions
+     */
+    public void sessionsFinished(Collection<Long> sessionIds) {
+        if (!sessionIds.isEmpty()) {
+            List<Long> finished = List.copyOf(sessionIds);
+            afterCommit(() -> finished.forEach(this::removeSession));
+        }
+    }
+
+    /**
+     * Records a saved loan once the current transaction commits. Only active loans block the game.
+     *
+     * @param loan the saved loan
+     */
+    public void loanSaved(Loan loan) {
+        if (loan == null || loan.getId() == null) {
+            return;
+        }
+        Long loanId = loan.getId();
+        Long gameId = loan.getGame() != null ? loan.getGame().getId() : null;
+        boolean active = gameId != null && loan.getStatus() == LoanStatus.ACTIVE && loan.getLoanDate() != null;
+        LocalDate start = loan.getLoanDate();
+
+        afterCommit(() -> {
+            removeLoan(loanId);
+            if (active) {
+                bump(gameId);
+                withLoaded(gameId, schedule -> {
+                    schedule.putLoan(loanId, start);
+                    loanGames.put(loanId, gameId);
+                });
+            }
+        });
+    }
+
+    /**
+     * Drops a deleted loan from the index once the current transaction commits.
+     *
+     * @param loanId the ID of the deleted loan
+     */
+    public void loanDeleted(Long loanId) {
+        if (loanId != null) {
+            afterCommit(() -> removeLoan(loanId));
+        }
+    }
+
+    /**
+     * Forgets everything known about a game, for example after it was deleted.
+     *
+     * @param gameId the ID of the game
+     */
+    public void evict(Long gameId) {
+        if (gameId != null) {
+            afterCommit(() -> {
+                bump(gameId);
+                synchronized (schedules) {
+                    GameSchedule schedule = schedules.remove(gameId);
+                    if (schedule != null) {
+                        unmap(gameId, schedule);
+                    }
+                }
+                sessionGames.values().removeIf(gameId::equals);
+                loanGames.values().removeIf(gameId::equals);
+            });
+        }
+    }
+
+    /**
+     * Drops every loaded schedule, so bookings made on other nodes are seen once each game is
+     * loaded again.
+     */
+    @Scheduled(fixedDelayString = "${app.schedule.cache.refresh-interval-ms:300000}",
+               initialDelayString = "${app.schedule.cache.refresh-interval-ms:300000}")
+    public void refresh() {
+        List<Long> loaded;
+        synchronized (schedules) {
+            loaded = new ArrayList<>(schedules.keySet());
+            schedules.clear();
+            sessionGames.clear();
+            loanGames.clear();
+        }
+        loaded.forEach(this::bump);
+        log.debug("Dropped {} loaded game schedules", loaded.size());
+    }
+
+    /**
+     * Returns the number of sessions and loans whose game is currently remembered.
+     *
+     * @return the number of remembered sessions and loans
+     */
+    int mappedRecords() {
+        return sessionGames.size() + loanGames.size();
+    }
+
+    /**
+     * Summarizes a session for the loan views and the index.
+     *
+     * @param session the session, with its creator loaded
+     * @return the session summary
+     */
+    public static GameSessionInfo toSessionInfo(GameSession session) {
+        return GameSessionInfo.builder()
+                .sessionId(session.getId())
+                .sessionTitle(session.getTitle())
+                .startDate(session.getStartDate())
+                .startTime(session.getStartTime())
+                .endDate(session.getEndDate())
+                .endTime(session.getEndTime())
+                .creatorName(session.getCreator().getFullName())
+                .status(session.getStatus().toString())
+                .isMultiDay(session.isMultiDay())
+                .build();
+    }
+
+    private GameSchedule schedule(Long gameId) {
+        GameSchedule schedule = schedules.get(gameId);
+        if (schedule != null) {
+            return schedule;
+        }
+
+        long version = version(gameId);
+        GameSchedule loaded = load(gameId);
+        synchronized (schedules) {
+            GameSchedule existing = schedules.putIfAbsent(gameId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            // Mapped before checking, so any later removal finds the game and bumps its version
+            map(gameId, loaded);
+            if (version(gameId) != version) {
+                // A write committed while we were loading; serve this copy but do not keep it
+                schedules.remove(gameId);
+                unmap(gameId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private GameSchedule load(Long gameId) {
+        LocalDate today = LocalDate.now();
+        GameSchedule schedule = new GameSchedule();
+
+        List<GameSession> sessions = gameSessionRepository.findScheduledForGameEndingFrom(gameId, today);
+        for (GameSession session : sessions) {
+            schedule.putSession(session.getId(), toSessionInfo(session));
+        }
+        List<Loan> loans = loanRepository.findActiveByGameId(gameId);
+        for (Loan loan : loans) {
+            schedule.putLoan(loan.getId(), loan.getLoanDate());
+        }
+
+        log.debug("Loaded schedule for game {}: {} sessions, {} active loans", gameId, sessions.size(), loans.size());
+        return schedule;
+    }
+
+    private void removeSession(Long sessionId) {
+        Long gameId = sessionGames.remove(sessionId);
+        if (gameId == null) {
+            // Not in a loaded schedule, but a load may be reading it right now
+            unmappedWrites.incrementAndGet();
+            return;
+        }
+        bump(gameId);
+        withLoaded(gameId, schedule -> schedule.removeSession(sessionId));
+    }
+
+    private void removeLoan(Long loanId) {
+        Long gameId = loanGames.remove(loanId);
+        if (gameId == null) {
+            unmappedWrites.incrementAndGet();
+            return;
+        }
+        bump(gameId);
+        withLoaded(gameId, schedule -> schedule.removeLoan(loanId));
+    }
+
+    /**
+     * Remembers the game of every session and loan of a schedule that is being kept.
+     */
+    private void map(Long gameId, GameSchedule schedule) {
+        synchronized (schedule) {
+            schedule.sessionIds.forEach(sessionId -> sessionGames.put(sessionId, gameId));
+            schedule.loanIds.forEach(loanId -> loanGames.put(loanId, gameId));
+        }
+    }
+
+    /**
+     * Forgets the game of every session and loan of a schedule that is no longer kept.
+     */
+    private void unmap(Long gameId, GameSchedule schedule) {
+        synchronized (schedule) {
+            schedule.sessionIds.forEach(sessionId -> sessionGames.remove(sessionId, gameId));
+            schedule.loanIds.forEach(loanId -> loanGames.remove(loanId, gameId));
+        }
+    }
+
+    private void withLoaded(Long gameId, Consumer<GameSchedule> change) {
+        GameSchedule schedule = schedules.get(gameId);
+        if (schedule != null) {
+            synchronized (schedule) {
+                change.accept(schedule);
+            }
+        }
+    }
+
+    private void bump(Long gameId) {
+        versions.incrementAndGet(stripe(gameId));
+    }
+
+    private long version(Long gameId) {
+        // Both only grow, so the sum changes whenever either does
+        return versions.get(stripe(gameId)) + unmappedWrites.get();
+    }
+
+    private static int stripe(Long gameId) {
+        return Math.floorMod(gameId.hashCode(), VERSION_STRIPES);
+    }
+
+    private static String sessionKey(Long sessionId) {
+        return "S" + sessionId;
+    }
+
+    private static String loanKey(Long loanId) {
+        return "L" + loanId;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Interval trees of a single game. Guarded by its own monitor.
+     */
+    private static final class GameSchedule {
+        private final IntervalTree<GameSessionInfo> sessions = new IntervalTree<>();
+        private final IntervalTree<Long> loans = new IntervalTree<>();
+        private final Set<Long> sessionIds = new HashSet<>();
+        private final Set<Long> loanIds = new HashSet<>();
+
+        private void putSession(Long sessionId, GameSessionInfo info) {
+            long start = info.getStartDate().toEpochDay();
+            sessions.put(sessionKey(sessionId), start, Math.max(start, info.getEndDate().toEpochDay()), info);
+            sessionIds.add(sessionId);
+        }
+
+        private void removeSession(Long sessionId) {
+            sessions.remove(sessionKey(sessionId));
+            sessionIds.remove(sessionId);
+        }
+
+        private void putLoan(Long loanId, LocalDate start) {
+            // The game is out until the loan is returned, whatever the estimated return date
+            loans.put(loanKey(loanId), start.toEpochDay(), FAR_FUTURE, loanId);
+            loanIds.add(loanId);
+        }
+
+        private void removeLoan(Long loanId) {
+            loans.remove(loanKey(loanId));
+            loanIds.remove(loanId);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.ezequiel.reiunio.schedule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Augmented interval tree over closed integer intervals {@code [start, end]}.
+ *
+ * <p>Nodes are kept in a treap ordered by (start, key), so the tree stays balanced in
+ * expectation without rebalancing bookkeeping. Every node also stores the maximum end of its
+ * subtree, which lets overlap queries skip whole subtrees that finish before the query
+ * window. Finding the first overlapping interval is therefore O(log n), and listing the
+ * overlapping intervals is O(log n + k).</p>
+ *
+ * <p>Intervals are identified by a caller supplied key, so re-putting a key replaces the
+ * previous interval. The class is not thread-safe; callers synchronize around it.</p>
+ *
+ * @param <V> the type of the value attached to each interval
+ */
+public class IntervalTree<V> {
+
+    /**
+     * An interval stored in the tree.
+     *
+     * @param key the identifier of the interval
+     * @param start the first point covered by the interval
+     * @param end the last point covered by the interval
+     * @param value the value attached to the interval
+     * @param <V> the value type
+     */
+    public record Interval<V>(String key, long start, long end, V value) {
+    }
+
+    private static final class Node<V> {
+        private final Interval<V> interval;
+        private final int priority;
+        private long maxEnd;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(Interval<V> interval) {
+            this.interval = interval;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node<V> root;
+    private final Map<String, Interval<V>> byKey = new HashMap<>();
+
+    /**
+     * Inserts an interval, replacing any interval previously stored under the same key.
+     *
+     * @param key the identifier of the interval
+     * @param start the first point covered
+     * @param end the last point covered, not before {@code start}
+     * @param value the value to attach
+     */
+    public void put(String key, long start, long end, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end " + end + " is before start " + start);
+        }
+        remove(key);
+        Interval<V> interval = new Interval<>(key, start, end, value);
+        root = insert(root, new Node<>(interval));
+        byKey.put(key, interval);
+    }
+
+    /**
+     * Removes the interval stored under the given key.
+     *
+     * @param key the identifier of the interval
+     * @return true if an interval was removed
+     */
+    public boolean remove(String key) {
+        Interval<V> existing = byKey.remove(key);
+        if (existing == null) {
+            return false;
+        }
+        root = delete(root, existing);
+        return true;
+    }
+
+    /**
+     * Returns the interval stored under the given key, if any.
+     *
+     * @param key the identifier of the interval
+     * @return the stored interval
+     */
+    public Optional<Interval<V>> get(String key) {
+        return Optional.ofNullable(byKey.get(key));
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Finds the interval with the smallest start that overlaps {@code [from, to]}.
+     *
+     * @param from the first point of the window
+     * @param to the last point of the window
+     * @return the first overlapping interval, if any
+     */
+    public Optional<Interval<V>> firstOverlapping(long from, long to) {
+        Node<V> node = root;
+        while (node != null && node.maxEnd >= from) {
+            if (node.left != null && node.left.maxEnd >= from) {
+                // Some interval on the left ends late enough; it starts no later than this node,
+                // so if it does not overlap nothing further right will either.
+                node = node.left;
+                continue;
+            }
+            if (node.interval.start() > to) {
+                return Optional.empty();
+            }
+            if (node.interval.end() >= from) {
+                return Optional.of(node.interval);
+            }
+            node = node.right;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the interval with the smallest start not before {@code from}.
+     *
+     * @param from the lower bound for the start
+     * @return the first interval starting at or after {@code from}, if any
+     */
+    public Optional<Interval<V>> firstStartingFrom(long from) {
+        Node<V> node = root;
+        Interval<V> candidate = null;
+        while (node != null) {
+            if (node.interval.start() >= from) {
+                candidate = node.interval;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return Optional.ofNullable(candidate);
+    }
+
+    /**
+     * Lists the intervals overlapping {@code [from, to]}, ordered by start.
+     *
+     * @param from the first point of the window
+     * @param to the last point of the window
+     * @return the overlapping intervals
+     */
+    public List<Interval<V>> overlapping(long from, long to) {
+        List<Interval<V>> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Lists the maximal sub-windows of {@code [from, to]} not covered by any interval.
+     *
+     * @param from the first point of the window
+     * @param to the last point of the window
+     * @return the free windows as {@code [start, end]} pairs, ordered by start
+     */
+    public List<long[]> gaps(long from, long to) {
+        return gaps(overlapping(from, to), from, to);
+    }
+
+    /**
+     * Lists the maximal sub-windows of {@code [from, to]} not covered by any of the given
+     * intervals, which must be ordered by start.
+     *
+     * @param intervals the covering intervals, ordered by start
+     * @param from the first point of the window
+     * @param to the last point of the window
+     * @return the free windows as {@code [start, end]} pairs, ordered by start
+     */
+    public static List<long[]> gaps(List<? extends Interval<?>> intervals, long from, long to) {
+        List<long[]> gaps = new ArrayList<>();
+        long cursor = from;
+        for (Interval<?> interval : intervals) {
+            if (interval.start() > cursor) {
+                gaps.add(new long[] { cursor, Math.min(interval.start() - 1, to) });
+            }
+            cursor = Math.max(cursor, interval.end() + 1);
+            if (cursor > to) {
+                return gaps;
+            }
+        }
+        if (cursor <= to) {
+            gaps.add(new long[] { cursor, to });
+        }
+        return gaps;
+    }
+
+    private void collect(Node<V> node, long from, long to, List<Interval<V>> result) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.interval.start() > to) {
+            return;
+        }
+        if (node.interval.end() >= from) {
+            result.add(node.interval);
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (compare(fresh.interval, node.interval) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<V> delete(Node<V> node, Interval<V> target) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(target, node.interval);
+        if (cmp < 0) {
+            node.left = delete(node.left, target);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, target);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, target);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node<V> node) {
+        long max = node.interval.end();
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            max = Math.max(max, node.right.maxEnd);
+        }
+        node.maxEnd = max;
+    }
+
+    private static int compare(Interval<?> a, Interval<?> b) {
+        int cmp = Long.compare(a.start(), b.start());
+        return cmp != 0 ? cmp : a.key().compareTo(b.key());
+    }
+}
@@ -0,0 +1,115 @@
+package com.ezequiel.reiunio.scheduler;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.audit.AuditLogArchive;
+import com.ezequiel.reiunio.audit.AuditLogExporter;
+import com.ezequiel.reiunio.audit.AuditLogPartitionManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background job that moves old audit entries to the archive.
+ *
+ * <p>Every month older than {@code app.audit.retention.months} full months is written to
+ * {@link AuditLogArchive} and only then removed from {@code audit_logs}, by dropping its
+ * partition when the table is partitioned or with a ranged delete otherwise. A run interrupted
+ * between the two steps is simply repeated by the next one: the month is archived again, merged
+ * with the file already written, and removed.
+ *
+ * <p>Exposed metrics:
+ * <ul>
+ *   <li>{@code reiunio.audit.retention.archived} - total number of entries moved to the archive</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class AuditLogRetentionJob {
+
+    private final AuditLogExporter auditLogExporter;
+    private final AuditLogArchive auditLogArchive;
+    private final AuditLogPartitionManager partitionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int retentionMonths;
+    private final Counter archivedCounter;
+
+    public AuditLogRetentionJob(AuditLogExporter auditLogExporter,
+                                AuditLogArchive auditLogArchive,
+                                AuditLogPartitionManager partitionManager,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.audit.retention.enabled:true}") boolean enabled,
+                                @Value("${app.audit.retention.months:12}") int retentionMonths) {
+        this.auditLogExporter = auditLogExporter;
+        this.auditLogArchive = auditLogArchive;
+        this.partitionManager = partitionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.retentionMonths = Math.max(retentionMonths, 1);
+        this.archivedCounter = Counter.builder("reiunio.audit.retention.archived")
+                .description("Audit log entries moved to the archive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archives and removes every month past the retention period.
+     */
+    @Scheduled(cron = "${app.audit.retention.cron:0 30 3 * * *}")
+    public void archiveExpiredMonths() {
+        if (!enabled) {
+            return;
+        }
+        archiveBefore(YearMonth.now().minusMonths(retentionMonths));
+    }
+
+    /**
+     * Archives and removes every month before the given one.
+     *
+     * @param cutoff the oldest month kept in the table
+     * @return the number of entries archived
+     */
+    public long archiveBefore(YearMonth cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(change_date_time) FROM audit_logs", Timestamp.class);
+        if (oldest == null) {
+            return 0;
+        }
+        long archived = 0;
+        for (YearMonth month = YearMonth.from(oldest.toLocalDateTime()); month.isBefore(cutoff);
+             month = month.plusMonths(1)) {
+            try {
+                archived += archiveMonth(month);
+            } catch (Exception e) {
+                // Stop at the first failure so months are always archived oldest first
+                log.error("Error archiving audit logs of {}: {}", month, e.getMessage());
+                break;
+            }
+        }
+        return archived;
+    }
+
+    private long archiveMonth(YearMonth month) throws IOException {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        long[] exported = new long[1];
+        auditLogArchive.store(month, output -> exported[0] = auditLogExporter.export(null, null, start, end,
+                true, true, AuditLogExporter.Format.NDJSON, output));
+        if (!partitionManager.dropPartition(month)) {
+            jdbcTemplate.update("DELETE FROM audit_logs WHERE change_date_time >= ? AND change_date_time < ?",
+                    Timestamp.valueOf(start), Timestamp.valueOf(end));
+        }
+        archivedCounter.increment(exported[0]);
+        log.info("Archived {} audit log entries of {}", exported[0], month);
+        return exported[0];
+    }
+}
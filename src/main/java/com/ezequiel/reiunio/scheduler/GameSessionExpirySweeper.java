@@ -0,0 +1,109 @@
+package com.ezequiel.reiunio.scheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.service.GameSessionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background job that finishes expired game sessions.
+ *
+ * <p>Replaces the per-read check previously done by the session service: every
+ * {@code app.sessions.sweep-interval-ms} milliseconds all scheduled sessions whose
+ * persisted end moment is in the past are finished with set-based updates, and dropped from
+ * the game schedule index.
+ *
+ * <p>Exposed metrics:
+ * <ul>
+ *   <li>{@code reiunio.sessions.sweep.interval} - configured interval between sweeps, in seconds</li>
+ *   <li>{@code reiunio.sessions.sweep.lag} - how long the oldest expired session waited to be finished
+ *       in the last sweep, in seconds</li>
+ *   <li>{@code reiunio.sessions.sweep.duration} - time spent on each sweep</li>
+ *   <li>{@code reiunio.sessions.sweep.finished} - total number of sessions finished by the sweeper</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class GameSessionExpirySweeper {
+
+    private final GameSessionService gameSessionService;
+    private final GameSessionRepository gameSessionRepository;
+    private final Timer sweepTimer;
+    private final Counter finishedCounter;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public GameSessionExpirySweeper(GameSessionService gameSessionService,
+                                    GameSessionRepository gameSessionRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.sessions.sweep-interval-ms:60000}") long sweepIntervalMs) {
+        this.gameSessionService = gameSessionService;
+        this.gameSessionRepository = gameSessionRepository;
+        this.sweepTimer = Timer.builder("reiunio.sessions.sweep.duration")
+                .description("Time spent finishing expired game sessions")
+                .register(meterRegistry);
+        this.finishedCounter = Counter.builder("reiunio.sessions.sweep.finished")
+                .description("Game sessions finished by the expiry sweeper")
+                .register(meterRegistry);
+        Gauge.builder("reiunio.sessions.sweep.interval", () -> sweepIntervalMs / 1000.0)
+                .description("Configured interval between expiry sweeps")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("reiunio.sessions.sweep.lag", lagSeconds, AtomicLong::get)
+                .description("Delay between the end of the oldest expired session and the sweep that finished it")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Computes missing end moments and seat counts for legacy rows and runs a first sweep
+     * once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            gameSessionService.backfillEndMoments();
+        } catch (Exception e) {
+            log.error("Error computing end moments of existing sessions: {}", e.getMessage());
+        }
+        try {
+            gameSessionService.resyncConfirmedPlayers();
+        } catch (Exception e) {
+            log.error("Error recomputing seat counts of existing sessions: {}", e.getMessage());
+        }
+        sweep();
+    }
+
+    /**
+     * Finishes every scheduled session whose end moment has passed.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.sweep-interval-ms:60000}",
+               initialDelayString = "${app.sessions.sweep-interval-ms:60000}")
+    public void sweep() {
+        sweepTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                LocalDateTime oldestPendingEnd = gameSessionRepository.findEarliestPendingEnd(now);
+                lagSeconds.set(oldestPendingEnd != null ? Duration.between(oldestPendingEnd, now).getSeconds() : 0);
+
+                int finished = gameSessionService.finishExpiredSessions(now);
+                finishedCounter.increment(finished);
+            } catch (Exception e) {
+                log.error("Error finishing expired sessions: {}", e.getMessage());
+            }
+        });
+    }
+}
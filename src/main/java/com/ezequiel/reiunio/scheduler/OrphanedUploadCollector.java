@@ -0,0 +1,299 @@
+package com.ezequiel.reiunio.scheduler;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+import com.ezequiel.reiunio.service.FileUploadService;
+import com.ezequiel.reiunio.storage.BlobStore;
+import com.ezequiel.reiunio.storage.PathFingerprintSet;
+import com.ezequiel.reiunio.storage.UploadReservations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background job that removes uploaded files no game, user or session references any more.
+ *
+ * <p>Deleting an upload when its owner changes is best effort: a failed save after an upload,
+ * or a deleted game, user or session, leaves the file on disk. Each run is a mark and sweep:
+ * <ol>
+ *   <li>every path stored in {@code games.image_path}, {@code users.profile_photo_path} and
+ *       {@code game_sessions.custom_game_image_path} is streamed into a
+ *       {@link PathFingerprintSet};</li>
+ *   <li>the {@link BlobStore} is listed and every file older than the grace period whose path
+ *       is not in the set becomes a candidate. A downscaled variant is judged by its original,
+ *       and leftover temporary files are candidates like any other;</li>
+ *   <li>each candidate is checked against the database once more, holding the lock of
+ *       {@link UploadReservations}, and only then deleted or moved to the quarantine directory. Only files of a local store
+ *       can be quarantined; those of a remote store are deleted, and the bucket's versioning
+ *       or lifecycle rules are the place to keep them for a while.</li>
+ * </ol>
+ * The grace period covers files stored by an upload whose entity has not been saved yet, and
+ * the final check covers references added while the run was in progress, and uploads reserved
+ * on any node. Quarantined files are deleted once they have been there for the quarantine
+ * retention period, and expired upload reservations at the end of each run.
+ *
+ * <p>The final check is made in the database, so runs on several nodes sharing a remote store
+ * are safe, but they only repeat each other's work; {@code app.upload.gc.enabled} can be
+ * turned off on all nodes but one.</p>
+ *
+ * <p>Exposed metrics:
+ * <ul>
+ *   <li>{@code reiunio.uploads.gc.removed} - total number of files removed from the upload directory</li>
+ *   <li>{@code reiunio.uploads.gc.reclaimed} - total number of bytes freed on disk</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class OrphanedUploadCollector {
+
+    private static final String UPLOAD_URL_PREFIX = "/uploads/";
+    private static final String REFERENCES_SQL =
+            "SELECT image_path FROM games WHERE image_path IS NOT NULL "
+            + "UNION ALL SELECT profile_photo_path FROM users WHERE profile_photo_path IS NOT NULL "
+            + "UNION ALL SELECT custom_game_image_path FROM game_sessions WHERE custom_game_image_path IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileUploadService fileUploadService;
+    private final BlobStore blobStore;
+    private final UploadReservations uploadReservations;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final boolean quarantine;
+    private final Path quarantineRoot;
+    private final Duration quarantineRetention;
+    private final Counter removedCounter;
+    private final Counter reclaimedCounter;
+
+    public OrphanedUploadCollector(JdbcTemplate jdbcTemplate,
+                                   FileUploadService fileUploadService,
+                                   BlobStore blobStore,
+                                   UploadReservations uploadReservations,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.upload.gc.enabled:true}") boolean enabled,
+                                   @Value("${app.upload.gc.grace-period:P1D}") Duration gracePeriod,
+                                   @Value("${app.upload.gc.quarantine:true}") boolean quarantine,
+                                   @Value("${app.upload.gc.quarantine-dir:upload-quarantine}") String quarantineDir,
+                                   @Value("${app.upload.gc.quarantine-retention:P30D}") Duration quarantineRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileUploadService = fileUploadService;
+        this.blobStore = blobStore;
+        this.uploadReservations = uploadReservations;
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.quarantine = quarantine;
+        this.quarantineRoot = Paths.get(quarantineDir).toAbsolutePath().normalize();
+        this.quarantineRetention = quarantineRetention;
+        this.removedCounter = Counter.builder("reiunio.uploads.gc.removed")
+                .description("Unreferenced files removed from the upload directory")
+                .register(meterRegistry);
+        this.reclaimedCounter = Counter.builder("reiunio.uploads.gc.reclaimed")
+                .description("Disk space freed by deleting unreferenced uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Removes the unreferenced uploads and purges the expired quarantined files.
+     */
+    @Scheduled(cron = "${app.upload.gc.cron:0 0 4 * * *}")
+    public void collectScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            collect();
+        } catch (Exception e) {
+            log.error("Error collecting orphaned uploads: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one mark and sweep over the upload store.
+     *
+     * @return what the run scanned and removed
+     * @throws IOException if the uploads cannot be listed or the quarantine directory walked
+     */
+    public Report collect() throws IOException {
+        long startTime = System.currentTimeMillis();
+        PathFingerprintSet referenced = markReferencedPaths();
+        Sweep sweep = new Sweep(referenced, Instant.now().minus(gracePeriod));
+        blobStore.list("", sweep);
+        long[] purged = quarantine ? purgeQuarantine() : new long[2];
+        uploadReservations.purgeExpired();
+
+        Report report = new Report(referenced.size(), sweep.scanned, sweep.removed, sweep.removedBytes,
+                purged[0], sweep.reclaimedBytes + purged[1]);
+        removedCounter.increment(report.removedFiles());
+        reclaimedCounter.increment(report.reclaimedBytes());
+        log.info("Upload collection: {} references, {} files scanned, {} removed ({} bytes){}, {} bytes reclaimed in {}ms",
+                report.references(), report.scannedFiles(), report.removedFiles(), report.removedBytes(),
+                quarantine ? " to quarantine, " + report.purgedFiles() + " purged from quarantine" : "",
+                report.reclaimedBytes(), System.currentTimeMillis() - startTime);
+        return report;
+    }
+
+    private PathFingerprintSet markReferencedPaths() {
+        PathFingerprintSet referenced = new PathFingerprintSet(1024);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REFERENCES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            // Connector/J only streams instead of buffering the whole result when asked for this fetch size
+            ps.setFetchSize(product.contains("mysql") || product.contains("mariadb") ? Integer.MIN_VALUE : 1000);
+            return ps;
+        }, rs -> {
+            String path = rs.getString(1);
+            if (path.startsWith(UPLOAD_URL_PREFIX)) {
+                referenced.add(path.substring(UPLOAD_URL_PREFIX.length()));
+            }
+        });
+        return referenced;
+    }
+
+    /**
+     * Deletes the quarantined files moved there longer ago than the retention period.
+     *
+     * @return the number of files deleted and their total size
+     */
+    private long[] purgeQuarantine() throws IOException {
+        long[] purged = new long[2];
+        if (!Files.isDirectory(quarantineRoot)) {
+            return purged;
+        }
+        Instant expiry = Instant.now().minus(quarantineRetention);
+        Files.walkFileTree(quarantineRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(expiry)) {
+                    try {
+                        Files.delete(file);
+                        purged[0]++;
+                        purged[1] += attributes.size();
+                    } catch (IOException e) {
+                        log.warn("Could not purge quarantined upload {}: {}", file, e.getMessage());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("Could not read quarantined upload {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return purged;
+    }
+
+    /**
+     * Sweep over the upload store, removing the unreferenced files as they are listed.
+     */
+    private class Sweep implements Consumer<BlobStore.BlobInfo> {
+
+        private final PathFingerprintSet referenced;
+        private final Instant cutoff;
+        private long scanned;
+        private long removed;
+        private long removedBytes;
+        private long reclaimedBytes;
+
+        Sweep(PathFingerprintSet referenced, Instant cutoff) {
+            this.referenced = referenced;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        public void accept(BlobStore.BlobInfo blob) {
+            String relative = blob.key();
+            Optional<Path> file = blobStore.localPath(relative);
+            // A quarantine directory configured inside the upload directory is not swept into itself
+            if (file.isPresent() && file.get().startsWith(quarantineRoot)) {
+                return;
+            }
+            scanned++;
+            if (!blob.lastModified().isBefore(cutoff)) {
+                return;
+            }
+            String name = relative.substring(relative.lastIndexOf('/') + 1);
+            String original = ImageSize.originalOf(name);
+            // A variant is kept as long as its original is referenced
+            String owner = original == null ? relative : relative.substring(0, relative.lastIndexOf('/') + 1) + original;
+            if (referenced.contains(owner)) {
+                return;
+            }
+            boolean deleted = !quarantine || file.isEmpty() || isTemporary(name);
+            try {
+                if (fileUploadService.removeIfUnreferenced(UPLOAD_URL_PREFIX + owner,
+                        () -> remove(relative, deleted ? null : file.get()))) {
+                    removed++;
+                    removedBytes += blob.size();
+                    if (deleted) {
+                        reclaimedBytes += blob.size();
+                    }
+                    log.debug("Removed unreferenced upload {}", relative);
+                }
+            } catch (IOException e) {
+                log.warn("Could not remove unreferenced upload {}: {}", relative, e.getMessage());
+            }
+        }
+
+        /**
+         * Deletes a file, or moves it to the quarantine directory if its local path is given.
+         */
+        private void remove(String relative, Path file) throws IOException {
+            if (file == null) {
+                blobStore.delete(relative);
+                return;
+            }
+            Path target = quarantineRoot.resolve(relative);
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            // The retention period counts from the move, not from the upload
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        }
+    }
+
+    /**
+     * Temporary files left by an interrupted upload or variant generation are deleted even in
+     * quarantine mode; they never were a complete image.
+     */
+    private static boolean isTemporary(String name) {
+        return name.startsWith(".") && name.endsWith(".tmp");
+    }
+
+    /**
+     * Outcome of a collection run.
+     *
+     * @param references the number of paths referenced by the database
+     * @param scannedFiles the number of files found in the upload store
+     * @param removedFiles the number of files deleted or moved to quarantine
+     * @param removedBytes the total size of the removed files
+     * @param purgedFiles the number of expired files deleted from the quarantine directory
+     * @param reclaimedBytes the disk space actually freed, by deletions and purges
+     */
+    public record Report(long references, long scannedFiles, long removedFiles, long removedBytes,
+                         long purgedFiles, long reclaimedBytes) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.ezequiel.reiunio.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings.
+ *
+ * <p>{@link #mightContain} never returns {@code false} for a value that was added, but may
+ * return {@code true} for a value that was not. The bit array and the number of hash functions
+ * are sized from the expected number of values and the target false-positive probability.
+ * Bits are set with compare-and-set, so values can be added and queried from any thread
+ * without locking. Values cannot be removed; the filter has to be rebuilt instead.</p>
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedValues the number of values the filter is sized for
+     * @param falsePositiveProbability the target false-positive probability at that size
+     */
+    public BloomFilter(long expectedValues, double falsePositiveProbability) {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False-positive probability must be between 0 and 1");
+        }
+        long n = Math.max(expectedValues, 1);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max((bits + 63) / 64, 1);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + bits + " bits");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value the value to add
+     */
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + i * h2));
+        }
+    }
+
+    /**
+     * Checks whether a value may have been added.
+     *
+     * @param value the value to check
+     * @return false if the value was definitely never added, true if it may have been
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            if (!getBit(index(h1 + i * h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive probability from the fraction of bits set.
+     *
+     * @return the probability that a value never added is reported as present
+     */
+    public double expectedFalsePositiveProbability() {
+        return Math.pow((double) setBitCount() / bitCount, hashCount);
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Returns the size of the bit array in bytes.
+     *
+     * @return the memory used by the bits of the filter
+     */
+    public long sizeInBytes() {
+        return bitCount / 8;
+    }
+
+    private long setBitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    private long index(int combinedHash) {
+        // Kirsch-Mitzenmacher: k indexes derived from two hashes instead of k hash functions
+        return (combinedHash & 0x7fffffffL) % bitCount;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean getBit(long index) {
+        return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so both halves
+     * of the result are well distributed.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
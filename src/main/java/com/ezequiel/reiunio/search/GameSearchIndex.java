@@ -0,0 +1,506 @@
+package com.ezequiel.reiunio.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory trigram index over the game catalog.
+ *
+ * <p>A search matches every game whose name, category or description contains the term, like
+ * the {@code LIKE '%term%'} query it replaces: "tan" finds "Catan", and a term of several words
+ * must appear as written. Name, category and description are normalized (lower-cased, accents
+ * removed) and split into trigrams; the candidates come from intersecting the posting lists of
+ * the term's trigrams and are then checked against the text. Terms shorter than three
+ * characters are checked against every game left by the filters. Filters are kept as posting
+ * lists too, intersected smallest first.
+ *
+ * <p>Matches are ranked by field (name &gt; category &gt; description), then by whether the
+ * term starts a word and whether it is a whole word, which keeps the results stable while the
+ * user is still typing. The index is built when the application is ready and kept up to date
+ * incrementally by the game service; until it is built {@link #search} returns {@code null}
+ * and callers fall back to the SQL path. Updates applied while a rebuild is reading the
+ * database are logged and replayed on the rebuilt index, so the older snapshot the rebuild read
+ * cannot overwrite them.
+ *
+ * <p>The index only sees the writes made through this node. Every
+ * {@code app.search.games.refresh-interval-ms} it is rebuilt from the database, which bounds
+ * how long games added or changed on another node stay missing or stale in its results.
+ */
+@Component
+@Slf4j
+public class GameSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    /** Added when the term starts a word of the field, and again when it ends that word */
+    private static final int WORD_BONUS = 1;
+    /** Field weights are scaled past the word bonuses, so the field always ranks first */
+    private static final int FIELD_SCALE = 2 * WORD_BONUS + 1;
+
+    private static final int GRAM = 3;
+
+    /** Player counts above this value are checked against the document instead of a posting list. */
+    private static final int MAX_INDEXED_PLAYERS = 32;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final GameRepository gameRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    private final Map<Long, IndexedGame> documents = new HashMap<>();
+    private final Map<String, Set<Long>> byCategory = new HashMap<>();
+    private final Map<Boolean, Set<Long>> byAvailability = new HashMap<>();
+    private final Map<GameState, Set<Long>> byState = new EnumMap<>(GameState.class);
+    private final Map<Integer, Set<Long>> byPlayerCount = new HashMap<>();
+    private final Map<Integer, Set<Long>> byDuration = new HashMap<>();
+
+    /** Updates applied since the running rebuild started reading, or null when none is running. */
+    private List<Runnable> updatesDuringRebuild;
+    private final Object rebuildLog = new Object();
+
+    private volatile boolean ready;
+
+    public GameSearchIndex(GameRepository gameRepository,
+                           @Value("${app.search.games.index-enabled:true}") boolean enabled) {
+        this.gameRepository = gameRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the index from the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Game search index disabled, catalog search will use SQL queries");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the database, picking up the games changed on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.search.games.refresh-interval-ms:300000}",
+               initialDelayString = "${app.search.games.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error refreshing the game search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the games currently stored in the database.
+     */
+    public synchronized void rebuild() {
+        synchronized (rebuildLog) {
+            updatesDuringRebuild = new ArrayList<>();
+        }
+        List<Game> games;
+        try {
+            games = gameRepository.findAll();
+        } catch (RuntimeException e) {
+            synchronized (rebuildLog) {
+                updatesDuringRebuild = null;
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            trigrams.clear();
+            documents.clear();
+            byCategory.clear();
+            byAvailability.clear();
+            byState.clear();
+            byPlayerCount.clear();
+            byDuration.clear();
+            for (Game game : games) {
+                add(IndexedGame.of(game));
+            }
+            synchronized (rebuildLog) {
+                // The snapshot may predate these updates; replaying them in order restores them
+                updatesDuringRebuild.forEach(Runnable::run);
+                updatesDuringRebuild = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Game search index built with {} games and {} trigrams", games.size(), trigrams.size());
+    }
+
+    /**
+     * Indexes or re-indexes a game. When called inside a transaction the change is applied
+     * after commit, so rolled back writes never reach the index.
+     *
+     * @param game the saved game
+     */
+    public void index(Game game) {
+        if (game == null || game.getId() == null) {
+            return;
+        }
+        IndexedGame document = IndexedGame.of(game);
+        afterCommit(() -> apply(() -> {
+            removeDocument(document.id());
+            add(document);
+        }));
+    }
+
+    /**
+     * Removes a game from the index, after commit when called inside a transaction.
+     *
+     * @param gameId the ID of the deleted game
+     */
+    public void remove(Long gameId) {
+        if (gameId == null) {
+            return;
+        }
+        afterCommit(() -> apply(() -> removeDocument(gameId)));
+    }
+
+    /**
+     * Applies an update under the write lock, logging it if a rebuild is reading the database.
+     */
+    private void apply(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            synchronized (rebuildLog) {
+                if (updatesDuringRebuild != null) {
+                    updatesDuringRebuild.add(update);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index. All parameters are optional.
+     *
+     * @param searchTerm  text that name, category or description must contain; surrounding
+     *                    blanks are ignored
+     * @param category    exact category (case-insensitive)
+     * @param available   availability filter
+     * @param state       game state filter
+     * @param playerCount number of players the game must support
+     * @param duration    exact duration in minutes
+     * @return game IDs ordered by relevance, or null if the index is not available
+     */
+    public List<Long> search(String searchTerm, String category, Boolean available,
+                             GameState state, Integer playerCount, Integer duration) {
+        if (!enabled || !ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = intersectFilters(category, available, state, playerCount, duration);
+            if (candidates != null && candidates.isEmpty()) {
+                return List.of();
+            }
+
+            String query = normalize(searchTerm).trim();
+            Map<Long, Integer> scores = new HashMap<>();
+            for (Long id : textCandidates(query, candidates)) {
+                int score = query.isEmpty() ? 0 : documents.get(id).score(query);
+                if (query.isEmpty() || score > 0) {
+                    scores.put(id, score);
+                }
+            }
+
+            List<Long> result = new ArrayList<>(scores.keySet());
+            result.sort(Comparator.<Long>comparingInt(id -> -scores.get(id))
+                    .thenComparing(id -> documents.get(id).sortName()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns whether the index has been built and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Returns the number of indexed games.
+     *
+     * @return indexed document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases a text and removes its accents, keeping every other character so that
+     * substring matches agree with the SQL search.
+     *
+     * @param text the text to normalize
+     * @return the normalized text, empty for null
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Narrows the games left by the filters to those containing every trigram of the query.
+     */
+    private Collection<Long> textCandidates(String query, Set<Long> filtered) {
+        Collection<Long> scope = filtered != null ? filtered : documents.keySet();
+        if (query.length() < GRAM) {
+            return scope;
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigramsOf(query)) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        if (filtered != null) {
+            lists.add(filtered);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the posting lists of the active filters, smallest first.
+     *
+     * @return the matching IDs, or null when no filter is active
+     */
+    private Set<Long> intersectFilters(String category, Boolean available, GameState state,
+                                       Integer playerCount, Integer duration) {
+        List<Set<Long>> lists = new ArrayList<>();
+        if (category != null && !category.isBlank()) {
+            lists.add(byCategory.getOrDefault(category.trim().toLowerCase(Locale.ROOT), Set.of()));
+        }
+        if (available != null) {
+            lists.add(byAvailability.getOrDefault(available, Set.of()));
+        }
+        if (state != null) {
+            lists.add(byState.getOrDefault(state, Set.of()));
+        }
+        if (duration != null) {
+            lists.add(byDuration.getOrDefault(duration, Set.of()));
+        }
+        if (playerCount != null && playerCount <= MAX_INDEXED_PLAYERS) {
+            lists.add(byPlayerCount.getOrDefault(playerCount, Set.of()));
+        }
+
+        Set<Long> result = null;
+        if (!lists.isEmpty()) {
+            lists.sort(Comparator.comparingInt(Set::size));
+            result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+        }
+
+        if (playerCount != null && playerCount > MAX_INDEXED_PLAYERS) {
+            Collection<Long> source = result != null ? result : documents.keySet();
+            Set<Long> supported = new HashSet<>();
+            for (Long id : source) {
+                if (documents.get(id).supportsPlayers(playerCount)) {
+                    supported.add(id);
+                }
+            }
+            result = supported;
+        }
+        return result;
+    }
+
+    private void add(IndexedGame document) {
+        documents.put(document.id(), document);
+        for (String gram : document.trigrams()) {
+            trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(document.id());
+        }
+
+        if (document.category() != null) {
+            byCategory.computeIfAbsent(document.category(), k -> new HashSet<>()).add(document.id());
+        }
+        byAvailability.computeIfAbsent(document.available(), k -> new HashSet<>()).add(document.id());
+        if (document.state() != null) {
+            byState.computeIfAbsent(document.state(), k -> new HashSet<>()).add(document.id());
+        }
+        if (document.durationMinutes() != null) {
+            byDuration.computeIfAbsent(document.durationMinutes(), k -> new HashSet<>()).add(document.id());
+        }
+        for (int players = document.playerRangeStart(); players <= document.playerRangeEnd(); players++) {
+            byPlayerCount.computeIfAbsent(players, k -> new HashSet<>()).add(document.id());
+        }
+    }
+
+    private void removeDocument(Long id) {
+        IndexedGame document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.trigrams()) {
+            removeFrom(trigrams, gram, id);
+        }
+        removeFrom(byCategory, document.category(), id);
+        removeFrom(byAvailability, document.available(), id);
+        removeFrom(byState, document.state(), id);
+        removeFrom(byDuration, document.durationMinutes(), id);
+        for (int players = document.playerRangeStart(); players <= document.playerRangeEnd(); players++) {
+            removeFrom(byPlayerCount, players, id);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> lists, K key, Long id) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = lists.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                lists.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Immutable snapshot of the indexed fields of a game.
+     */
+    private record IndexedGame(Long id, String sortName, String name, String categoryText,
+                               String description, String category, Boolean available,
+                               GameState state, Integer minPlayers, Integer maxPlayers, Integer durationMinutes) {
+
+        static IndexedGame of(Game game) {
+            String category = game.getCategory() != null && !game.getCategory().isBlank()
+                    ? game.getCategory().trim().toLowerCase(Locale.ROOT) : null;
+            return new IndexedGame(
+                    game.getId(),
+                    game.getName() != null ? game.getName().toLowerCase(Locale.ROOT) : "",
+                    normalize(game.getName()),
+                    normalize(game.getCategory()),
+                    normalize(game.getDescription()),
+                    category,
+                    Boolean.TRUE.equals(game.getAvailable()),
+                    game.getState(),
+                    game.getMinPlayers(),
+                    game.getMaxPlayers(),
+                    game.getDurationMinutes());
+        }
+
+        Set<String> trigrams() {
+            Set<String> grams = new HashSet<>(trigramsOf(name));
+            grams.addAll(trigramsOf(categoryText));
+            grams.addAll(trigramsOf(description));
+            return grams;
+        }
+
+        /**
+         * Scores the game against a normalized query; 0 means no field contains it.
+         */
+        int score(String query) {
+            return Math.max(score(name, query, NAME_WEIGHT),
+                    Math.max(score(categoryText, query, CATEGORY_WEIGHT), score(description, query, DESCRIPTION_WEIGHT)));
+        }
+
+        private static int score(String text, String query, int weight) {
+            int best = -1;
+            for (int at = text.indexOf(query); at >= 0 && best < 2 * WORD_BONUS; at = text.indexOf(query, at + 1)) {
+                int bonus = 0;
+                if (at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1))) {
+                    bonus += WORD_BONUS;
+                    int end = at + query.length();
+                    if (end == text.length() || !Character.isLetterOrDigit(text.charAt(end))) {
+                        bonus += WORD_BONUS;
+                    }
+                }
+                best = Math.max(best, bonus);
+            }
+            return best < 0 ? 0 : weight * FIELD_SCALE + best;
+        }
+
+        boolean supportsPlayers(int players) {
+            return minPlayers != null && maxPlayers != null && minPlayers <= players && maxPlayers >= players;
+        }
+
+        int playerRangeStart() {
+            return minPlayers != null ? Math.max(minPlayers, 1) : 1;
+        }
+
+        int playerRangeEnd() {
+            return minPlayers != null && maxPlayers != null ? Math.min(maxPlayers, MAX_INDEXED_PLAYERS) : 0;
+        }
+    }
+}
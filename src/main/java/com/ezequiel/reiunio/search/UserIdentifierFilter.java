@@ -0,0 +1,316 @@
+package com.ezequiel.reiunio.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filters over the registered usernames and emails.
+ *
+ * <p>Availability checks run on every keystroke of the registration form. A value the filter
+ * has never seen is definitely free, so those checks only query the database when the filter
+ * reports a possible match. Values are normalized (trimmed, lower-cased) before they are
+ * hashed, which can only add matches, never lose them.</p>
+ *
+ * <p>The filter only sees the users saved on this node since it was built, so it may report a
+ * user registered on another node as free. It therefore only answers the availability checks
+ * of the user form; every lookup that decides anything, including the uniqueness checks on
+ * save, queries the database.</p>
+ *
+ * <p>New values are added as soon as a user is saved, before the transaction commits; a rolled
+ * back save merely leaves a harmless false positive. They are added again once the transaction
+ * commits, because a rebuild that read the users in between cannot have seen the uncommitted
+ * row and would otherwise drop them. Removed or renamed values stay in the
+ * filter until the next rebuild, which runs when the transaction completes once too many of
+ * them have piled up or the number of users outgrows the size the filter was built for. Until the filters have
+ * been built every value is reported as a possible match.</p>
+ *
+ * <p>The filters are also rebuilt every {@code app.users.identifier-filter.refresh-interval-ms},
+ * so a value registered on another node is reported as free for that long at most.</p>
+ */
+@Component
+@Slf4j
+public class UserIdentifierFilter {
+
+    private record Filters(BloomFilter usernames, BloomFilter emails, long capacity) {
+    }
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long minCapacity;
+    private final double falsePositiveProbability;
+    private final double staleRatio;
+
+    private volatile Filters current;
+    /** Filters being built; writes are applied to them as well so none is lost in the swap */
+    private volatile Filters building;
+    private final Object rebuildLock = new Object();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong negatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final Counter negativeCounter;
+    private final Counter positiveCounter;
+    private final Counter falsePositiveCounter;
+
+    public UserIdentifierFilter(UserRepository userRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.users.identifier-filter.enabled:true}") boolean enabled,
+                                @Value("${app.users.identifier-filter.expected-users:10000}") long minCapacity,
+                                @Value("${app.users.identifier-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                                @Value("${app.users.identifier-filter.stale-ratio:0.25}") double staleRatio) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.minCapacity = minCapacity;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.staleRatio = staleRatio;
+
+        this.negativeCounter = Counter.builder("reiunio.users.identifier.filter.checks")
+                .tag("result", "absent")
+                .description("Availability checks answered by the filter without a query")
+                .register(meterRegistry);
+        this.positiveCounter = Counter.builder("reiunio.users.identifier.filter.checks")
+                .tag("result", "present")
+                .description("Possible matches confirmed by the database")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("reiunio.users.identifier.filter.checks")
+                .tag("result", "false_positive")
+                .description("Possible matches the database did not confirm")
+                .register(meterRegistry);
+        Gauge.builder("reiunio.users.identifier.filter.false.positive.rate", this, UserIdentifierFilter::observedFalsePositiveRate)
+                .description("Share of unregistered values the filter reported as possible matches")
+                .register(meterRegistry);
+        Gauge.builder("reiunio.users.identifier.filter.expected.false.positive.rate", this,
+                        UserIdentifierFilter::expectedFalsePositiveRate)
+                .description("False-positive probability estimated from the bits set")
+                .register(meterRegistry);
+        Gauge.builder("reiunio.users.identifier.filter.memory", this, UserIdentifierFilter::sizeInBytes)
+                .description("Memory used by the username and email bit arrays")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filters once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("User identifier filter disabled, availability checks will always query the database");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the filters from the database, picking up the users registered on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.users.identifier-filter.refresh-interval-ms:300000}",
+               initialDelayString = "${app.users.identifier-filter.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error refreshing the user identifier filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds both filters from the users currently stored in the database.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long count = userRepository.count();
+            // Leave room to grow so a rebuild is not needed for every new registration
+            long capacity = Math.max(minCapacity, count * 2);
+            Filters next = new Filters(new BloomFilter(capacity, falsePositiveProbability),
+                    new BloomFilter(capacity, falsePositiveProbability), capacity);
+            // Published before the queries, so users saved from now on reach the new filters
+            building = next;
+            try {
+                List<String> usernames = userRepository.findAllUsernames();
+                List<String> emails = userRepository.findAllEmails();
+                usernames.forEach(username -> next.usernames().put(normalize(username)));
+                emails.stream()
+                        .filter(email -> email != null)
+                        .forEach(email -> next.emails().put(normalize(email)));
+                entries.set(usernames.size());
+                staleEntries.set(0);
+                current = next;
+            } finally {
+                building = null;
+            }
+            log.info("User identifier filter built for {} users ({} bytes)", entries.get(), sizeInBytes());
+        }
+    }
+
+    /**
+     * Checks whether a username may be registered.
+     *
+     * @param username the username to check
+     * @return false if the username is definitely not registered
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return filters == null || username == null || filters.usernames().mightContain(normalize(username));
+    }
+
+    /**
+     * Checks whether an email may be registered.
+     *
+     * @param email the email to check
+     * @return false if the email is definitely not registered
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || email == null || filters.emails().mightContain(normalize(email));
+    }
+
+    /**
+     * Records the outcome of an availability check for the false-positive metrics.
+     *
+     * @param filtered true if the filter ruled the value out without a query
+     * @param found whether the database found the value, when it was queried
+     */
+    public void recordCheck(boolean filtered, boolean found) {
+        if (current == null) {
+            return;
+        }
+        if (filtered) {
+            negatives.incrementAndGet();
+            negativeCounter.increment();
+        } else if (found) {
+            positiveCounter.increment();
+        } else {
+            falsePositives.incrementAndGet();
+            falsePositiveCounter.increment();
+        }
+    }
+
+    /**
+     * Adds the username and email of a saved user. If an existing user changed either value,
+     * the previous one stays in the filter until the next rebuild.
+     *
+     * @param user the user being saved
+     * @param created whether the user is new
+     */
+    public void add(User user, boolean created) {
+        String username = user.getUsername();
+        String email = user.getEmail();
+        put(username, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(username, email);
+                }
+            });
+        }
+        if (created) {
+            entries.incrementAndGet();
+            rebuildIfDegraded();
+        }
+    }
+
+    /**
+     * Records that a user was deleted; its values remain in the filter until the next rebuild.
+     */
+    public void remove() {
+        staleEntries.incrementAndGet();
+        entries.updateAndGet(count -> Math.max(count - 1, 0));
+        rebuildIfDegraded();
+    }
+
+    private void put(String username, String email) {
+        // Filters being built first: a rebuild that has not published them yet only reads the users
+        // after this point, and one that swaps them in meanwhile leaves them in current, read next
+        put(building, username, email);
+        put(current, username, email);
+    }
+
+    private static void put(Filters filters, String username, String email) {
+        if (filters == null) {
+            return;
+        }
+        if (username != null) {
+            filters.usernames().put(normalize(username));
+        }
+        if (email != null) {
+            filters.emails().put(normalize(email));
+        }
+    }
+
+    private void rebuildIfDegraded() {
+        Filters filters = current;
+        if (filters == null) {
+            return;
+        }
+        boolean tooManyStale = staleEntries.get() > Math.max(entries.get(), 1) * staleRatio;
+        boolean overCapacity = entries.get() + staleEntries.get() > filters.capacity();
+        if ((!tooManyStale && !overCapacity) || !rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable rebuild = () -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Could not rebuild user identifier filter: {}", e.getMessage());
+            } finally {
+                rebuildScheduled.set(false);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    rebuild.run();
+                }
+            });
+        } else {
+            rebuild.run();
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        long fp = falsePositives.get();
+        long total = fp + negatives.get();
+        return total == 0 ? 0 : (double) fp / total;
+    }
+
+    private double expectedFalsePositiveRate() {
+        Filters filters = current;
+        return filters == null ? 0 : Math.max(filters.usernames().expectedFalsePositiveProbability(),
+                filters.emails().expectedFalsePositiveProbability());
+    }
+
+    private long sizeInBytes() {
+        Filters filters = current;
+        return filters == null ? 0 : filters.usernames().sizeInBytes() + filters.emails().sizeInBytes();
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,420 @@
+package com.ezequiel.reiunio.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory trigram index over username, first name, last name and email.
+ *
+ * <p>A search matches every user with a field containing the term, like the
+ * {@code LIKE '%term%'} query it replaces, but candidates come from intersecting the posting
+ * lists of the term's trigrams; only those candidates are checked against the actual text.
+ * Terms shorter than three characters have no trigram and are checked against every user,
+ * which is still a scan of memory rather than of the {@code users} table.</p>
+ *
+ * <p>Results are ranked for typeahead: an exact or prefix match on the username first, then
+ * prefix matches on the names, then on the email, then anything else. The index also keeps the
+ * fields needed to render a suggestion, so typeahead requests never touch the database. It is
+ * built when the application is ready and kept up to date by the user service; until then
+ * {@link #search} returns {@code null} and callers fall back to SQL.</p>
+ *
+ * <p>The index only sees the writes made through this node, so it is rebuilt from the
+ * database every {@code app.search.users.refresh-interval-ms}, which bounds how long users
+ * registered or changed on another node stay missing or stale. Updates applied while a rebuild
+ * is reading the database are replayed on the rebuilt index.</p>
+ */
+@Component
+@Slf4j
+public class UserSearchIndex {
+
+    private static final int EXACT_USERNAME_SCORE = 5;
+    private static final int USERNAME_PREFIX_SCORE = 4;
+    private static final int NAME_PREFIX_SCORE = 3;
+    private static final int EMAIL_PREFIX_SCORE = 2;
+    private static final int CONTAINS_SCORE = 1;
+
+    private static final int GRAM = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IndexedUser> documents = new HashMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    private final Map<Role, Set<Long>> byRole = new EnumMap<>(Role.class);
+
+    /** Updates applied since the running rebuild started reading, or null when none is running. */
+    private List<Runnable> updatesDuringRebuild;
+    private final Object rebuildLog = new Object();
+
+    private volatile boolean ready;
+
+    public UserSearchIndex(UserRepository userRepository,
+                           @Value("${app.search.users.index-enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the index from the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("User search index disabled, user search will use SQL queries");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the database, picking up the users changed on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${app.search.users.refresh-interval-ms:300000}",
+               initialDelayString = "${app.search.users.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error refreshing the user search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the users currently stored in the database.
+     */
+    public synchronized void rebuild() {
+        synchronized (rebuildLog) {
+            updatesDuringRebuild = new ArrayList<>();
+        }
+        List<User> users;
+        try {
+            users = userRepository.findAll();
+        } catch (RuntimeException e) {
+            synchronized (rebuildLog) {
+                updatesDuringRebuild = null;
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            trigrams.clear();
+            byRole.clear();
+            for (User user : users) {
+                add(IndexedUser.of(user));
+            }
+            synchronized (rebuildLog) {
+                // The snapshot may predate these updates; replaying them in order restores them
+                updatesDuringRebuild.forEach(Runnable::run);
+                updatesDuringRebuild = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("User search index built with {} users and {} trigrams", users.size(), trigrams.size());
+    }
+
+    /**
+     * Indexes or re-indexes a user, after commit when called inside a transaction.
+     *
+     * @param user the saved user
+     */
+    public void index(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        IndexedUser document = IndexedUser.of(user);
+        afterCommit(() -> apply(() -> {
+            removeDocument(document.id());
+            add(document);
+        }));
+    }
+
+    /**
+     * Removes a user from the index, after commit when called inside a transaction.
+     *
+     * @param userId the ID of the deleted user
+     */
+    public void remove(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> apply(() -> removeDocument(userId)));
+    }
+
+    /**
+     * Applies an update under the write lock, logging it if a rebuild is reading the database.
+     */
+    private void apply(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            synchronized (rebuildLog) {
+                if (updatesDuringRebuild != null) {
+                    updatesDuringRebuild.add(update);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the users with a username, name or email containing the term.
+     *
+     * @param term the text to look for; blank matches every user
+     * @param role optional role filter
+     * @return user IDs ordered by relevance, or null if the index is not available
+     */
+    public List<Long> search(String term, Role role) {
+        List<IndexedUser> matches = match(term, role);
+        return matches == null ? null : matches.stream().map(IndexedUser::id).toList();
+    }
+
+    /**
+     * Returns typeahead suggestions for the term, ordered by relevance.
+     *
+     * @param term the text typed so far
+     * @param role optional role filter
+     * @return the suggestions, or null if the index is not available
+     */
+    public List<UserSuggestion> suggest(String term, Role role) {
+        List<IndexedUser> matches = match(term, role);
+        return matches == null ? null : matches.stream().map(IndexedUser::suggestion).toList();
+    }
+
+    /**
+     * Returns whether the index has been built and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    private List<IndexedUser> match(String term, Role role) {
+        if (!enabled || !ready) {
+            return null;
+        }
+        String query = normalize(term);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = candidates(query, role);
+            Map<IndexedUser, Integer> scores = new HashMap<>();
+            for (Long id : candidates) {
+                IndexedUser document = documents.get(id);
+                if (document == null || (role != null && document.role() != role)) {
+                    continue;
+                }
+                int score = document.score(query);
+                if (score > 0) {
+                    scores.put(document, score);
+                }
+            }
+            List<IndexedUser> result = new ArrayList<>(scores.keySet());
+            result.sort(Comparator.<IndexedUser>comparingInt(document -> -scores.get(document))
+                    .thenComparing(IndexedUser::username));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intersects the posting lists of the query trigrams, smallest first.
+     */
+    private Collection<Long> candidates(String query, Role role) {
+        Collection<Long> scope = role != null ? byRole.getOrDefault(role, Set.of()) : documents.keySet();
+        if (query.length() < GRAM) {
+            return scope;
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigramsOf(query)) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void add(IndexedUser document) {
+        documents.put(document.id(), document);
+        for (String gram : document.trigrams()) {
+            trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(document.id());
+        }
+        if (document.role() != null) {
+            byRole.computeIfAbsent(document.role(), k -> new HashSet<>()).add(document.id());
+        }
+    }
+
+    private void removeDocument(Long id) {
+        IndexedUser document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.trigrams()) {
+            Set<Long> ids = trigrams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigrams.remove(gram);
+                }
+            }
+        }
+        if (document.role() != null) {
+            Set<Long> ids = byRole.get(document.role());
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Lower-cases and strips accents, keeping every other character so that substring
+     * semantics match the SQL search.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(text.trim(), Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * User shown in a typeahead list. Holds nothing but what the list displays, since any user
+     * allowed to open a picker can page through every suggestion; details of the user picked
+     * are loaded separately.
+     *
+     * @param id the user ID
+     * @param displayName the full name followed by the username, as "First Last (@username)"
+     */
+    public record UserSuggestion(Long id, String displayName) {
+
+        /**
+         * Creates the suggestion of a user.
+         *
+         * @param user the user
+         * @return the suggestion
+         */
+        public static UserSuggestion of(User user) {
+            return new UserSuggestion(user.getId(), user.getFullName() + " (@" + user.getUsername() + ")");
+        }
+    }
+
+    /**
+     * Immutable snapshot of the indexed fields of a user.
+     */
+    private record IndexedUser(Long id, Role role, String username, List<String> names, String email,
+                               UserSuggestion suggestion) {
+
+        static IndexedUser of(User user) {
+            String firstName = normalize(user.getFirstName());
+            String lastName = normalize(user.getLastName());
+            List<String> names = new ArrayList<>();
+            for (String name : List.of(firstName, lastName, (firstName + " " + lastName).trim())) {
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+            UserSuggestion suggestion = UserSuggestion.of(user);
+            return new IndexedUser(user.getId(), user.getRole(), normalize(user.getUsername()), List.copyOf(names),
+                    normalize(user.getEmail()), suggestion);
+        }
+
+        Set<String> trigrams() {
+            Set<String> grams = new HashSet<>(trigramsOf(username));
+            names.forEach(name -> grams.addAll(trigramsOf(name)));
+            grams.addAll(trigramsOf(email));
+            return grams;
+        }
+
+        /**
+         * Scores the document against a normalized query; 0 means no match.
+         */
+        int score(String query) {
+            if (query.isEmpty()) {
+                return CONTAINS_SCORE;
+            }
+            if (username.equals(query)) {
+                return EXACT_USERNAME_SCORE;
+            }
+            if (username.startsWith(query)) {
+                return USERNAME_PREFIX_SCORE;
+            }
+            if (names.stream().anyMatch(name -> name.startsWith(query))) {
+                return NAME_PREFIX_SCORE;
+            }
+            if (email.startsWith(query)) {
+                return EMAIL_PREFIX_SCORE;
+            }
+            if (username.contains(query) || email.contains(query)
+                    || names.stream().anyMatch(name -> name.contains(query))) {
+                return CONTAINS_SCORE;
+            }
+            return 0;
+        }
+    }
+}
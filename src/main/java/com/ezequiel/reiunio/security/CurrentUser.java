@@ -0,0 +1,21 @@
+package com.ezequiel.reiunio.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method parameter that receives the authenticated user. The parameter
+ * may be declared as {@link CurrentUserSummary}, a cached snapshot for pages that only display
+ * the user or check its role, or as {@link com.ezequiel.reiunio.entity.User}, loaded from the
+ * database for handlers that change the user or save anything referencing it. Either may be
+ * wrapped in {@code Optional}; otherwise it is null when nobody is logged in. The value is
+ * resolved by {@link CurrentUserArgumentResolver}.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,72 @@
+package com.ezequiel.reiunio.security;
+
+import java.util.Optional;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Resolves {@link CurrentUser} parameters to the authenticated user.
+ *
+ * <p>{@link CurrentUserSummary} parameters are answered by {@link CurrentUserCache}. {@link User}
+ * parameters receive the entity loaded from the database, so a handler that saves it never
+ * writes back a stale copy. Either is looked up once per request and kept as a request
+ * attribute, so several parameters or nested handlers in the same request share it.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String SUMMARY_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".summary";
+    private static final String USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    private final CurrentUserCache currentUserCache;
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        if (!parameter.hasParameterAnnotation(CurrentUser.class)) {
+            return false;
+        }
+        Class<?> type = parameter.nestedIfOptional().getNestedParameterType();
+        return User.class.equals(type) || CurrentUserSummary.class.equals(type);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        boolean entity = User.class.equals(parameter.nestedIfOptional().getNestedParameterType());
+        String attribute = entity ? USER_ATTRIBUTE : SUMMARY_ATTRIBUTE;
+        @SuppressWarnings("unchecked")
+        Optional<Object> user = (Optional<Object>) webRequest.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (user == null) {
+            user = currentUsername().flatMap(username -> entity
+                    ? userRepository.findByUsername(username)
+                    : currentUserCache.get(username));
+            webRequest.setAttribute(attribute, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.class.equals(parameter.getParameterType()) ? user : user.orElse(null);
+    }
+
+    private static Optional<String> currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return Optional.of(authentication.getName());
+    }
+}
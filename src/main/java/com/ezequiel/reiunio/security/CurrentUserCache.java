@@ -0,0 +1,119 @@
+package com.ezequiel.reiunio.security;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Small time-to-live cache of {@link CurrentUserSummary} snapshots keyed by username, used to
+ * resolve the authenticated user without querying the database on every request.
+ *
+ * <p>Entries expire after {@code app.security.current-user-cache.ttl-seconds} and are evicted
+ * as soon as the user is saved or deleted through the user service on this node; changes
+ * made on another node show after the TTL at most. Only the immutable snapshot is cached,
+ * never the entity, so nothing read from the cache can be saved back.</p>
+ */
+@Component
+@Slf4j
+public class CurrentUserCache {
+
+    private record Entry(CurrentUserSummary user, long expiresAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CurrentUserCache(UserRepository userRepository,
+                            @Value("${app.security.current-user-cache.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${app.security.current-user-cache.max-entries:1000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the user with the given username, loading it from the database when it is
+     * not cached or its entry has expired.
+     *
+     * @param username the username
+     * @return the summary of the user, or empty if no such user exists
+     */
+    public Optional<CurrentUserSummary> get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry == null || entry.expiresAt() < now) {
+            Optional<User> loaded = userRepository.findByUsername(username);
+            if (loaded.isEmpty()) {
+                entries.remove(username);
+                return Optional.empty();
+            }
+            if (entries.size() >= maxEntries) {
+                entries.values().removeIf(e -> e.expiresAt() < now);
+                if (entries.size() >= maxEntries) {
+                    entries.clear();
+                }
+            }
+            entry = new Entry(CurrentUserSummary.of(loaded.get()), now + ttlMillis);
+            entries.put(username, entry);
+            log.debug("Cached current user {}", username);
+        }
+        return Optional.of(entry.user());
+    }
+
+    /**
+     * Evicts the given user, now and again once the surrounding transaction commits, so a
+     * concurrent request cannot cache the state that is being replaced.
+     *
+     * @param user the saved user
+     */
+    public void evict(User user) {
+        Long id = user.getId();
+        String username = user.getUsername();
+        Runnable eviction = () -> {
+            if (username != null) {
+                entries.remove(username);
+            }
+            if (id != null) {
+                // The username itself may have changed
+                entries.values().removeIf(e -> id.equals(e.user().id()));
+            }
+        };
+        eviction.run();
+        afterCommit(eviction);
+    }
+
+    /**
+     * Evicts the user with the given ID.
+     *
+     * @param id the user ID
+     */
+    public void evict(Long id) {
+        Runnable eviction = () -> entries.values().removeIf(e -> id.equals(e.user().id()));
+        eviction.run();
+        afterCommit(eviction);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
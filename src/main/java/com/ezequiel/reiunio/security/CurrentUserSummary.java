@@ -0,0 +1,34 @@
+package com.ezequiel.reiunio.security;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+
+/**
+ * Read-only snapshot of the authenticated user, cached by {@link CurrentUserCache}.
+ *
+ * <p>Holds the ID and the fields pages display or check permissions on. It may be up to
+ * {@code app.security.current-user-cache.ttl-seconds} old when the user was changed on
+ * another node, so handlers that modify the user, or save anything referencing it, declare
+ * a {@link User} parameter instead, which is loaded from the database.</p>
+ *
+ * @param id the user ID
+ * @param username the username
+ * @param firstName the first name
+ * @param lastName the last name, may be null
+ * @param role the role
+ * @param profilePhotoPath the path of the profile photo, may be null
+ */
+public record CurrentUserSummary(Long id, String username, String firstName, String lastName,
+                                 Role role, String profilePhotoPath) {
+
+    /**
+     * Takes a snapshot of a user.
+     *
+     * @param user the user
+     * @return the summary of the user
+     */
+    public static CurrentUserSummary of(User user) {
+        return new CurrentUserSummary(user.getId(), user.getUsername(), user.getFirstName(),
+                user.getLastName(), user.getRole(), user.getProfilePhotoPath());
+    }
+}
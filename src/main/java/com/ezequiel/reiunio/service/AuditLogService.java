@@ -1,5 +1,7 @@
 package com.ezequiel.reiunio.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -7,9 +9,11 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.ezequiel.reiunio.audit.AuditLogExporter;
 import com.ezequiel.reiunio.entity.AuditLog;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.pagination.CursorPage;
 
 public interface AuditLogService {
 
@@ -57,4 +61,37 @@ public interface AuditLogService {
     Page<AuditLog> findWithCombinedFilters(ActionType actionType, String affectedEntity, 
                                           LocalDateTime startDate, LocalDateTime endDate, 
                                           Pageable pageable);
+
+    /**
+     * Finds audit logs with combined filters using keyset pagination, most recent first.
+     * Deep pages cost the same as the first one since no rows are skipped.
+     *
+     * @param actionType the action type to filter by (optional)
+     * @param affectedEntity the affected entity name to filter by (optional)
+     * @param startDate the start date and time to filter by (optional)
+     * @param endDate the end date and time to filter by (optional)
+     * @param size the page size
+     * @param cursor the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching logs
+     * @return a cursor page of audit logs matching the combined filters
+     */
+    CursorPage<AuditLog> findWithCombinedFiltersByCursor(ActionType actionType, String affectedEntity,
+                                                         LocalDateTime startDate, LocalDateTime endDate,
+                                                         int size, String cursor, boolean withCount);
+
+    /**
+     * Streams the audit logs matching the combined filters to an output stream, oldest first.
+     *
+     * @param actionType the action type to filter by (optional)
+     * @param affectedEntity the affected entity name to filter by (optional)
+     * @param startDate the start date and time to filter by (optional)
+     * @param endDate the end date and time to filter by (optional)
+     * @param format the output format
+     * @param output the stream to write to
+     * @return the number of audit logs written
+     * @throws IOException if the output cannot be written
+     */
+    long exportWithCombinedFilters(ActionType actionType, String affectedEntity,
+                                   LocalDateTime startDate, LocalDateTime endDate,
+                                   AuditLogExporter.Format format, OutputStream output) throws IOException;
 }
\ No newline at end of file
@@ -1,22 +1,41 @@
 package com.ezequiel.reiunio.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ezequiel.reiunio.enums.ImageSize;
+import com.ezequiel.reiunio.image.ImageVariantGenerator;
+import com.ezequiel.reiunio.storage.BlobStore;
+import com.ezequiel.reiunio.storage.ShardedUploadLayout;
+import com.ezequiel.reiunio.storage.UploadReferenceCounter;
+import com.ezequiel.reiunio.storage.UploadReservations;
+
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for handling file uploads and file-related operations such as validation, saving, and deletion.
+ * Uploads are stored under the SHA-256 hash of their content, so an image uploaded for several
+ * games or users is kept once, and a file is only deleted when its last reference is released.
+ * Downscaled variants of uploaded JPEG and PNG images are generated in the background by
+ * {@link ImageVariantGenerator} once the original has been stored. New files go to hash-prefix
+ * shard directories of their folder, as laid out by {@link ShardedUploadLayout}, in the
+ * configured {@link BlobStore}. Reusing a stored file and deleting an unreferenced one are
+ * ordered by {@link UploadReservations} in the database, so they are safe across nodes sharing
+ * a remote store.
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileUploadService {
 
@@ -28,6 +47,13 @@ public class FileUploadService {
 
     private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".webp"};
     private static final long MAX_FILE_SIZE = 2 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 8192;
+    private static final String UPLOAD_PREFIX = "/uploads/";
+
+    private final BlobStore blobStore;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final UploadReferenceCounter uploadReferenceCounter;
+    private final UploadReservations uploadReservations;
 
     /**
      * Uploads a profile photo for a specific user.
@@ -39,12 +65,8 @@ public class FileUploadService {
      */
     public String uploadUserPhoto(MultipartFile file, Long userId) throws IOException {
         validateFile(file);
-        String uploadPath = uploadDir + "/users";
-        createDirectoryIfNotExists(uploadPath);
-        String fileName = "user_" + userId + "_" + UUID.randomUUID() + getFileExtension(file.getOriginalFilename());
-        Path filePath = Paths.get(uploadPath, fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        log.info("User photo uploaded successfully: {}", fileName);
+        String fileName = storeByContent(file, "users");
+        log.info("User photo uploaded successfully for user {}: {}", userId, fileName);
         return "/uploads/users/" + fileName;
     }
 
@@ -58,12 +80,8 @@ public class FileUploadService {
      */
     public String uploadGamePhoto(MultipartFile file, Long gameId) throws IOException {
         validateFile(file);
-        String uploadPath = uploadDir + "/games";
-        createDirectoryIfNotExists(uploadPath);
-        String fileName = "game_" + gameId + "_" + UUID.randomUUID() + getFileExtension(file.getOriginalFilename());
-        Path filePath = Paths.get(uploadPath, fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        log.info("Game photo uploaded successfully: {}", fileName);
+        String fileName = storeByContent(file, "games");
+        log.info("Game photo uploaded successfully for game {}: {}", gameId, fileName);
         return "/uploads/games/" + fileName;
     }
 
@@ -77,17 +95,61 @@ public class FileUploadService {
      */
     public String uploadGameSessionPhoto(MultipartFile file, Long sessionId) throws IOException {
         validateFile(file);
-        String uploadPath = uploadDir + "/game-sessions";
-        createDirectoryIfNotExists(uploadPath);
-        String fileName = "session_" + sessionId + "_" + UUID.randomUUID() + getFileExtension(file.getOriginalFilename());
-        Path filePath = Paths.get(uploadPath, fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        log.info("Game session photo uploaded successfully: {}", fileName);
+        String fileName = storeByContent(file, "game-sessions");
+        log.info("Game session photo uploaded successfully for session {}: {}", sessionId, fileName);
+        return "/uploads/game-sessions/" + fileName;
+    }
+
+    /**
+     * Uploads a profile photo sent as the raw request body. Nothing is buffered beyond the copy
+     * buffer, and the upload is rejected as soon as it goes over the size limit.
+     *
+     * @param content       the image bytes
+     * @param contentLength the length declared by the client, or -1 if unknown
+     * @param userId        the ID of the user
+     * @return the relative path to the uploaded photo
+     * @throws IOException if an I/O error occurs during upload
+     */
+    public String uploadUserPhoto(InputStream content, long contentLength, Long userId) throws IOException {
+        String fileName = storeStream(content, contentLength, "users");
+        log.info("User photo streamed successfully for user {}: {}", userId, fileName);
+        return "/uploads/users/" + fileName;
+    }
+
+    /**
+     * Uploads a photo for a specific game sent as the raw request body.
+     *
+     * @param content       the image bytes
+     * @param contentLength the length declared by the client, or -1 if unknown
+     * @param gameId        the ID of the game
+     * @return the relative path to the uploaded photo
+     * @throws IOException if an I/O error occurs during upload
+     */
+    public String uploadGamePhoto(InputStream content, long contentLength, Long gameId) throws IOException {
+        String fileName = storeStream(content, contentLength, "games");
+        log.info("Game photo streamed successfully for game {}: {}", gameId, fileName);
+        return "/uploads/games/" + fileName;
+    }
+
+    /**
+     * Uploads a custom image for a game session sent as the raw request body.
+     *
+     * @param content       the image bytes
+     * @param contentLength the length declared by the client, or -1 if unknown
+     * @param sessionId     the ID of the game session
+     * @return the relative path to the uploaded image
+     * @throws IOException if an I/O error occurs during upload
+     */
+    public String uploadGameSessionPhoto(InputStream content, long contentLength, Long sessionId) throws IOException {
+        String fileName = storeStream(content, contentLength, "game-sessions");
+        log.info("Game session photo streamed successfully for session {}: {}", sessionId, fileName);
         return "/uploads/game-sessions/" + fileName;
     }
 
     /**
-     * Deletes a file at the given path.
+     * Releases a reference to an uploaded file, deleting the file and its image variants if no
+     * other game, user or session uses it. Must be called while the entity releasing the file
+     * still references it, that is before its path is cleared or replaced.
      *
      * @param filePath the path to the file to delete
      * @return true if the file was successfully deleted, false otherwise
@@ -95,17 +157,37 @@ public class FileUploadService {
     public boolean deleteFile(String filePath) {
         if (filePath == null || filePath.isEmpty()) return false;
         try {
-            String relativePath = filePath.startsWith("/") ? filePath.substring(1) : filePath;
-            Path path = Paths.get(relativePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
+            long references = uploadReferenceCounter.count(filePath);
+            if (references > 1) {
+                log.info("File still referenced {} more time(s), keeping it: {}", references - 1, filePath);
+                return false;
+            }
+            String key = keyOf(filePath);
+            if (key == null) {
+                log.warn("Not an uploaded file, not deleting it: {}", filePath);
+                return false;
+            }
+            boolean[] found = new boolean[1];
+            // The caller's own reference is not committed away yet
+            boolean removed = uploadReservations.removeIfUnreferenced(UPLOAD_PREFIX + key, 1, () -> {
+                for (ImageSize size : ImageSize.values()) {
+                    if (!size.variantOf(key).equals(key)) {
+                        blobStore.delete(size.variantOf(key));
+                    }
+                }
+                found[0] = blobStore.delete(key);
+            });
+            if (!removed) {
+                log.info("File was just reused or is referenced elsewhere, keeping it: {}", filePath);
+                return false;
+            } else if (found[0]) {
                 log.info("File deleted successfully: {}", filePath);
                 return true;
             } else {
                 log.warn("File not found for deletion: {}", filePath);
                 return false;
             }
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             log.error("Error deleting file: {}", filePath, e);
             return false;
         }
@@ -121,6 +203,111 @@ public class FileUploadService {
         return deleteFile(imagePath);
     }
 
+    /**
+     * Stores an uploaded file under the SHA-256 hash of its content.
+     *
+     * @param file   the uploaded file
+     * @param folder the upload folder for the kind of image
+     * @return the path of the stored file inside the folder, shard directories included
+     * @throws IOException if the file cannot be stored
+     */
+    private String storeByContent(MultipartFile file, String folder) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return storeByContent(input, folder);
+        }
+    }
+
+    /**
+     * Stores an image read from a stream under the SHA-256 hash of its content, in a single pass:
+     * the first bytes are checked against the accepted image signatures, then every chunk is
+     * counted against the size limit, hashed and written to a staging file. The extension
+     * comes from the signature, not from the name or content type the client sent. The file
+     * then goes to the shard directory of its hash; if the same content is already stored
+     * there, the existing file is reused and the copy discarded. The path is reserved before
+     * the existence check, so no node deletes the file from then until the caller has saved
+     * its reference, and a removal that committed first is seen as a missing file.
+     *
+     * @param input  the image bytes
+     * @param folder the upload folder for the kind of image
+     * @return the path of the stored file inside the folder, shard directories included
+     * @throws IOException if the file cannot be stored
+     * @throws IllegalArgumentException if the content is empty, too large or not an accepted image
+     */
+    private String storeByContent(InputStream input, String folder) throws IOException {
+        Path temp = blobStore.createStagingFile();
+        try {
+            MessageDigest digest = sha256();
+            ImageFormat format;
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read = input.readNBytes(buffer, 0, ImageFormat.SIGNATURE_LENGTH);
+                if (read == 0) {
+                    throw new IllegalArgumentException("File cannot be empty");
+                }
+                format = ImageFormat.detect(buffer, read);
+                if (format == null) {
+                    throw new IllegalArgumentException("File type not allowed. Please upload JPG, PNG, GIF, or WebP images only");
+                }
+                long total = 0;
+                do {
+                    total += read;
+                    if (total > MAX_FILE_SIZE) {
+                        throw new IllegalArgumentException("File size exceeds maximum allowed size of 2MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                } while ((read = input.read(buffer)) != -1);
+            }
+            String fileName = ShardedUploadLayout.pathOf(HexFormat.of().formatHex(digest.digest()) + format.extension);
+            String key = folder + "/" + fileName;
+            // Until the caller saves its reference, a release by another owner must not delete the file
+            uploadReservations.reserve(UPLOAD_PREFIX + key);
+            if (blobStore.exists(key)) {
+                log.debug("Upload matches stored file {}", fileName);
+                return fileName;
+            }
+            blobStore.put(key, temp, format.contentType);
+            imageVariantGenerator.submit(key);
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Stores an image sent as a raw request body, rejecting it before reading anything when the
+     * declared length is already over the limit.
+     */
+    private String storeStream(InputStream content, long contentLength, String folder) throws IOException {
+        if (contentLength > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 2MB");
+        }
+        return storeByContent(content, folder);
+    }
+
+    /**
+     * Removes an upload if no game, user or session references it and no upload has just
+     * reserved it. The check and the removal hold the database lock taken when storing by
+     * content, so a concurrent upload of the same bytes on any node either reuses the file
+     * first, and it is kept, or stores it again afterwards.
+     *
+     * @param uploadPath the upload path the references are counted for
+     * @param removal    deletes or moves away the file and its variants
+     * @return true if the file was removed
+     * @throws IOException if the removal fails
+     */
+    public boolean removeIfUnreferenced(String uploadPath, UploadRemoval removal) throws IOException {
+        return uploadReservations.removeIfUnreferenced(uploadPath, 0, removal::remove);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Validates the uploaded file against size and type restrictions.
      *
@@ -166,20 +353,6 @@ public class FileUploadService {
         log.debug("Game session image validation passed for file: {}", file.getOriginalFilename());
     }
 
-    /**
-     * Creates a directory if it does not already exist.
-     *
-     * @param path the directory path
-     * @throws IOException if the directory cannot be created
-     */
-    private void createDirectoryIfNotExists(String path) throws IOException {
-        Path directory = Paths.get(path);
-        if (!Files.exists(directory)) {
-            Files.createDirectories(directory);
-            log.info("Created directory: {}", path);
-        }
-    }
-
     /**
      * Extracts the file extension from the file name.
      *
@@ -193,29 +366,6 @@ public class FileUploadService {
         return filename.substring(filename.lastIndexOf('.'));
     }
 
-    /**
-     * Generates a unique image name for a game session image.
-     *
-     * @param sessionId        the session ID
-     * @param originalFilename the original file name
-     * @return the generated file name
-     */
-    public String generateGameSessionImageName(Long sessionId, String originalFilename) {
-        String extension = getFileExtension(originalFilename);
-        return "session_" + sessionId + "_" + UUID.randomUUID() + extension;
-    }
-
-    /**
-     * Constructs the full upload path for a game session image.
-     *
-     * @param sessionId the session ID
-     * @param filename  the image file name
-     * @return the relative path to the image
-     */
-    public String getGameSessionImagePath(Long sessionId, String filename) {
-        return uploadDir + "/game-sessions/" + filename;
-    }
-
     /**
      * Checks if a file exists at the given path.
      *
@@ -225,9 +375,8 @@ public class FileUploadService {
     public boolean fileExists(String filePath) {
         if (filePath == null || filePath.isEmpty()) return false;
         try {
-            String relativePath = filePath.startsWith("/") ? filePath.substring(1) : filePath;
-            Path path = Paths.get(relativePath);
-            return Files.exists(path);
+            String key = keyOf(filePath);
+            return key != null && blobStore.exists(key);
         } catch (Exception e) {
             log.error("Error checking if file exists: {}", filePath, e);
             return false;
@@ -235,21 +384,15 @@ public class FileUploadService {
     }
 
     /**
-     * Generates a default avatar URL using the user's initials.
+     * Returns the blob store key of an upload path such as {@code /uploads/games/ab/cd/<name>}.
      *
-     * @param firstName the user's first name
-     * @param lastName  the user's last name
-     * @return the URL for the default avatar
+     * @param filePath the upload path, with or without the leading slash
+     * @return the key, or null if the path is not under {@code /uploads/}
      */
-    public String generateDefaultAvatar(String firstName, String lastName) {
-        String initials = "";
-        if (firstName != null && !firstName.isEmpty()) {
-            initials += firstName.charAt(0);
-        }
-        if (lastName != null && !lastName.isEmpty()) {
-            initials += lastName.charAt(0);
-        }
-        return "https://ui-avatars.com/api/?name=" + initials + "&background=007bff&color=fff&size=200";
+    private static String keyOf(String filePath) {
+        String path = filePath.startsWith("/") ? filePath : "/" + filePath;
+        return path.startsWith(UPLOAD_PREFIX) && path.length() > UPLOAD_PREFIX.length()
+                ? path.substring(UPLOAD_PREFIX.length()) : null;
     }
 
     /**
@@ -289,4 +432,57 @@ public class FileUploadService {
     public long getMaxFileSize() {
         return MAX_FILE_SIZE;
     }
+
+    /**
+     * Removal of an unreferenced upload, run by {@link #removeIfUnreferenced}.
+     */
+    @FunctionalInterface
+    public interface UploadRemoval {
+        void remove() throws IOException;
+    }
+
+    /**
+     * Image formats accepted for upload, recognized by the signature at the start of the file.
+     */
+    private enum ImageFormat {
+        JPEG(".jpg", "image/jpeg", 0xFF, 0xD8, 0xFF),
+        PNG(".png", "image/png", 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A),
+        GIF(".gif", "image/gif", 'G', 'I', 'F', '8'),
+        /** A RIFF container whose bytes 8 to 11 name the WebP format; -1 matches any byte. */
+        WEBP(".webp", "image/webp", 'R', 'I', 'F', 'F', -1, -1, -1, -1, 'W', 'E', 'B', 'P');
+
+        /** Number of bytes needed to recognize every format. */
+        static final int SIGNATURE_LENGTH = 12;
+
+        private final String extension;
+        private final String contentType;
+        private final int[] signature;
+
+        ImageFormat(String extension, String contentType, int... signature) {
+            this.extension = extension;
+            this.contentType = contentType;
+            this.signature = signature;
+        }
+
+        static ImageFormat detect(byte[] header, int length) {
+            for (ImageFormat format : values()) {
+                if (format.matches(header, length)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(byte[] header, int length) {
+            if (length < signature.length) {
+                return false;
+            }
+            for (int i = 0; i < signature.length; i++) {
+                if (signature[i] != -1 && (header[i] & 0xFF) != signature[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -1,14 +1,23 @@
 package com.ezequiel.reiunio.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameFacets;
+import com.ezequiel.reiunio.entity.GameSuggestion;
+import com.ezequiel.reiunio.enums.BorrowWindow;
 import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.importer.GameImportFormat;
+import com.ezequiel.reiunio.importer.GameImportReport;
+import com.ezequiel.reiunio.pagination.CursorPage;
 
 /**
  * Service interface for managing Game entities.
@@ -122,6 +131,25 @@ public interface GameService {
      */
     List<Object[]> findMostBorrowed(int limit);
 
+    /**
+     * Retrieves the games borrowed most often within a time window.
+     * 
+     * @param limit the maximum number of results to return
+     * @param window the time window, ending today
+     * @return a list of objects containing game info and borrow count
+     */
+    List<Object[]> findMostBorrowed(int limit, BorrowWindow window);
+
+    /**
+     * Imports games in bulk from a CSV or JSON-lines stream, reporting the rows rejected.
+     * 
+     * @param input the uploaded file
+     * @param format the format of the file
+     * @return the import report
+     * @throws IOException if the input cannot be read
+     */
+    GameImportReport importGames(InputStream input, GameImportFormat format) throws IOException;
+
     /**
      * Retrieves games that have never been borrowed.
      * 
@@ -155,6 +183,48 @@ public interface GameService {
                                   GameState state, Integer minPlayers, Integer maxPlayers,
                                   Integer minDuration, Integer maxDuration, Pageable pageable);
 
+    /**
+     * Retrieves games filtered by multiple criteria using keyset pagination.
+     * Pages are addressed by opaque cursors on (sort column, id) instead of page numbers,
+     * and the total count is only computed when requested.
+     * 
+     * @param name the name to filter by
+     * @param category the category to filter by
+     * @param available the availability status
+     * @param state the game state
+     * @param minPlayers the minimum number of players
+     * @param maxPlayers the maximum number of players
+     * @param minDuration the minimum game duration
+     * @param maxDuration the maximum game duration
+     * @param sort the sort order
+     * @param size the page size
+     * @param cursor the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching games
+     * @return a cursor page of filtered games
+     */
+    CursorPage<Game> findAllWithFiltersByCursor(String name, String category, Boolean available,
+                                                GameState state, Integer minPlayers, Integer maxPlayers,
+                                                Integer minDuration, Integer maxDuration,
+                                                Sort sort, int size, String cursor, boolean withCount);
+
+    /**
+     * Computes the facet counts for the same filters accepted by
+     * {@link #findAllWithFilters}, using a single aggregate query.
+     * 
+     * @param name the name to filter by
+     * @param category the category to filter by
+     * @param available the availability status
+     * @param state the game state
+     * @param minPlayers the minimum number of players
+     * @param maxPlayers the maximum number of players
+     * @param minDuration the minimum game duration
+     * @param maxDuration the maximum game duration
+     * @return the facet counts of the filtered games
+     */
+    GameFacets findFacetsWithFilters(String name, String category, Boolean available,
+                                     GameState state, Integer minPlayers, Integer maxPlayers,
+                                     Integer minDuration, Integer maxDuration);
+
     /**
      * Retrieves a list of distinct game categories.
      * 
@@ -175,4 +245,15 @@ public interface GameService {
      */
     List<Game> searchGames(String searchTerm, String category, Boolean available, 
                            GameState state, Integer playerCount, Integer duration);
+
+    /**
+     * Returns lightweight typeahead suggestions for games whose name has a word starting with
+     * the given prefix, best matches first.
+     *
+     * @param prefix the text typed so far
+     * @param available optional availability filter
+     * @param limit the maximum number of suggestions
+     * @return at most {@code limit} suggestions
+     */
+    List<GameSuggestion> suggestGames(String prefix, Boolean available, int limit);
 }
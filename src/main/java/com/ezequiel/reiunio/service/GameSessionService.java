@@ -1,6 +1,7 @@
 package com.ezequiel.reiunio.service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -171,4 +172,27 @@ public interface GameSessionService {
      * @return a list of sessions active on that date
      */
     List<GameSession> findActiveSessionsOnDate(LocalDate date);
+
+    /**
+     * Marks every scheduled session that ended before the given instant as finished.
+     * 
+     * @param now the reference instant
+     * @return the number of sessions finished
+     */
+    int finishExpiredSessions(LocalDateTime now);
+
+    /**
+     * Computes the persisted end moment of sessions that do not have one yet.
+     * 
+     * @return the number of sessions updated
+     */
+    int backfillEndMoments();
+
+    /**
+     * Recomputes the denormalized seat counter of sessions whose counter does not match
+     * their registered players (rows created before the counter existed).
+     *
+     * @return the number of sessions corrected
+     */
+    int resyncConfirmedPlayers();
 }
@@ -12,6 +12,8 @@ import com.ezequiel.reiunio.entity.GameSessionInfo;
 import com.ezequiel.reiunio.entity.Loan;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex.FreeWindow;
 import com.ezequiel.reiunio.service.impl.LoanServiceImpl.LoanConflictInfo;
 
 /**
@@ -99,6 +101,17 @@ public interface LoanService {
      */
     Page<Loan> findByStatusPaginated(LoanStatus status, Pageable pageable);
 
+    /**
+     * Retrieves loans by status using keyset pagination, most recent loan date first.
+     * 
+     * @param status the loan status, or null for all loans
+     * @param size the page size
+     * @param cursor the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching loans
+     * @return a cursor page of loans
+     */
+    CursorPage<Loan> findByStatusByCursor(LoanStatus status, int size, String cursor, boolean withCount);
+
     /**
      * Creates a new loan.
      * 
@@ -166,4 +179,14 @@ public interface LoanService {
      * @return conflict information including suggestions
      */
     LoanConflictInfo checkLoanConflicts(Game game, LocalDate proposedReturnDate);
+
+    /**
+     * Lists the periods in which a game is free of scheduled sessions and active loans.
+     * 
+     * @param game the game
+     * @param from the first day to consider
+     * @param to the last day to consider
+     * @return the free windows, in chronological order
+     */
+    List<FreeWindow> findFreeWindows(Game game, LocalDate from, LocalDate to);
 }
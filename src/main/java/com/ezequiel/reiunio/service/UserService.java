@@ -8,6 +8,7 @@ import org.springframework.data.domain.Pageable;
 
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.search.UserSearchIndex.UserSuggestion;
 
 /**
  * Service interface for managing user operations.
@@ -45,6 +46,26 @@ public interface UserService {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Finds the user holding a username for the availability check of the user form. May
+     * answer from a per-node filter instead of the database, so it must not be used to
+     * enforce uniqueness.
+     *
+     * @param username the username to check
+     * @return an optional containing the user holding the username, or empty if it looks free
+     */
+    Optional<User> findUsernameHolder(String username);
+
+    /**
+     * Finds the user holding an email for the availability check of the user form. May answer
+     * from a per-node filter instead of the database, so it must not be used to enforce
+     * uniqueness.
+     *
+     * @param email the email to check
+     * @return an optional containing the user holding the email, or empty if it looks free
+     */
+    Optional<User> findEmailHolder(String email);
+
     /**
      * Saves a user to the repository.
      *
@@ -128,6 +149,16 @@ public interface UserService {
      */
     Page<User> searchUsersByRoleAndTerm(Role role, String searchTerm, Pageable pageable);
 
+    /**
+     * Returns typeahead suggestions for users whose username, name or email contains the term,
+     * best matches first.
+     *
+     * @param term the text typed so far
+     * @param pageable the page of suggestions to return
+     * @return a page of suggestions
+     */
+    Page<UserSuggestion> suggestUsers(String term, Pageable pageable);
+
     /**
      * Returns the total number of users.
      *
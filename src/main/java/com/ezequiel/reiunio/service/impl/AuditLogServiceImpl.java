@@ -1,29 +1,56 @@
 package com.ezequiel.reiunio.service.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ezequiel.reiunio.audit.AuditEvent;
+import com.ezequiel.reiunio.audit.AuditLogArchive;
+import com.ezequiel.reiunio.audit.AuditLogExporter;
+import com.ezequiel.reiunio.audit.AuditLogWriter;
 import com.ezequiel.reiunio.entity.AuditLog;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.pagination.KeysetPaginator;
 import com.ezequiel.reiunio.repository.AuditLogRepository;
 import com.ezequiel.reiunio.service.AuditLogService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Audit log service backed by the {@code audit_logs} table and {@link AuditLogArchive}.
+ *
+ * <p>The finders and exports also return the entries of the archived months. Those are older
+ * than every entry left in the table, so in the newest-first listings they follow the table
+ * rows and are only read once a page reaches them. Archived entries carry a detached user
+ * holding the details recorded when they were archived. {@link #findById(Long)} only looks in
+ * the table.</p>
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditLogServiceImpl implements AuditLogService {
 
+    private static final Sort NEWEST_FIRST = Sort.by("changeDateTime").descending().and(Sort.by("id").descending());
+
     private final AuditLogRepository auditLogRepository;
+    private final KeysetPaginator keysetPaginator;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditLogExporter auditLogExporter;
+    private final AuditLogArchive auditLogArchive;
 
     /**
      * Retrieves all audit logs.
@@ -34,7 +61,7 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findAll() {
         log.debug("Finding all audit logs");
-        return auditLogRepository.findAll();
+        return withArchived(auditLogRepository.findAll(), AuditLogArchive.Query.all());
     }
 
     /**
@@ -73,7 +100,7 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findByUser(User user) {
         log.debug("Finding audit logs by user: {}", user.getUsername());
-        return auditLogRepository.findByUser(user);
+        return withArchived(auditLogRepository.findByUser(user), byUser(user));
     }
 
     /**
@@ -86,7 +113,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findByActionType(ActionType actionType) {
         log.debug("Finding audit logs by action type: {}", actionType);
-        return auditLogRepository.findByActionType(actionType);
+        return withArchived(auditLogRepository.findByActionType(actionType),
+                AuditLogArchive.Query.of(actionType, null, null, null));
     }
 
     /**
@@ -99,7 +127,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findByAffectedEntity(String affectedEntity) {
         log.debug("Finding audit logs by affected entity: {}", affectedEntity);
-        return auditLogRepository.findByAffectedEntity(affectedEntity);
+        return withArchived(auditLogRepository.findByAffectedEntity(affectedEntity),
+                AuditLogArchive.Query.of(null, affectedEntity, null, null));
     }
 
     /**
@@ -113,7 +142,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findByAffectedEntityAndId(String affectedEntity, Long entityId) {
         log.debug("Finding audit logs by affected entity: {} and id: {}", affectedEntity, entityId);
-        return auditLogRepository.findByAffectedEntityAndEntityId(affectedEntity, entityId);
+        return withArchived(auditLogRepository.findByAffectedEntityAndEntityId(affectedEntity, entityId),
+                byEntity(affectedEntity, entityId));
     }
 
     /**
@@ -127,11 +157,14 @@ public class AuditLogServiceImpl implements AuditLogService {
     @Transactional(readOnly = true)
     public List<AuditLog> findBetweenDates(LocalDateTime start, LocalDateTime end) {
         log.debug("Finding audit logs between dates: {} and {}", start, end);
-        return auditLogRepository.findByChangeDateTimeBetween(start, end);
+        return withArchived(auditLogRepository.findByChangeDateTimeBetween(start, end),
+                AuditLogArchive.Query.of(null, null, start, end));
     }
 
     /**
      * Logs a new change in the system.
+     * When asynchronous auditing is enabled the entry is handed to {@link AuditLogWriter},
+     * which writes it in a background batch, so the caller does not wait for the insert.
      *
      * @param user           the user who performed the action
      * @param actionType     the type of action performed
@@ -145,6 +178,12 @@ public class AuditLogServiceImpl implements AuditLogService {
                           Long entityId, String description) {
         log.debug("Logging change: {} - {} - {} - {}", user.getUsername(), actionType, affectedEntity, description);
 
+        if (auditLogWriter.isEnabled()) {
+            auditLogWriter.submit(new AuditEvent(user.getId(), LocalDateTime.now(), actionType,
+                    affectedEntity, entityId, description));
+            return;
+        }
+
         AuditLog auditLog = AuditLog.builder()
                 .user(user)
                 .actionType(actionType)
@@ -167,7 +206,7 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findAll(Pageable pageable) {
         log.debug("Finding all audit logs with pagination: page {}, size {}", 
                  pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findAll(pageable);
+        return withArchived(auditLogRepository.findAll(pageable), AuditLogArchive.Query.all(), pageable);
     }
 
     /**
@@ -182,7 +221,7 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findByUser(User user, Pageable pageable) {
         log.debug("Finding audit logs by user: {} with pagination: page {}, size {}", 
                  user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findByUser(user, pageable);
+        return withArchived(auditLogRepository.findByUser(user, pageable), byUser(user), pageable);
     }
 
     /**
@@ -197,7 +236,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findByActionType(ActionType actionType, Pageable pageable) {
         log.debug("Finding audit logs by action type: {} with pagination: page {}, size {}", 
                  actionType, pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findByActionType(actionType, pageable);
+        return withArchived(auditLogRepository.findByActionType(actionType, pageable),
+                AuditLogArchive.Query.of(actionType, null, null, null), pageable);
     }
 
     /**
@@ -212,7 +252,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findByAffectedEntity(String affectedEntity, Pageable pageable) {
         log.debug("Finding audit logs by affected entity: {} with pagination: page {}, size {}", 
                  affectedEntity, pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findByAffectedEntity(affectedEntity, pageable);
+        return withArchived(auditLogRepository.findByAffectedEntity(affectedEntity, pageable),
+                AuditLogArchive.Query.of(null, affectedEntity, null, null), pageable);
     }
 
     /**
@@ -228,7 +269,8 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findByAffectedEntityAndId(String affectedEntity, Long entityId, Pageable pageable) {
         log.debug("Finding audit logs by affected entity: {} and id: {} with pagination: page {}, size {}", 
                  affectedEntity, entityId, pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findByAffectedEntityAndEntityId(affectedEntity, entityId, pageable);
+        return withArchived(auditLogRepository.findByAffectedEntityAndEntityId(affectedEntity, entityId, pageable),
+                byEntity(affectedEntity, entityId), pageable);
     }
 
     /**
@@ -244,12 +286,17 @@ public class AuditLogServiceImpl implements AuditLogService {
     public Page<AuditLog> findBetweenDates(LocalDateTime start, LocalDateTime end, Pageable pageable) {
         log.debug("Finding audit logs between dates: {} and {} with pagination: page {}, size {}", 
                  start, end, pageable.getPageNumber(), pageable.getPageSize());
-        return auditLogRepository.findByChangeDateTimeBetween(start, end, pageable);
+        return withArchived(auditLogRepository.findByChangeDateTimeBetween(start, end, pageable),
+                AuditLogArchive.Query.of(null, null, start, end), pageable);
     }
 
     /**
      * Finds audit logs with combined filters - supports any combination of filters.
      * All parameters are optional and will be ignored if null or empty.
+     * Only the filters that are set become predicates, so a date range lets the database read
+     * only the partitions of the months it covers. Entries moved to {@link AuditLogArchive} are
+     * older than any entry still in the table, so they follow the live entries in the
+     * newest-first listing and are read from the archive once the page reaches them.
      *
      * @param actionType the action type to filter by (optional)
      * @param affectedEntity the affected entity name to filter by (optional)
@@ -269,6 +316,180 @@ public class AuditLogServiceImpl implements AuditLogService {
         // Normalize empty string to null for proper query handling
         String normalizedEntity = (affectedEntity != null && affectedEntity.trim().isEmpty()) ? null : affectedEntity;
         
-        return auditLogRepository.findWithCombinedFilters(actionType, normalizedEntity, startDate, endDate, pageable);
+        Page<AuditLog> live = auditLogRepository.findAll(
+                AuditLogRepository.withCombinedFilters(actionType, normalizedEntity, startDate, endDate), pageable);
+        return withArchived(live, AuditLogArchive.Query.of(actionType, normalizedEntity, startDate, endDate), pageable);
+    }
+
+    /**
+     * Finds audit logs with combined filters using keyset pagination on (change date, id).
+     * All filters are optional and will be ignored if null or empty.
+     * Once the table runs out the listing continues into the archive with offset cursors; the
+     * page before the first archived one is the last page of the table, found by seeking back
+     * from the newest archived entry.
+     *
+     * @param actionType the action type to filter by (optional)
+     * @param affectedEntity the affected entity name to filter by (optional)
+     * @param startDate the start date and time to filter by (optional)
+     * @param endDate the end date and time to filter by (optional)
+     * @param size the page size
+     * @param cursor the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching logs
+     * @return a cursor page of audit logs matching the combined filters
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuditLog> findWithCombinedFiltersByCursor(ActionType actionType, String affectedEntity,
+                                                                LocalDateTime startDate, LocalDateTime endDate,
+                                                                int size, String cursor, boolean withCount) {
+        log.debug("Finding audit logs with combined filters by cursor - actionType: {}, entity: {}, startDate: {}, endDate: {}, size: {}",
+                 actionType, affectedEntity, startDate, endDate, size);
+
+        String normalizedEntity = (affectedEntity != null && affectedEntity.trim().isEmpty()) ? null : affectedEntity;
+        Specification<AuditLog> specification =
+                AuditLogRepository.withCombinedFilters(actionType, normalizedEntity, startDate, endDate);
+        AuditLogArchive.Query query = AuditLogArchive.Query.of(actionType, normalizedEntity, startDate, endDate);
+
+        Long archiveOffset = keysetPaginator.offsetOf(cursor, AuditLog.class);
+        if (archiveOffset != null) {
+            return findArchivedByCursor(specification, query, size, archiveOffset, withCount);
+        }
+        CursorPage<AuditLog> live = keysetPaginator.fetch(auditLogRepository, AuditLog.class, specification,
+                NEWEST_FIRST, size, cursor, withCount, "user");
+        if (live.hasNext() || auditLogArchive.getMonths().isEmpty()) {
+            return live;
+        }
+
+        // Last page of the table: fill it up from the archive, reading one more entry to know if another page follows
+        try {
+            List<AuditLog> content = new ArrayList<>(live.getContent());
+            int missing = size - content.size();
+            List<AuditLog> archived = auditLogArchive.find(query, 0, missing + 1);
+            content.addAll(archived.subList(0, Math.min(missing, archived.size())));
+            live.setContent(content);
+            live.setNextCursor(archived.size() > missing ? keysetPaginator.offsetCursor(missing) : null);
+            if (withCount) {
+                live.setTotalElements(live.getTotalElements() + auditLogArchive.count(query));
+            }
+        } catch (IOException e) {
+            log.error("Error reading archived audit logs: {}", e.getMessage());
+        }
+        return live;
+    }
+
+    /**
+     * Reads a page of archived entries for the keyset listing.
+     */
+    private CursorPage<AuditLog> findArchivedByCursor(Specification<AuditLog> specification,
+                                                      AuditLogArchive.Query query, int size, long offset,
+                                                      boolean withCount) {
+        List<AuditLog> content;
+        boolean hasNext;
+        Long total = null;
+        try {
+            List<AuditLog> archived = auditLogArchive.find(query, offset, size + 1);
+            content = archived.subList(0, Math.min(size, archived.size()));
+            hasNext = archived.size() > size;
+            if (withCount) {
+                total = auditLogRepository.count(specification) + auditLogArchive.count(query);
+            }
+        } catch (IOException e) {
+            log.error("Error reading archived audit logs: {}", e.getMessage());
+            content = List.of();
+            hasNext = false;
+        }
+
+        String previous;
+        if (offset > 0) {
+            previous = keysetPaginator.offsetCursor(Math.max(0, offset - size));
+        } else {
+            previous = !content.isEmpty() && auditLogRepository.exists(specification)
+                    ? keysetPaginator.previousCursor(content.get(0), NEWEST_FIRST)
+                    : null;
+        }
+        return CursorPage.<AuditLog>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(hasNext ? keysetPaginator.offsetCursor(offset + size) : null)
+                .previousCursor(previous)
+                .totalElements(total)
+                .build();
+    }
+
+    /**
+     * Streams the audit logs matching the combined filters through a forward-only cursor.
+     * Runs outside a transaction, so no persistence context accumulates the exported rows.
+     * Archived months are written first, as they hold the oldest entries.
+     *
+     * @param actionType the action type to filter by (optional)
+     * @param affectedEntity the affected entity name to filter by (optional)
+     * @param startDate the start date and time to filter by (optional)
+     * @param endDate the end date and time to filter by (optional)
+     * @param format the output format
+     * @param output the stream to write to
+     * @return the number of audit logs written
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public long exportWithCombinedFilters(ActionType actionType, String affectedEntity,
+                                          LocalDateTime startDate, LocalDateTime endDate,
+                                          AuditLogExporter.Format format, OutputStream output) throws IOException {
+        log.debug("Exporting audit logs as {} - actionType: {}, entity: {}, startDate: {}, endDate: {}",
+                 format, actionType, affectedEntity, startDate, endDate);
+
+        String normalizedEntity = (affectedEntity != null && affectedEntity.trim().isEmpty()) ? null : affectedEntity;
+
+        return auditLogExporter.export(actionType, normalizedEntity, startDate, endDate, format, output);
+    }
+
+    /**
+     * Adds the matching archived entries after a page of table rows, counting them in the total.
+     */
+    private Page<AuditLog> withArchived(Page<AuditLog> live, AuditLogArchive.Query query, Pageable pageable) {
+        if (auditLogArchive.getMonths().isEmpty()) {
+            return live;
+        }
+        try {
+            long archived = auditLogArchive.count(query);
+            if (archived == 0) {
+                return live;
+            }
+            List<AuditLog> content = new ArrayList<>(live.getContent());
+            if (pageable.isPaged() && content.size() < pageable.getPageSize()) {
+                long archiveOffset = Math.max(0, pageable.getOffset() - live.getTotalElements());
+                content.addAll(auditLogArchive.find(query, archiveOffset, pageable.getPageSize() - content.size()));
+            } else if (pageable.isUnpaged()) {
+                content.addAll(auditLogArchive.find(query, 0, Integer.MAX_VALUE));
+            }
+            return new PageImpl<>(content, pageable, live.getTotalElements() + archived);
+        } catch (IOException e) {
+            log.error("Error reading archived audit logs: {}", e.getMessage());
+            return live;
+        }
+    }
+
+    /**
+     * Adds every matching archived entry after the table rows.
+     */
+    private List<AuditLog> withArchived(List<AuditLog> live, AuditLogArchive.Query query) {
+        if (auditLogArchive.getMonths().isEmpty()) {
+            return live;
+        }
+        try {
+            List<AuditLog> all = new ArrayList<>(live);
+            all.addAll(auditLogArchive.find(query, 0, Integer.MAX_VALUE));
+            return all;
+        } catch (IOException e) {
+            log.error("Error reading archived audit logs: {}", e.getMessage());
+            return live;
+        }
+    }
+
+    private static AuditLogArchive.Query byUser(User user) {
+        return new AuditLogArchive.Query(user.getId(), null, null, null, null, null);
+    }
+
+    private static AuditLogArchive.Query byEntity(String affectedEntity, Long entityId) {
+        return new AuditLogArchive.Query(null, null, affectedEntity, entityId, null, null);
     }
 }
\ No newline at end of file
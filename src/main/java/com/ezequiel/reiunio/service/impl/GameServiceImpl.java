@@ -1,21 +1,38 @@
 package com.ezequiel.reiunio.service.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameFacets;
+import com.ezequiel.reiunio.entity.GameSuggestion;
+import com.ezequiel.reiunio.enums.BorrowWindow;
 import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.importer.GameImportFormat;
+import com.ezequiel.reiunio.importer.GameImportReport;
+import com.ezequiel.reiunio.importer.GameImporter;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.pagination.KeysetPaginator;
 import com.ezequiel.reiunio.repository.GameRepository;
 import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex;
+import com.ezequiel.reiunio.search.GameSearchIndex;
 import com.ezequiel.reiunio.service.GameService;
+import com.ezequiel.reiunio.stats.BorrowCounter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +49,7 @@ import lombok.extern.slf4j.Slf4j;
  *   <li>Basic CRUD operations</li>
  *   <li>Filtering by name, category, availability, state, player count, and duration</li>
  *   <li>Pagination and dynamic query building</li>
+ *   <li>Catalog text search served from an in-memory inverted index</li>
  *   <li>Game statistics including borrowing history</li>
  * </ul>
  *
@@ -46,6 +64,11 @@ public class GameServiceImpl implements GameService {
 
     private final GameRepository gameRepository;
     private final LoanRepository loanRepository;
+    private final GameSearchIndex gameSearchIndex;
+    private final KeysetPaginator keysetPaginator;
+    private final GameScheduleIndex gameScheduleIndex;
+    private final BorrowCounter borrowCounter;
+    private final GameImporter gameImporter;
 
     /**
      * Retrieves all available games from the repository.
@@ -82,7 +105,9 @@ public class GameServiceImpl implements GameService {
     @Transactional
     public Game save(Game game) {
         log.debug("Saving game: {}", game.getName());
-        return gameRepository.save(game);
+        Game savedGame = gameRepository.save(game);
+        gameSearchIndex.index(savedGame);
+        return savedGame;
     }
 
     /**
@@ -95,6 +120,9 @@ public class GameServiceImpl implements GameService {
     public void deleteById(Long id) {
         log.debug("Deleting game by id: {}", id);
         gameRepository.deleteById(id);
+        gameSearchIndex.remove(id);
+        gameScheduleIndex.evict(id);
+        borrowCounter.gameDeleted(id);
     }
 
     /**
@@ -199,7 +227,10 @@ public class GameServiceImpl implements GameService {
         log.debug("Counting games by state");
         Map<GameState, Long> result = new HashMap<>();
         for (GameState state : GameState.values()) {
-            result.put(state, gameRepository.countByState(state));
+            result.put(state, 0L);
+        }
+        for (Object[] row : gameRepository.countGroupedByState()) {
+            result.put((GameState) row[0], (Long) row[1]);
         }
         return result;
     }
@@ -213,9 +244,11 @@ public class GameServiceImpl implements GameService {
     @Transactional(readOnly = true)
     public Map<String, Long> countByCategory() {
         log.debug("Counting games by category");
-        return gameRepository.findAll().stream()
-                .filter(game -> game.getCategory() != null && !game.getCategory().isEmpty())
-                .collect(Collectors.groupingBy(Game::getCategory, Collectors.counting()));
+        Map<String, Long> result = new HashMap<>();
+        for (Object[] row : gameRepository.countGroupedByCategory()) {
+            result.put((String) row[0], (Long) row[1]);
+        }
+        return result;
     }
 
     /**
@@ -227,8 +260,41 @@ public class GameServiceImpl implements GameService {
     @Override
     @Transactional(readOnly = true)
     public List<Object[]> findMostBorrowed(int limit) {
-        log.debug("Finding {} most borrowed games", limit);
-        return gameRepository.findMostBorrowedGames(limit);
+        return findMostBorrowed(limit, BorrowWindow.ALL_TIME);
+    }
+
+    /**
+     * Retrieves the games borrowed most often within a time window, read from the materialized
+     * borrow counters instead of counting loans.
+     *
+     * @param limit the maximum number of results to return
+     * @param window the time window, ending today
+     * @return a list of arrays containing game data and borrow counts
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> findMostBorrowed(int limit, BorrowWindow window) {
+        log.debug("Finding {} most borrowed games ({})", limit, window);
+        return borrowCounter.findMostBorrowed(limit, window);
+    }
+
+    /**
+     * Imports games in bulk. Rows are committed batch by batch as they are read, and the
+     * search index is rebuilt once at the end instead of once per game.
+     *
+     * @param input the uploaded file
+     * @param format the format of the file
+     * @return the import report
+     * @throws IOException if the input cannot be read
+     */
+    @Override
+    public GameImportReport importGames(InputStream input, GameImportFormat format) throws IOException {
+        log.debug("Importing games from {}", format);
+        GameImportReport report = gameImporter.importGames(input, format);
+        if (report.getImported() > 0 && gameSearchIndex.isReady()) {
+            gameSearchIndex.rebuild();
+        }
+        return report;
     }
 
     /**
@@ -291,6 +357,82 @@ public class GameServiceImpl implements GameService {
             minPlayers, maxPlayers, minDuration, maxDuration, pageable);
     }
 
+    /**
+     * Retrieves games filtered by multiple criteria using keyset pagination.
+     *
+     * @param name the name or part of the name to search for
+     * @param category the category to filter by
+     * @param available the availability status to filter by
+     * @param state the game state to filter by
+     * @param minPlayers the minimum number of supported players
+     * @param maxPlayers the maximum number of supported players
+     * @param minDuration the minimum game duration in minutes
+     * @param maxDuration the maximum game duration in minutes
+     * @param sort the sort order
+     * @param size the page size
+     * @param cursor the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching games
+     * @return a cursor page of games matching the specified filters
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Game> findAllWithFiltersByCursor(String name, String category, Boolean available,
+                                                       GameState state, Integer minPlayers, Integer maxPlayers,
+                                                       Integer minDuration, Integer maxDuration,
+                                                       Sort sort, int size, String cursor, boolean withCount) {
+        log.debug("Finding games with filters by cursor - name: {}, category: {}, available: {}, state: {}, size: {}",
+                 name, category, available, state, size);
+        return keysetPaginator.fetch(gameRepository, Game.class,
+            GameRepository.withFilters(normalizeStringParam(name), normalizeStringParam(category), available, state,
+                                       minPlayers, maxPlayers, minDuration, maxDuration),
+            sort, size, cursor, withCount);
+    }
+
+    /**
+     * Computes category, state, availability, player count and duration facet counts
+     * for the given filters, with one statement. Each facet is a grouped count that applies
+     * every filter except its own, so the options of a facet the user already filtered on
+     * still show how many games they would give instead of zero.
+     *
+     * @param name the name or part of the name to search for
+     * @param category the category to filter by
+     * @param available the availability status to filter by
+     * @param state the game state to filter by
+     * @param minPlayers the minimum number of supported players
+     * @param maxPlayers the maximum number of supported players
+     * @param minDuration the minimum game duration in minutes
+     * @param maxDuration the maximum game duration in minutes
+     * @return the facet counts of the filtered games
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public GameFacets findFacetsWithFilters(String name, String category, Boolean available,
+                                            GameState state, Integer minPlayers, Integer maxPlayers,
+                                            Integer minDuration, Integer maxDuration) {
+        String nameParam = normalizeStringParam(name);
+        String categoryParam = normalizeStringParam(category);
+
+        GameFacets facets = new GameFacets();
+        for (Object[] row : gameRepository.countFacets(nameParam, categoryParam, available,
+                state != null ? state.name() : null, minPlayers, maxPlayers, minDuration, maxDuration)) {
+            String text = (String) row[1];
+            int number = ((Number) row[2]).intValue();
+            long count = ((Number) row[3]).longValue();
+            switch ((String) row[0]) {
+                case "total" -> facets.setTotal(count);
+                case "category" -> facets.addCategory(text, count);
+                case "state" -> facets.addState(text != null ? GameState.valueOf(text) : null, count);
+                case "available" -> facets.addAvailability(number == 1, count);
+                case "minPlayers" -> facets.addMinPlayers(number, count);
+                case "maxPlayers" -> facets.addMaxPlayers(number, count);
+                case "duration" -> facets.addDuration(number, count);
+                default -> throw new IllegalStateException("Unknown facet " + row[0]);
+            }
+        }
+        log.debug("Computed facets for {} games", facets.getTotal());
+        return facets;
+    }
+
     /**
      * Retrieves a list of distinct game categories used in the system.
      *
@@ -305,6 +447,8 @@ public class GameServiceImpl implements GameService {
 
     /**
      * Performs an advanced search for games using various parameters.
+     * Results come from the in-memory {@link GameSearchIndex}, ranked by relevance; the SQL
+     * {@code LIKE} query is only used while the index is not available.
      *
      * @param searchTerm the term to search in game names or descriptions
      * @param category the category to filter by
@@ -324,11 +468,55 @@ public class GameServiceImpl implements GameService {
         
         String searchFilter = (searchTerm != null && searchTerm.trim().isEmpty()) ? null : searchTerm;
         String categoryFilter = (category != null && category.trim().isEmpty()) ? null : category;
+
+        List<Long> rankedIds = gameSearchIndex.search(searchFilter, categoryFilter, available,
+                                                      state, playerCount, duration);
+        if (rankedIds != null) {
+            Map<Long, Game> gamesById = gameRepository.findAllById(rankedIds).stream()
+                    .collect(Collectors.toMap(Game::getId, Function.identity()));
+            return rankedIds.stream()
+                    .map(gamesById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
         
         return gameRepository.searchGames(searchFilter, categoryFilter, available, 
                                          state, playerCount, duration);
     }
 
+    /**
+     * Returns typeahead suggestions. The ranking comes from the game search index, which
+     * matches the games whose name, category or description contains the text; only the
+     * projections of the first {@code limit} hits are loaded. While the index is not available
+     * the game name is matched by prefix in SQL.
+     *
+     * @param prefix the text typed so far
+     * @param available optional availability filter
+     * @param limit the maximum number of suggestions
+     * @return at most {@code limit} suggestions
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<GameSuggestion> suggestGames(String prefix, Boolean available, int limit) {
+        String term = prefix == null ? "" : prefix.trim();
+        log.debug("Suggesting games for '{}' (available: {}, limit: {})", term, available, limit);
+
+        List<Long> rankedIds = gameSearchIndex.search(term, null, available, null, null, null);
+        if (rankedIds == null) {
+            return gameRepository.findSuggestionsByNamePrefix(term, available, PageRequest.of(0, limit));
+        }
+        List<Long> topIds = rankedIds.subList(0, Math.min(limit, rankedIds.size()));
+        if (topIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, GameSuggestion> suggestionsById = gameRepository.findSuggestionsByIdIn(topIds).stream()
+                .collect(Collectors.toMap(GameSuggestion::getId, Function.identity()));
+        return topIds.stream()
+                .map(suggestionsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Normalizes a string parameter by trimming whitespace and converting empty strings to null.
      *
@@ -2,21 +2,19 @@ package com.ezequiel.reiunio.service.impl;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.ezequiel.reiunio.entity.Game;
 import com.ezequiel.reiunio.entity.GameSession;
-import com.ezequiel.reiunio.entity.GameSessionPlayer;
-import com.ezequiel.reiunio.entity.GameSessionPlayerId;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.GameSessionStatus;
 import com.ezequiel.reiunio.repository.GameRepository;
 import com.ezequiel.reiunio.repository.GameSessionPlayerRepository;
 import com.ezequiel.reiunio.repository.GameSessionRepository;
 import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex;
 import com.ezequiel.reiunio.service.GameSessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,7 +29,7 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>Key features:
  * <ul>
- *   <li>Automatic finalization of expired sessions</li>
+ *   <li>Set-based finalization of expired sessions, triggered by a background sweeper</li>
  *   <li>Support for filtering sessions by date, status, creator, or game</li>
  *   <li>Player management (add/remove/confirm)</li>
  *   <li>Multi-day and single-day session handling</li>
@@ -46,21 +44,26 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class GameSessionServiceImpl implements GameSessionService {
 
+    /** Sessions finished per update, keeping the IN list of the statement short */
+    private static final int FINISH_BATCH_SIZE = 500;
+
     private final GameSessionRepository gameSessionRepository;
     private final UserRepository userRepository;
     private final GameSessionPlayerRepository gameSessionPlayerRepository;
     private final GameRepository gameRepository;
+    private final GameScheduleIndex gameScheduleIndex;
 
     /**
-     * Retrieves all existing game sessions after checking and automatically finishing any that have expired.
+     * Retrieves all existing game sessions.
+     * Expired sessions are finished in the background by
+     * {@link com.ezequiel.reiunio.scheduler.GameSessionExpirySweeper}.
      *
      * @return a list of all game sessions
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<GameSession> findAll() {
         log.debug("Finding all game sessions");
-        autoFinishExpiredSessions();
         return gameSessionRepository.findAll();
     }
 
@@ -71,10 +74,9 @@ public class GameSessionServiceImpl implements GameSessionService {
      * @return an Optional containing the session if found, or empty otherwise
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<GameSession> findById(Long id) {
         log.debug("Finding game session by id: {}", id);
-        autoFinishExpiredSessions();
         return gameSessionRepository.findById(id);
     }
 
@@ -85,10 +87,9 @@ public class GameSessionServiceImpl implements GameSessionService {
      * @return a list of matching game sessions
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<GameSession> findByStatus(GameSessionStatus status) {
         log.debug("Finding game sessions by status: {}", status);
-        autoFinishExpiredSessions();
         return gameSessionRepository.findByStatus(status);
     }
 
@@ -98,10 +99,9 @@ public class GameSessionServiceImpl implements GameSessionService {
      * @return a list of upcoming sessions
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<GameSession> findUpcomingSessions() {
         log.debug("Finding upcoming game sessions");
-        autoFinishExpiredSessions();
         return gameSessionRepository.findUpcomingSessions();
     }
 
@@ -111,56 +111,67 @@ public class GameSessionServiceImpl implements GameSessionService {
      * @return a list of today's sessions
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<GameSession> findTodaySessions() {
         log.debug("Finding today's game sessions");
-        autoFinishExpiredSessions();
         return gameSessionRepository.findTodaySessions();
     }
 
     /**
-     * Automatically checks and finishes expired sessions based on current date and time.
-     * This method ensures data integrity by updating session statuses accordingly.
+     * Finishes every scheduled session that ended before the given instant using set-based
+     * updates, driven by the persisted {@code endsAt} column. The finished sessions are dropped
+     * from the schedule index once the transaction commits.
+     *
+     * @param now the reference instant
+     * @return the number of sessions marked as finished
      */
-    private void autoFinishExpiredSessions() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDate today = now.toLocalDate();
-        LocalTime currentTime = now.toLocalTime();
-        List<GameSession> scheduledSessions = gameSessionRepository.findByStatus(GameSessionStatus.SCHEDULED);
-        for (GameSession session : scheduledSessions) {
-            if (hasSessionExpired(session, today, currentTime)) {
-                try {
-                    session.setStatus(GameSessionStatus.FINISHED);
-                    gameSessionRepository.save(session);
-                    log.info("Session '{}' automatically marked as FINISHED", session.getTitle());
-                } catch (Exception e) {
-                    log.error("Error finalizing session {}: {}", session.getId(), e.getMessage());
-                }
-            }
+    @Override
+    @Transactional
+    public int finishExpiredSessions(LocalDateTime now) {
+        List<Long> expired = gameSessionRepository.findExpiredScheduledIds(now);
+        int finished = 0;
+        for (int from = 0; from < expired.size(); from += FINISH_BATCH_SIZE) {
+            finished += gameSessionRepository.finishScheduledSessions(
+                    expired.subList(from, Math.min(from + FINISH_BATCH_SIZE, expired.size())));
+        }
+        gameScheduleIndex.sessionsFinished(expired);
+        if (finished > 0) {
+            log.info("{} expired session(s) automatically marked as FINISHED", finished);
         }
+        return finished;
     }
 
     /**
-     * Determines whether the given session has expired based on current time.
+     * Computes the persisted end moment for sessions created before the {@code endsAt} column existed.
      *
-     * @param session the session to check
-     * @param today the current date
-     * @param currentTime the current time
-     * @return true if the session is expired, false otherwise
+     * @return the number of sessions updated
      */
-    private boolean hasSessionExpired(GameSession session, LocalDate today, LocalTime currentTime) {
-        LocalDate endDate = session.getEndDate();
-        LocalTime endTime = session.getEndTime();
-        if (endDate.isBefore(today)) {
-            return true;
+    @Override
+    @Transactional
+    public int backfillEndMoments() {
+        List<GameSession> sessions = gameSessionRepository.findByEndsAtIsNull();
+        for (GameSession session : sessions) {
+            session.computeEndsAt();
         }
-        if (endDate.equals(today) && endTime != null) {
-            return currentTime.isAfter(endTime);
+        if (!sessions.isEmpty()) {
+            log.info("Computed end moment for {} existing session(s)", sessions.size());
         }
-        if (endDate.equals(today) && endTime == null) {
-            return currentTime.isAfter(LocalTime.of(23, 59));
+        return sessions.size();
+    }
+
+    /**
+     * Realigns the seat counter of every session with its registered players.
+     *
+     * @return the number of sessions corrected
+     */
+    @Override
+    @Transactional
+    public int resyncConfirmedPlayers() {
+        int corrected = gameSessionRepository.resyncConfirmedPlayers();
+        if (corrected > 0) {
+            log.info("Recomputed seat count for {} session(s)", corrected);
         }
-        return false;
+        return corrected;
     }
 
     /**
@@ -183,7 +194,9 @@ public class GameSessionServiceImpl implements GameSessionService {
             }
         }
         log.debug("Saving game session: {}", gameSession.getTitle());
-        return gameSessionRepository.save(gameSession);
+        GameSession saved = gameSessionRepository.save(gameSession);
+        gameScheduleIndex.sessionSaved(saved);
+        return saved;
     }
 
     /**
@@ -204,6 +217,7 @@ public class GameSessionServiceImpl implements GameSessionService {
             }
         }
         gameSessionRepository.deleteById(id);
+        gameScheduleIndex.sessionDeleted(id);
     }
 
     /**
@@ -220,6 +234,7 @@ public class GameSessionServiceImpl implements GameSessionService {
             GameSession session = sessionOpt.get();
             session.setStatus(GameSessionStatus.FINISHED);
             session = gameSessionRepository.save(session);
+            gameScheduleIndex.sessionSaved(session);
             log.info("Session '{}' marked as FINISHED", session.getTitle());
             return session;
         }
@@ -282,6 +297,10 @@ public class GameSessionServiceImpl implements GameSessionService {
     /**
      * Adds a player to a game session if there is available space.
      *
+     * <p>A seat is taken first with a conditional update on the session row, so the capacity
+     * check cannot race with other joins; the player row is then inserted only if the user
+     * exists and is not registered yet, giving the seat back otherwise.</p>
+     *
      * @param sessionId the ID of the session
      * @param userId the ID of the player
      * @return true if the player was successfully added, false otherwise
@@ -290,34 +309,19 @@ public class GameSessionServiceImpl implements GameSessionService {
     @Transactional
     public boolean addPlayerToSession(Long sessionId, Long userId) {
         log.debug("Adding player {} to session {}", userId, sessionId);
-        Optional<GameSession> optGameSession = gameSessionRepository.findById(sessionId);
-        Optional<User> optUser = userRepository.findById(userId);
-        if (optGameSession.isPresent() && optUser.isPresent()) {
-            GameSession gameSession = optGameSession.get();
-            User user = optUser.get();
-            boolean alreadyRegistered = gameSessionPlayerRepository.existsById(
-                    new GameSessionPlayerId(sessionId, userId));
-            if (alreadyRegistered) {
-                return false;
-            }
-            long confirmedPlayers = gameSessionPlayerRepository.countByGameSession(gameSession);
-            if (confirmedPlayers >= gameSession.getMaxPlayers()) {
-                return false;
-            }
-            GameSessionPlayer gameSessionPlayer = GameSessionPlayer.builder()
-                    .gameSession(gameSession)
-                    .user(user)
-                    .joinDate(LocalDate.now())
-                    .confirmed(true)
-                    .build();
-            gameSessionPlayerRepository.save(gameSessionPlayer);
-            return true;
+        if (gameSessionRepository.reserveSeat(sessionId) == 0) {
+            log.debug("Session {} is full or does not exist", sessionId);
+            return false;
         }
-        return false;
+        if (gameSessionPlayerRepository.insertIfAbsent(sessionId, userId, LocalDate.now()) == 0) {
+            gameSessionRepository.releaseSeat(sessionId);
+            return false;
+        }
+        return true;
     }
 
     /**
-     * Removes a player from a game session.
+     * Removes a player from a game session and frees their seat.
      *
      * @param sessionId the ID of the session
      * @param userId the ID of the player
@@ -327,13 +331,11 @@ public class GameSessionServiceImpl implements GameSessionService {
     @Transactional
     public boolean removePlayerFromSession(Long sessionId, Long userId) {
         log.debug("Removing player {} from session {}", userId, sessionId);
-        Optional<GameSessionPlayer> optGameSessionPlayer = gameSessionPlayerRepository.findById(
-                new GameSessionPlayerId(sessionId, userId));
-        if (optGameSessionPlayer.isPresent()) {
-            gameSessionPlayerRepository.delete(optGameSessionPlayer.get());
-            return true;
+        if (gameSessionPlayerRepository.deleteBySessionAndUser(sessionId, userId) == 0) {
+            return false;
         }
-        return false;
+        gameSessionRepository.releaseSeat(sessionId);
+        return true;
     }
 
     /**
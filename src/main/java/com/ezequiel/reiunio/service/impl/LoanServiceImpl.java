@@ -1,27 +1,33 @@
 package com.ezequiel.reiunio.service.impl;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ezequiel.reiunio.concurrency.StripedLocks;
 import com.ezequiel.reiunio.entity.Game;
 import com.ezequiel.reiunio.entity.GameSession;
 import com.ezequiel.reiunio.entity.GameSessionInfo;
 import com.ezequiel.reiunio.entity.Loan;
 import com.ezequiel.reiunio.entity.User;
-import com.ezequiel.reiunio.enums.GameSessionStatus;
 import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.pagination.KeysetPaginator;
 import com.ezequiel.reiunio.repository.GameRepository;
-import com.ezequiel.reiunio.repository.GameSessionRepository;
 import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex.FreeWindow;
+import com.ezequiel.reiunio.search.GameSearchIndex;
 import com.ezequiel.reiunio.service.LoanService;
+import com.ezequiel.reiunio.stats.BorrowCounter;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,9 +40,18 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LoanServiceImpl implements LoanService {
 
+    private static final int LOCK_STRIPES = 64;
+
     private final LoanRepository loanRepository;
     private final GameRepository gameRepository;
-    private final GameSessionRepository gameSessionRepository;
+    private final GameSearchIndex gameSearchIndex;
+    private final KeysetPaginator keysetPaginator;
+    private final GameScheduleIndex gameScheduleIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final BorrowCounter borrowCounter;
+
+    /** Per-game locks serializing loan creation; sized well above the expected concurrency */
+    private final StripedLocks gameLocks = new StripedLocks(LOCK_STRIPES);
 
     /**
      * Retrieves all loans.
@@ -86,7 +101,9 @@ public class LoanServiceImpl implements LoanService {
     @Transactional
     public Loan save(Loan loan) {
         log.debug("Saving loan for user: {}", loan.getUser().getUsername());
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.save(loan);
+        gameScheduleIndex.loanSaved(saved);
+        return saved;
     }
 
     /**
@@ -98,7 +115,9 @@ public class LoanServiceImpl implements LoanService {
     @Transactional
     public void deleteById(Long id) {
         log.debug("Deleting loan by id: {}", id);
+        loanRepository.findById(id).ifPresent(borrowCounter::loanDeleted);
         loanRepository.deleteById(id);
+        gameScheduleIndex.loanDeleted(id);
     }
 
     /**
@@ -168,16 +187,39 @@ public class LoanServiceImpl implements LoanService {
         return loanRepository.findByStatus(status, pageable);
     }
 
+    /**
+     * Finds loans by status using keyset pagination on (loan date, id).
+     *
+     * @param status    the loan status, or null for all loans
+     * @param size      the page size
+     * @param cursor    the cursor of the requested page, or null for the first page
+     * @param withCount whether to compute the total number of matching loans
+     * @return a cursor page of loans
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Loan> findByStatusByCursor(LoanStatus status, int size, String cursor, boolean withCount) {
+        log.debug("Finding loans by status: {} with cursor pagination", status);
+        return keysetPaginator.fetch(loanRepository, Loan.class, LoanRepository.withStatus(status),
+                Sort.by("loanDate").descending().and(Sort.by("id").descending()), size, cursor, withCount,
+                "user", "game");
+    }
+
     /**
      * Creates a new loan for a game and user, checking availability and conflicts.
      *
+     * <p>Loans for the same game are serialized on a per-game lock stripe that is held until
+     * the transaction commits, so concurrent requests for one popular game queue up in the JVM
+     * instead of on database row locks, while loans for other games proceed in parallel. The
+     * game itself is reserved with a conditional update, which keeps creation atomic across
+     * several application instances too.</p>
+     *
      * @param user                the user
      * @param game                the game
      * @param estimatedReturnDate the estimated return date
      * @return the created loan
      */
     @Override
-    @Transactional
     public Loan createLoan(User user, Game game, LocalDate estimatedReturnDate) {
         log.debug("Creating loan: game {} for user {}", game.getName(), user.getUsername());
 
@@ -185,6 +227,16 @@ public class LoanServiceImpl implements LoanService {
             throw new IllegalStateException("Game is not available for loans");
         }
 
+        Lock lock = gameLocks.get(game.getId());
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> reserveAndCreateLoan(user, game, estimatedReturnDate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Loan reserveAndCreateLoan(User user, Game game, LocalDate estimatedReturnDate) {
         List<Loan> activeLoansForGame = loanRepository.findByGameAndStatus(game, LoanStatus.ACTIVE);
         Optional<Loan> userActiveLoan = activeLoansForGame.stream()
                 .filter(loan -> loan.getUser().getId().equals(user.getId()))
@@ -198,6 +250,12 @@ public class LoanServiceImpl implements LoanService {
             throw new IllegalStateException("Game is already loaned to another user");
         }
 
+        if (gameRepository.reserveIfAvailable(game.getId()) == 0) {
+            throw new IllegalStateException("Game is not available for loans");
+        }
+        game.setAvailable(false);
+        gameSearchIndex.index(game);
+
         Loan loan = Loan.builder()
                 .user(user)
                 .game(game)
@@ -206,10 +264,10 @@ public class LoanServiceImpl implements LoanService {
                 .status(LoanStatus.ACTIVE)
                 .build();
 
-        game.setAvailable(false);
-        gameRepository.save(game);
-
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.save(loan);
+        borrowCounter.loanCreated(saved);
+        gameScheduleIndex.loanSaved(saved);
+        return saved;
     }
 
     /**
@@ -236,9 +294,11 @@ public class LoanServiceImpl implements LoanService {
 
             Game game = loan.getGame();
             game.setAvailable(true);
-            gameRepository.save(game);
+            gameSearchIndex.index(gameRepository.save(game));
 
-            return loanRepository.save(loan);
+            Loan saved = loanRepository.save(loan);
+            gameScheduleIndex.loanSaved(saved);
+            return saved;
         } else {
             throw new IllegalArgumentException("Loan not found");
         }
@@ -279,15 +339,7 @@ public class LoanServiceImpl implements LoanService {
     @Transactional(readOnly = true)
     public List<GameSessionInfo> findUpcomingSessionsForGame(Game game) {
         log.debug("Finding upcoming sessions for game: {}", game.getName());
-
-        LocalDate today = LocalDate.now();
-
-        return gameSessionRepository.findByGame(game).stream()
-                .filter(session -> session.getStatus() == GameSessionStatus.SCHEDULED)
-                .filter(session -> !session.getStartDate().isBefore(today))
-                .sorted(Comparator.comparing(GameSession::getStartDate))
-                .map(this::convertToGameSessionInfo)
-                .collect(Collectors.toList());
+        return gameScheduleIndex.findUpcomingSessions(game.getId(), LocalDate.now());
     }
 
     /**
@@ -302,18 +354,8 @@ public class LoanServiceImpl implements LoanService {
     public LocalDate suggestReturnDate(Game game, LocalDate proposedReturnDate) {
         log.debug("Suggesting return date for game: {} with proposed date: {}", game.getName(), proposedReturnDate);
 
-        List<GameSessionInfo> upcomingSessions = findUpcomingSessionsForGame(game);
-
-        if (upcomingSessions.isEmpty()) return proposedReturnDate;
-
-        return upcomingSessions.stream()
-                .map(GameSessionInfo::getStartDate)
-                .filter(date -> !date.isAfter(proposedReturnDate))
-                .min(LocalDate::compareTo)
-                .map(conflictDate -> {
-                    LocalDate suggestion = conflictDate.minusDays(1);
-                    return suggestion.isBefore(LocalDate.now().plusDays(1)) ? LocalDate.now().plusDays(1) : suggestion;
-                })
+        return gameScheduleIndex.findFirstSessionConflict(game.getId(), LocalDate.now(), proposedReturnDate)
+                .map(conflict -> returnDateBefore(conflict))
                 .orElse(proposedReturnDate);
     }
 
@@ -326,11 +368,13 @@ public class LoanServiceImpl implements LoanService {
     @Override
     @Transactional(readOnly = true)
     public boolean isGameScheduledForUpcomingSessions(Game game) {
-        return !findUpcomingSessionsForGame(game).isEmpty();
+        return gameScheduleIndex.hasUpcomingSessions(game.getId(), LocalDate.now());
     }
 
     /**
      * Checks for scheduling conflicts between a proposed loan return date and future sessions.
+     * A conflict is a scheduled session overlapping the loan period, from today to the proposed
+     * return date; sessions after the return date are still listed but do not conflict.
      *
      * @param game               the game
      * @param proposedReturnDate the proposed return date
@@ -340,18 +384,18 @@ public class LoanServiceImpl implements LoanService {
     @Transactional(readOnly = true)
     public LoanConflictInfo checkLoanConflicts(Game game, LocalDate proposedReturnDate) {
         List<GameSessionInfo> sessions = findUpcomingSessionsForGame(game);
-        if (sessions.isEmpty()) {
-            return new LoanConflictInfo(false, null, proposedReturnDate, "No upcoming sessions for this game.");
+        Optional<GameSessionInfo> conflict =
+                gameScheduleIndex.findFirstSessionConflict(game.getId(), LocalDate.now(), proposedReturnDate);
+
+        if (conflict.isEmpty()) {
+            String message = sessions.isEmpty()
+                    ? "No upcoming sessions for this game."
+                    : "No upcoming session overlaps the proposed return date.";
+            return new LoanConflictInfo(false, sessions, proposedReturnDate, message);
         }
 
-        GameSessionInfo first = sessions.stream()
-                .min(Comparator.comparing(GameSessionInfo::getStartDate))
-                .orElse(sessions.get(0));
-
-        LocalDate suggestion = first.getStartDate().minusDays(1);
-        if (suggestion.isBefore(LocalDate.now().plusDays(1))) {
-            suggestion = LocalDate.now().plusDays(1);
-        }
+        GameSessionInfo first = conflict.get();
+        LocalDate suggestion = returnDateBefore(first);
 
         String warning = String.format(
                 "This game is scheduled for an upcoming session: '%s' on %s. Please return it by %s.",
@@ -363,18 +407,24 @@ public class LoanServiceImpl implements LoanService {
         return new LoanConflictInfo(true, sessions, suggestion, warning);
     }
 
-    private GameSessionInfo convertToGameSessionInfo(GameSession session) {
-        return GameSessionInfo.builder()
-                .sessionId(session.getId())
-                .sessionTitle(session.getTitle())
-                .startDate(session.getStartDate())
-                .startTime(session.getStartTime())
-                .endDate(session.getEndDate())
-                .endTime(session.getEndTime())
-                .creatorName(session.getCreator().getFullName())
-                .status(session.getStatus().toString())
-                .isMultiDay(session.isMultiDay())
-                .build();
+    /**
+     * Lists the periods in which a game is free of scheduled sessions and active loans.
+     *
+     * @param game the game
+     * @param from the first day to consider
+     * @param to   the last day to consider
+     * @return the free windows, in chronological order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<FreeWindow> findFreeWindows(Game game, LocalDate from, LocalDate to) {
+        return gameScheduleIndex.findFreeWindows(game.getId(), from, to);
+    }
+
+    private LocalDate returnDateBefore(GameSessionInfo session) {
+        LocalDate suggestion = session.getStartDate().minusDays(1);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        return suggestion.isBefore(tomorrow) ? tomorrow : suggestion;
     }
 
     /**
@@ -2,11 +2,15 @@ package com.ezequiel.reiunio.service.impl;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -16,8 +20,13 @@ import com.ezequiel.reiunio.entity.Loan;
 import com.ezequiel.reiunio.entity.User;
 import com.ezequiel.reiunio.enums.LoanStatus;
 import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.AuditLogRepository;
 import com.ezequiel.reiunio.repository.LoanRepository;
 import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.search.UserIdentifierFilter;
+import com.ezequiel.reiunio.search.UserSearchIndex;
+import com.ezequiel.reiunio.search.UserSearchIndex.UserSuggestion;
+import com.ezequiel.reiunio.security.CurrentUserCache;
 import com.ezequiel.reiunio.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -32,9 +41,16 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    /** Above this many matches the paginated search is left to SQL rather than a huge IN list. */
+    private static final int MAX_INDEXED_PAGE_IDS = 1000;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final LoanRepository loanRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final CurrentUserCache currentUserCache;
+    private final UserIdentifierFilter userIdentifierFilter;
+    private final UserSearchIndex userSearchIndex;
 
     /**
      * Retrieves all users from the repository.
@@ -87,6 +103,46 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByEmail(email);
     }
 
+    /**
+     * Finds the user holding a username for an availability check. The identifier filter
+     * answers for usernames it has never seen without querying the database; it only knows
+     * the users saved on this node since its last rebuild, so the result is a hint for the
+     * registration form and must not be used to enforce uniqueness.
+     *
+     * @param username the username to check
+     * @return an optional containing the user holding the username, or empty if it looks free
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findUsernameHolder(String username) {
+        if (!userIdentifierFilter.mightContainUsername(username)) {
+            userIdentifierFilter.recordCheck(true, false);
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        userIdentifierFilter.recordCheck(false, user.isPresent());
+        return user;
+    }
+
+    /**
+     * Finds the user holding an email for an availability check, answering from the identifier
+     * filter like {@link #findUsernameHolder(String)}.
+     *
+     * @param email the email to check
+     * @return an optional containing the user holding the email, or empty if it looks free
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findEmailHolder(String email) {
+        if (!userIdentifierFilter.mightContainEmail(email)) {
+            userIdentifierFilter.recordCheck(true, false);
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findByEmail(email);
+        userIdentifierFilter.recordCheck(false, user.isPresent());
+        return user;
+    }
+
     /**
      * Saves a user to the repository. Encrypts the password if it's not already encoded.
      *
@@ -101,7 +157,12 @@ public class UserServiceImpl implements UserService {
         if (user.getId() == null || (user.getPassword() != null && !user.getPassword().startsWith("$2a$"))) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
-        return userRepository.save(user);
+        boolean created = user.getId() == null;
+        User saved = userRepository.save(user);
+        currentUserCache.evict(saved);
+        userIdentifierFilter.add(saved, created);
+        userSearchIndex.index(saved);
+        return saved;
     }
 
     /**
@@ -148,7 +209,12 @@ public class UserServiceImpl implements UserService {
                 loanRepository.delete(loan);
             }
             
+            // Same outcome as the cascade on User.auditLogs, without loading every entry first
+            auditLogRepository.deleteByUserId(id);
             userRepository.deleteById(id);
+            currentUserCache.evict(id);
+            userIdentifierFilter.remove();
+            userSearchIndex.remove(id);
         }
     }
 
@@ -203,14 +269,16 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     public List<User> searchUsers(String search) {
         log.debug("Searching users by: {}", search);
-        return userRepository.findAll().stream()
-                .filter(user -> 
-                    user.getUsername().toLowerCase().contains(search.toLowerCase()) ||
-                    user.getFirstName().toLowerCase().contains(search.toLowerCase()) ||
-                    user.getLastName().toLowerCase().contains(search.toLowerCase()) ||
-                    user.getEmail().toLowerCase().contains(search.toLowerCase())
-                )
-                .collect(Collectors.toList());
+        List<Long> rankedIds = userSearchIndex.search(search, null);
+        if (rankedIds != null) {
+            Map<Long, User> usersById = userRepository.findAllById(rankedIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            return rankedIds.stream()
+                    .map(usersById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+        return userRepository.searchUsers(search.trim(), Pageable.unpaged()).getContent();
     }
 
     /**
@@ -259,6 +327,10 @@ public class UserServiceImpl implements UserService {
             return findAllPaginated(pageable);
         }
         
+        Page<User> indexed = findIndexedPage(search.trim(), null, pageable);
+        if (indexed != null) {
+            return indexed;
+        }
         return userRepository.searchUsers(search.trim(), pageable);
     }
 
@@ -280,9 +352,53 @@ public class UserServiceImpl implements UserService {
             return findByRolePaginated(role, pageable);
         }
         
+        Page<User> indexed = findIndexedPage(searchTerm.trim(), role, pageable);
+        if (indexed != null) {
+            return indexed;
+        }
         return userRepository.searchUsersByRoleAndTerm(role, searchTerm.trim(), pageable);
     }
 
+    /**
+     * Returns typeahead suggestions from the user search index, or from the SQL search while
+     * the index is not available.
+     *
+     * @param term the text typed so far
+     * @param pageable the page of suggestions to return
+     * @return a page of suggestions
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserSuggestion> suggestUsers(String term, Pageable pageable) {
+        log.debug("Suggesting users for '{}': page {}, size {}", term, pageable.getPageNumber(), pageable.getPageSize());
+        List<UserSuggestion> suggestions = userSearchIndex.suggest(term, null);
+        if (suggestions == null) {
+            String searchTerm = term == null ? "" : term.trim();
+            return userRepository.searchUsers(searchTerm, pageable)
+                    .map(UserSuggestion::of);
+        }
+        int from = (int) Math.min(pageable.getOffset(), suggestions.size());
+        int to = Math.min(from + pageable.getPageSize(), suggestions.size());
+        return new PageImpl<>(suggestions.subList(from, to), pageable, suggestions.size());
+    }
+
+    /**
+     * Resolves a search page through the user search index: the index finds the matching IDs
+     * and the database only sorts and pages those rows by primary key.
+     *
+     * @return the page, or null when the index is not available or matches too many users
+     */
+    private Page<User> findIndexedPage(String term, Role role, Pageable pageable) {
+        List<Long> ids = userSearchIndex.search(term, role);
+        if (ids == null || ids.size() > MAX_INDEXED_PAGE_IDS) {
+            return null;
+        }
+        if (ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return userRepository.findByIdIn(ids, pageable);
+    }
+
     /**
      * Counts the total number of users.
      *
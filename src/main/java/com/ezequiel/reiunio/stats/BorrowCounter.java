@@ -0,0 +1,164 @@
+package com.ezequiel.reiunio.stats;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameBorrowDay;
+import com.ezequiel.reiunio.entity.Loan;
+import com.ezequiel.reiunio.enums.BorrowWindow;
+import com.ezequiel.reiunio.repository.GameBorrowDayRepository;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Materialized loan counters used to rank games by popularity.
+ *
+ * <p>Every game keeps a total borrow counter in an indexed column, and every game and day with
+ * loans has a bucket in {@code game_borrow_days}. Both are updated in the transaction that
+ * creates the loan, after the game row has been reserved, so loans for the same game never
+ * race on a bucket. The all-time ranking reads the first entries of the counter index; time
+ * windows sum at most one bucket per game and day of the window.</p>
+ *
+ * <p>When the rollup is empty but loans exist, as on the first start after the counters were
+ * introduced, both are rebuilt from the loans table. A nightly reconciliation
+ * ({@code app.stats.borrow-reconcile.cron}, {@code -} to disable) rebuilds them again, so a
+ * counter that drifted, for instance after loans were edited directly in the database, is
+ * corrected within a day.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BorrowCounter {
+
+    private final GameRepository gameRepository;
+    private final GameBorrowDayRepository gameBorrowDayRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Backfills the counters from existing loans if they have never been built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (gameBorrowDayRepository.count() > 0 || loanRepository.count() == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int games = gameRepository.recountBorrows();
+            int buckets = gameBorrowDayRepository.insertFromLoans();
+            log.info("Borrow counters rebuilt for {} games with {} daily buckets", games, buckets);
+        });
+    }
+
+    /**
+     * Reconciles the counters with the loans table.
+     */
+    @Scheduled(cron = "${app.stats.borrow-reconcile.cron:0 15 4 * * *}")
+    public void reconcileScheduled() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Error reconciling borrow counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes every borrow counter and daily bucket from the loans table, in one transaction.
+     *
+     * @return the number of games whose counter was wrong
+     */
+    public long reconcile() {
+        Long drifted = transactionTemplate.execute(status -> {
+            long wrong = gameRepository.countBorrowCountDrift();
+            gameRepository.recountBorrows();
+            gameBorrowDayRepository.deleteAllInBatch();
+            int buckets = gameBorrowDayRepository.insertFromLoans();
+            log.debug("Borrow counters reconciled, {} daily buckets", buckets);
+            return wrong;
+        });
+        if (drifted != null && drifted > 0) {
+            log.warn("Corrected the borrow counter of {} games", drifted);
+        }
+        return drifted == null ? 0 : drifted;
+    }
+
+    /**
+     * Counts a new loan. Must run in the transaction that creates it.
+     *
+     * @param loan the created loan
+     */
+    public void loanCreated(Loan loan) {
+        Long gameId = loan.getGame().getId();
+        LocalDate day = loan.getLoanDate();
+        gameRepository.addToBorrowCount(gameId, 1);
+        if (gameBorrowDayRepository.addToBucket(gameId, day, 1) == 0) {
+            gameBorrowDayRepository.save(new GameBorrowDay(gameId, day, 1L));
+        }
+    }
+
+    /**
+     * Uncounts a deleted loan. Must run in the transaction that deletes it.
+     *
+     * @param loan the deleted loan
+     */
+    public void loanDeleted(Loan loan) {
+        Long gameId = loan.getGame().getId();
+        gameRepository.addToBorrowCount(gameId, -1);
+        gameBorrowDayRepository.addToBucket(gameId, loan.getLoanDate(), -1);
+    }
+
+    /**
+     * Drops the buckets of a deleted game.
+     *
+     * @param gameId the ID of the deleted game
+     */
+    public void gameDeleted(Long gameId) {
+        gameBorrowDayRepository.deleteByGameId(gameId);
+    }
+
+    /**
+     * Returns the most borrowed games of a time window, most loans first.
+     *
+     * @param limit  the maximum number of games to return
+     * @param window the time window, ending today
+     * @return a list of object arrays [Game, loan count]
+     */
+    public List<Object[]> findMostBorrowed(int limit, BorrowWindow window) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (window == null || window == BorrowWindow.ALL_TIME) {
+            return gameRepository.findMostBorrowedGames(PageRequest.of(0, limit));
+        }
+
+        List<Object[]> top = gameBorrowDayRepository.findTopGamesSince(window.since(LocalDate.now()),
+                PageRequest.of(0, limit));
+        List<Long> ids = top.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, Game> games = gameRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Game::getId, Function.identity()));
+
+        List<Object[]> result = new ArrayList<>(top.size());
+        for (Object[] row : top) {
+            Game game = games.get((Long) row[0]);
+            if (game != null) {
+                result.add(new Object[] { game, ((Number) row[1]).longValue() });
+            }
+        }
+        return result;
+    }
+}
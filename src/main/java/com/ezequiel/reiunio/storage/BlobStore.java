@@ -0,0 +1,145 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend for uploaded files.
+ *
+ * <p>Files are addressed by key, the path of the upload below {@code /uploads/}, for example
+ * {@code games/ab/cd/<hash>.png}. Content is always staged in a local file first, because
+ * uploads are named by the hash of their content, which is only known once they have been
+ * read completely; {@link #put} then publishes the staged file under its key in one step, so
+ * readers never see a partial file.</p>
+ *
+ * <p>{@link LocalBlobStore} keeps files in {@code app.upload.dir}; {@link S3BlobStore} keeps
+ * them in an S3-compatible bucket, so that several application nodes can share the uploads.</p>
+ */
+public interface BlobStore {
+
+    /**
+     * Metadata of a stored file.
+     *
+     * @param key the key of the file
+     * @param size the size in bytes
+     * @param lastModified when the file was last written
+     */
+    record BlobInfo(String key, long size, Instant lastModified) {
+    }
+
+    /**
+     * Returns the metadata of a file.
+     *
+     * @param key the key of the file
+     * @return the metadata, or empty if no file is stored under the key
+     * @throws IOException if the store cannot be reached
+     */
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    /**
+     * Checks whether a file is stored under a key.
+     *
+     * @param key the key of the file
+     * @return true if the file exists
+     * @throws IOException if the store cannot be reached
+     */
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Creates an empty local file to stage content before it is {@linkplain #put published}.
+     * The caller deletes it if it is still there once it is done.
+     *
+     * @return the staging file
+     * @throws IOException if the file cannot be created
+     */
+    Path createStagingFile() throws IOException;
+
+    /**
+     * Publishes a staged file under a key, replacing any file already stored there.
+     * The staged file may be moved away by the call.
+     *
+     * @param key the key to store the file under
+     * @param staged the staged content
+     * @param contentType the media type of the content
+     * @throws IOException if the file cannot be stored
+     */
+    void put(String key, Path staged, String contentType) throws IOException;
+
+    /**
+     * Opens a file for reading, from an offset.
+     *
+     * @param key the key of the file
+     * @param start the first byte to read
+     * @param count the number of bytes to read, or -1 to read to the end
+     * @return the content; the caller closes it
+     * @throws java.nio.file.NoSuchFileException if no file is stored under the key
+     * @throws IOException if the file cannot be read
+     */
+    InputStream open(String key, long start, long count) throws IOException;
+
+    /**
+     * Deletes a file.
+     *
+     * @param key the key of the file
+     * @return true if a file was stored under the key
+     * @throws IOException if the file cannot be deleted
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Lists the files whose key starts with a prefix, in no particular order.
+     *
+     * @param prefix the key prefix, for example {@code games/}; empty for every file
+     * @param action called for each file
+     * @throws IOException if the files cannot be listed
+     */
+    void list(String prefix, Consumer<BlobInfo> action) throws IOException;
+
+    /**
+     * Returns the local path of a file, for stores that keep files on the local file system,
+     * so they can be sent with {@code sendfile} or read in place.
+     *
+     * @param key the key of the file
+     * @return the path, whether or not the file exists, or empty for remote stores
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a URL clients can download a file from directly, for stores that serve reads
+     * themselves.
+     *
+     * @param key the key of the file
+     * @return a URL valid for a limited time, or empty if reads go through the application
+     */
+    default Optional<URI> presignedUrl(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Checks that a key is a relative path without empty, {@code .} or {@code ..} segments.
+     *
+     * @param key the key to check
+     * @return the key
+     * @throws IllegalArgumentException if the key is not valid
+     */
+    static String validateKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith("/") || key.endsWith("/") || key.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid upload key: " + key);
+        }
+        for (String segment : key.split("/")) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Invalid upload key: " + key);
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,206 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BlobStore} keeping files in a directory of the local file system, {@code app.upload.dir}
+ * by default.
+ *
+ * <p>Staging files are created in a directory next to it, {@code <dir>.staging} by default, so
+ * they can never be requested through {@code /uploads/}, and publishing one is an atomic rename
+ * as long as both are on the same file system. Where they are not, the staged file is first
+ * copied next to its target under a hidden temporary name, which is not served either, and
+ * renamed from there. Listing walks the directory tree with {@link Files#walkFileTree}.</p>
+ */
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private final Path root;
+    private final Path stagingDirectory;
+
+    /**
+     * Creates a store over a directory, staging files in the sibling directory {@code <dir>.staging}.
+     * Both are created on first write if they do not exist.
+     *
+     * @param root the directory holding the files
+     */
+    public LocalBlobStore(Path root) {
+        this(root, null);
+    }
+
+    /**
+     * Creates a store over a directory, staging files in another one. Both are created on first
+     * write if they do not exist.
+     *
+     * @param root the directory holding the files
+     * @param stagingDirectory the directory for staging files, outside the root; null for
+     *                         {@code <dir>.staging}
+     */
+    public LocalBlobStore(Path root, Path stagingDirectory) {
+        this.root = root.toAbsolutePath().normalize();
+        this.stagingDirectory = stagingDirectory != null
+                ? stagingDirectory.toAbsolutePath().normalize()
+                : this.root.resolveSibling(this.root.getFileName() + ".staging");
+        if (this.stagingDirectory.startsWith(this.root)) {
+            throw new IllegalArgumentException("Staging directory must not be inside the upload directory: "
+                    + this.stagingDirectory);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        Path file = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile()
+                    ? Optional.of(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()))
+                    : Optional.empty();
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(stagingDirectory);
+        return Files.createTempFile(stagingDirectory, ".upload", ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path copy = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+            try {
+                Files.copy(staged, copy, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(copy, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(copy);
+            }
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long start, long count) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(start);
+        InputStream input = Channels.newInputStream(channel);
+        return count < 0 ? input : new BoundedInputStream(input, count);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        // Walk only the directory the prefix points into
+        int slash = prefix.lastIndexOf('/');
+        Path start = slash < 0 ? root : root.resolve(prefix.substring(0, slash)).normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return;
+        }
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    String key = root.relativize(file).toString().replace('\\', '/');
+                    if (key.startsWith(prefix)) {
+                        action.accept(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("Could not read upload {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(BlobStore.validateKey(key)).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid upload key: " + key);
+        }
+        return file;
+    }
+
+    /**
+     * Stream ending after a number of bytes of the underlying stream.
+     */
+    static class BoundedInputStream extends InputStream {
+
+        private final InputStream input;
+        private long remaining;
+
+        BoundedInputStream(InputStream input, long limit) {
+            this.input = input;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = input.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = input.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ezequiel.reiunio.storage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Set of strings kept as 64-bit fingerprints in a single open-addressing {@code long} array,
+ * about 16 bytes per entry instead of a {@code String} and a hash map node each.
+ *
+ * <p>Two different strings may share a fingerprint, so {@link #contains} can return
+ * {@code true} for a string never added, with a probability around {@code n / 2^64}. Callers
+ * must only rely on {@code false} answers, as the upload collector does by keeping every file
+ * reported as present. Not thread-safe.</p>
+ */
+public class PathFingerprintSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+    /** Marks an empty slot; a value hashing to it is stored as {@link #ZERO_REPLACEMENT}. */
+    private static final long EMPTY = 0L;
+    private static final long ZERO_REPLACEMENT = 1L;
+
+    private long[] slots;
+    private int size;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize the number of strings expected, used to size the table
+     */
+    public PathFingerprintSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.slots = new long[capacity];
+    }
+
+    /**
+     * Adds a string.
+     *
+     * @param value the string to add
+     */
+    public void add(String value) {
+        if ((size + 1) > slots.length * LOAD_FACTOR) {
+            resize();
+        }
+        if (insert(slots, fingerprint(value))) {
+            size++;
+        }
+    }
+
+    /**
+     * Checks whether a string may have been added.
+     *
+     * @param value the string to check
+     * @return false if the string was definitely never added
+     */
+    public boolean contains(String value) {
+        long fingerprint = fingerprint(value);
+        int mask = slots.length - 1;
+        for (int i = (int) (fingerprint ^ (fingerprint >>> 32)) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == EMPTY) {
+                return false;
+            }
+            if (slots[i] == fingerprint) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] larger = new long[slots.length * 2];
+        for (long fingerprint : slots) {
+            if (fingerprint != EMPTY) {
+                insert(larger, fingerprint);
+            }
+        }
+        slots = larger;
+    }
+
+    private static boolean insert(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        for (int i = (int) (fingerprint ^ (fingerprint >>> 32)) & mask; ; i = (i + 1) & mask) {
+            if (table[i] == EMPTY) {
+                table[i] = fingerprint;
+                return true;
+            }
+            if (table[i] == fingerprint) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer.
+     */
+    private static long fingerprint(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? ZERO_REPLACEMENT : hash;
+    }
+}
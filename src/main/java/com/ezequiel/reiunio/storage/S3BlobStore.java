@@ -0,0 +1,389 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BlobStore} keeping files in a bucket of an S3-compatible object store, such as AWS S3
+ * or MinIO, through its REST API and the JDK HTTP client.
+ *
+ * <p>A staged file up to {@code partSize} bytes is sent in a single {@code PUT}; a larger one
+ * with a multipart upload, each part streamed from its slice of the staged file, so no more
+ * than a copy buffer is held in memory whatever the size of the file. A failed multipart
+ * upload is aborted so the store does not keep its parts. Every request is signed with its
+ * real payload hash.</p>
+ *
+ * <p>Reads either go through the application, which streams the object with a ranged
+ * {@code GET}, or, with {@code presignedReads}, are redirected to a presigned URL so the
+ * object store serves them itself.</p>
+ */
+@Slf4j
+public class S3BlobStore implements BlobStore {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HASH_BUFFER_SIZE = 8192;
+
+    /**
+     * Connection and upload settings.
+     *
+     * @param endpoint the base URL of the object store, for example {@code https://s3.eu-west-1.amazonaws.com}
+     * @param region the region requests are signed for
+     * @param bucket the bucket holding the uploads
+     * @param accessKey the access key ID
+     * @param secretKey the secret access key
+     * @param keyPrefix prepended to every key in the bucket, for example {@code uploads/}; may be empty
+     * @param pathStyle whether the bucket goes in the path rather than in the host name, as MinIO expects
+     * @param partSize the size of the parts of multipart uploads; S3 requires at least 5 MiB
+     * @param presignedReads whether clients are redirected to presigned URLs to read files
+     * @param presignTtl how long presigned URLs are valid
+     */
+    public record Settings(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                           String keyPrefix, boolean pathStyle, long partSize, boolean presignedReads,
+                           Duration presignTtl) {
+    }
+
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final Clock clock;
+    private final Path stagingDirectory;
+    private final S3RequestSigner signer;
+    private final String baseUrl;
+
+    public S3BlobStore(Settings settings, HttpClient httpClient, Clock clock, Path stagingDirectory) {
+        this.settings = settings;
+        this.httpClient = httpClient;
+        this.clock = clock;
+        this.stagingDirectory = stagingDirectory;
+        this.signer = new S3RequestSigner(settings.accessKey(), settings.secretKey(), settings.region());
+        String endpoint = settings.endpoint().toString().replaceAll("/+$", "");
+        if (settings.pathStyle()) {
+            this.baseUrl = endpoint + "/" + S3RequestSigner.encode(settings.bucket(), false);
+        } else {
+            URI uri = settings.endpoint();
+            this.baseUrl = uri.getScheme() + "://" + settings.bucket() + "." + uri.getRawAuthority();
+        }
+        if (URI.create(baseUrl).getHost() == null) {
+            throw new IllegalArgumentException("Invalid S3 endpoint " + baseUrl
+                    + "; endpoints addressed by IP, such as a local MinIO, need path-style access");
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", objectUri(key), Map.of(), S3RequestSigner.EMPTY_PAYLOAD_HASH,
+                BodyPublishers.noBody(), BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        check(response, "stat " + key);
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(S3BlobStore::parseHttpDate)
+                .orElse(Instant.EPOCH);
+        return Optional.of(new BlobInfo(key, size, lastModified));
+    }
+
+    @Override
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(stagingDirectory);
+        return Files.createTempFile(stagingDirectory, ".upload", ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        URI uri = objectUri(key);
+        try {
+            long size = Files.size(staged);
+            if (size <= settings.partSize()) {
+                HttpResponse<String> response = send("PUT", uri, Map.of("Content-Type", contentType),
+                        sha256Hex(staged, 0, size), BodyPublishers.ofFile(staged), BodyHandlers.ofString());
+                check(response, "upload " + key);
+            } else {
+                putMultipart(key, uri, staged, size, contentType);
+            }
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    private void putMultipart(String key, URI uri, Path staged, long size, String contentType) throws IOException {
+        HttpResponse<String> initiated = send("POST", withQuery(uri, "uploads="), Map.of("Content-Type", contentType),
+                S3RequestSigner.EMPTY_PAYLOAD_HASH, BodyPublishers.noBody(), BodyHandlers.ofString());
+        check(initiated, "start multipart upload of " + key);
+        String uploadId = textOf(parse(initiated.body()).getDocumentElement(), "UploadId");
+        if (uploadId == null) {
+            throw new IOException("No upload ID starting multipart upload of " + key);
+        }
+        String uploadQuery = "uploadId=" + S3RequestSigner.encode(uploadId, false);
+        try {
+            List<String> etags = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += settings.partSize()) {
+                long start = offset;
+                long length = Math.min(settings.partSize(), size - offset);
+                int partNumber = etags.size() + 1;
+                BodyPublisher body = BodyPublishers.fromPublisher(
+                        BodyPublishers.ofInputStream(() -> openSlice(staged, start, length)), length);
+                HttpResponse<String> response = send("PUT",
+                        withQuery(uri, "partNumber=" + partNumber + "&" + uploadQuery), Map.of(),
+                        sha256Hex(staged, start, length), body, BodyHandlers.ofString());
+                check(response, "upload part " + partNumber + " of " + key);
+                etags.add(response.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("No ETag for part " + partNumber + " of " + key)));
+            }
+
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i).replace("&", "&amp;").replace("\"", "&quot;"))
+                        .append("</ETag></Part>");
+            }
+            byte[] completion = xml.append("</CompleteMultipartUpload>").toString().getBytes(StandardCharsets.UTF_8);
+            HttpResponse<String> completed = send("POST", withQuery(uri, uploadQuery),
+                    Map.of("Content-Type", "application/xml"), S3RequestSigner.sha256Hex(completion),
+                    BodyPublishers.ofByteArray(completion), BodyHandlers.ofString());
+            // Completion can fail after the status line has been sent, so the body is checked too
+            check(completed, "complete multipart upload of " + key);
+            if (completed.body().contains("<Error>")) {
+                throw new IOException("Could not complete multipart upload of " + key + ": " + completed.body());
+            }
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(key, uri, uploadQuery);
+            throw e;
+        }
+    }
+
+    private void abortMultipart(String key, URI uri, String uploadQuery) {
+        try {
+            send("DELETE", withQuery(uri, uploadQuery), Map.of(), S3RequestSigner.EMPTY_PAYLOAD_HASH,
+                    BodyPublishers.noBody(), BodyHandlers.discarding());
+        } catch (IOException e) {
+            log.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long start, long count) throws IOException {
+        if (count == 0) {
+            return InputStream.nullInputStream();
+        }
+        Map<String, String> headers = start > 0 || count > 0
+                ? Map.of("Range", "bytes=" + start + "-" + (count > 0 ? String.valueOf(start + count - 1) : ""))
+                : Map.of();
+        HttpResponse<InputStream> response = send("GET", objectUri(key), headers, S3RequestSigner.EMPTY_PAYLOAD_HASH,
+                BodyPublishers.noBody(), BodyHandlers.ofInputStream());
+        InputStream body = response.body();
+        if (response.statusCode() == 404) {
+            body.close();
+            throw new NoSuchFileException(key);
+        }
+        if (response.statusCode() / 100 != 2) {
+            body.close();
+            throw new IOException("Could not read " + key + ": HTTP " + response.statusCode());
+        }
+        if (response.statusCode() == 200 && start > 0) {
+            // The range was ignored and the whole object sent
+            body.skipNBytes(start);
+        }
+        return count > 0 ? new LocalBlobStore.BoundedInputStream(body, count) : body;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // S3 answers a DELETE the same way whether or not the object existed
+        if (stat(key).isEmpty()) {
+            return false;
+        }
+        HttpResponse<Void> response = send("DELETE", objectUri(key), Map.of(), S3RequestSigner.EMPTY_PAYLOAD_HASH,
+                BodyPublishers.noBody(), BodyHandlers.discarding());
+        if (response.statusCode() != 404) {
+            check(response, "delete " + key);
+        }
+        return true;
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> action) throws IOException {
+        String continuationToken = null;
+        do {
+            String query = "list-type=2&prefix=" + S3RequestSigner.encode(settings.keyPrefix() + prefix, false)
+                    + (continuationToken != null
+                    ? "&continuation-token=" + S3RequestSigner.encode(continuationToken, false) : "");
+            HttpResponse<String> response = send("GET", URI.create(baseUrl + "/?" + query), Map.of(),
+                    S3RequestSigner.EMPTY_PAYLOAD_HASH, BodyPublishers.noBody(), BodyHandlers.ofString());
+            check(response, "list " + prefix);
+            Element result = parse(response.body()).getDocumentElement();
+            NodeList contents = result.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element object = (Element) contents.item(i);
+                String key = textOf(object, "Key");
+                if (key == null || !key.startsWith(settings.keyPrefix())) {
+                    continue;
+                }
+                String size = textOf(object, "Size");
+                String lastModified = textOf(object, "LastModified");
+                action.accept(new BlobInfo(key.substring(settings.keyPrefix().length()),
+                        size != null ? Long.parseLong(size) : 0,
+                        lastModified != null ? Instant.parse(lastModified) : Instant.EPOCH));
+            }
+            continuationToken = "true".equals(textOf(result, "IsTruncated"))
+                    ? textOf(result, "NextContinuationToken") : null;
+        } while (continuationToken != null);
+    }
+
+    @Override
+    public Optional<URI> presignedUrl(String key) {
+        if (!settings.presignedReads()) {
+            return Optional.empty();
+        }
+        // Signed at a time rounded down, so a file keeps the same URL for half the validity period
+        // and browsers can cache what they downloaded from it
+        long window = Math.max(settings.presignTtl().toMillis() / 2, 1000);
+        Instant signedAt = Instant.ofEpochMilli(clock.millis() / window * window);
+        return Optional.of(signer.presign("GET", objectUri(key), settings.presignTtl(), signedAt));
+    }
+
+    private URI objectUri(String key) {
+        return URI.create(baseUrl + "/"
+                + S3RequestSigner.encode(settings.keyPrefix() + BlobStore.validateKey(key), true));
+    }
+
+    private static URI withQuery(URI uri, String query) {
+        return URI.create(uri + "?" + query);
+    }
+
+    private <T> HttpResponse<T> send(String method, URI uri, Map<String, String> headers, String payloadHash,
+                                     BodyPublisher body, BodyHandler<T> handler) throws IOException {
+        Map<String, String> allHeaders = new LinkedHashMap<>(headers);
+        allHeaders.putAll(signer.sign(method, uri, headers, payloadHash, clock.instant()));
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .method(method, body)
+                .timeout(REQUEST_TIMEOUT);
+        allHeaders.forEach(request::header);
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted sending " + method + " " + uri.getRawPath());
+        }
+    }
+
+    private static void check(HttpResponse<?> response, String action) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            Object body = response.body();
+            throw new IOException("Could not " + action + ": HTTP " + response.statusCode()
+                    + (body instanceof String text && !text.isEmpty() ? " " + text : ""));
+        }
+    }
+
+    private static InputStream openSlice(Path file, long start, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(start);
+            return new LocalBlobStore.BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sha256Hex(Path file, long start, long length) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(HASH_BUFFER_SIZE, end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Staged upload " + file + " shorter than expected");
+                }
+                position += read;
+                digest.update(buffer.flip());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Document parse(String xml) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid response from object store: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the text of the first direct child element with a name, or null.
+     */
+    private static String textOf(Element parent, String name) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element element && name.equals(element.getTagName())) {
+                return element.getTextContent();
+            }
+        }
+        return null;
+    }
+
+    private static Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return Instant.EPOCH;
+        }
+    }
+}
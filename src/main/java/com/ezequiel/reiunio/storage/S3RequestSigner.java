@@ -0,0 +1,206 @@
+package com.ezequiel.reiunio.storage;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs S3 requests with AWS Signature Version 4, either in the {@code Authorization} header
+ * or, for presigned URLs, in the query string.
+ *
+ * <p>URIs passed in must already be encoded as S3 expects, with {@link #encode}: the raw path
+ * and query are used as they are in the canonical request.</p>
+ */
+final class S3RequestSigner {
+
+    /** Payload hash of presigned requests, whose body is not known when the URL is built. */
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    /** SHA-256 of an empty body. */
+    static final String EMPTY_PAYLOAD_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String TERMINATOR = "aws4_request";
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Signs a request.
+     *
+     * @param method the HTTP method
+     * @param uri the encoded request URI
+     * @param headers the headers to sign besides {@code host}, sent as they are
+     * @param payloadHash the hex SHA-256 of the body
+     * @param time the time of the request
+     * @return the {@code x-amz-date}, {@code x-amz-content-sha256} and {@code Authorization}
+     *         headers to add to the request
+     */
+    Map<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash, Instant time) {
+        String dateTime = DATE_TIME.format(time);
+        Map<String, String> canonicalHeaders = new TreeMap<>();
+        canonicalHeaders.put("host", hostOf(uri));
+        headers.forEach((name, value) -> canonicalHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        canonicalHeaders.put("x-amz-content-sha256", payloadHash);
+        canonicalHeaders.put("x-amz-date", dateTime);
+        String signedHeaders = String.join(";", canonicalHeaders.keySet());
+        String signature = signature(method, uri.getRawPath(), uri.getRawQuery(), canonicalHeaders, signedHeaders,
+                payloadHash, time);
+
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("x-amz-date", dateTime);
+        result.put("x-amz-content-sha256", payloadHash);
+        result.put("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope(time)
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        return result;
+    }
+
+    /**
+     * Builds a presigned URL, which grants the request to whoever holds it until it expires.
+     *
+     * @param method the HTTP method
+     * @param uri the encoded request URI
+     * @param ttl how long the URL is valid
+     * @param time the time the URL is built at
+     * @return the URI with the signature in its query string
+     */
+    URI presign(String method, URI uri, Duration ttl, Instant time) {
+        String query = (uri.getRawQuery() != null ? uri.getRawQuery() + "&" : "")
+                + "X-Amz-Algorithm=" + ALGORITHM
+                + "&X-Amz-Credential=" + encode(accessKey + "/" + scope(time), false)
+                + "&X-Amz-Date=" + DATE_TIME.format(time)
+                + "&X-Amz-Expires=" + ttl.toSeconds()
+                + "&X-Amz-SignedHeaders=host";
+        String signature = signature(method, uri.getRawPath(), query, Map.of("host", hostOf(uri)), "host",
+                UNSIGNED_PAYLOAD, time);
+        return URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath()
+                + "?" + query + "&X-Amz-Signature=" + signature);
+    }
+
+    private String signature(String method, String path, String query, Map<String, String> canonicalHeaders,
+                             String signedHeaders, String payloadHash, Instant time) {
+        StringBuilder canonicalRequest = new StringBuilder()
+                .append(method).append('\n')
+                .append(path == null || path.isEmpty() ? "/" : path).append('\n')
+                .append(canonicalQuery(query)).append('\n');
+        canonicalHeaders.forEach((name, value) -> canonicalRequest.append(name).append(':').append(value).append('\n'));
+        canonicalRequest.append('\n').append(signedHeaders).append('\n').append(payloadHash);
+
+        String stringToSign = ALGORITHM + "\n" + DATE_TIME.format(time) + "\n" + scope(time) + "\n"
+                + sha256Hex(canonicalRequest.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATE.format(time));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, TERMINATOR);
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private String scope(Instant time) {
+        return DATE.format(time) + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+    }
+
+    /**
+     * Sorts the parameters of an encoded query string by name, then value, giving parameters
+     * without a value an empty one.
+     */
+    private static String canonicalQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        List<String[]> parameters = new ArrayList<>();
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            parameters.add(equals < 0
+                    ? new String[]{parameter, ""}
+                    : new String[]{parameter.substring(0, equals), parameter.substring(equals + 1)});
+        }
+        parameters.sort(Comparator.<String[], String>comparing(p -> p[0]).thenComparing(p -> p[1]));
+        StringBuilder canonical = new StringBuilder();
+        for (String[] parameter : parameters) {
+            if (canonical.length() > 0) {
+                canonical.append('&');
+            }
+            canonical.append(parameter[0]).append('=').append(parameter[1]);
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * Returns the {@code Host} header the HTTP client sends, with the port unless it is the
+     * default one of the scheme.
+     */
+    private static String hostOf(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equalsIgnoreCase(uri.getScheme()) ? port == 443 : port == 80);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    /**
+     * Percent-encodes a value as S3 expects: every byte except unreserved characters, and
+     * except {@code /} in object keys.
+     *
+     * @param value the value to encode
+     * @param keepSlash whether slashes are left as they are
+     * @return the encoded value
+     */
+    static String encode(String value, boolean keepSlash) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && keepSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit((c >> 4) & 0xf, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    static String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
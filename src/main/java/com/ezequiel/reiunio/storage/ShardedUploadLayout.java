@@ -0,0 +1,59 @@
+package com.ezequiel.reiunio.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+
+/**
+ * Two-level hash-prefix layout of the upload folders.
+ *
+ * <p>Instead of one flat directory per kind of image, a file is stored as
+ * {@code <folder>/ab/cd/<name>}, where {@code abcd} are the first four hex digits of a hash,
+ * so no directory holds more than a few hundred entries even with millions of uploads. Files
+ * named by the SHA-256 of their content use that hash; any other name, such as those of files
+ * uploaded before content addressing, uses the hash of the name. Variants are placed by the
+ * name of their original so they always sit next to it.</p>
+ */
+public final class ShardedUploadLayout {
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-f]{4}.*");
+    private static final int SHARD_DEPTH = 2;
+
+    private ShardedUploadLayout() {
+    }
+
+    /**
+     * Returns the path of a file inside its upload folder.
+     *
+     * @param fileName the name of the file
+     * @return the path relative to the upload folder, for example {@code ab/cd/<name>}
+     */
+    public static String pathOf(String fileName) {
+        String original = ImageSize.originalOf(fileName);
+        String key = original != null ? original : fileName;
+        String hex = HEX_PREFIX.matcher(key).matches() ? key : sha256Hex(key);
+        return hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + fileName;
+    }
+
+    /**
+     * Returns the number of directory levels between an upload folder and its files.
+     *
+     * @return the depth of the shard directories
+     */
+    public static int depth() {
+        return SHARD_DEPTH;
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
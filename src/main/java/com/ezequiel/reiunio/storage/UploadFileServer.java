@@ -0,0 +1,263 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves files from the {@link BlobStore} holding the uploads.
+ *
+ * <p>Files of a local store never pass through the heap: on Tomcat the connector is asked to
+ * send the file itself with {@code sendfile}, otherwise the file channel is transferred to the
+ * response with {@link FileChannel#transferTo}. Files of a remote store are streamed from it,
+ * only the requested range being fetched, or, if the store hands out presigned URLs, clients
+ * are redirected to the store, which then answers conditional and range requests. Responses carry a strong ETag and a Last-Modified date, answer
+ * {@code If-None-Match} and {@code If-Modified-Since} with 304, and support single byte ranges
+ * (including {@code If-Range}); requests for several ranges get the whole file.</p>
+ *
+ * <p>Uploads stored under their content hash can never change, so they are cached for a year
+ * as immutable and their ETag is the hash itself. Other files are cached for
+ * {@code app.upload.serve.max-age}. A requested image variant that has not been generated yet
+ * is answered with the original, which must be revalidated so the variant replaces it once
+ * it exists.</p>
+ *
+ * <p>Names starting with a dot are never served: they are the temporary files a store may
+ * leave next to the uploads while publishing one.</p>
+ */
+@Component
+public class UploadFileServer {
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("([0-9a-f]{64}(?:_(?:64|256|1024))?)\\.[a-z]+");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+            .getHeaderValue();
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final BlobStore blobStore;
+    private final String defaultCacheControl;
+    private final boolean sendfile;
+
+    public UploadFileServer(BlobStore blobStore,
+                            @Value("${app.upload.serve.max-age:PT1H}") Duration maxAge,
+                            @Value("${app.upload.serve.sendfile:true}") boolean sendfile) {
+        this.blobStore = blobStore;
+        this.defaultCacheControl = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue();
+        this.sendfile = sendfile;
+    }
+
+    /**
+     * Writes an uploaded file, or the status answering the request, to the response.
+     *
+     * @param request the GET or HEAD request
+     * @param response the response to write to
+     * @param relativePath the path of the file inside the upload directory, that is its key
+     * @throws IOException if the file cannot be read or the response written
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, String relativePath)
+            throws IOException {
+        try {
+            BlobStore.validateKey(relativePath);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (relativePath.startsWith(".") || relativePath.contains("/.")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<BlobStore.BlobInfo> blob = blobStore.stat(relativePath);
+        boolean fallback = false;
+        if (blob.isEmpty()) {
+            String requested = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+            String original = ImageSize.originalOf(requested);
+            if (original != null) {
+                blob = blobStore.stat(relativePath.substring(0, relativePath.length() - requested.length()) + original);
+                fallback = true;
+            }
+            if (blob.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+        String key = blob.get().key();
+
+        Optional<URI> presigned = blobStore.presignedUrl(key);
+        if (presigned.isPresent()) {
+            // The URL expires, so the redirect itself is revalidated
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            response.sendRedirect(presigned.get().toString());
+            return;
+        }
+
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        long length = blob.get().size();
+        // HTTP dates have a resolution of one second
+        long lastModified = blob.get().lastModified().toEpochMilli() / 1000 * 1000;
+        Matcher hashed = CONTENT_ADDRESSED.matcher(name);
+        String etag = hashed.matches()
+                ? "\"" + hashed.group(1) + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                fallback ? REVALIDATE : hashed.matches() ? IMMUTABLE : defaultCacheControl);
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(name)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && rangeApplies(request, etag, lastModified)) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+            if (matcher.matches()) {
+                long[] bounds = bounds(matcher.group(1), matcher.group(2), length);
+                if (bounds == null) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        write(request, response, key, start, count);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, String key, long start, long count)
+            throws IOException {
+        Optional<Path> localPath = blobStore.localPath(key);
+        if (localPath.isEmpty()) {
+            try (InputStream input = blobStore.open(key, start, count)) {
+                input.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        Path file = localPath.get();
+        if (sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file with sendfile once the response is complete
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, output);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * A range request made with {@code If-Range} only gets the range if the file is unchanged.
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Resolves the bounds of a {@code bytes=first-last} range.
+     *
+     * @return the first and last byte, or null if the range cannot be satisfied
+     */
+    private static long[] bounds(String first, String last, long length) {
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                return suffix == 0 ? null : new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            return start >= length || end < start ? null : new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
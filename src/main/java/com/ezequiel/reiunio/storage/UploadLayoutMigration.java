@@ -0,0 +1,248 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One-shot migration of the uploads stored before {@link ShardedUploadLayout} to their shard
+ * directories, run in the background while the application serves requests.
+ *
+ * <p>For each column referencing uploads, rows still pointing at a flat path such as
+ * {@code /uploads/games/<name>} are read in batches by ID. The file and its variants are
+ * hard-linked, or copied where links are not supported, into the shard directory, and the row
+ * is then rewritten with a compare-and-set on the old path, so an image replaced in the
+ * meantime is left alone. Both paths get a fresh modification time, which keeps the orphaned
+ * upload collector away from the new one until the row points at it.</p>
+ *
+ * <p>The rows are rewritten with plain SQL, so an entity loaded before its row was migrated
+ * still holds the flat path and writes it back when saved. The flat files are therefore not
+ * deleted here: they stay in place, so such a row keeps showing its image and is picked up
+ * again by the next run, and the orphaned upload collector removes them once no row has
+ * referenced them for its grace period.</p>
+ *
+ * <p>It is disabled by default; set {@code app.upload.sharding.migrate-on-startup} for one
+ * start after upgrading a tree with flat uploads. Running it again only picks up the rows it
+ * could not rewrite, and once the tree is migrated each run costs three indexed queries. It
+ * only applies to a {@link LocalBlobStore}: remote stores were always written in the sharded
+ * layout.</p>
+ */
+@Component
+@Slf4j
+public class UploadLayoutMigration {
+
+    private static final String PREFIX = "/uploads/";
+
+    /**
+     * A column storing upload paths.
+     */
+    private record ReferenceColumn(String table, String column) {
+    }
+
+    private record Row(long id, String path) {
+    }
+
+    private static final List<ReferenceColumn> COLUMNS = List.of(
+            new ReferenceColumn("games", "image_path"),
+            new ReferenceColumn("users", "profile_photo_path"),
+            new ReferenceColumn("game_sessions", "custom_game_image_path"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    private final boolean runOnStartup;
+    private final Path uploadRoot;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public UploadLayoutMigration(JdbcTemplate jdbcTemplate,
+                                 BlobStore blobStore,
+                                 @Value("${app.upload.sharding.migrate-on-startup:false}") boolean runOnStartup,
+                                 @Value("${app.upload.dir:uploads}") String uploadDir,
+                                 @Value("${app.upload.sharding.batch-size:500}") int batchSize,
+                                 @Value("${app.upload.sharding.batch-pause:PT0.2S}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.runOnStartup = runOnStartup;
+        this.uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchPause = batchPause;
+    }
+
+    /**
+     * Starts the migration in a background thread once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!runOnStartup || !(blobStore instanceof LocalBlobStore)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                migrate();
+            } catch (Exception e) {
+                log.error("Error migrating uploads to the sharded layout: {}", e.getMessage());
+            }
+        }, "upload-layout-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Moves every upload still referenced by a flat path to its shard directory.
+     *
+     * @return what the migration rewrote
+     * @throws IllegalStateException if a migration is already running
+     */
+    public Report migrate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Upload layout migration already running");
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            long[] counts = new long[2];
+            for (ReferenceColumn column : COLUMNS) {
+                if (!migrateColumn(column, counts)) {
+                    break;
+                }
+            }
+            Report report = new Report(counts[0], counts[1]);
+            if (report.rewrittenRows() > 0 || report.missingFiles() > 0) {
+                log.info("Upload layout migration: {} paths rewritten, {} files missing in {}ms",
+                        report.rewrittenRows(), report.missingFiles(), System.currentTimeMillis() - startTime);
+            }
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Rewrites the flat paths of one column, batch by batch.
+     *
+     * @return false if the migration was interrupted
+     */
+    private boolean migrateColumn(ReferenceColumn column, long[] counts) {
+        // Flat paths have exactly two segments after the prefix, sharded ones four
+        String select = "SELECT id, " + column.column() + " FROM " + column.table()
+                + " WHERE id > ? AND " + column.column() + " LIKE '/uploads/%/%'"
+                + " AND " + column.column() + " NOT LIKE '/uploads/%/%/%' ORDER BY id LIMIT ?";
+        String update = "UPDATE " + column.table() + " SET " + column.column() + " = ? WHERE id = ? AND "
+                + column.column() + " = ?";
+        long lastId = 0;
+        while (true) {
+            List<Row> rows = jdbcTemplate.query(select, (rs, i) -> new Row(rs.getLong(1), rs.getString(2)),
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                return true;
+            }
+            List<Object[]> updates = new ArrayList<>();
+            for (Row row : rows) {
+                lastId = row.id();
+                String relative = row.path().substring(PREFIX.length());
+                int slash = relative.indexOf('/');
+                String sharded = relative.substring(0, slash + 1)
+                        + ShardedUploadLayout.pathOf(relative.substring(slash + 1));
+                try {
+                    if (link(relative, sharded)) {
+                        updates.add(new Object[]{PREFIX + sharded, row.id(), row.path()});
+                    } else {
+                        counts[1]++;
+                        log.warn("Upload {} referenced by {} {} not found, path left unchanged",
+                                row.path(), column.table(), row.id());
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not move upload {} to {}: {}", relative, sharded, e.getMessage());
+                }
+            }
+            for (int updated : jdbcTemplate.batchUpdate(update, updates)) {
+                counts[0] += Math.max(updated, 0);
+            }
+            if (rows.size() < batchSize) {
+                return true;
+            }
+            if (!pause()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Makes a flat file and its variants available at their sharded path.
+     *
+     * @return false if the file exists at neither path
+     */
+    private boolean link(String relative, String sharded) throws IOException {
+        Path source = uploadRoot.resolve(relative);
+        Path target = uploadRoot.resolve(sharded);
+        if (!Files.isRegularFile(target)) {
+            if (!Files.isRegularFile(source)) {
+                return false;
+            }
+            Files.createDirectories(target.getParent());
+            linkOrCopy(source, target);
+        }
+        for (ImageSize size : ImageSize.values()) {
+            Path variant = uploadRoot.resolve(size.variantOf(relative));
+            Path shardedVariant = uploadRoot.resolve(size.variantOf(sharded));
+            if (Files.isRegularFile(variant) && !Files.exists(shardedVariant)) {
+                linkOrCopy(variant, shardedVariant);
+            }
+        }
+        FileTime now = FileTime.from(Instant.now());
+        Files.setLastModifiedTime(target, now);
+        if (Files.isRegularFile(source)) {
+            Files.setLastModifiedTime(source, now);
+        }
+        return true;
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target);
+        }
+    }
+
+    /**
+     * Leaves the database some room between batches.
+     *
+     * @return false if the thread was interrupted
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Outcome of a migration run.
+     *
+     * @param rewrittenRows the number of rows now pointing at a sharded path
+     * @param missingFiles the number of rows left unchanged because their file does not exist
+     */
+    public record Report(long rewrittenRows, long missingFiles) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.ezequiel.reiunio.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counts the rows referencing an uploaded file.
+ *
+ * <p>Uploads are stored by content, so one file may back the image of several games, users
+ * and sessions at once. The references are the upload paths stored in {@code games.image_path},
+ * {@code users.profile_photo_path} and {@code game_sessions.custom_game_image_path}, each
+ * backed by an index, so a count is three index lookups.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class UploadReferenceCounter {
+
+    private static final String COUNT_SQL = "SELECT "
+            + "(SELECT COUNT(*) FROM games WHERE image_path = ?) + "
+            + "(SELECT COUNT(*) FROM users WHERE profile_photo_path = ?) + "
+            + "(SELECT COUNT(*) FROM game_sessions WHERE custom_game_image_path = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Counts the games, users and sessions whose image is the given upload.
+     *
+     * @param path the upload path, as stored in the entities
+     * @return the number of references
+     */
+    public long count(String path) {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, path, path, path);
+        return count != null ? count : 0;
+    }
+}
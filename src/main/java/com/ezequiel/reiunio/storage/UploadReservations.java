@@ -0,0 +1,173 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serializes, across every node sharing the database, the uploads reusing a stored file and
+ * the removal of files no row references.
+ *
+ * <p>Uploads are stored by content, so an upload may find its bytes already stored and reuse
+ * the file before the entity referencing it is saved. Until then no row points at the file,
+ * and releasing its last reference, or the orphaned upload collector, would delete it. Each
+ * upload therefore reserves its path in {@code upload_reservations} before checking whether
+ * the file exists, and a file is only removed if no unexpired reservation and no game, user
+ * or session references it. Reservations expire {@code app.upload.reuse-grace} after they were
+ * made, so one left behind by a failed store or an entity that was never saved stops
+ * protecting the file on its own; the orphaned upload collector then deletes it.</p>
+ *
+ * <p>Both run in a transaction of their own, holding the {@code upload_locks} row the path
+ * hashes to with {@code SELECT ... FOR UPDATE}, so the database orders them on every node: a
+ * reservation either commits first, and the file is kept, or waits for the removal to commit
+ * and then finds the file gone and stores it again. The lock rows are created on startup and
+ * never deleted, so locking one does not take a gap lock that two transactions could deadlock
+ * on.</p>
+ */
+@Component
+@Slf4j
+public class UploadReservations {
+
+    /** Number of lock rows paths are spread over. */
+    static final int STRIPES = 64;
+
+    private static final String LOCK_SQL = "SELECT id FROM upload_locks WHERE id = ? FOR UPDATE";
+    private static final String INSERT_LOCK_SQL = "INSERT INTO upload_locks (id) VALUES (?)";
+    private static final String EXPIRES_AT_SQL = "SELECT expires_at FROM upload_reservations WHERE path = ?";
+    private static final String UPDATE_SQL = "UPDATE upload_reservations SET reserved_at = ?, expires_at = ? WHERE path = ?";
+    private static final String INSERT_SQL = "INSERT INTO upload_reservations (path, reserved_at, expires_at) VALUES (?, ?, ?)";
+    private static final String RELEASE_SQL = "DELETE FROM upload_reservations WHERE path = ?";
+    private static final String PURGE_SQL = "DELETE FROM upload_reservations WHERE expires_at < ?";
+
+    /**
+     * Removes a file and its variants.
+     */
+    @FunctionalInterface
+    public interface Removal {
+        void remove() throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UploadReferenceCounter uploadReferenceCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reuseGrace;
+
+    public UploadReservations(JdbcTemplate jdbcTemplate,
+                              UploadReferenceCounter uploadReferenceCounter,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.upload.reuse-grace:PT1M}") Duration reuseGrace) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.uploadReferenceCounter = uploadReferenceCounter;
+        // Never joins the caller's transaction, so the lock is held only as long as needed
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reuseGrace = reuseGrace;
+    }
+
+    /**
+     * Creates the lock rows missing from {@code upload_locks}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM upload_locks", Integer.class));
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            if (!existing.contains(stripe)) {
+                try {
+                    jdbcTemplate.update(INSERT_LOCK_SQL, stripe);
+                } catch (DuplicateKeyException e) {
+                    // Created by another node starting at the same time
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves an upload path for {@code app.upload.reuse-grace}, so no node removes its file
+     * before the entity referencing it has been saved. Called before checking whether the file
+     * is already stored.
+     *
+     * @param uploadPath the upload path, as stored in the entities
+     */
+    public void reserve(String uploadPath) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock(uploadPath);
+            long now = System.currentTimeMillis();
+            long expiresAt = now + reuseGrace.toMillis();
+            // Read first: on MySQL, an update missing the row takes a gap lock that concurrent inserts deadlock on
+            boolean reserved = !jdbcTemplate.queryForList(EXPIRES_AT_SQL, Long.class, uploadPath).isEmpty();
+            if (!reserved || jdbcTemplate.update(UPDATE_SQL, now, expiresAt, uploadPath) == 0) {
+                jdbcTemplate.update(INSERT_SQL, uploadPath, now, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Removes an upload unless it holds an unexpired reservation or is referenced more than the
+     * given number of times.
+     *
+     * @param uploadPath the upload path, as stored in the entities
+     * @param keptReferences the references the caller still holds and is about to release
+     * @param removal deletes or moves away the file and its variants
+     * @return true if the file was removed
+     * @throws IOException if the removal fails
+     */
+    public boolean removeIfUnreferenced(String uploadPath, long keptReferences, Removal removal) throws IOException {
+        try {
+            Boolean removed = transactionTemplate.execute(status -> {
+                lock(uploadPath);
+                List<Long> expiresAt = jdbcTemplate.queryForList(EXPIRES_AT_SQL, Long.class, uploadPath);
+                if (!expiresAt.isEmpty() && expiresAt.get(0) > System.currentTimeMillis()) {
+                    log.debug("Upload {} was just reserved, keeping it", uploadPath);
+                    return false;
+                }
+                if (uploadReferenceCounter.count(uploadPath) > keptReferences) {
+                    return false;
+                }
+                try {
+                    removal.remove();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!expiresAt.isEmpty()) {
+                    jdbcTemplate.update(RELEASE_SQL, uploadPath);
+                }
+                return true;
+            });
+            return Boolean.TRUE.equals(removed);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Deletes the expired reservations, which no longer protect anything.
+     *
+     * @return the number of reservations deleted
+     */
+    public int purgeExpired() {
+        return jdbcTemplate.update(PURGE_SQL, System.currentTimeMillis());
+    }
+
+    private void lock(String uploadPath) {
+        int stripe = Math.floorMod(uploadPath.hashCode(), STRIPES);
+        if (jdbcTemplate.queryForList(LOCK_SQL, Integer.class, stripe).isEmpty()) {
+            // Only before the rows have been created on startup; the new row stays locked until commit
+            jdbcTemplate.update(INSERT_LOCK_SQL, stripe);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ezequiel.reiunio.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies the uploads of a local directory into the configured {@link BlobStore}, for the
+ * switch from {@code app.upload.store=local} to {@code s3}.
+ *
+ * <p>Keys do not depend on the store, so the rows need no change: once a file has been copied
+ * under the same key it is served again. Set {@code app.upload.import-dir} to the former
+ * {@code app.upload.dir} on one node for its first start on the bucket; the copy runs in the
+ * background and files already in the store are skipped, so an interrupted copy is resumed
+ * by the next start. Images not copied yet are missing until it reaches them; starting a
+ * single node first and the others once it has logged the end of the copy avoids that.</p>
+ */
+@Component
+@Slf4j
+public class UploadStoreImport {
+
+    private final BlobStore blobStore;
+    private final String importDir;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public UploadStoreImport(BlobStore blobStore,
+                             @Value("${app.upload.import-dir:}") String importDir) {
+        this.blobStore = blobStore;
+        this.importDir = importDir;
+    }
+
+    /**
+     * Starts the copy in a background thread once the application has started, if an import
+     * directory is configured.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (importDir.isEmpty()) {
+            return;
+        }
+        LocalBlobStore source = new LocalBlobStore(Paths.get(importDir));
+        if (blobStore instanceof LocalBlobStore local && local.getRoot().equals(source.getRoot())) {
+            log.warn("Upload import directory {} is the upload directory itself, nothing to copy", importDir);
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                copy(source);
+            } catch (Exception e) {
+                log.error("Error importing uploads from {}: {}", importDir, e.getMessage());
+            }
+        }, "upload-store-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Copies every file of a store missing from the configured one.
+     *
+     * @param source the store to copy from
+     * @return what the copy found and copied
+     * @throws IOException if the source cannot be listed
+     * @throws IllegalStateException if a copy is already running
+     */
+    public Report copy(BlobStore source) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Upload import already running");
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            long[] counts = new long[3];
+            source.list("", blob -> {
+                String key = blob.key();
+                String name = key.substring(key.lastIndexOf('/') + 1);
+                // Temporary files of an interrupted upload
+                if (name.startsWith(".")) {
+                    return;
+                }
+                try {
+                    if (blobStore.exists(key)) {
+                        counts[1]++;
+                    } else {
+                        copy(source, key, name);
+                        counts[0]++;
+                    }
+                } catch (IOException e) {
+                    counts[2]++;
+                    log.warn("Could not import upload {}: {}", key, e.getMessage());
+                }
+            });
+            Report report = new Report(counts[0], counts[1], counts[2]);
+            log.info("Upload import: {} files copied, {} already stored, {} failed in {}ms",
+                    report.copiedFiles(), report.existingFiles(), report.failedFiles(),
+                    System.currentTimeMillis() - startTime);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void copy(BlobStore source, String key, String name) throws IOException {
+        Path staged = blobStore.createStagingFile();
+        try {
+            try (InputStream input = source.open(key, 0, -1)) {
+                Files.copy(input, staged, StandardCopyOption.REPLACE_EXISTING);
+            }
+            blobStore.put(key, staged, MediaTypeFactory.getMediaType(name)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param copiedFiles the number of files copied to the store
+     * @param existingFiles the number of files skipped because the store already had them
+     * @param failedFiles the number of files that could not be copied
+     */
+    public record Report(long copiedFiles, long existingFiles, long failedFiles) {
+    }
+}
@@ -27,25 +27,37 @@ function initGameSessionForm() {
 
 // Function to initialize game preview functionality
 function initGamePreview() {
-    const gameIdSelect = document.getElementById('gameId');
-    if (!gameIdSelect) return;
+    const gameIdInput = document.getElementById('gameId');
+    if (!gameIdInput) return;
     
     // Setup initial state
     setupInitialGameState();
     
-    // Handle game selection changes
-    gameIdSelect.addEventListener('change', handleGameSelectionChange);
+    // Library games are searched as the user types instead of listed in a select;
+    // like the old select, only games available right now are offered
+    setupTypeahead({
+        input: document.getElementById('gameSearch'),
+        hiddenInput: gameIdInput,
+        list: document.getElementById('gameSuggestions'),
+        url: query => `/games/api/suggest?q=${encodeURIComponent(query)}&available=true&limit=10`,
+        label: game => `<img src="${escapeHtml(game.thumbnailUrl)}" alt="" class="rounded me-2" style="width: 32px; height: 32px; object-fit: cover;">`
+            + escapeHtml(game.name),
+        text: game => game.name,
+        onSelect: game => handleGameSelectionChange(game.id),
+        onClear: () => handleGameSelectionChange(''),
+        allowEmpty: true
+    });
 }
 
 // Function to setup initial game state (for editing)
 function setupInitialGameState() {
-    const gameIdSelect = document.getElementById('gameId');
+    const gameIdInput = document.getElementById('gameId');
     const personalGameImageSection = document.getElementById('personalGameImageSection');
     const gamePreview = document.getElementById('gamePreview');
     
-    if (!gameIdSelect) return;
+    if (!gameIdInput) return;
     
-    const hasSelectedGame = gameIdSelect.value && gameIdSelect.value !== '';
+    const hasSelectedGame = gameIdInput.value && gameIdInput.value !== '';
     console.log('Has selected game:', hasSelectedGame);
     
     if (hasSelectedGame) {
@@ -54,7 +66,7 @@ function setupInitialGameState() {
         if (gamePreview) gamePreview.style.display = 'block';
         
         // Get selected game information via AJAX
-        loadGameInfoFromServer(gameIdSelect.value);
+        loadGameInfoFromServer(gameIdInput.value);
     } else {
         // Show personal game section
         if (gamePreview) gamePreview.style.display = 'none';
@@ -64,8 +76,7 @@ function setupInitialGameState() {
 }
 
 // Function to handle game selection changes
-function handleGameSelectionChange() {
-    const gameId = this.value;
+function handleGameSelectionChange(gameId) {
     const gamePreview = document.getElementById('gamePreview');
     const personalGameImageSection = document.getElementById('personalGameImageSection');
     
@@ -88,6 +99,13 @@ function handleGameSelectionChange() {
     }
 }
 
+// Function to escape text inserted into suggestion markup
+function escapeHtml(text) {
+    if (!text) return '';
+    const map = { '&': '&amp;', '<': '&lt;', '>': '&gt;', '"': '&quot;', "'": '&#039;' };
+    return String(text).replace(/[&<>"']/g, m => map[m]);
+}
+
 // Function to load game information from server via AJAX
 function loadGameInfoFromServer(gameId) {
     fetch(`/game-sessions/api/game-info/${gameId}`)
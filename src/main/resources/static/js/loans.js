@@ -1,66 +1,55 @@
 // loans.js - JavaScript for loan form functionality - FIXED
 
 document.addEventListener('DOMContentLoaded', function() {
-    const gameSelect = document.getElementById('gameId');
-    const userSelect = document.getElementById('userId');
+    const gameIdInput = document.getElementById('gameId');
+    const gameSearchInput = document.getElementById('gameSearch');
+    const userIdInput = document.getElementById('userId');
+    const userSearchInput = document.getElementById('userSearch');
     const returnDateInput = document.getElementById('estimatedReturnDate');
     const gamePreview = document.getElementById('gamePreview');
     const userPreview = document.getElementById('userPreview');
     const gameSessionsInfo = document.getElementById('gameSessionsInfo');
 
     // Initialize with pre-selected values if any
-    if (gameSelect && gameSelect.value) {
-        loadGameInfo(gameSelect.value);
-    }
-    
-    if (userSelect && userSelect.value) {
-        loadUserInfo(userSelect.value);
+    if (gameIdInput && gameIdInput.value) {
+        loadGameInfo(gameIdInput.value);
     }
 
-    // Game selection change handler
-    if (gameSelect) {
-        gameSelect.addEventListener('change', function() {
-            const gameId = this.value;
-            if (gameId) {
-                loadGameInfo(gameId);
-            } else {
-                hideGameInfo();
-            }
-        });
-    }
+    // Game typeahead - only games that can be loaned right now
+    setupTypeahead({
+        input: gameSearchInput,
+        hiddenInput: gameIdInput,
+        list: document.getElementById('gameSuggestions'),
+        url: query => `/games/api/suggest?q=${encodeURIComponent(query)}&available=true&limit=10`,
+        label: game => `<img src="${escapeHtml(game.thumbnailUrl)}" alt="" class="rounded me-2" style="width: 32px; height: 32px; object-fit: cover;">`
+            + `${escapeHtml(game.name)} <small class="text-muted">(COD${game.id})</small>`,
+        text: game => `${game.name} (COD${game.id})`,
+        onSelect: game => loadGameInfo(game.id),
+        onClear: hideGameInfo
+    });
 
-    // User selection change handler - Enhanced for photo loading
-    if (userSelect) {
-        userSelect.addEventListener('change', function() {
-            const userId = this.value;
-            if (userId) {
-                loadUserInfoEnhanced(userId);
-            } else {
-                hideUserInfo();
-            }
-        });
-    }
-
-    // Enhanced function to load user information with photo
-    function loadUserInfoEnhanced(userId) {
-        if (!userId) return;
+    // User typeahead - suggestions come from the server-side user search index
+    setupTypeahead({
+        input: userSearchInput,
+        hiddenInput: userIdInput,
+        list: document.getElementById('userSuggestions'),
+        url: query => `/users/api/users/search?q=${encodeURIComponent(query)}&size=10`,
+        parse: data => data.results || [],
+        label: user => escapeHtml(user.displayName),
+        text: user => user.displayName,
+        onSelect: user => loadUserInfo(user.id),
+        onClear: hideUserInfo
+    });
 
-        // Find user in the select options
-        const selectedOption = userSelect.querySelector(`option[value="${userId}"]`);
-        if (selectedOption) {
-            const userText = selectedOption.textContent;
-            const photoUrl = selectedOption.getAttribute('data-photo-url');
-            const email = selectedOption.getAttribute('data-email');
-            const role = selectedOption.getAttribute('data-role');
-            
-            // Parse the text: "First Last (@username)"
-            const match = userText.match(/^(.+?)\s+\(@(.+)\)$/);
-            if (match) {
-                const fullName = match[1];
-                const username = match[2];
-                displayUserInfoEnhanced(fullName, username, email, role, photoUrl);
-            }
-        }
+    // Suggestions only carry a display name; fetch the details of the user picked
+    function loadUserInfo(userId) {
+        fetch(`/loans/api/user-info/${userId}`)
+            .then(response => response.ok ? response.json() : Promise.reject(response.status))
+            .then(user => displayUserInfoEnhanced(user.fullName, user.username, user.email, user.role, user.profilePhotoUrl))
+            .catch(error => {
+                console.error('Error loading user info:', error);
+                hideUserInfo();
+            });
     }
 
     // Enhanced function to display user information with photo
@@ -105,4 +105,75 @@ function updatePlayerCounter(sessionId, maxPlayers) {
             joinButton.title = 'This session is full';
         }
     }
+}
+
+// Function to wire a typeahead picker: a text input that queries a JSON endpoint as the
+// user types and stores the id of the chosen item in a hidden input.
+// options: input, hiddenInput, list, url(query), parse(response) (optional), label(item),
+//          text(item), onSelect(item), onClear(), allowEmpty
+function setupTypeahead(options) {
+    var input = options.input;
+    var hiddenInput = options.hiddenInput;
+    var list = options.list;
+    if (!input || !hiddenInput || !list) return;
+
+    var timer = null;
+    var lastQuery = null;
+
+    function hideList() {
+        list.style.display = 'none';
+    }
+
+    function render(items) {
+        list.innerHTML = '';
+        if (items.length === 0) {
+            list.innerHTML = '<div class="list-group-item text-muted">No results found</div>';
+        }
+        items.forEach(function(item) {
+            var entry = document.createElement('button');
+            entry.type = 'button';
+            entry.className = 'list-group-item list-group-item-action';
+            entry.innerHTML = options.label(item);
+            // Keep the focus on the input so the blur handler does not hide the list first
+            entry.addEventListener('mousedown', function(event) { event.preventDefault(); });
+            entry.addEventListener('click', function() {
+                hiddenInput.value = item.id;
+                input.value = options.text(item);
+                input.setCustomValidity('');
+                hideList();
+                if (options.onSelect) options.onSelect(item);
+            });
+            list.appendChild(entry);
+        });
+        list.style.display = 'block';
+    }
+
+    input.addEventListener('input', function() {
+        var query = input.value.trim();
+        hiddenInput.value = '';
+        input.setCustomValidity(query || !options.allowEmpty ? 'Please select an option from the list' : '');
+        if (options.onClear) options.onClear();
+        clearTimeout(timer);
+        if (!query) {
+            hideList();
+            return;
+        }
+        timer = setTimeout(function() {
+            lastQuery = query;
+            fetch(options.url(query))
+                .then(function(response) { return response.json(); })
+                .then(function(data) {
+                    // Ignore responses that arrive after the user kept typing
+                    if (query === lastQuery) render(options.parse ? options.parse(data) : data);
+                })
+                .catch(function(error) {
+                    console.error('Error loading suggestions:', error);
+                    hideList();
+                });
+        }, 200);
+    });
+
+    input.addEventListener('blur', function() {
+        setTimeout(hideList, 150);
+    });
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package com.ezequiel.reiunio.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ezequiel.reiunio.audit.AuditLogWriter.Backpressure;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs an asynchronous audit writer against the test database and checks that entries whose
+ * user no longer exists are discarded, whether they come from the buffer or the spill file,
+ * what each backpressure policy does with a full buffer, and that the spill file is replayed
+ * batch by batch, keeping only what the database rejects.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditLogWriterTest {
+
+    private static final String ENTITY = "WriterTest";
+    private static final long MISSING_USER = 999_999L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs WHERE affected_entity = ?", ENTITY);
+        userRepository.findByUsername("audited").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void discardsEntriesOfMissingUsers() throws IOException {
+        User user = user();
+        Path spillFile = directory.resolve("spill.jsonl");
+        Files.write(spillFile, List.of(
+                objectMapper.writeValueAsString(event(user.getId(), "spilled")),
+                objectMapper.writeValueAsString(event(MISSING_USER, "spilled for a deleted user"))));
+        AuditLogWriter writer = writer(spillFile);
+
+        writer.start();
+        writer.submit(event(user.getId(), "queued"));
+        writer.submit(event(MISSING_USER, "queued for a deleted user"));
+        writer.stop();
+
+        assertEquals(List.of("queued", "spilled"), jdbcTemplate.queryForList(
+                "SELECT description FROM audit_logs WHERE affected_entity = ? ORDER BY description", String.class, ENTITY));
+        assertFalse(Files.exists(spillFile), "spill file replayed");
+        assertEquals(2, meterRegistry.get("reiunio.audit.dropped").counter().count());
+        assertEquals(2, meterRegistry.get("reiunio.audit.written").counter().count());
+    }
+
+    @Test
+    void dropPolicyDiscardsEntriesWhenFull() {
+        long userId = user().getId();
+        Path spillFile = directory.resolve("spill.jsonl");
+        // Not started, so nothing drains the single-entry buffer
+        AuditLogWriter writer = writer(spillFile, 1, 10, Backpressure.DROP, 100);
+
+        writer.submit(event(userId, "kept"));
+        writer.submit(event(userId, "dropped"));
+        writer.submit(event(userId, "dropped too"));
+
+        assertEquals(2, meterRegistry.get("reiunio.audit.dropped").counter().count());
+        assertFalse(Files.exists(spillFile), "nothing spilled");
+        writer.start();
+        writer.stop();
+        assertEquals(List.of("kept"), descriptions());
+    }
+
+    @Test
+    void spillPolicyWritesOverflowToFileAndReplaysIt() throws IOException {
+        long userId = user().getId();
+        Path spillFile = directory.resolve("spill.jsonl");
+        AuditLogWriter writer = writer(spillFile, 1, 10, Backpressure.SPILL, 100);
+
+        writer.submit(event(userId, "a queued"));
+        writer.submit(event(userId, "b spilled"));
+        writer.submit(event(userId, "c spilled"));
+
+        assertEquals(2, meterRegistry.get("reiunio.audit.spilled").counter().count());
+        assertEquals(2, Files.readAllLines(spillFile).size());
+        writer.start();
+        writer.stop();
+        assertEquals(List.of("a queued", "b spilled", "c spilled"), descriptions());
+        assertFalse(Files.exists(spillFile), "spill file replayed");
+        assertEquals(0, meterRegistry.get("reiunio.audit.dropped").counter().count());
+    }
+
+    @Test
+    void blockPolicySpillsAfterTimeout() throws IOException {
+        long userId = user().getId();
+        Path spillFile = directory.resolve("spill.jsonl");
+        AuditLogWriter writer = writer(spillFile, 1, 10, Backpressure.BLOCK, 200);
+        writer.submit(event(userId, "queued"));
+
+        long started = System.nanoTime();
+        writer.submit(event(userId, "spilled"));
+
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(200), "waited for room");
+        assertEquals(1, Files.readAllLines(spillFile).size());
+        assertEquals(1, meterRegistry.get("reiunio.audit.spilled").counter().count());
+    }
+
+    @Test
+    void blockPolicyWaitsForRunningWriter() {
+        long userId = user().getId();
+        AuditLogWriter writer = writer(directory.resolve("spill.jsonl"), 1, 10, Backpressure.BLOCK, 10_000);
+        writer.start();
+
+        for (int i = 0; i < 50; i++) {
+            writer.submit(event(userId, "entry " + i));
+        }
+        writer.stop();
+
+        assertEquals(50, descriptions().size());
+        assertEquals(0, meterRegistry.get("reiunio.audit.spilled").counter().count());
+        assertEquals(0, meterRegistry.get("reiunio.audit.dropped").counter().count());
+    }
+
+    @Test
+    void replaysSpillFileInBatchesKeepingRejectedLines() throws IOException {
+        long userId = user().getId();
+        Path spillFile = directory.resolve("spill.jsonl");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            lines.add(objectMapper.writeValueAsString(event(userId, "spilled " + i)));
+        }
+        // Longer than the column, so the database refuses it
+        String tooLong = objectMapper.writeValueAsString(event(userId, "x".repeat(600)));
+        lines.add(12, tooLong);
+        lines.add(3, "{not json");
+        Files.write(spillFile, lines);
+        AuditLogWriter writer = writer(spillFile, 100, 10, Backpressure.BLOCK, 100);
+
+        writer.start();
+        writer.stop();
+
+        assertEquals(25, descriptions().size());
+        assertEquals(25, meterRegistry.get("reiunio.audit.written").counter().count());
+        assertEquals(List.of(tooLong, "{not json"), Files.readAllLines(spillFile).stream().sorted().toList());
+        assertFalse(Files.exists(directory.resolve("spill.jsonl.rejected")), "side file moved back");
+    }
+
+    @Test
+    void tableKeepsForeignKeyToUsers() {
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO audit_logs (user_id, change_date_time, action_type, affected_entity, description) "
+                        + "VALUES (?, CURRENT_TIMESTAMP, 'CREATION', ?, 'orphan')", MISSING_USER, ENTITY));
+    }
+
+    private AuditLogWriter writer(Path spillFile) {
+        return writer(spillFile, 100, 10, Backpressure.BLOCK, 100);
+    }
+
+    private AuditLogWriter writer(Path spillFile, int queueCapacity, int batchSize,
+                                  Backpressure backpressure, long blockTimeoutMs) {
+        return new AuditLogWriter(jdbcTemplate, transactionTemplate, objectMapper, meterRegistry, true,
+                queueCapacity, batchSize, 50, backpressure, blockTimeoutMs, spillFile.toString());
+    }
+
+    private User user() {
+        return userRepository.save(User.builder()
+                .username("audited")
+                .password("secret")
+                .email("audited@example.com")
+                .firstName("Audited")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+    }
+
+    private List<String> descriptions() {
+        return jdbcTemplate.queryForList(
+                "SELECT description FROM audit_logs WHERE affected_entity = ? ORDER BY description", String.class, ENTITY);
+    }
+
+    private static AuditEvent event(long userId, String description) {
+        return new AuditEvent(userId, LocalDateTime.now(), ActionType.CREATION, ENTITY, null, description);
+    }
+}
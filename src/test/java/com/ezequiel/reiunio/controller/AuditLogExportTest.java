@@ -0,0 +1,183 @@
+package com.ezequiel.reiunio.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Downloads the audit log export as CSV, NDJSON and gzip-compressed NDJSON and checks the
+ * headers, the escaping and that the compressed file holds the same entries.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuditLogExportTest {
+
+    private static final String ENTITY = "ExportTest";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = userRepository.save(User.builder()
+                .username("exportauthor")
+                .password("secret")
+                .email("exportauthor@example.com")
+                .firstName("Export")
+                .lastName("Author")
+                .role(Role.ADMIN)
+                .registrationDate(LocalDate.now())
+                .build());
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 0);
+        insert(start, "CREATION", 1L, "Created game one");
+        insert(start.plusMinutes(1), "MODIFICATION", null, "Renamed to \"Two, too\"\nsecond line");
+        insert(start.plusMinutes(2), "DELETION", 3L, "=HYPERLINK(\"http://example.com\")");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs WHERE affected_entity = ?", ENTITY);
+        userRepository.delete(author);
+    }
+
+    @Test
+    void exportsCsv() throws Exception {
+        MockHttpServletResponse response = export("csv", false);
+
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).endsWith(".csv\""));
+        String csv = response.getContentAsString(StandardCharsets.UTF_8);
+        List<String> rows = List.of(csv.split("\r\n"));
+        assertEquals("id,changeDateTime,actionType,affectedEntity,entityId,userId,username,firstName,lastName,description",
+                rows.get(0));
+        assertEquals(4, rows.size());
+        assertTrue(rows.get(1).endsWith(",CREATION,ExportTest,1," + author.getId()
+                + ",exportauthor,Export,Author,Created game one"), rows.get(1));
+        // Quoted because of the comma, quotes and line break; no entity ID
+        assertTrue(rows.get(2).endsWith(",MODIFICATION,ExportTest,," + author.getId()
+                + ",exportauthor,Export,Author,\"Renamed to \"\"Two, too\"\"\nsecond line\""), rows.get(2));
+        // A spreadsheet would run it as a formula
+        assertTrue(rows.get(3).endsWith(",\"'=HYPERLINK(\"\"http://example.com\"\")\""), rows.get(3));
+    }
+
+    @Test
+    void exportsNdjson() throws Exception {
+        MockHttpServletResponse response = export("ndjson", false);
+
+        assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+        List<JsonNode> entries = entries(response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(List.of("CREATION", "MODIFICATION", "DELETION"),
+                entries.stream().map(entry -> entry.get("actionType").asText()).toList());
+        assertEquals(author.getId(), entries.get(0).get("userId").asLong());
+        assertEquals("exportauthor", entries.get(0).get("username").asText());
+        assertTrue(entries.get(1).get("entityId").isNull());
+        assertEquals("Renamed to \"Two, too\"\nsecond line", entries.get(1).get("description").asText());
+        assertEquals("=HYPERLINK(\"http://example.com\")", entries.get(2).get("description").asText());
+    }
+
+    @Test
+    void exportsGzip() throws Exception {
+        byte[] plain = export("ndjson", false).getContentAsByteArray();
+
+        MockHttpServletResponse response = export("ndjson", true);
+
+        assertEquals("application/gzip", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).endsWith(".ndjson.gz\""));
+        assertArrayEquals(plain, gunzip(response.getContentAsByteArray()));
+        assertEquals(3, entries(new String(plain, StandardCharsets.UTF_8)).size());
+    }
+
+    @Test
+    void filtersByActionType() throws Exception {
+        MockHttpServletResponse response = perform(get("/audit-logs/export")
+                .param("format", "ndjson").param("entity", ENTITY).param("actionType", "deletion"));
+
+        List<JsonNode> entries = entries(response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(1, entries.size());
+        assertEquals(3L, entries.get(0).get("entityId").asLong());
+    }
+
+    @Test
+    void rejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/audit-logs/export").param("format", "xml")
+                        .with(user(author.getUsername()).roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(String format, boolean gzip) throws Exception {
+        return perform(get("/audit-logs/export")
+                .param("format", format).param("gzip", String.valueOf(gzip)).param("entity", ENTITY));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.with(user(author.getUsername()).roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+
+    private List<JsonNode> entries(String ndjson) throws IOException {
+        List<JsonNode> entries = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            entries.add(objectMapper.readTree(line));
+        }
+        return entries;
+    }
+
+    private void insert(LocalDateTime changeDateTime, String actionType, Long entityId, String description) {
+        jdbcTemplate.update("INSERT INTO audit_logs (user_id, change_date_time, action_type, affected_entity, "
+                + "entity_id, description) VALUES (?, ?, ?, ?, ?, ?)",
+                author.getId(), Timestamp.valueOf(changeDateTime), actionType, ENTITY, entityId, description);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return input.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ezequiel.reiunio.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ezequiel.reiunio.entity.User;
+
+/**
+ * Requests default avatars through {@code /avatars} without being logged in.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AvatarControllerTest {
+
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void servesSvgAvatarAsImmutable() throws Exception {
+        mockMvc.perform(get("/avatars/JD.svg").param("background", "007bff"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/svg+xml"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andExpect(content().string(containsString("fill=\"#007bff\"")))
+                .andExpect(content().string(containsString(">JD</text>")));
+    }
+
+    @Test
+    void servesPngAvatarAtVariantSize() throws Exception {
+        byte[] png = mockMvc.perform(get("/avatars/JD.png").param("size", "40"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(64, image.getWidth());
+        assertEquals(64, image.getHeight());
+    }
+
+    @Test
+    void rejectsInvalidColor() throws Exception {
+        for (String color : new String[] {"blue", "12345", "00ff00zz"}) {
+            mockMvc.perform(get("/avatars/JD.svg").param("background", color))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void answersUnknownFormatWithNotFound() throws Exception {
+        mockMvc.perform(get("/avatars/JD.gif"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void defaultAvatarUrlOfUserIsServed() throws Exception {
+        User user = User.builder().firstName("Jane").lastName("Doe").build();
+
+        mockMvc.perform(get(user.getDefaultAvatarUrl()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(">JD</text>")));
+    }
+}
@@ -0,0 +1,131 @@
+package com.ezequiel.reiunio.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.AuditLogRepository;
+import com.ezequiel.reiunio.repository.GameSessionPlayerRepository;
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+/**
+ * Fires concurrent join requests at a session with few seats and checks that the seat
+ * counter and the registered players never exceed the session capacity.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GameSessionJoinLoadTest {
+
+    private static final int MAX_PLAYERS = 5;
+    private static final int USERS = 60;
+    private static final int THREADS = 24;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private GameSessionPlayerRepository gameSessionPlayerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @AfterEach
+    void cleanUp() {
+        auditLogRepository.deleteAll();
+        gameSessionPlayerRepository.deleteAll();
+        gameSessionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentJoinsNeverOversubscribeSession() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("joiner" + i)
+                    .password("secret")
+                    .email("joiner" + i + "@example.com")
+                    .firstName("Joiner " + i)
+                    .role(Role.BASIC_USER)
+                    .registrationDate(LocalDate.now())
+                    .build()));
+        }
+        GameSession session = gameSessionRepository.save(GameSession.builder()
+                .creator(users.get(0))
+                .customGameName("Load test game")
+                .title("Load test session")
+                .startDate(LocalDate.now().plusDays(1))
+                .startTime(LocalTime.of(18, 0))
+                .endDate(LocalDate.now().plusDays(1))
+                .endTime(LocalTime.of(21, 0))
+                .maxPlayers(MAX_PLAYERS)
+                .build());
+        String joinUrl = "/game-sessions/" + session.getId() + "/join";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (User user : users) {
+                // Every user tries twice, so duplicate joins race as well
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        mockMvc.perform(post(joinUrl).with(user(user.getUsername()).roles("BASIC_USER")))
+                                .andExpect(status().is3xxRedirection());
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        GameSession joined = gameSessionRepository.findById(session.getId()).orElseThrow();
+        assertEquals(MAX_PLAYERS, joined.getConfirmedPlayers());
+        assertEquals(MAX_PLAYERS, gameSessionPlayerRepository.countByGameSession(joined));
+
+        User leaver = gameSessionPlayerRepository.findByGameSession(joined).get(0).getUser();
+        mockMvc.perform(post("/game-sessions/" + session.getId() + "/leave")
+                        .with(user(leaver.getUsername()).roles("BASIC_USER")))
+                .andExpect(status().is3xxRedirection());
+
+        GameSession left = gameSessionRepository.findById(session.getId()).orElseThrow();
+        assertEquals(MAX_PLAYERS - 1, left.getConfirmedPlayers());
+        assertEquals(MAX_PLAYERS - 1, gameSessionPlayerRepository.countByGameSession(left));
+    }
+}
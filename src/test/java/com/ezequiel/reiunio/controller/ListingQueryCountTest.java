@@ -0,0 +1,171 @@
+package com.ezequiel.reiunio.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.GameSessionPlayer;
+import com.ezequiel.reiunio.entity.Loan;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.GameSessionPlayerRepository;
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Renders the session and loan listings over a data set with many distinct users and games
+ * and checks that the number of SQL statements does not grow with the number of rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListingQueryCountTest {
+
+    private static final int USERS = 12;
+    private static final int GAMES = 12;
+    private static final int SESSIONS = 20;
+    private static final int PLAYERS_PER_SESSION = 3;
+
+    /** Listing query, a count query for paged views, and the current user lookup */
+    private static final long MAX_STATEMENTS = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private GameSessionPlayerRepository gameSessionPlayerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("lister" + i)
+                    .password("secret")
+                    .email("lister" + i + "@example.com")
+                    .firstName("Lister " + i)
+                    .role(i == 0 ? Role.ADMIN : Role.BASIC_USER)
+                    .registrationDate(LocalDate.now())
+                    .build()));
+        }
+        admin = users.get(0);
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            games.add(gameRepository.save(Game.builder()
+                    .name("Listed game " + i)
+                    .minPlayers(2)
+                    .maxPlayers(6)
+                    .durationMinutes(45)
+                    .state(GameState.GOOD)
+                    .build()));
+        }
+        for (int i = 0; i < SESSIONS; i++) {
+            GameSession session = gameSessionRepository.save(GameSession.builder()
+                    .creator(users.get(i % USERS))
+                    .game(games.get(i % GAMES))
+                    .customGameName(games.get(i % GAMES).getName())
+                    .title("Session " + i)
+                    .startDate(LocalDate.now().plusDays(i % 5))
+                    .startTime(LocalTime.of(18, 0))
+                    .endDate(LocalDate.now().plusDays(i % 5))
+                    .endTime(LocalTime.of(22, 0))
+                    .maxPlayers(6)
+                    .build());
+            for (int p = 0; p < PLAYERS_PER_SESSION; p++) {
+                gameSessionPlayerRepository.save(GameSessionPlayer.builder()
+                        .gameSession(session)
+                        .user(users.get((i + p) % USERS))
+                        .confirmed(true)
+                        .build());
+            }
+        }
+        for (int i = 0; i < GAMES; i++) {
+            loanRepository.save(Loan.builder()
+                    .user(users.get(i % USERS))
+                    .game(games.get(i))
+                    .loanDate(LocalDate.now().minusDays(i))
+                    .estimatedReturnDate(LocalDate.now().plusDays(7))
+                    .status(LoanStatus.ACTIVE)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        loanRepository.deleteAll();
+        gameSessionPlayerRepository.deleteAll();
+        gameSessionRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void sessionListingUsesConstantNumberOfStatements() throws Exception {
+        assertThat(statementsFor(get("/game-sessions"))).isLessThanOrEqualTo(MAX_STATEMENTS);
+        assertThat(statementsFor(get("/game-sessions").param("filter", "upcoming"))).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void profileUsesConstantNumberOfStatements() throws Exception {
+        // Profile shows loans, sessions as player and sessions created, plus the user itself
+        assertThat(statementsFor(get("/users/profile"))).isLessThanOrEqualTo(MAX_STATEMENTS + 2);
+    }
+
+    @Test
+    void loanListingUsesConstantNumberOfStatements() throws Exception {
+        assertThat(statementsFor(get("/loans"))).isLessThanOrEqualTo(MAX_STATEMENTS);
+        assertThat(statementsFor(get("/loans").param("status", "ACTIVE"))).isLessThanOrEqualTo(MAX_STATEMENTS);
+        assertThat(statementsFor(get("/loans").param("keyset", "true"))).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request.with(user(admin.getUsername()).roles("ADMIN")))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
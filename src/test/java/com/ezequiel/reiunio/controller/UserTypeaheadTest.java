@@ -0,0 +1,97 @@
+package com.ezequiel.reiunio.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.search.UserSearchIndex;
+
+/**
+ * Checks that the user typeahead only exposes IDs and display names, and that the loan form
+ * gets the details of the user picked from its own endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserTypeaheadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    private User picked;
+
+    @BeforeEach
+    void setUp() {
+        picked = userRepository.save(User.builder()
+                .username("typeahead1")
+                .password("secret")
+                .email("typeahead1@example.com")
+                .firstName("Tia")
+                .lastName("Head")
+                .role(Role.EXTENDED_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+        userRepository.save(User.builder()
+                .username("typeahead2")
+                .password("secret")
+                .email("typeahead2@example.com")
+                .firstName("Second")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+        userSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+        userSearchIndex.rebuild();
+    }
+
+    @Test
+    void suggestionsHoldOnlyIdAndDisplayName() throws Exception {
+        mockMvc.perform(get("/users/api/users/search").param("q", "typeahead").with(user("picker").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.results[0].length()").value(2))
+                .andExpect(jsonPath("$.results[0].id").value(picked.getId()))
+                .andExpect(jsonPath("$.results[0].displayName").value("Tia Head (@typeahead1)"))
+                .andExpect(jsonPath("$.results[1].displayName").value("Second (@typeahead2)"))
+                .andExpect(jsonPath("$.results[0].email").doesNotExist())
+                .andExpect(jsonPath("$.results[0].role").doesNotExist());
+    }
+
+    @Test
+    void loanFormLoadsDetailsOfPickedUser() throws Exception {
+        mockMvc.perform(get("/loans/api/user-info/{id}", picked.getId()).with(user("picker").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("typeahead1"))
+                .andExpect(jsonPath("$.email").value("typeahead1@example.com"))
+                .andExpect(jsonPath("$.role").value("EXTENDED_USER"));
+        mockMvc.perform(get("/loans/api/user-info/{id}", picked.getId()).with(user("member").roles("BASIC_USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/loans/api/user-info/{id}", 999_999L).with(user("picker").roles("ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+}
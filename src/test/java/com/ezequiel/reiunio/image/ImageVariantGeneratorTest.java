@@ -0,0 +1,183 @@
+package com.ezequiel.reiunio.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.enums.ImageSize;
+import com.ezequiel.reiunio.service.FileUploadService;
+
+/**
+ * Uploads photos into a temporary upload directory with variants enabled, and checks the size
+ * and orientation of the variants generated in the background and that deleting the photo
+ * deletes every variant with it.
+ */
+@SpringBootTest(properties = {
+        "app.upload.dir=" + ImageVariantGeneratorTest.UPLOAD_DIR,
+        "app.images.variants.enabled=true",
+        // Uploads are deleted right after being stored, not a minute later
+        "app.upload.reuse-grace=PT0S"
+})
+@ActiveProfiles("test")
+class ImageVariantGeneratorTest {
+
+    static final String UPLOAD_DIR = "target/image-variant-test/uploads";
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+    private static final int ORIENTATION_TURNED_CLOCKWISE = 6;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    private final Path uploadRoot = Paths.get(UPLOAD_DIR);
+
+    @BeforeEach
+    void clearUploads() {
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @Test
+    void scalesLongestSideOfEachVariant() throws Exception {
+        String path = upload(jpeg(2000, 1000), "landscape.jpg");
+
+        assertSize(variant(path, ImageSize.LARGE), 1024, 512);
+        assertSize(variant(path, ImageSize.MEDIUM), 256, 128);
+        assertSize(variant(path, ImageSize.SMALL), 64, 32);
+    }
+
+    @Test
+    void neverUpscalesSmallImages() throws Exception {
+        String path = upload(jpeg(100, 50), "small.jpg");
+
+        assertSize(variant(path, ImageSize.LARGE), 100, 50);
+        assertSize(variant(path, ImageSize.MEDIUM), 100, 50);
+        assertSize(variant(path, ImageSize.SMALL), 64, 32);
+    }
+
+    @Test
+    void turnsVariantsUprightUsingExifOrientation() throws Exception {
+        // Stored sideways, red on the left: upright, it is portrait with red on top
+        String path = upload(withOrientation(jpeg(2000, 1000), ORIENTATION_TURNED_CLOCKWISE), "sideways.jpg");
+
+        for (ImageSize size : ImageSize.values()) {
+            BufferedImage image = variant(path, size);
+            assertTrue(image.getHeight() > image.getWidth(), size + " is portrait");
+            assertEquals(size.getPixels(), image.getHeight(), size + " height");
+            assertTrue(isRed(image.getRGB(image.getWidth() / 2, image.getHeight() / 4)), size + " red on top");
+            assertFalse(isRed(image.getRGB(image.getWidth() / 2, image.getHeight() * 3 / 4)), size + " blue below");
+        }
+    }
+
+    @Test
+    void deletesEveryVariantWithTheOriginal() throws Exception {
+        String path = upload(jpeg(2000, 1000), "deleted.jpg");
+        for (ImageSize size : ImageSize.values()) {
+            variant(path, size);
+        }
+
+        assertTrue(fileUploadService.deleteFile(path));
+
+        assertFalse(Files.exists(file(path)), "original");
+        for (ImageSize size : ImageSize.values()) {
+            assertFalse(Files.exists(file(size.variantOf(path))), size + " variant");
+        }
+    }
+
+    private String upload(byte[] image, String fileName) throws IOException {
+        return fileUploadService.uploadGamePhoto(new MockMultipartFile("file", fileName, "image/jpeg", image), 1L);
+    }
+
+    /**
+     * Waits for a variant to be generated and decodes it.
+     */
+    private BufferedImage variant(String path, ImageSize size) throws Exception {
+        Path variant = file(size.variantOf(path));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!Files.exists(variant)) {
+            assertTrue(System.currentTimeMillis() < deadline, size + " variant not generated");
+            Thread.sleep(50);
+        }
+        return ImageIO.read(variant.toFile());
+    }
+
+    private Path file(String path) {
+        return uploadRoot.resolve(path.substring("/uploads/".length()));
+    }
+
+    private static void assertSize(BufferedImage image, int width, int height) {
+        assertEquals(width, image.getWidth(), "width");
+        assertEquals(height, image.getHeight(), "height");
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 80;
+    }
+
+    /**
+     * Encodes a JPEG whose left half is red and right half blue.
+     */
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.RED);
+            graphics.fillRect(0, 0, width / 2, height);
+            graphics.setColor(Color.BLUE);
+            graphics.fillRect(width / 2, 0, width - width / 2, height);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Inserts an Exif APP1 segment holding only the orientation right after the SOI marker.
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer segment = ByteBuffer.allocate(2 + 2 + exif.length + 8 + 2 + 12 + 4);
+        segment.putShort((short) 0xFFE1).putShort((short) (segment.capacity() - 2)).put(exif);
+        // Big-endian TIFF header, first IFD right after it
+        segment.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        // One SHORT entry: the orientation
+        segment.putShort((short) 1).putShort((short) 0x0112).putShort((short) 3).putInt(1)
+                .putShort((short) orientation).putShort((short) 0);
+        segment.putInt(0);
+
+        byte[] result = new byte[jpeg.length + segment.capacity()];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(segment.array(), 0, result, 2, segment.capacity());
+        System.arraycopy(jpeg, 2, result, 2 + segment.capacity(), jpeg.length - 2);
+        return result;
+    }
+}
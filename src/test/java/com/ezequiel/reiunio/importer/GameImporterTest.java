@@ -0,0 +1,159 @@
+package com.ezequiel.reiunio.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.search.GameSearchIndex;
+import com.ezequiel.reiunio.service.GameService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validator;
+
+/**
+ * Imports CSV and JSON-lines files with malformed rows, and a batch the database refuses,
+ * and checks what is imported, what is reported and that the search index sees the result.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GameImporterTest {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameSearchIndex gameSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+        gameSearchIndex.rebuild();
+    }
+
+    @Test
+    void rejectsMalformedCsvRows() throws IOException {
+        String csv = """
+                name;min_players;max_players;duration;available;acquisition_date;state
+                Azul;2;4;45;yes;2023-05-01;new
+                Maybe Game;2;4;45;maybe;;
+                Bad Date;2;4;45;;2023-13-45;
+                Few Players;5;2;30;;;
+                No Duration;2;4;;;;
+                Not A Number;two;4;30;;;
+                Bad State;2;4;30;;;broken
+                "Quoted; Name";1;1;10;no;;good
+                """;
+
+        GameImportReport report = gameService.importGames(stream(csv), GameImportFormat.CSV);
+
+        assertEquals(8, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(6, report.getRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L),
+                report.getErrors().stream().map(GameImportReport.RowError::line).toList());
+        assertTrue(report.getErrors().get(0).message().contains("available: 'maybe' is not true or false"));
+        assertTrue(report.getErrors().get(1).message().contains("acquisitionDate"));
+        assertTrue(report.getErrors().get(2).message().contains("must not be greater than maxPlayers"));
+        assertTrue(report.getErrors().get(3).message().startsWith("durationMinutes"));
+        assertTrue(report.getErrors().get(4).message().contains("'two' is not a whole number"));
+        assertTrue(report.getErrors().get(5).message().startsWith("state"));
+        assertEquals(List.of("Azul", "Quoted; Name"),
+                gameRepository.findAll().stream().map(Game::getName).sorted().toList());
+        assertEquals(false, gameRepository.findAll().stream()
+                .filter(game -> game.getName().startsWith("Quoted")).findFirst().orElseThrow().getAvailable());
+    }
+
+    @Test
+    void rejectsMalformedJsonLines() throws IOException {
+        String jsonl = """
+                {"name": "Patchwork", "minPlayers": 2, "maxPlayers": 2, "durationMinutes": 30}
+                {"name": "Broken", "minPlayers": 2,
+                ["not", "an", "object"]
+                {"name": "Too Long Name %s", "minPlayers": 2, "maxPlayers": 4, "durationMinutes": 30}
+                {"name": "Not Sure", "minPlayers": 2, "maxPlayers": 4, "durationMinutes": 30, "available": "perhaps"}
+                """.formatted("x".repeat(100));
+
+        GameImportReport report = gameService.importGames(stream(jsonl), GameImportFormat.JSON_LINES);
+
+        assertEquals(5, report.getRowsRead());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(2L, 3L, 4L, 5L),
+                report.getErrors().stream().map(GameImportReport.RowError::line).toList());
+        assertTrue(report.getErrors().get(0).message().startsWith("Invalid JSON"));
+        assertTrue(report.getErrors().get(2).message().startsWith("name: size must be between"));
+        assertEquals(List.of("Patchwork"), gameRepository.findAll().stream().map(Game::getName).toList());
+    }
+
+    @Test
+    void retriesRefusedBatchRowByRow() throws IOException {
+        GameImporter importer = new GameImporter(jdbcTemplate, transactionTemplate, objectMapper, validator, 3, 100);
+        jdbcTemplate.execute("ALTER TABLE games ADD CONSTRAINT chk_import_test CHECK (name <> 'Refused')");
+        try {
+            String csv = """
+                    name,min_players,max_players,duration
+                    First,2,4,30
+                    Refused,2,4,30
+                    Third,2,4,30
+                    Fourth,2,4,30
+                    """;
+
+            GameImportReport report = importer.importGames(stream(csv), GameImportFormat.CSV);
+
+            assertEquals(3, report.getImported());
+            assertEquals(1, report.getRejected());
+            assertEquals(3L, report.getErrors().get(0).line());
+            assertEquals(List.of("First", "Fourth", "Third"),
+                    gameRepository.findAll().stream().map(Game::getName).sorted().toList());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE games DROP CONSTRAINT chk_import_test");
+        }
+    }
+
+    @Test
+    void importedGamesAreSearchable() throws IOException {
+        assertTrue(gameSearchIndex.isReady());
+        String csv = """
+                name,min_players,max_players,duration,category
+                Wingspan,1,5,70,Engine building
+                """;
+
+        gameService.importGames(stream(csv), GameImportFormat.CSV);
+
+        Long id = gameRepository.findAll().get(0).getId();
+        assertEquals(List.of(id), gameSearchIndex.search("wingsp", null, null, null, null, null));
+        assertEquals(List.of(id), gameSearchIndex.search("engine", null, true, null, 3, null));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
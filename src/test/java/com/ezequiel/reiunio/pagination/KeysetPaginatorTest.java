@@ -0,0 +1,167 @@
+package com.ezequiel.reiunio.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Walks the games listing forward and backward with keyset and offset cursors, and checks
+ * that cursors which do not decode or do not match the sort are rejected.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class KeysetPaginatorTest {
+
+    private static final int GAMES = 25;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private List<Game> games;
+
+    @BeforeEach
+    void setUp() {
+        games = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            games.add(gameRepository.save(Game.builder()
+                    // Repeated names, so the id tie-breaker decides the order within them
+                    .name("Paged game " + (i % 8))
+                    .category(i % 3 == 0 ? null : "Category " + (i % 4))
+                    .minPlayers(2)
+                    .maxPlayers(4)
+                    .durationMinutes(30)
+                    .state(GameState.GOOD)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+    }
+
+    @Test
+    void keysetCursorsWalkEveryRowOnceInBothDirections() throws Exception {
+        Sort sort = Sort.by("name").descending();
+        List<Long> expected = games.stream()
+                .sorted(Comparator.comparing(Game::getName).reversed().thenComparing(Game::getId))
+                .map(Game::getId)
+                .toList();
+
+        List<CursorPage<Game>> pages = walk(sort);
+
+        assertEquals(expected, ids(pages));
+        assertTrue(cursor(pages.get(0).getNextCursor()).has("k"), "keyset cursor");
+        assertNull(pages.get(0).getPreviousCursor());
+        assertNull(pages.get(pages.size() - 1).getNextCursor());
+
+        CursorPage<Game> back = fetch(sort, pages.get(2).getPreviousCursor());
+        assertEquals(ids(List.of(pages.get(1))), ids(List.of(back)));
+        CursorPage<Game> first = fetch(sort, back.getPreviousCursor());
+        assertEquals(ids(List.of(pages.get(0))), ids(List.of(first)));
+        assertNull(first.getPreviousCursor());
+        assertEquals(ids(List.of(pages.get(1))), ids(List.of(fetch(sort, first.getNextCursor()))));
+    }
+
+    @Test
+    void nullableSortFallsBackToOffsetCursors() throws Exception {
+        Sort sort = Sort.by("category");
+
+        List<CursorPage<Game>> pages = walk(sort);
+
+        assertTrue(cursor(pages.get(0).getNextCursor()).has("o"), "offset cursor");
+        // Keyset comparisons would have skipped the games without a category
+        assertEquals(GAMES, ids(pages).size());
+        assertEquals(GAMES, ids(pages).stream().distinct().count());
+        assertEquals(ids(List.of(pages.get(0))), ids(List.of(fetch(sort, pages.get(1).getPreviousCursor()))));
+    }
+
+    @Test
+    void rejectsMalformedAndMismatchedCursors() throws Exception {
+        String nameCursor = fetch(Sort.by("name"), null).getNextCursor();
+        String offsetCursor = fetch(Sort.by("category"), null).getNextCursor();
+        String negativeOffset = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"o\":-5}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("name"), "%%not-base64%%"));
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("name"), "bm90IGpzb24"));
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("durationMinutes"), nameCursor));
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("name"), offsetCursor));
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("category"), nameCursor));
+        assertThrows(InvalidCursorException.class, () -> fetch(Sort.by("category"), negativeOffset));
+    }
+
+    @Test
+    void listingAnswersBadRequestForInvalidCursor() throws Exception {
+        String nameCursor = fetch(Sort.by("name"), null).getNextCursor();
+
+        mockMvc.perform(get("/games").param("cursor", nameCursor).with(user("pager")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/games").param("cursor", "garbage").with(user("pager")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/games").param("cursor", nameCursor).param("sortBy", "durationMinutes")
+                        .with(user("pager")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<CursorPage<Game>> walk(Sort sort) {
+        List<CursorPage<Game>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Game> page = fetch(sort, cursor);
+            pages.add(page);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private CursorPage<Game> fetch(Sort sort, String cursor) {
+        return keysetPaginator.fetch(gameRepository, Game.class, Specification.where(null), sort, PAGE_SIZE, cursor, false);
+    }
+
+    private JsonNode cursor(String cursor) throws Exception {
+        return objectMapper.readTree(Base64.getUrlDecoder().decode(cursor));
+    }
+
+    private static List<Long> ids(List<CursorPage<Game>> pages) {
+        return pages.stream().flatMap(page -> page.getContent().stream()).map(Game::getId).toList();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ezequiel.reiunio.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.service.GameSessionService;
+
+/**
+ * Checks that sessions finished by the expiry sweep leave the index, and that evicting a
+ * game also forgets its sessions.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GameScheduleIndexTest {
+
+    @Autowired
+    private GameScheduleIndex gameScheduleIndex;
+
+    @Autowired
+    private GameSessionService gameSessionService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User creator;
+
+    @BeforeEach
+    void setUp() {
+        creator = userRepository.save(User.builder()
+                .username("schedulecreator")
+                .password("secret")
+                .email("schedulecreator@example.com")
+                .firstName("Schedule")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameSessionRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.delete(creator);
+        gameScheduleIndex.refresh();
+    }
+
+    @Test
+    void sweepDropsFinishedSessions() {
+        Game game = gameRepository.save(game("Swept game"));
+        session(game, LocalDate.now().plusDays(1));
+        LocalDate today = LocalDate.now();
+        assertTrue(gameScheduleIndex.hasUpcomingSessions(game.getId(), today));
+
+        assertEquals(1, gameSessionService.finishExpiredSessions(LocalDateTime.now().plusDays(2)));
+
+        assertFalse(gameScheduleIndex.hasUpcomingSessions(game.getId(), today));
+        assertEquals(0, gameScheduleIndex.mappedRecords());
+    }
+
+    @Test
+    void evictionForgetsSessionsOfTheGame() {
+        GameScheduleIndex index = new GameScheduleIndex(gameSessionRepository, loanRepository, 1);
+        Game first = gameRepository.save(game("First game"));
+        Game second = gameRepository.save(game("Second game"));
+        session(first, LocalDate.now().plusDays(1));
+        session(first, LocalDate.now().plusDays(2));
+        session(second, LocalDate.now().plusDays(3));
+
+        assertTrue(index.hasUpcomingSessions(first.getId(), LocalDate.now()));
+        assertEquals(2, index.mappedRecords());
+        assertTrue(index.hasUpcomingSessions(second.getId(), LocalDate.now()));
+
+        assertEquals(1, index.mappedRecords());
+    }
+
+    private void session(Game game, LocalDate day) {
+        gameSessionRepository.save(GameSession.builder()
+                .creator(creator)
+                .game(game)
+                .customGameName(game.getName())
+                .title(game.getName() + " session")
+                .startDate(day)
+                .startTime(LocalTime.NOON)
+                .endDate(day)
+                .endTime(LocalTime.NOON.plusHours(2))
+                .maxPlayers(4)
+                .build());
+    }
+
+    private static Game game(String name) {
+        return Game.builder()
+                .name(name)
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.ezequiel.reiunio.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+/**
+ * Runs the upload collector over a temporary upload directory, with the references held by
+ * game rows in the test database.
+ */
+@SpringBootTest(properties = {
+        "app.upload.dir=" + OrphanedUploadCollectorTest.UPLOAD_DIR,
+        "app.upload.gc.quarantine-dir=" + OrphanedUploadCollectorTest.QUARANTINE_DIR,
+        "app.upload.gc.grace-period=P1D"})
+@ActiveProfiles("test")
+class OrphanedUploadCollectorTest {
+
+    static final String UPLOAD_DIR = "target/upload-gc-test/uploads";
+    static final String QUARANTINE_DIR = "target/upload-gc-test/quarantine";
+
+    private static final String REFERENCED = "games/aa/aa/" + "a".repeat(64) + ".jpg";
+    private static final String REFERENCED_VARIANT = "games/aa/aa/" + "a".repeat(64) + "_256.jpg";
+    private static final String OLD_ORPHAN = "games/bb/bb/" + "b".repeat(64) + ".jpg";
+    private static final String YOUNG_ORPHAN = "games/cc/cc/" + "c".repeat(64) + ".jpg";
+    private static final String STALE_TEMP = "games/.upload123.tmp";
+
+    @Autowired
+    private OrphanedUploadCollector collector;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private final Path uploadRoot = Paths.get(UPLOAD_DIR);
+    private final Path quarantineRoot = Paths.get(QUARANTINE_DIR);
+
+    @BeforeEach
+    void createUploads() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadRoot.getParent());
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(3)));
+        for (String file : new String[] {REFERENCED, REFERENCED_VARIANT, OLD_ORPHAN, STALE_TEMP}) {
+            Files.setLastModifiedTime(write(file), old);
+        }
+        write(YOUNG_ORPHAN);
+
+        gameRepository.save(Game.builder()
+                .name("Collected game")
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .imagePath("/uploads/" + REFERENCED)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        gameRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(uploadRoot.getParent());
+    }
+
+    @Test
+    void removesOnlyOldUnreferencedFiles() throws IOException {
+        OrphanedUploadCollector.Report report = collector.collect();
+
+        assertTrue(Files.exists(uploadRoot.resolve(REFERENCED)), "referenced file");
+        assertTrue(Files.exists(uploadRoot.resolve(REFERENCED_VARIANT)), "variant of a referenced file");
+        assertTrue(Files.exists(uploadRoot.resolve(YOUNG_ORPHAN)), "orphan within the grace period");
+
+        assertFalse(Files.exists(uploadRoot.resolve(OLD_ORPHAN)), "old orphan");
+        assertTrue(Files.exists(quarantineRoot.resolve(OLD_ORPHAN)), "old orphan in quarantine");
+
+        assertFalse(Files.exists(uploadRoot.resolve(STALE_TEMP)), "stale temporary file");
+        assertFalse(Files.exists(quarantineRoot.resolve(STALE_TEMP)), "temporary file is not quarantined");
+
+        assertEquals(1, report.references());
+        assertEquals(5, report.scannedFiles());
+        assertEquals(2, report.removedFiles());
+    }
+
+    @Test
+    void keepsFilesReferencedAgainBeforeTheSweep() throws IOException {
+        gameRepository.save(Game.builder()
+                .name("Late reference")
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .imagePath("/uploads/" + OLD_ORPHAN)
+                .build());
+
+        collector.collect();
+
+        assertTrue(Files.exists(uploadRoot.resolve(OLD_ORPHAN)));
+        assertFalse(Files.exists(quarantineRoot.resolve(OLD_ORPHAN)));
+    }
+
+    private Path write(String relative) throws IOException {
+        Path file = uploadRoot.resolve(relative);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, relative.getBytes());
+    }
+}
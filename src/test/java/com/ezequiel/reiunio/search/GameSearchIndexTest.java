@@ -0,0 +1,97 @@
+package com.ezequiel.reiunio.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+/**
+ * Compares the games the index finds with those the SQL {@code LIKE '%term%'} query finds,
+ * for substrings, short terms, several words and combined filters.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GameSearchIndexTest {
+
+    private static final List<String> TERMS = List.of("tan", "Catan", "cat", "ride", "to r", "ket to", "a", "ar",
+            "strategy", "co-op", "SEA", "xyz", "", "  catan  ");
+
+    @Autowired
+    private GameSearchIndex gameSearchIndex;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @BeforeEach
+    void setUp() {
+        gameRepository.saveAll(List.of(
+                game("Catan", "Strategy", "Trade and build settlements", 3, 4, 90, GameState.GOOD),
+                game("Catan: Seafarers", "Strategy", "Expansion with ships on the sea", 3, 4, 120, GameState.NEW),
+                game("Ticket to Ride", "Family", "Claim railway routes across the map", 2, 5, 60, GameState.GOOD),
+                game("Pandemic", "Co-op", "Cure diseases before they spread; a catastrophe awaits", 2, 4, 45, GameState.ACCEPTABLE),
+                game("Carcassonne", "Tile placement", null, 2, 5, 35, GameState.GOOD)));
+        gameSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+        gameSearchIndex.rebuild();
+    }
+
+    @Test
+    void findsTheSameGamesAsSql() {
+        for (String term : TERMS) {
+            assertSameGames(term, null, null, null, null, null);
+            assertSameGames(term, "strategy", null, null, null, null);
+            assertSameGames(term, null, true, GameState.GOOD, null, null);
+            assertSameGames(term, null, null, null, 5, null);
+            assertSameGames(term, null, null, null, null, 45);
+        }
+    }
+
+    @Test
+    void ranksNameMatchesFirst() {
+        List<Long> ids = gameSearchIndex.search("cat", null, null, null, null, null);
+
+        assertEquals(List.of("Catan", "Catan: Seafarers", "Pandemic"),
+                ids.stream().map(id -> gameRepository.findById(id).orElseThrow().getName()).toList());
+    }
+
+    private void assertSameGames(String term, String category, Boolean available, GameState state,
+                                 Integer playerCount, Integer duration) {
+        Set<Long> expected = new HashSet<>();
+        gameRepository.searchGames(term.trim(), category, available, state, playerCount, duration)
+                .forEach(game -> expected.add(game.getId()));
+
+        Set<Long> found = new HashSet<>(gameSearchIndex.search(term, category, available, state, playerCount, duration));
+
+        assertEquals(expected, found, "term '" + term + "', category " + category + ", available " + available
+                + ", state " + state + ", players " + playerCount + ", duration " + duration);
+    }
+
+    private static Game game(String name, String category, String description, int minPlayers, int maxPlayers,
+                             int duration, GameState state) {
+        return Game.builder()
+                .name(name)
+                .category(category)
+                .description(description)
+                .minPlayers(minPlayers)
+                .maxPlayers(maxPlayers)
+                .durationMinutes(duration)
+                .state(state)
+                .build();
+    }
+}
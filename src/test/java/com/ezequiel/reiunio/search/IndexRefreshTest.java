@@ -0,0 +1,124 @@
+package com.ezequiel.reiunio.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameSession;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.GameSessionRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.schedule.GameScheduleIndex;
+
+/**
+ * Saves rows straight through the repositories, as another node would, and checks that the
+ * in-memory indexes only see them after their periodic refresh.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IndexRefreshTest {
+
+    @Autowired
+    private GameSearchIndex gameSearchIndex;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private GameScheduleIndex gameScheduleIndex;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameSessionRepository gameSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        gameSessionRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.findByUsername("remotenode").ifPresent(userRepository::delete);
+        gameSearchIndex.rebuild();
+        userSearchIndex.rebuild();
+        gameScheduleIndex.refresh();
+    }
+
+    @Test
+    void searchIndexesPickUpRemoteWrites() {
+        Game game = gameRepository.save(game("Remote Refresh"));
+        User user = userRepository.save(user("remotenode"));
+
+        assertFalse(gameSearchIndex.search("remote", null, null, null, null, null).contains(game.getId()));
+        assertFalse(userSearchIndex.search("remotenode", null).contains(user.getId()));
+
+        gameSearchIndex.refresh();
+        userSearchIndex.refresh();
+
+        assertEquals(List.of(game.getId()), gameSearchIndex.search("remote", null, null, null, null, null));
+        assertEquals(List.of(user.getId()), userSearchIndex.search("remotenode", null));
+    }
+
+    @Test
+    void scheduleIndexPicksUpRemoteSessions() {
+        Game game = gameRepository.save(game("Remote Schedule"));
+        User creator = userRepository.save(user("remotenode"));
+        LocalDate day = LocalDate.now().plusDays(3);
+        assertFalse(gameScheduleIndex.hasUpcomingSessions(game.getId(), LocalDate.now()));
+
+        gameSessionRepository.save(GameSession.builder()
+                .creator(creator)
+                .game(game)
+                .customGameName(game.getName())
+                .title("Remote session")
+                .startDate(day)
+                .startTime(LocalTime.NOON)
+                .endDate(day)
+                .endTime(LocalTime.NOON.plusHours(2))
+                .maxPlayers(4)
+                .build());
+        assertFalse(gameScheduleIndex.hasUpcomingSessions(game.getId(), LocalDate.now()));
+
+        gameScheduleIndex.refresh();
+
+        assertTrue(gameScheduleIndex.hasUpcomingSessions(game.getId(), LocalDate.now()));
+    }
+
+    private static Game game(String name) {
+        return Game.builder()
+                .name(name)
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .build();
+    }
+
+    private static User user(String username) {
+        return User.builder()
+                .username(username)
+                .password("secret")
+                .email(username + "@example.com")
+                .firstName("Remote")
+                .lastName("Node")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.ezequiel.reiunio.search;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.service.UserService;
+
+/**
+ * Rebuilds the identifier filter while a registration is still uncommitted, and checks
+ * that the new user is found once it commits. Also checks that a user this node's filter
+ * has not seen is still found by every lookup but the availability check.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserIdentifierFilterTest {
+
+    @Autowired
+    private UserIdentifierFilter userIdentifierFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByUsername("rebuildrace").ifPresent(userRepository::delete);
+        userRepository.findByUsername("othernode").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void userSavedDuringRebuildIsKept() throws Exception {
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> registration = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                userService.save(User.builder()
+                        .username("rebuildrace")
+                        .password("secret")
+                        .email("rebuildrace@example.com")
+                        .firstName("Rebuild Race")
+                        .role(Role.BASIC_USER)
+                        .registrationDate(LocalDate.now())
+                        .build());
+                saved.countDown();
+                try {
+                    // Keep the transaction open until the rebuild has read the committed users
+                    rebuilt.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            assertTrue(saved.await(30, TimeUnit.SECONDS));
+            userIdentifierFilter.rebuild();
+            rebuilt.countDown();
+            registration.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(userIdentifierFilter.mightContainUsername("rebuildrace"));
+        assertTrue(userIdentifierFilter.mightContainEmail("rebuildrace@example.com"));
+        assertTrue(userService.existsByUsername("rebuildrace"));
+        assertTrue(userService.findByEmail("rebuildrace@example.com").isPresent());
+    }
+
+    @Test
+    void userRegisteredOnAnotherNodeIsFound() {
+        userIdentifierFilter.rebuild();
+        // Saved without the user service, like a registration on another node
+        userRepository.save(User.builder()
+                .username("othernode")
+                .password("secret")
+                .email("othernode@example.com")
+                .firstName("Other Node")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+
+        assertTrue(userService.findByUsername("othernode").isPresent());
+        assertTrue(userService.findByEmail("othernode@example.com").isPresent());
+        assertTrue(userService.existsByUsername("othernode"));
+        assertTrue(userService.existsByEmail("othernode@example.com"));
+        assertFalse(userService.findUsernameHolder("othernode").isPresent(), "not in this node's filter yet");
+
+        userIdentifierFilter.rebuild();
+        assertTrue(userService.findUsernameHolder("othernode").isPresent());
+        assertTrue(userService.findEmailHolder("othernode@example.com").isPresent());
+    }
+}
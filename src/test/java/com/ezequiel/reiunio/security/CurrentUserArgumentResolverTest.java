@@ -0,0 +1,90 @@
+package com.ezequiel.reiunio.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+/**
+ * Changes the authenticated user behind the service's back, as another node would, and checks
+ * that the cached summary lags behind while the entity handed to write flows does not.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CurrentUserArgumentResolverTest {
+
+    @Autowired
+    private CurrentUserArgumentResolver resolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        userRepository.findByUsername("resolved").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void userParameterIsLoadedFromDatabase() throws Exception {
+        User user = userRepository.save(User.builder()
+                .username("resolved")
+                .password("secret")
+                .email("resolved@example.com")
+                .firstName("Before")
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "resolved", null, AuthorityUtils.createAuthorityList("ROLE_BASIC_USER")));
+        assertEquals("Before", summary().firstName());
+
+        user.setFirstName("After");
+        userRepository.save(user);
+
+        assertEquals("Before", summary().firstName(), "summary cached");
+        assertEquals("After", entity().getFirstName());
+        assertEquals(user.getId(), summary().id());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CurrentUserSummary summary() throws Exception {
+        return ((Optional<CurrentUserSummary>) resolve("summaryHandler", Optional.class)).orElseThrow();
+    }
+
+    private User entity() throws Exception {
+        return (User) resolve("entityHandler", User.class);
+    }
+
+    private Object resolve(String handler, Class<?> type) throws Exception {
+        Method method = CurrentUserArgumentResolverTest.class.getDeclaredMethod(handler, type);
+        MethodParameter parameter = new MethodParameter(method, 0);
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+        return resolver.resolveArgument(parameter, null, request, null);
+    }
+
+    @SuppressWarnings("unused")
+    private void summaryHandler(@CurrentUser Optional<CurrentUserSummary> user) {
+    }
+
+    @SuppressWarnings("unused")
+    private void entityHandler(@CurrentUser User user) {
+    }
+}
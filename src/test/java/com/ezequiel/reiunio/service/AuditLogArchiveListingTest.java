@@ -0,0 +1,191 @@
+package com.ezequiel.reiunio.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.audit.AuditLogExporter;
+import com.ezequiel.reiunio.entity.AuditLog;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.ActionType;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.pagination.CursorPage;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.scheduler.AuditLogRetentionJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Archives a month of audit entries and checks that the finders, the keyset listing and the
+ * export return the archived entries after, or for the export before, the ones in the table.
+ */
+@SpringBootTest(properties = "app.audit.archive.dir=" + AuditLogArchiveListingTest.ARCHIVE_DIR)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AuditLogArchiveListingTest {
+
+    static final String ARCHIVE_DIR = "target/audit-archive-listing-test";
+
+    private static final String ENTITY = "ArchiveListingTest";
+    private static final Sort NEWEST_FIRST = Sort.by("changeDateTime").descending();
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    @Autowired
+    private AuditLogRetentionJob auditLogRetentionJob;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User author;
+    private User other;
+
+    @BeforeAll
+    void archiveMonth() {
+        author = userRepository.save(user("archiveauthor"));
+        other = userRepository.save(user("archiveother"));
+        // Archived: five entries of the author and one of the other user, in January 2020
+        for (int day = 1; day <= 5; day++) {
+            insert(author, LocalDateTime.of(2020, 1, day, 12, 0), day <= 3 ? ActionType.MODIFICATION : ActionType.DELETION);
+        }
+        insert(other, LocalDateTime.of(2020, 1, 6, 12, 0), ActionType.MODIFICATION);
+        auditLogRetentionJob.archiveBefore(YearMonth.of(2020, 2));
+        // Left in the table: three recent entries of the author
+        for (int hour = 1; hour <= 3; hour++) {
+            insert(author, LocalDateTime.now().minusHours(hour), ActionType.CREATION);
+        }
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs WHERE affected_entity = ?", ENTITY);
+        userRepository.deleteAll(List.of(author, other));
+        FileSystemUtils.deleteRecursively(Paths.get(ARCHIVE_DIR).toFile());
+    }
+
+    @Test
+    void findersIncludeArchivedEntries() {
+        Page<AuditLog> first = auditLogService.findByUser(author, PageRequest.of(0, 5, NEWEST_FIRST));
+        Page<AuditLog> second = auditLogService.findByUser(author, PageRequest.of(1, 5, NEWEST_FIRST));
+
+        assertEquals(8, first.getTotalElements());
+        assertEquals(5, first.getContent().size());
+        assertEquals(3, second.getContent().size());
+        List<AuditLog> all = new ArrayList<>(first.getContent());
+        all.addAll(second.getContent());
+        assertNewestFirst(all);
+        assertTrue(all.stream().allMatch(log -> author.getId().equals(log.getUser().getId())));
+        assertEquals(8, auditLogService.findByUser(author).size());
+
+        assertEquals(2, auditLogService.findByActionType(ActionType.DELETION, PageRequest.of(0, 5)).getTotalElements()
+                - deletionsOutsideTest());
+        assertEquals(9, auditLogService.findByAffectedEntity(ENTITY, PageRequest.of(0, 20, NEWEST_FIRST)).getTotalElements());
+    }
+
+    @Test
+    void keysetListingContinuesIntoArchive() {
+        List<AuditLog> forward = new ArrayList<>();
+        List<CursorPage<AuditLog>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<AuditLog> page = auditLogService.findWithCombinedFiltersByCursor(null, ENTITY, null, null,
+                    4, cursor, true);
+            assertEquals(9, page.getTotalElements());
+            pages.add(page);
+            forward.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(9, forward.size());
+        assertEquals(9, forward.stream().map(AuditLog::getId).distinct().count());
+        assertNewestFirst(forward);
+
+        // Back from the last page, which only holds archived entries, to the first page of the table
+        CursorPage<AuditLog> page = pages.get(pages.size() - 1);
+        List<AuditLog> backward = new ArrayList<>(page.getContent());
+        while (page.getPreviousCursor() != null) {
+            page = auditLogService.findWithCombinedFiltersByCursor(null, ENTITY, null, null, 4,
+                    page.getPreviousCursor(), false);
+            backward.addAll(0, page.getContent());
+        }
+        assertEquals(forward.get(0).getId(), backward.get(0).getId());
+        assertTrue(backward.stream().map(AuditLog::getId).toList().containsAll(forward.stream().map(AuditLog::getId).toList()));
+        assertNull(page.getPreviousCursor());
+    }
+
+    @Test
+    void exportWritesArchivedEntriesFirst() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = auditLogService.exportWithCombinedFilters(null, ENTITY, null, null,
+                AuditLogExporter.Format.NDJSON, output);
+
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            dates.add(LocalDateTime.parse(node.path("changeDateTime").asText()));
+        }
+        assertEquals(9, written);
+        assertEquals(9, dates.size());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 12, 0), dates.get(0));
+        assertEquals(dates.stream().sorted().toList(), dates);
+    }
+
+    private long deletionsOutsideTest() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs WHERE action_type = 'DELETION' "
+                + "AND affected_entity <> ?", Long.class, ENTITY);
+    }
+
+    private void insert(User user, LocalDateTime date, ActionType actionType) {
+        jdbcTemplate.update("INSERT INTO audit_logs (user_id, change_date_time, action_type, affected_entity, description) "
+                + "VALUES (?, ?, ?, ?, ?)", user.getId(), Timestamp.valueOf(date), actionType.name(), ENTITY,
+                actionType + " at " + date);
+    }
+
+    private static void assertNewestFirst(List<AuditLog> logs) {
+        assertEquals(logs.stream().sorted(Comparator.comparing(AuditLog::getChangeDateTime).reversed()).toList(), logs);
+    }
+
+    private static User user(String username) {
+        return User.builder()
+                .username(username)
+                .password("secret")
+                .email(username + "@example.com")
+                .firstName(username)
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build();
+    }
+}
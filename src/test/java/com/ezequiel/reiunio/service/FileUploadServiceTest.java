@@ -0,0 +1,186 @@
+package com.ezequiel.reiunio.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+/**
+ * Stores uploads sent as raw request bodies into a temporary upload directory, through the
+ * service and through the streaming photo endpoints, and checks which ones are rejected.
+ */
+@SpringBootTest(properties = "app.upload.dir=" + FileUploadServiceTest.UPLOAD_DIR)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FileUploadServiceTest {
+
+    static final String UPLOAD_DIR = "target/file-upload-test/uploads";
+
+    private static final long MAX_SIZE = 2 * 1024 * 1024;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final Path uploadRoot = Paths.get(UPLOAD_DIR);
+
+    @BeforeEach
+    void clearUploads() {
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM upload_reservations");
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @Test
+    void storesStreamByContent() throws IOException {
+        byte[] image = png(1000);
+
+        String path = fileUploadService.uploadGamePhoto(new ByteArrayInputStream(image), image.length, 1L);
+
+        assertTrue(path.matches("/uploads/games/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.png"), path);
+        assertArrayEquals(image, Files.readAllBytes(uploadRoot.resolve(path.substring("/uploads/".length()))));
+        // Same bytes without a declared length: same file
+        assertEquals(path, fileUploadService.uploadGamePhoto(new ByteArrayInputStream(image), -1, 2L));
+        assertEquals(0, temporaryFiles());
+    }
+
+    @Test
+    void rejectsDeclaredLengthOverLimitWithoutReading() {
+        InputStream unread = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body read although its declared length is over the limit");
+            }
+        };
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fileUploadService.uploadUserPhoto(unread, MAX_SIZE + 1, 1L));
+        assertTrue(e.getMessage().contains("exceeds maximum allowed size"));
+    }
+
+    @Test
+    void rejectsOversizedStreamWithoutLength() throws IOException {
+        byte[] image = png((int) MAX_SIZE + 1);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fileUploadService.uploadGameSessionPhoto(new ByteArrayInputStream(image), -1, 1L));
+        assertTrue(e.getMessage().contains("exceeds maximum allowed size"));
+        // A client understating the length is caught the same way
+        assertThrows(IllegalArgumentException.class,
+                () -> fileUploadService.uploadGameSessionPhoto(new ByteArrayInputStream(image), 1000, 1L));
+        assertEquals(0, storedFiles());
+        assertEquals(0, temporaryFiles());
+    }
+
+    @Test
+    void rejectsWrongSignature() throws IOException {
+        byte[] script = "<?php echo 'not an image'; ?>".getBytes();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fileUploadService.uploadGamePhoto(new ByteArrayInputStream(script), script.length, 1L));
+        assertTrue(e.getMessage().startsWith("File type not allowed"));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileUploadService.uploadGamePhoto(new ByteArrayInputStream(new byte[0]), 0, 1L));
+        assertEquals(0, storedFiles());
+    }
+
+    @Test
+    void streamingEndpointStoresPhotoAndRejectsInvalidBodies() throws Exception {
+        Game game = gameRepository.save(Game.builder()
+                .name("Streamed game")
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .build());
+        String url = "/upload/game/" + game.getId() + "/photo/ajax";
+
+        mockMvc.perform(post(url).contentType("image/png").content(png(500)).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        String stored = gameRepository.findById(game.getId()).orElseThrow().getImagePath();
+        assertTrue(stored.startsWith("/uploads/games/") && stored.endsWith(".png"), stored);
+
+        mockMvc.perform(post(url).contentType("image/png").content("plain text, not an image".getBytes())
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(post(url).contentType("image/png").content(png((int) MAX_SIZE + 1))
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("File size exceeds maximum allowed size of 2MB"));
+        mockMvc.perform(post(url).contentType("image/png").content(png(500)).with(user("member").roles("BASIC_USER")))
+                .andExpect(status().isForbidden());
+        assertEquals(stored, gameRepository.findById(game.getId()).orElseThrow().getImagePath());
+    }
+
+    /** Bytes starting with the PNG signature; only the signature is checked on upload */
+    private static byte[] png(int length) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) 7);
+        System.arraycopy(PNG_SIGNATURE, 0, bytes, 0, PNG_SIGNATURE.length);
+        return bytes;
+    }
+
+    private long storedFiles() throws IOException {
+        if (!Files.exists(uploadRoot)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(uploadRoot)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .count();
+        }
+    }
+
+    private long temporaryFiles() throws IOException {
+        if (!Files.exists(uploadRoot)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(uploadRoot)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ezequiel.reiunio.service;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameFacets;
+import com.ezequiel.reiunio.enums.DurationBucket;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the catalog facets come from a single statement, and that each facet counts
+ * every option of its own filter while applying the others, and that the games list shows
+ * the counts.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GameFacetsTest {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        gameRepository.saveAll(List.of(
+                game("Facet Alpha", "Strategy", true, GameState.GOOD, 2, 4, 30),
+                game("Facet Beta", "Strategy", false, GameState.NEW, 2, 6, 90),
+                game("Facet Gamma", "Family", true, GameState.GOOD, 3, 4, 45),
+                game("Facet Delta", "Family", true, GameState.ACCEPTABLE, 2, 4, 180),
+                game("Other", "Strategy", true, GameState.GOOD, 2, 4, 30)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+    }
+
+    @Test
+    void facetsComeFromOneStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        gameService.findFacetsWithFilters("facet", "strategy", true, GameState.GOOD, 2, 4, null, null);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void eachFacetIgnoresItsOwnFilter() {
+        GameFacets facets = gameService.findFacetsWithFilters("facet", "strategy", true, GameState.GOOD, 2, 4,
+                null, null);
+
+        assertEquals(1, facets.getTotal());
+        // Every filter but the category: Alpha and Gamma
+        assertEquals(Map.of("Family", 1L, "Strategy", 1L), facets.getCategories());
+        // Every filter but availability: Alpha only, Beta is NEW
+        assertEquals(Map.of(true, 1L), facets.getAvailability());
+        // Every filter but the state: Alpha
+        assertEquals(1L, facets.getStates().get(GameState.GOOD));
+        assertEquals(0L, facets.getStates().get(GameState.NEW));
+        // Every filter but the minimum players: Alpha
+        assertEquals(Map.of(2, 1L), facets.getMinPlayers());
+        // Every filter but the maximum players: Alpha
+        assertEquals(Map.of(4, 1L), facets.getMaxPlayers());
+
+        GameFacets unfiltered = gameService.findFacetsWithFilters("facet", null, null, null, null, null, null, null);
+        assertEquals(4, unfiltered.getTotal());
+        assertEquals(Map.of(true, 3L, false, 1L), unfiltered.getAvailability());
+        assertEquals(Map.of(3, 1L, 2, 3L), unfiltered.getMinPlayers());
+        assertEquals(4L, unfiltered.getDurations().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1L, unfiltered.getDurations().get(DurationBucket.of(180)));
+    }
+
+    @Test
+    void listShowsFacetCounts() throws Exception {
+        mockMvc.perform(get("/games").param("name", "facet").with(user("browser")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Strategy (2)")))
+                .andExpect(content().string(containsString("Available (3)")))
+                .andExpect(content().string(containsString("GOOD (2)")))
+                .andExpect(content().string(containsString("ACCEPTABLE (1)")));
+    }
+
+    private static Game game(String name, String category, boolean available, GameState state, int minPlayers,
+                             int maxPlayers, int duration) {
+        return Game.builder()
+                .name(name)
+                .category(category)
+                .available(available)
+                .state(state)
+                .minPlayers(minPlayers)
+                .maxPlayers(maxPlayers)
+                .durationMinutes(duration)
+                .build();
+    }
+}
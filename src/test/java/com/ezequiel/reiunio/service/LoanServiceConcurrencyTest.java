@@ -0,0 +1,138 @@
+package com.ezequiel.reiunio.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.LoanStatus;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+
+/**
+ * Fires many parallel loan requests at a handful of games and checks that every game
+ * ends up with exactly one loan, no matter how the requests interleave.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LoanServiceConcurrencyTest {
+
+    private static final int GAMES = 8;
+    private static final int USERS = 40;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        loanRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelLoansHaveExactlyOneWinnerPerGame() throws Exception {
+        List<Long> gameIds = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            gameIds.add(gameRepository.save(Game.builder()
+                    .name("Stress game " + i)
+                    .minPlayers(2)
+                    .maxPlayers(4)
+                    .durationMinutes(60)
+                    .state(GameState.GOOD)
+                    .build()).getId());
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(User.builder()
+                    .username("stress" + i)
+                    .password("secret")
+                    .email("stress" + i + "@example.com")
+                    .firstName("Stress " + i)
+                    .role(Role.BASIC_USER)
+                    .registrationDate(LocalDate.now())
+                    .build()));
+        }
+
+        List<Runnable> attempts = new ArrayList<>();
+        Map<Long, AtomicInteger> winners = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        for (Long gameId : gameIds) {
+            winners.put(gameId, new AtomicInteger());
+            for (User user : users) {
+                attempts.add(() -> {
+                    // Each request works on its own copy, as a controller would
+                    Game game = gameRepository.findById(gameId).orElseThrow();
+                    try {
+                        loanService.createLoan(user, game, LocalDate.now().plusDays(7));
+                        winners.get(gameId).incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        }
+        Collections.shuffle(attempts);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Runnable attempt : attempts) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    attempt.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // Any exception other than a rejected loan fails the test here
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(GAMES * USERS - GAMES, rejected.get());
+        for (Long gameId : gameIds) {
+            assertEquals(1, winners.get(gameId).get(), "winners for game " + gameId);
+            Game game = gameRepository.findById(gameId).orElseThrow();
+            assertFalse(game.getAvailable());
+            assertEquals(1, loanRepository.findByGameAndStatus(game, LoanStatus.ACTIVE).size());
+        }
+        assertEquals(GAMES, loanRepository.count());
+    }
+}
@@ -0,0 +1,140 @@
+package com.ezequiel.reiunio.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.entity.GameBorrowDay;
+import com.ezequiel.reiunio.entity.Loan;
+import com.ezequiel.reiunio.entity.User;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.Role;
+import com.ezequiel.reiunio.repository.GameBorrowDayRepository;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.repository.LoanRepository;
+import com.ezequiel.reiunio.repository.UserRepository;
+import com.ezequiel.reiunio.service.LoanService;
+
+/**
+ * Creates, returns and deletes loans through the service and checks that the materialized
+ * borrow counters match a recount from the loans table, and that reconciling corrects a
+ * counter that drifted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BorrowCounterTest {
+
+    @Autowired
+    private BorrowCounter borrowCounter;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameBorrowDayRepository gameBorrowDayRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        loanRepository.deleteAll();
+        gameBorrowDayRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void countersMatchRecountAfterCreateReturnAndDelete() {
+        User alice = user("borrower1");
+        User bob = user("borrower2");
+        Game chess = game("Counted chess");
+        Game go = game("Counted go");
+
+        Loan first = loanService.createLoan(alice, chess, LocalDate.now().plusDays(7));
+        loanService.registerReturn(first.getId(), LocalDate.now());
+        Loan second = loanService.createLoan(bob, reload(chess), LocalDate.now().plusDays(7));
+        loanService.registerReturn(second.getId(), LocalDate.now().plusDays(10));
+        loanService.createLoan(alice, reload(chess), LocalDate.now().plusDays(7));
+        Loan deleted = loanService.createLoan(bob, go, LocalDate.now().plusDays(7));
+        loanService.deleteById(deleted.getId());
+
+        Map<Long, Long> counted = borrowCounts();
+        assertEquals(Map.of(chess.getId(), 3L, go.getId(), 0L), counted);
+        assertEquals(0, gameRepository.countBorrowCountDrift());
+        assertEquals(Map.of(chess.getId(), 3L), bucketTotals());
+
+        assertEquals(0, borrowCounter.reconcile());
+        assertEquals(counted, borrowCounts());
+        assertEquals(Map.of(chess.getId(), 3L), bucketTotals());
+    }
+
+    @Test
+    void reconcileCorrectsDriftedCounters() {
+        Game chess = game("Drifted chess");
+        loanService.createLoan(user("borrower1"), chess, LocalDate.now().plusDays(7));
+        jdbcTemplate.update("UPDATE games SET borrow_count = 7 WHERE id = ?", chess.getId());
+        jdbcTemplate.update("UPDATE game_borrow_days SET borrow_count = 5 WHERE game_id = ?", chess.getId());
+
+        assertEquals(1, borrowCounter.reconcile());
+
+        assertEquals(Map.of(chess.getId(), 1L), borrowCounts());
+        assertEquals(Map.of(chess.getId(), 1L), bucketTotals());
+    }
+
+    private Map<Long, Long> borrowCounts() {
+        return gameRepository.findAll().stream().collect(Collectors.toMap(Game::getId, Game::getBorrowCount));
+    }
+
+    /** Sum of the daily buckets per game, leaving out the buckets emptied by deleted loans */
+    private Map<Long, Long> bucketTotals() {
+        return gameBorrowDayRepository.findAll().stream()
+                .filter(day -> day.getBorrowCount() > 0)
+                .collect(Collectors.groupingBy(GameBorrowDay::getGameId,
+                        Collectors.summingLong(GameBorrowDay::getBorrowCount)));
+    }
+
+    private Game reload(Game game) {
+        return gameRepository.findById(game.getId()).orElseThrow();
+    }
+
+    private Game game(String name) {
+        return gameRepository.save(Game.builder()
+                .name(name)
+                .minPlayers(2)
+                .maxPlayers(2)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .build());
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("secret")
+                .email(username + "@example.com")
+                .firstName(username)
+                .role(Role.BASIC_USER)
+                .registrationDate(LocalDate.now())
+                .build());
+    }
+}
@@ -0,0 +1,168 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Checks the caching, conditional and range handling of {@link UploadFileServer} through
+ * {@code /uploads}, on a local store in a directory of its own.
+ */
+@SpringBootTest(properties = "app.upload.dir=" + UploadFileServerTest.UPLOAD_DIR)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UploadFileServerTest {
+
+    static final String UPLOAD_DIR = "target/upload-server-test";
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final String ORIGINAL = "/uploads/games/01/23/" + HASH + ".jpg";
+    private static final String ETAG = "\"" + HASH + "\"";
+    private static final byte[] CONTENT = new byte[1000];
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UploadFileServer uploadFileServer;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @BeforeAll
+    static void createFile() throws IOException {
+        new Random(42).nextBytes(CONTENT);
+        Path file = Paths.get(UPLOAD_DIR, ORIGINAL.substring("/uploads/".length()));
+        Files.createDirectories(file.getParent());
+        Files.write(file, CONTENT);
+    }
+
+    @Test
+    void servesContentAddressedFileAsImmutable() throws Exception {
+        mockMvc.perform(get(ORIGINAL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModified() throws Exception {
+        mockMvc.perform(get(ORIGINAL).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        mockMvc.perform(get(ORIGINAL).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 10, 20)));
+    }
+
+    @Test
+    void servesSuffixRange() throws Exception {
+        mockMvc.perform(get(ORIGINAL).header(HttpHeaders.RANGE, "bytes=-100"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 900-999/1000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 900, 1000)));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get(ORIGINAL).header(HttpHeaders.RANGE, "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        mockMvc.perform(get(ORIGINAL)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(CONTENT));
+
+        mockMvc.perform(get(ORIGINAL)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 10, 20)));
+    }
+
+    @Test
+    void fallsBackToOriginalUntilVariantExists() throws Exception {
+        mockMvc.perform(get("/uploads/games/01/23/" + HASH + "_256.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void answersMissingFileWithNotFound() throws Exception {
+        mockMvc.perform(get("/uploads/games/01/23/" + HASH.replace('0', 'f') + ".jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void neverServesTemporaryFiles() throws Exception {
+        Path temp = Paths.get(UPLOAD_DIR, "games/01/23/.upload123.tmp");
+        Files.write(temp, CONTENT);
+        try {
+            mockMvc.perform(get("/uploads/games/01/23/.upload123.tmp"))
+                    .andExpect(status().isNotFound());
+        } finally {
+            Files.delete(temp);
+        }
+    }
+
+    @Test
+    void stagesFilesOutsideUploadDirectory() throws IOException {
+        Path staged = blobStore.createStagingFile();
+        try {
+            assertFalse(staged.startsWith(Paths.get(UPLOAD_DIR).toAbsolutePath()), staged.toString());
+        } finally {
+            Files.delete(staged);
+        }
+    }
+
+    @Test
+    void answersTraversalWithNotFound() throws Exception {
+        // The security firewall already turns most of these away before the controller
+        for (String path : new String[] {"../application.properties", "games/../../pom.xml", "/etc/passwd"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + path);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            uploadFileServer.serve(request, response, path);
+            assertEquals(404, response.getStatus(), path);
+            assertArrayEquals(new byte[0], response.getContentAsByteArray(), path);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.enums.ImageSize;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+/**
+ * Migrates a game stored under the flat upload layout, in a temporary upload directory, and
+ * checks the row, the files and a second run.
+ */
+@SpringBootTest(properties = "app.upload.dir=" + UploadLayoutMigrationTest.UPLOAD_DIR)
+@ActiveProfiles("test")
+class UploadLayoutMigrationTest {
+
+    static final String UPLOAD_DIR = "target/upload-migration-test";
+
+    private static final String FLAT = "games/game_1_legacy.jpg";
+    private static final String SHARDED = "games/" + ShardedUploadLayout.pathOf("game_1_legacy.jpg");
+
+    @Autowired
+    private UploadLayoutMigration migration;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private final Path uploadRoot = Paths.get(UPLOAD_DIR);
+    private Long gameId;
+
+    @BeforeEach
+    void createFlatUpload() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadRoot);
+        write(FLAT);
+        write(ImageSize.MEDIUM.variantOf(FLAT));
+        gameId = gameRepository.save(Game.builder()
+                .name("Legacy game")
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .imagePath("/uploads/" + FLAT)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        gameRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(uploadRoot);
+    }
+
+    @Test
+    void movesFlatUploadToItsShard() throws IOException {
+        UploadLayoutMigration.Report report = migration.migrate();
+
+        assertEquals(1, report.rewrittenRows());
+        assertEquals(0, report.missingFiles());
+        assertEquals("/uploads/" + SHARDED, gameRepository.findById(gameId).orElseThrow().getImagePath());
+        assertArrayEquals(FLAT.getBytes(), Files.readAllBytes(uploadRoot.resolve(SHARDED)));
+        assertArrayEquals(ImageSize.MEDIUM.variantOf(FLAT).getBytes(),
+                Files.readAllBytes(uploadRoot.resolve(ImageSize.MEDIUM.variantOf(SHARDED))), "variant");
+        // Left for the collector, in case a stale entity writes the flat path back
+        assertTrue(Files.exists(uploadRoot.resolve(FLAT)), "flat file");
+    }
+
+    @Test
+    void secondRunChangesNothing() {
+        migration.migrate();
+
+        UploadLayoutMigration.Report report = migration.migrate();
+
+        assertEquals(0, report.rewrittenRows());
+        assertEquals(0, report.missingFiles());
+        assertEquals("/uploads/" + SHARDED, gameRepository.findById(gameId).orElseThrow().getImagePath());
+    }
+
+    @Test
+    void leavesRowWithMissingFileUnchanged() throws IOException {
+        Files.delete(uploadRoot.resolve(FLAT));
+
+        UploadLayoutMigration.Report report = migration.migrate();
+
+        assertEquals(0, report.rewrittenRows());
+        assertEquals(1, report.missingFiles());
+        assertEquals("/uploads/" + FLAT, gameRepository.findById(gameId).orElseThrow().getImagePath());
+    }
+
+    private void write(String relative) throws IOException {
+        Path file = uploadRoot.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.write(file, relative.getBytes());
+    }
+}
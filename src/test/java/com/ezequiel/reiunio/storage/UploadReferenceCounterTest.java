@@ -0,0 +1,107 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+import com.ezequiel.reiunio.service.FileUploadService;
+
+/**
+ * Uploads the same photo for two games into a temporary upload directory and checks that the
+ * shared file is counted once per game and only deleted when the last game releases it.
+ */
+@SpringBootTest(properties = {
+        "app.upload.dir=" + UploadReferenceCounterTest.UPLOAD_DIR,
+        // Uploads are released right after being stored, not a minute later
+        "app.upload.reuse-grace=PT0S"
+})
+@ActiveProfiles("test")
+class UploadReferenceCounterTest {
+
+    static final String UPLOAD_DIR = "target/upload-reference-test/uploads";
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private UploadReferenceCounter uploadReferenceCounter;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private final Path uploadRoot = Paths.get(UPLOAD_DIR);
+
+    @BeforeEach
+    void clearUploads() {
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+        FileSystemUtils.deleteRecursively(uploadRoot.toFile());
+    }
+
+    @Test
+    void keepsSharedFileUntilLastReferenceIsReleased() throws IOException {
+        byte[] image = jpeg();
+        Game first = saveGame("First owner", fileUploadService.uploadGamePhoto(photo("first.jpg", image), null));
+        Game second = saveGame("Second owner", fileUploadService.uploadGamePhoto(photo("second.JPEG", image), null));
+        String path = first.getImagePath();
+        Path file = uploadRoot.resolve(path.substring("/uploads/".length()));
+
+        assertEquals(path, second.getImagePath(), "same content, same file");
+        assertEquals(2, uploadReferenceCounter.count(path));
+
+        // The first owner releases its reference, then drops it
+        assertFalse(fileUploadService.deleteFile(path));
+        assertTrue(Files.exists(file), "kept for the second owner");
+        gameRepository.delete(first);
+        assertEquals(1, uploadReferenceCounter.count(path));
+
+        assertTrue(fileUploadService.deleteFile(path));
+        assertFalse(Files.exists(file), "deleted with the last reference");
+    }
+
+    private Game saveGame(String name, String imagePath) {
+        return gameRepository.save(Game.builder()
+                .name(name)
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .imagePath(imagePath)
+                .build());
+    }
+
+    private static MockMultipartFile photo(String fileName, byte[] content) {
+        return new MockMultipartFile("file", fileName, "image/jpeg", content);
+    }
+
+    private static byte[] jpeg() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "jpeg", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ezequiel.reiunio.entity.Game;
+import com.ezequiel.reiunio.enums.GameState;
+import com.ezequiel.reiunio.repository.GameRepository;
+
+/**
+ * Checks that removals of unreferenced uploads respect reservations and references, and that
+ * a reservation waits for a removal of the same path that holds the lock. Reservations left
+ * behind past their expiry no longer protect anything.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UploadReservationsTest {
+
+    private static final String PATH = "/uploads/games/ab/cd/" + "e".repeat(64) + ".jpg";
+
+    @Autowired
+    private UploadReservations uploadReservations;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        gameRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM upload_reservations");
+    }
+
+    @Test
+    void removesUnreservedUnreferencedUpload() throws Exception {
+        List<String> removed = new CopyOnWriteArrayList<>();
+
+        assertTrue(uploadReservations.removeIfUnreferenced(PATH, 0, () -> removed.add(PATH)));
+        assertEquals(List.of(PATH), removed);
+    }
+
+    @Test
+    void keepsReservedUpload() throws Exception {
+        uploadReservations.reserve(PATH);
+
+        assertFalse(uploadReservations.removeIfUnreferenced(PATH, 0, () -> {
+            throw new AssertionError("reserved upload removed");
+        }));
+    }
+
+    @Test
+    void ignoresExpiredReservation() throws Exception {
+        // Left behind by an upload whose store failed or whose entity was never saved
+        long past = System.currentTimeMillis() - 1000;
+        jdbcTemplate.update("INSERT INTO upload_reservations (path, reserved_at, expires_at) VALUES (?, ?, ?)",
+                PATH, past - 60_000, past);
+
+        assertTrue(uploadReservations.removeIfUnreferenced(PATH, 0, () -> { }));
+        assertEquals(0, reservations(PATH));
+    }
+
+    @Test
+    void purgesOnlyExpiredReservations() {
+        String expired = PATH.replace(".jpg", ".png");
+        long past = System.currentTimeMillis() - 1000;
+        jdbcTemplate.update("INSERT INTO upload_reservations (path, reserved_at, expires_at) VALUES (?, ?, ?)",
+                expired, past - 60_000, past);
+        uploadReservations.reserve(PATH);
+
+        assertEquals(1, uploadReservations.purgeExpired());
+        assertEquals(0, reservations(expired));
+        assertEquals(1, reservations(PATH));
+    }
+
+    @Test
+    void keepsUploadReferencedByOtherRows() throws Exception {
+        gameRepository.save(Game.builder()
+                .name("Reserved game")
+                .minPlayers(2)
+                .maxPlayers(4)
+                .durationMinutes(30)
+                .state(GameState.GOOD)
+                .imagePath(PATH)
+                .build());
+
+        assertFalse(uploadReservations.removeIfUnreferenced(PATH, 0, () -> {
+            throw new AssertionError("referenced upload removed");
+        }));
+        // The releasing owner's own reference
+        assertTrue(uploadReservations.removeIfUnreferenced(PATH, 1, () -> { }));
+    }
+
+    @Test
+    void reservationWaitsForRunningRemoval() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch removing = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> removal = executor.submit(() -> uploadReservations.removeIfUnreferenced(PATH, 0, () -> {
+                removing.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add("removed");
+            }));
+
+            assertTrue(removing.await(30, TimeUnit.SECONDS));
+            uploadReservations.reserve(PATH);
+            events.add("reserved");
+            assertTrue(removal.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of("removed", "reserved"), events);
+        assertFalse(uploadReservations.removeIfUnreferenced(PATH, 0, () -> {
+            throw new AssertionError("upload reserved after the removal removed again");
+        }));
+    }
+
+    private int reservations(String path) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM upload_reservations WHERE path = ?", Integer.class, path);
+    }
+}
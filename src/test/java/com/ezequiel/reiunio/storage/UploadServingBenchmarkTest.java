@@ -0,0 +1,135 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the throughput of {@link UploadFileServer} with the Spring resource handler that
+ * used to serve {@code /uploads}, over a real Tomcat connector so that sendfile is used.
+ *
+ * <p>Runs only when asked for: {@code mvn test -Dtest=UploadServingBenchmarkTest -Dbenchmark=true}.
+ * Results are logged; only the responses are checked, not the timings.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.upload.dir=" + UploadServingBenchmarkTest.UPLOAD_DIR,
+                "logging.level.com.ezequiel.reiunio.storage.UploadServingBenchmarkTest=INFO"})
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class UploadServingBenchmarkTest {
+
+    static final String UPLOAD_DIR = "target/benchmark-uploads";
+
+    /** Under a path the security configuration already lets through without logging in. */
+    private static final String BASELINE_PREFIX = "/images/benchmark/";
+
+    private static final int THREADS = 16;
+    private static final int WARMUP_REQUESTS = 500;
+
+    @TestConfiguration
+    static class BaselineResourceHandler implements WebMvcConfigurer {
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler(BASELINE_PREFIX + "**")
+                    .addResourceLocations("file:" + UPLOAD_DIR + "/");
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void createFiles() throws IOException {
+        Path directory = Paths.get(UPLOAD_DIR, "games");
+        Files.createDirectories(directory);
+        Random random = new Random(42);
+        for (int size : new int[] {32 * 1024, 1024 * 1024}) {
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(directory.resolve("bench_" + size + ".jpg"), content);
+        }
+    }
+
+    @Test
+    void compareThroughput() throws Exception {
+        log.info(String.format("%-10s %-16s %10s %10s %10s", "size", "handler", "requests", "req/s", "MB/s"));
+        for (int size : new int[] {32 * 1024, 1024 * 1024}) {
+            int requests = size > 64 * 1024 ? 2_000 : 5_000;
+            String file = "games/bench_" + size + ".jpg";
+            run("resource", BASELINE_PREFIX + file, size, requests);
+            run("upload-server", "/uploads/" + file, size, requests);
+        }
+    }
+
+    private void run(String label, String path, int size, int requests) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + path);
+        fetch(uri, size, WARMUP_REQUESTS);
+        long start = System.nanoTime();
+        fetch(uri, size, requests);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(String.format("%-10s %-16s %10d %10.0f %10.1f", size / 1024 + " KB", label, requests,
+                requests / seconds, (double) requests * size / seconds / (1024 * 1024)));
+    }
+
+    private void fetch(URI uri, int size, int requests) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(requests);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    byte[] buffer = new byte[64 * 1024];
+                    while (remaining.getAndDecrement() > 0) {
+                        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri).build(),
+                                HttpResponse.BodyHandlers.ofInputStream());
+                        long read = 0;
+                        try (InputStream body = response.body()) {
+                            int n;
+                            while ((n = body.read(buffer)) > 0) {
+                                read += n;
+                            }
+                        }
+                        assertEquals(200, response.statusCode());
+                        assertEquals(size, read);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ezequiel.reiunio.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Copies a local upload directory into another store and runs the copy again.
+ */
+class UploadStoreImportTest {
+
+    private static final String GAME = "games/ab/cd/" + "a".repeat(64) + ".jpg";
+    private static final String USER = "users/legacy.png";
+    private static final String TEMP = "games/ab/cd/.upload123.tmp";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void copiesMissingFilesOnce() throws IOException {
+        Path sourceRoot = directory.resolve("uploads");
+        for (String key : new String[] {GAME, USER, TEMP}) {
+            Path file = sourceRoot.resolve(key);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, key);
+        }
+        LocalBlobStore target = new LocalBlobStore(directory.resolve("bucket"));
+        Path existing = target.getRoot().resolve(USER);
+        Files.createDirectories(existing.getParent());
+        Files.writeString(existing, "already stored");
+        UploadStoreImport storeImport = new UploadStoreImport(target, sourceRoot.toString());
+
+        UploadStoreImport.Report report = storeImport.copy(new LocalBlobStore(sourceRoot));
+
+        assertEquals(new UploadStoreImport.Report(1, 1, 0), report);
+        assertArrayEquals(GAME.getBytes(), Files.readAllBytes(target.getRoot().resolve(GAME)));
+        assertEquals("already stored", Files.readString(existing));
+        assertFalse(target.exists(TEMP), "temporary file");
+
+        assertEquals(new UploadStoreImport.Report(0, 2, 0), storeImport.copy(new LocalBlobStore(sourceRoot)));
+    }
+}